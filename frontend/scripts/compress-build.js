@@ -0,0 +1,50 @@
+// Writes .gz and .br copies of the hashed assets in build/static, so the
+// backend can serve them precompressed (see StaticResourceConfig.java).
+// Runs automatically after `npm run build`.
+
+const fs = require("fs");
+const path = require("path");
+const zlib = require("zlib");
+
+const STATIC_DIR = path.join(__dirname, "..", "build", "static");
+const COMPRESSIBLE = /\.(js|css|map|svg|json|txt)$/;
+const MIN_SIZE = 1024;
+
+function walk(dir) {
+  return fs.readdirSync(dir, { withFileTypes: true }).flatMap((entry) => {
+    const file = path.join(dir, entry.name);
+    return entry.isDirectory() ? walk(file) : [file];
+  });
+}
+
+if (!fs.existsSync(STATIC_DIR)) {
+  console.log(`compress-build: ${STATIC_DIR} does not exist, nothing to do`);
+  process.exit(0);
+}
+
+let original = 0;
+let gzipped = 0;
+let brotli = 0;
+for (const file of walk(STATIC_DIR)) {
+  if (!COMPRESSIBLE.test(file)) {
+    continue;
+  }
+  const content = fs.readFileSync(file);
+  if (content.length < MIN_SIZE) {
+    continue;
+  }
+  const gz = zlib.gzipSync(content, { level: zlib.constants.Z_BEST_COMPRESSION });
+  const br = zlib.brotliCompressSync(content, {
+    params: {
+      [zlib.constants.BROTLI_PARAM_QUALITY]: zlib.constants.BROTLI_MAX_QUALITY,
+      [zlib.constants.BROTLI_PARAM_SIZE_HINT]: content.length,
+    },
+  });
+  fs.writeFileSync(`${file}.gz`, gz);
+  fs.writeFileSync(`${file}.br`, br);
+  original += content.length;
+  gzipped += gz.length;
+  brotli += br.length;
+}
+
+console.log(`compress-build: ${original} bytes -> gzip ${gzipped}, brotli ${brotli}`);
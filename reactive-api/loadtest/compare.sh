@@ -0,0 +1,50 @@
+#!/usr/bin/env bash
+#
+# Compares the servlet and reactive listing endpoints at increasing
+# connection counts with wrk (https://github.com/wg/wrk).
+#
+# Both apps must be running against the same database, and both require a
+# signed-in session; log in to each in a browser and copy its session cookie:
+#
+#   SERVLET_COOKIE='JSESSIONID=...' REACTIVE_COOKIE='SESSION=...' \
+#     reactive-api/loadtest/compare.sh
+#
+# Environment (defaults in brackets):
+#   SERVLET_URL   [http://localhost:8080/api/MenuItemReview/all]
+#   REACTIVE_URL  [http://localhost:8081/api/reactive/MenuItemReview/all]
+#   CONNECTIONS   [50 200 1000 4000]
+#   DURATION      [30s]
+#   THREADS       [8]
+
+set -euo pipefail
+
+SERVLET_URL=${SERVLET_URL:-http://localhost:8080/api/MenuItemReview/all}
+REACTIVE_URL=${REACTIVE_URL:-http://localhost:8081/api/reactive/MenuItemReview/all}
+CONNECTIONS=${CONNECTIONS:-50 200 1000 4000}
+DURATION=${DURATION:-30s}
+THREADS=${THREADS:-8}
+
+: "${SERVLET_COOKIE:?set SERVLET_COOKIE to the servlet app's session cookie}"
+: "${REACTIVE_COOKIE:?set REACTIVE_COOKIE to the reactive API's session cookie}"
+
+command -v wrk >/dev/null || { echo "wrk is not installed" >&2; exit 1; }
+
+run() {
+  local name=$1 url=$2 cookie=$3 connections=$4
+  local threads=$(( THREADS < connections ? THREADS : connections ))
+  wrk --latency -t "$threads" -c "$connections" -d "$DURATION" \
+      -H "Cookie: $cookie" -H "Accept: application/json" "$url" |
+    awk -v name="$name" -v c="$connections" '
+      /Requests\/sec/          { rps = $2 }
+      /^ +50%/                 { p50 = $2 }
+      /^ +99%/                 { p99 = $2 }
+      /Non-2xx or 3xx/         { errors += $NF }
+      /Socket errors/          { errors += $4 + $6 + $8 + $10 }
+      END { printf "%-9s %6d %12s %10s %10s %8d\n", name, c, rps, p50, p99, errors }'
+}
+
+printf "%-9s %6s %12s %10s %10s %8s\n" stack conns "req/s" p50 p99 errors
+for connections in $CONNECTIONS; do
+  run servlet "$SERVLET_URL" "$SERVLET_COOKIE" "$connections"
+  run reactive "$REACTIVE_URL" "$REACTIVE_COOKIE" "$connections"
+done
@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Read-only, non-blocking API over the example app's database.  It runs as
+ * its own process next to the servlet app (see docs/reactive-api.md) and
+ * never writes; the servlet app stays the owner of the schema.
+ */
+@SpringBootApplication
+public class ReactiveApiApplication {
+
+  public static void main(String[] args) {
+    SpringApplication.run(ReactiveApiApplication.class, args);
+  }
+}
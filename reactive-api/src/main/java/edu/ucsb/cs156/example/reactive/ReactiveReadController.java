@@ -0,0 +1,96 @@
+package edu.ucsb.cs156.example.reactive;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Reactive counterparts of the servlet app's listings and lookups for
+ * articles, menu item reviews, menu items and dining commons.  Responses are
+ * the same JSON; listings can also be requested as
+ * <code>application/x-ndjson</code>, which streams one row per line as it is
+ * read instead of building the whole array first.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+public class ReactiveReadController {
+
+  @Autowired
+  ReactiveReadRepository reactiveReadRepository;
+
+  @GetMapping(value = "/article/all", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+  public Flux<Article> allArticles() {
+    return reactiveReadRepository.findAllArticles();
+  }
+
+  @GetMapping("/article")
+  public Mono<Article> getArticleById(@RequestParam long id) {
+    return reactiveReadRepository.findArticleById(id)
+        .switchIfEmpty(Mono.error(() -> new EntityNotFoundException(Article.class, id)));
+  }
+
+  @GetMapping(value = "/MenuItemReview/all", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+  public Flux<MenuItemReview> allMenuItemReviews(@RequestParam(required = false) Long itemId) {
+    if (itemId == null) {
+      return reactiveReadRepository.findAllMenuItemReviews();
+    }
+    return reactiveReadRepository.findMenuItemReviewsByItemId(itemId);
+  }
+
+  @GetMapping("/MenuItemReview")
+  public Mono<MenuItemReview> getMenuItemReviewById(@RequestParam long id) {
+    return reactiveReadRepository.findMenuItemReviewById(id)
+        .switchIfEmpty(Mono.error(() -> new EntityNotFoundException(MenuItemReview.class, id)));
+  }
+
+  @GetMapping(value = "/ucsbdiningcommonsmenuitem/all", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+  public Flux<UCSBDiningCommonsMenuItem> allMenuItems(@RequestParam(required = false) String diningCommonsCode) {
+    if (diningCommonsCode == null) {
+      return reactiveReadRepository.findAllMenuItems();
+    }
+    return reactiveReadRepository.findMenuItemsByDiningCommonsCode(diningCommonsCode);
+  }
+
+  @GetMapping("/ucsbdiningcommonsmenuitem")
+  public Mono<UCSBDiningCommonsMenuItem> getMenuItemById(@RequestParam long id) {
+    return reactiveReadRepository.findMenuItemById(id)
+        .switchIfEmpty(Mono.error(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id)));
+  }
+
+  @GetMapping(value = "/ucsbdiningcommons/all", produces = { MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE })
+  public Flux<UCSBDiningCommons> allDiningCommons() {
+    return reactiveReadRepository.findAllDiningCommons();
+  }
+
+  @GetMapping("/ucsbdiningcommons")
+  public Mono<UCSBDiningCommons> getDiningCommonsByCode(@RequestParam String code) {
+    return reactiveReadRepository.findDiningCommonsByCode(code)
+        .switchIfEmpty(Mono.error(() -> new EntityNotFoundException(UCSBDiningCommons.class, code)));
+  }
+
+  @ExceptionHandler({ EntityNotFoundException.class })
+  @ResponseStatus(HttpStatus.NOT_FOUND)
+  public Object handleGenericException(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
+}
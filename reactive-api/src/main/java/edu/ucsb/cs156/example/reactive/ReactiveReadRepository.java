@@ -0,0 +1,132 @@
+package edu.ucsb.cs156.example.reactive;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import io.r2dbc.spi.Row;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Queries for the reactive API, written against the tables the Flyway
+ * migrations create and mapped onto the same entity classes the servlet app
+ * uses.  Rows are emitted as the driver reads them.
+ */
+@Repository
+public class ReactiveReadRepository {
+
+  private static final String ARTICLES = """
+      SELECT id, title, url, explanation, email, date_added, change_seq FROM articles""";
+  private static final String MENU_ITEM_REVIEWS = """
+      SELECT id, item_id, reviewer_email, stars, date_reviewed, comments, change_seq FROM menuitemreview""";
+  private static final String MENU_ITEMS = """
+      SELECT id, dining_commons_code, name, station, change_seq FROM ucsbdiningcommonsmenuitem""";
+  private static final String DINING_COMMONS = """
+      SELECT code, name, has_sack_meal, has_take_out_meal, has_dining_cam, latitude, longitude, change_seq
+      FROM ucsbdiningcommons""";
+
+  @Autowired
+  DatabaseClient databaseClient;
+
+  public Flux<Article> findAllArticles() {
+    return databaseClient.sql(ARTICLES + " ORDER BY id").map(ReactiveReadRepository::article).all();
+  }
+
+  public Mono<Article> findArticleById(long id) {
+    return databaseClient.sql(ARTICLES + " WHERE id = :id").bind("id", id)
+        .map(ReactiveReadRepository::article).one();
+  }
+
+  public Flux<MenuItemReview> findAllMenuItemReviews() {
+    return databaseClient.sql(MENU_ITEM_REVIEWS + " ORDER BY id").map(ReactiveReadRepository::menuItemReview).all();
+  }
+
+  public Flux<MenuItemReview> findMenuItemReviewsByItemId(long itemId) {
+    return databaseClient.sql(MENU_ITEM_REVIEWS + " WHERE item_id = :itemId ORDER BY id").bind("itemId", itemId)
+        .map(ReactiveReadRepository::menuItemReview).all();
+  }
+
+  public Mono<MenuItemReview> findMenuItemReviewById(long id) {
+    return databaseClient.sql(MENU_ITEM_REVIEWS + " WHERE id = :id").bind("id", id)
+        .map(ReactiveReadRepository::menuItemReview).one();
+  }
+
+  public Flux<UCSBDiningCommonsMenuItem> findAllMenuItems() {
+    return databaseClient.sql(MENU_ITEMS + " ORDER BY id").map(ReactiveReadRepository::menuItem).all();
+  }
+
+  public Flux<UCSBDiningCommonsMenuItem> findMenuItemsByDiningCommonsCode(String diningCommonsCode) {
+    return databaseClient.sql(MENU_ITEMS + " WHERE dining_commons_code = :code ORDER BY id")
+        .bind("code", diningCommonsCode)
+        .map(ReactiveReadRepository::menuItem).all();
+  }
+
+  public Mono<UCSBDiningCommonsMenuItem> findMenuItemById(long id) {
+    return databaseClient.sql(MENU_ITEMS + " WHERE id = :id").bind("id", id)
+        .map(ReactiveReadRepository::menuItem).one();
+  }
+
+  public Flux<UCSBDiningCommons> findAllDiningCommons() {
+    return databaseClient.sql(DINING_COMMONS + " ORDER BY code").map(ReactiveReadRepository::diningCommons).all();
+  }
+
+  public Mono<UCSBDiningCommons> findDiningCommonsByCode(String code) {
+    return databaseClient.sql(DINING_COMMONS + " WHERE code = :code").bind("code", code)
+        .map(ReactiveReadRepository::diningCommons).one();
+  }
+
+  private static Article article(Row row) {
+    return Article.builder()
+        .id(row.get("id", Long.class))
+        .title(row.get("title", String.class))
+        .url(row.get("url", String.class))
+        .explanation(row.get("explanation", String.class))
+        .email(row.get("email", String.class))
+        .dateAdded(row.get("date_added", LocalDateTime.class))
+        .changeSeq(row.get("change_seq", Long.class))
+        .build();
+  }
+
+  private static MenuItemReview menuItemReview(Row row) {
+    return MenuItemReview.builder()
+        .id(row.get("id", Long.class))
+        .itemId(row.get("item_id", Long.class))
+        .reviewerEmail(row.get("reviewer_email", String.class))
+        .stars(row.get("stars", Integer.class))
+        .dateReviewed(row.get("date_reviewed", LocalDateTime.class))
+        .comments(row.get("comments", String.class))
+        .changeSeq(row.get("change_seq", Long.class))
+        .build();
+  }
+
+  private static UCSBDiningCommonsMenuItem menuItem(Row row) {
+    return UCSBDiningCommonsMenuItem.builder()
+        .id(row.get("id", Long.class))
+        .diningCommonsCode(row.get("dining_commons_code", String.class))
+        .name(row.get("name", String.class))
+        .station(row.get("station", String.class))
+        .changeSeq(row.get("change_seq", Long.class))
+        .build();
+  }
+
+  private static UCSBDiningCommons diningCommons(Row row) {
+    return UCSBDiningCommons.builder()
+        .code(row.get("code", String.class))
+        .name(row.get("name", String.class))
+        .hasSackMeal(row.get("has_sack_meal", Boolean.class))
+        .hasTakeOutMeal(row.get("has_take_out_meal", Boolean.class))
+        .hasDiningCam(row.get("has_dining_cam", Boolean.class))
+        .latitude(row.get("latitude", Double.class))
+        .longitude(row.get("longitude", Double.class))
+        .changeSeq(row.get("change_seq", Long.class))
+        .build();
+  }
+}
@@ -0,0 +1,33 @@
+package edu.ucsb.cs156.example.reactive;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+
+/**
+ * The same rule as the servlet app's listings: any user signed in with
+ * Google (who gets <code>ROLE_USER</code>) may read.  Sessions are not shared
+ * with the servlet app, so users sign in to this API separately.  There are
+ * only GET endpoints, so CSRF protection is off.
+ */
+@Configuration
+@EnableWebFluxSecurity
+public class SecurityConfig {
+
+  @Bean
+  public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
+    return http
+        .authorizeExchange(exchanges -> exchanges
+            .pathMatchers("/api/reactive/**").hasRole("USER")
+            .anyExchange().permitAll())
+        .exceptionHandling(handling -> handling
+            .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN)))
+        .oauth2Login(oauth2 -> { })
+        .csrf(csrf -> csrf.disable())
+        .build();
+  }
+}
@@ -0,0 +1,199 @@
+package edu.ucsb.cs156.example.reactive;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ActiveProfiles("test")
+@WebFluxTest(controllers = ReactiveReadController.class)
+@Import(SecurityConfig.class)
+public class ReactiveReadControllerTests {
+
+  @Autowired
+  WebTestClient webTestClient;
+
+  @MockBean
+  ReactiveReadRepository reactiveReadRepository;
+
+  private final Article article1 = Article.builder()
+      .id(1)
+      .title("Reactive Streams")
+      .url("https://www.reactive-streams.org/")
+      .explanation("the specification behind Flux and Mono")
+      .email("cgaucho@ucsb.edu")
+      .dateAdded(LocalDateTime.parse("2022-10-01T00:00:00"))
+      .changeSeq(4L)
+      .build();
+
+  private final Article article2 = Article.builder()
+      .id(2)
+      .title("R2DBC")
+      .url("https://r2dbc.io/")
+      .explanation("non-blocking database drivers")
+      .email("ldelplaya@ucsb.edu")
+      .dateAdded(LocalDateTime.parse("2022-10-02T00:00:00"))
+      .changeSeq(5L)
+      .build();
+
+  @Test
+  public void logged_out_users_cannot_get_all() {
+    webTestClient.get().uri("/api/reactive/article/all")
+        .exchange()
+        .expectStatus().isForbidden();
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void logged_in_user_can_get_all_articles() {
+    when(reactiveReadRepository.findAllArticles()).thenReturn(Flux.just(article1, article2));
+
+    List<Article> articles = webTestClient.get().uri("/api/reactive/article/all")
+        .accept(MediaType.APPLICATION_JSON)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+        .expectBodyList(Article.class)
+        .returnResult()
+        .getResponseBody();
+
+    assertEquals(List.of(article1, article2), articles);
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void listings_stream_as_ndjson() {
+    when(reactiveReadRepository.findAllArticles()).thenReturn(Flux.just(article1, article2));
+
+    String body = webTestClient.get().uri("/api/reactive/article/all")
+        .accept(MediaType.APPLICATION_NDJSON)
+        .exchange()
+        .expectStatus().isOk()
+        .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+        .expectBody(String.class)
+        .returnResult()
+        .getResponseBody();
+
+    String[] lines = body.strip().split("\n");
+    assertEquals(2, lines.length);
+    assertEquals(true, lines[0].contains("\"title\":\"Reactive Streams\""));
+    assertEquals(true, lines[1].contains("\"title\":\"R2DBC\""));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void logged_in_user_can_get_article_by_id() {
+    when(reactiveReadRepository.findArticleById(1L)).thenReturn(Mono.just(article1));
+
+    webTestClient.get().uri("/api/reactive/article?id=1")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBody(Article.class).isEqualTo(article1);
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void missing_article_is_a_404_with_the_servlet_apps_error_body() {
+    when(reactiveReadRepository.findArticleById(7L)).thenReturn(Mono.empty());
+
+    webTestClient.get().uri("/api/reactive/article?id=7")
+        .exchange()
+        .expectStatus().isNotFound()
+        .expectBody()
+        .jsonPath("$.type").isEqualTo("EntityNotFoundException")
+        .jsonPath("$.message").isEqualTo("Article with id 7 not found");
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void menu_item_reviews_can_be_filtered_by_item() {
+    MenuItemReview review = MenuItemReview.builder()
+        .id(3L)
+        .itemId(9L)
+        .reviewerEmail("cgaucho@ucsb.edu")
+        .stars(5)
+        .dateReviewed(LocalDateTime.parse("2022-10-03T12:00:00"))
+        .comments("great pasta")
+        .build();
+    when(reactiveReadRepository.findMenuItemReviewsByItemId(9L)).thenReturn(Flux.just(review));
+
+    webTestClient.get().uri("/api/reactive/MenuItemReview/all?itemId=9")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBodyList(MenuItemReview.class).containsExactly(review);
+
+    verify(reactiveReadRepository, never()).findAllMenuItemReviews();
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void menu_items_can_be_filtered_by_dining_commons() {
+    UCSBDiningCommonsMenuItem item = UCSBDiningCommonsMenuItem.builder()
+        .id(2)
+        .diningCommonsCode("ortega")
+        .name("Baked Pesto Pasta with Chicken")
+        .station("Entree Specials")
+        .build();
+    when(reactiveReadRepository.findMenuItemsByDiningCommonsCode("ortega")).thenReturn(Flux.just(item));
+
+    webTestClient.get().uri("/api/reactive/ucsbdiningcommonsmenuitem/all?diningCommonsCode=ortega")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBodyList(UCSBDiningCommonsMenuItem.class).containsExactly(item);
+
+    verify(reactiveReadRepository, never()).findAllMenuItems();
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void missing_dining_commons_is_a_404() {
+    when(reactiveReadRepository.findDiningCommonsByCode("portola")).thenReturn(Mono.empty());
+
+    webTestClient.get().uri("/api/reactive/ucsbdiningcommons?code=portola")
+        .exchange()
+        .expectStatus().isNotFound()
+        .expectBody()
+        .jsonPath("$.message").isEqualTo("UCSBDiningCommons with id portola not found");
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void logged_in_user_can_get_all_dining_commons() {
+    UCSBDiningCommons carrillo = UCSBDiningCommons.builder()
+        .code("carrillo")
+        .name("Carrillo")
+        .hasSackMeal(false)
+        .hasTakeOutMeal(false)
+        .hasDiningCam(true)
+        .latitude(34.409953)
+        .longitude(-119.85277)
+        .build();
+    when(reactiveReadRepository.findAllDiningCommons()).thenReturn(Flux.just(carrillo));
+
+    webTestClient.get().uri("/api/reactive/ucsbdiningcommons/all")
+        .exchange()
+        .expectStatus().isOk()
+        .expectBodyList(UCSBDiningCommons.class).containsExactly(carrillo);
+  }
+}
@@ -0,0 +1,118 @@
+package edu.ucsb.cs156.example.reactive;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.r2dbc.DataR2dbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+
+/**
+ * Runs the queries against an in-memory H2 database built from the servlet
+ * app's Flyway migrations, so a column renamed there fails here too.
+ */
+@ActiveProfiles("test")
+@DataR2dbcTest
+@Import(ReactiveReadRepository.class)
+public class ReactiveReadRepositoryTests {
+
+  @Autowired
+  DatabaseClient databaseClient;
+
+  @Autowired
+  ReactiveReadRepository reactiveReadRepository;
+
+  @BeforeEach
+  public void loadRows() {
+    Flux.concat(
+        databaseClient.sql("DELETE FROM articles").then(),
+        databaseClient.sql("DELETE FROM menuitemreview").then(),
+        databaseClient.sql("DELETE FROM ucsbdiningcommonsmenuitem").then(),
+        databaseClient.sql("DELETE FROM ucsbdiningcommons").then(),
+        databaseClient.sql("""
+            INSERT INTO articles (id, title, url, explanation, email, date_added, change_seq)
+            VALUES (1, 'R2DBC', 'https://r2dbc.io/', 'drivers', 'cgaucho@ucsb.edu', TIMESTAMP '2022-10-02 00:00:00', 3),
+                   (2, 'WebFlux', 'https://spring.io/', 'framework', 'ldelplaya@ucsb.edu', TIMESTAMP '2022-10-03 00:00:00', NULL)
+            """).then(),
+        databaseClient.sql("""
+            INSERT INTO menuitemreview (id, item_id, reviewer_email, stars, date_reviewed, comments)
+            VALUES (1, 9, 'cgaucho@ucsb.edu', 5, TIMESTAMP '2022-10-03 12:00:00', 'great'),
+                   (2, 8, 'ldelplaya@ucsb.edu', 2, TIMESTAMP '2022-10-04 12:00:00', 'cold')
+            """).then(),
+        databaseClient.sql("""
+            INSERT INTO ucsbdiningcommonsmenuitem (id, dining_commons_code, name, station)
+            VALUES (1, 'ortega', 'Pesto Pasta', 'Entrees'), (2, 'carrillo', 'Tofu Bowl', 'Grill')
+            """).then(),
+        databaseClient.sql("""
+            INSERT INTO ucsbdiningcommons (code, name, has_sack_meal, has_take_out_meal, has_dining_cam, latitude, longitude)
+            VALUES ('ortega', 'Ortega', TRUE, TRUE, FALSE, 34.410987, -119.84709)
+            """).then())
+        .blockLast();
+  }
+
+  @Test
+  public void articles_are_mapped_onto_the_entity_in_id_order() {
+    StepVerifier.create(reactiveReadRepository.findAllArticles())
+        .expectNext(Article.builder()
+            .id(1)
+            .title("R2DBC")
+            .url("https://r2dbc.io/")
+            .explanation("drivers")
+            .email("cgaucho@ucsb.edu")
+            .dateAdded(LocalDateTime.parse("2022-10-02T00:00:00"))
+            .changeSeq(3L)
+            .build())
+        .expectNextMatches(article -> article.getId() == 2 && article.getChangeSeq() == null)
+        .verifyComplete();
+  }
+
+  @Test
+  public void lookups_complete_empty_when_the_row_is_missing() {
+    StepVerifier.create(reactiveReadRepository.findArticleById(99L)).verifyComplete();
+    StepVerifier.create(reactiveReadRepository.findDiningCommonsByCode("portola")).verifyComplete();
+  }
+
+  @Test
+  public void menu_item_reviews_filter_by_item() {
+    StepVerifier.create(reactiveReadRepository.findMenuItemReviewsByItemId(9L))
+        .expectNextMatches((MenuItemReview review) -> review.getId() == 1L && review.getStars() == 5)
+        .verifyComplete();
+    StepVerifier.create(reactiveReadRepository.findMenuItemReviewById(2L))
+        .expectNextMatches(review -> review.getComments().equals("cold"))
+        .verifyComplete();
+  }
+
+  @Test
+  public void menu_items_filter_by_dining_commons() {
+    StepVerifier.create(reactiveReadRepository.findMenuItemsByDiningCommonsCode("carrillo"))
+        .expectNextMatches((UCSBDiningCommonsMenuItem item) -> item.getName().equals("Tofu Bowl"))
+        .verifyComplete();
+    StepVerifier.create(reactiveReadRepository.findAllMenuItems()).expectNextCount(2).verifyComplete();
+  }
+
+  @Test
+  public void dining_commons_booleans_and_coordinates_are_mapped() {
+    StepVerifier.create(reactiveReadRepository.findDiningCommonsByCode("ortega"))
+        .expectNext(UCSBDiningCommons.builder()
+            .code("ortega")
+            .name("Ortega")
+            .hasSackMeal(true)
+            .hasTakeOutMeal(true)
+            .hasDiningCam(false)
+            .latitude(34.410987)
+            .longitude(-119.84709)
+            .build())
+        .verifyComplete();
+  }
+}
@@ -0,0 +1,40 @@
+#!/usr/bin/env bash
+# Compares time to ready and peak resident memory of the application
+# started with only the JDK's built-in class data sharing archive and with
+# the application archive recorded by the training run.  Like the training
+# run, each start uses the production profile with an in-memory H2 database,
+# and exits as soon as the application is ready (app.exit-when-ready).
+# Needs GNU time (/usr/bin/time).
+#
+#   target/cds/benchmark.sh [runs]
+set -euo pipefail
+DIR="$(cd "$(dirname "$0")" && pwd)"
+RUNS="${1:-5}"
+APP_ARGS=(--server.port=0 --spring.profiles.active=production --spring.datasource.url=jdbc:h2:mem:cds-benchmark
+  --spring.datasource.username=sa --spring.datasource.password=
+  --spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect)
+
+measure() {
+  local label="$1"
+  shift
+  local total_seconds=0 total_rss=0
+  for run in $(seq "$RUNS"); do
+    local output seconds rss
+    output=$(/usr/bin/time -f 'maxrss_kb=%M' java "$@" -Dapp.exit-when-ready=true -jar "$DIR/@JAR@" "${APP_ARGS[@]}" 2>&1)
+    seconds=$(sed -n 's/.*Started ExampleApplication in [0-9.]* seconds (JVM running for \([0-9.]*\)).*/\1/p' <<<"$output" | tail -1)
+    rss=$(sed -n 's/^maxrss_kb=\([0-9]*\)$/\1/p' <<<"$output" | tail -1)
+    if [ -z "$seconds" ] || [ -z "$rss" ]; then
+      echo "$label run $run did not start; output follows" >&2
+      echo "$output" >&2
+      exit 1
+    fi
+    total_seconds=$(awk -v a="$total_seconds" -v b="$seconds" 'BEGIN { print a + b }')
+    total_rss=$((total_rss + rss))
+  done
+  awk -v label="$label" -v s="$total_seconds" -v r="$total_rss" -v n="$RUNS" \
+    'BEGIN { printf "%-12s %6.2f s to ready %10.1f MB peak RSS\n", label, s / n, r / n / 1024 }'
+}
+
+echo "average of $RUNS starts"
+measure "JDK archive" -Xshare:auto
+measure "app archive" -XX:SharedArchiveFile="$DIR/app.jsa" -Xshare:auto
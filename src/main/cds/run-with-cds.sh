@@ -0,0 +1,9 @@
+#!/usr/bin/env bash
+# Starts the application with the class data sharing archive recorded by
+# the training run in "mvn -P production,cds package" (see docs/app-cds.md).
+# JVM options can be added with JAVA_OPTS; arguments go to the application.
+#
+# The archive only matches the JDK that recorded it.  With another JDK the
+# JVM prints a warning and starts without it.
+DIR="$(cd "$(dirname "$0")" && pwd)"
+exec java -XX:SharedArchiveFile="$DIR/app.jsa" -Xshare:auto $JAVA_OPTS -jar "$DIR/@JAR@" "$@"
@@ -2,12 +2,18 @@ package edu.ucsb.cs156.example;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
 
 @SpringBootApplication
 public class ExampleApplication {
 
+  /** Most startup steps recorded for the startup report; later steps are dropped. */
+  public static final int STARTUP_TIMELINE_CAPACITY = 8192;
+
   public static void main(String[] args) {
-    SpringApplication.run(ExampleApplication.class, args);
+    SpringApplication application = new SpringApplication(ExampleApplication.class);
+    application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_TIMELINE_CAPACITY));
+    application.run(args);
   }
 
 }
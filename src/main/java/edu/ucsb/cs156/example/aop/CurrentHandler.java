@@ -0,0 +1,43 @@
+package edu.ucsb.cs156.example.aop;
+
+/**
+ * The controller method handling the current thread's request, as
+ * <code>ControllerName.method</code>.  {@link LoggingAspect} sets it around
+ * every handler so that code further down, such as the connection pool
+ * monitor, can attribute its work to an endpoint.
+ */
+public final class CurrentHandler {
+  private static final ThreadLocal<String> HANDLER = new ThreadLocal<>();
+
+  private CurrentHandler() {
+  }
+
+  /** The current handler, or null outside a request. */
+  public static String get() {
+    return HANDLER.get();
+  }
+
+  /** Sets the current handler (null clears it) and returns the previous one. */
+  public static String set(String handler) {
+    String previous = HANDLER.get();
+    if (handler == null) {
+      HANDLER.remove();
+    } else {
+      HANDLER.set(handler);
+    }
+    return previous;
+  }
+
+  /** Wraps <code>task</code> to run with the caller's current handler. */
+  public static Runnable wrap(Runnable task) {
+    String handler = get();
+    return () -> {
+      String previous = set(handler);
+      try {
+        task.run();
+      } finally {
+        set(previous);
+      }
+    };
+  }
+}
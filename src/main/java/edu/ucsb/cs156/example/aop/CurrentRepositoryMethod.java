@@ -0,0 +1,30 @@
+package edu.ucsb.cs156.example.aop;
+
+/**
+ * The repository method the current thread is inside, as
+ * <code>RepositoryName.method</code>.  {@link RepositoryAspect} sets it
+ * around every repository call so that the statements Hibernate issues can
+ * be attributed to the call that caused them.
+ */
+public final class CurrentRepositoryMethod {
+  private static final ThreadLocal<String> METHOD = new ThreadLocal<>();
+
+  private CurrentRepositoryMethod() {
+  }
+
+  /** The current repository method, or null outside one. */
+  public static String get() {
+    return METHOD.get();
+  }
+
+  /** Sets the current repository method (null clears it) and returns the previous one. */
+  public static String set(String method) {
+    String previous = METHOD.get();
+    if (method == null) {
+      METHOD.remove();
+    } else {
+      METHOD.set(method);
+    }
+    return previous;
+  }
+}
@@ -1,10 +1,9 @@
 package edu.ucsb.cs156.example.aop;
 
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.annotation.Around;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -32,16 +31,28 @@ public class LoggingAspect {
   private ArrayList<String> stoplist = new ArrayList<String>(Arrays.asList(
       "edu.ucsb.cs156.example.controllers.FrontendProxyController"));
 
-  @Before(pointcut)
-  public void logControllers(JoinPoint joinPoint) {
+  /**
+   * Logs each request's handler and records it as the {@link CurrentHandler}
+   * while it runs.
+   */
+  @Around(pointcut)
+  public Object logControllers(ProceedingJoinPoint joinPoint) throws Throwable {
+    String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
     getCurrentHttpRequest().ifPresent(
         request -> {
-          String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
           if (!stoplist.contains(declaringTypeName)) {
             log.info("===== %s %s handled by %s in %s".formatted(request.getMethod(), request.getRequestURI(),
                 joinPoint.getSignature().getName(), declaringTypeName));
           }
         });
+
+    String previous = CurrentHandler.set(
+        joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName());
+    try {
+      return joinPoint.proceed();
+    } finally {
+      CurrentHandler.set(previous);
+    }
   }
 
   private static Optional<HttpServletRequest> getCurrentHttpRequest() {
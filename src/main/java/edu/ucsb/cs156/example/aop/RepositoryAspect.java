@@ -0,0 +1,47 @@
+package edu.ucsb.cs156.example.aop;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the {@link CurrentRepositoryMethod} around calls to this
+ * application's Spring Data repositories.  The outermost call wins, so a
+ * custom repository method that calls another is reported as itself.
+ */
+@Aspect
+@Component
+public class RepositoryAspect {
+  private static final String REPOSITORIES_PACKAGE = "edu.ucsb.cs156.example.repositories";
+
+  // repository proxy class -> simple name of the interface it implements
+  private final Map<Class<?>, String> names = new ConcurrentHashMap<>();
+
+  @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+  public Object recordRepositoryMethod(ProceedingJoinPoint joinPoint) throws Throwable {
+    if (CurrentRepositoryMethod.get() != null) {
+      return joinPoint.proceed();
+    }
+    CurrentRepositoryMethod.set(repositoryName(joinPoint.getThis()) + "." + joinPoint.getSignature().getName());
+    try {
+      return joinPoint.proceed();
+    } finally {
+      CurrentRepositoryMethod.set(null);
+    }
+  }
+
+  private String repositoryName(Object repository) {
+    return names.computeIfAbsent(repository.getClass(), type -> Arrays.stream(
+        AopProxyUtils.proxiedUserInterfaces(repository))
+        .filter(iface -> iface.getName().startsWith(REPOSITORIES_PACKAGE))
+        .findFirst()
+        .orElse(type)
+        .getSimpleName());
+  }
+}
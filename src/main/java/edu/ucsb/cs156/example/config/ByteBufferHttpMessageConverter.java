@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.config;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes a <code>ResponseEntity&lt;ByteBuffer&gt;</code> body straight from
+ * the buffer to the response stream, so a
+ * {@link edu.ucsb.cs156.example.services.ResponseCache} hit is sent from its
+ * direct buffer without first being copied into a byte array the size of
+ * the response.
+ *
+ * The buffer's position is left alone (the bytes are written from a
+ * duplicate), so many requests can share one cached buffer.  The caller
+ * sets the content type; this converter only moves bytes and never reads
+ * request bodies.
+ */
+@Component
+public class ByteBufferHttpMessageConverter extends AbstractHttpMessageConverter<ByteBuffer> {
+
+  public ByteBufferHttpMessageConverter() {
+    super(MediaType.ALL);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return ByteBuffer.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  protected boolean canRead(MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  protected ByteBuffer readInternal(Class<? extends ByteBuffer> clazz, HttpInputMessage inputMessage) {
+    throw new HttpMessageNotReadableException("ByteBuffer request bodies are not supported", inputMessage);
+  }
+
+  @Override
+  protected Long getContentLength(ByteBuffer buffer, MediaType contentType) {
+    return (long) buffer.remaining();
+  }
+
+  @Override
+  protected void writeInternal(ByteBuffer buffer, HttpOutputMessage outputMessage) throws IOException {
+    ByteBuffer bytes = buffer.duplicate();
+    // not closed: the container owns the response stream
+    WritableByteChannel channel = Channels.newChannel(outputMessage.getBody());
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+  }
+}
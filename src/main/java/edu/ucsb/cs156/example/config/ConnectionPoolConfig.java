@@ -0,0 +1,55 @@
+package edu.ucsb.cs156.example.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import edu.ucsb.cs156.example.services.ConnectionPoolMonitor;
+import edu.ucsb.cs156.example.services.QueryStatistics;
+import edu.ucsb.cs156.example.services.ReadReplicaRouter;
+
+/**
+ * Hooks {@link ConnectionPoolMonitor} into the Hikari pool Spring Boot
+ * creates: it becomes the pool's metrics tracker, and the DataSource bean is
+ * replaced by the monitor's wrapper, itself wrapped by
+ * {@link QueryStatistics} to count statements.  Underneath both,
+ * {@link ReadReplicaRouter} sends read-only transactions to the replicas, if
+ * any are configured.  Boot's own pool integrations find the primary
+ * HikariDataSource through the wrappers' <code>unwrap</code>.
+ */
+
+@Configuration
+public class ConnectionPoolConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionPoolMonitorPostProcessor(ObjectProvider<ConnectionPoolMonitor> monitor,
+            ObjectProvider<QueryStatistics> queryStatistics, ObjectProvider<ReadReplicaRouter> readReplicaRouter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && hikari(dataSource) != null) {
+                    hikari(dataSource).setMetricsTrackerFactory(monitor.getObject());
+                    DataSource routed = readReplicaRouter.getObject().route(dataSource);
+                    return queryStatistics.getObject().monitor(monitor.getObject().monitor(routed));
+                }
+                return bean;
+            }
+        };
+    }
+
+    // the pool may already be wrapped, e.g. by the tests' statement counter
+    private static HikariDataSource hikari(DataSource dataSource) {
+        try {
+            return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+}
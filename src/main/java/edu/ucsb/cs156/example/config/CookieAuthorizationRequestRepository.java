@@ -0,0 +1,144 @@
+package edu.ucsb.cs156.example.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.WebUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the OAuth2 authorization request between the redirect to the
+ * provider and the callback in a short-lived sealed cookie instead of the
+ * HttpSession, when <code>app.session.stateless</code> is true, so the
+ * callback may reach a different node than the one that started the login.
+ * The callback only succeeds if its <code>state</code> matches the cookie's.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.session.stateless", havingValue = "true")
+public class CookieAuthorizationRequestRepository implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+  public static final String COOKIE_NAME = "OAUTH2_AUTHORIZATION_REQUEST";
+
+  @Value("${app.session.loginTimeoutSeconds:300}")
+  long loginTimeoutSeconds;
+
+  @Autowired
+  SessionCookieCodec codec;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  /** The parts of an authorization code request the callback needs. */
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor(access = AccessLevel.PROTECTED)
+  static class PendingLogin {
+    private String authorizationUri;
+    private String clientId;
+    private String redirectUri;
+    private Set<String> scopes;
+    private String state;
+    private Map<String, Object> additionalParameters;
+    private Map<String, Object> attributes;
+    private String authorizationRequestUri;
+    /** when the login started, in epoch seconds */
+    private long startedAt;
+  }
+
+  @Override
+  public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+    String state = request.getParameter(OAuth2ParameterNames.STATE);
+    Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+    if (state == null || cookie == null) {
+      return null;
+    }
+    return codec.open(COOKIE_NAME, cookie.getValue())
+        .map(this::restore)
+        .filter(authorizationRequest -> state.equals(authorizationRequest.getState()))
+        .orElse(null);
+  }
+
+  private OAuth2AuthorizationRequest restore(byte[] json) {
+    try {
+      PendingLogin login = mapper.readValue(json, PendingLogin.class);
+      if (Instant.ofEpochSecond(login.getStartedAt()).plusSeconds(loginTimeoutSeconds).isBefore(Instant.now())) {
+        return null;
+      }
+      return OAuth2AuthorizationRequest.authorizationCode()
+          .authorizationUri(login.getAuthorizationUri())
+          .clientId(login.getClientId())
+          .redirectUri(login.getRedirectUri())
+          .scopes(login.getScopes())
+          .state(login.getState())
+          .additionalParameters(login.getAdditionalParameters())
+          .attributes(login.getAttributes())
+          .authorizationRequestUri(login.getAuthorizationRequestUri())
+          .build();
+    } catch (IOException | RuntimeException e) {
+      log.warn("Ignoring an unreadable {} cookie: {}", COOKIE_NAME, e.toString());
+      return null;
+    }
+  }
+
+  @Override
+  public void saveAuthorizationRequest(OAuth2AuthorizationRequest authorizationRequest, HttpServletRequest request,
+      HttpServletResponse response) {
+    if (authorizationRequest == null) {
+      removeAuthorizationRequest(request, response);
+      return;
+    }
+    PendingLogin login = new PendingLogin(
+        authorizationRequest.getAuthorizationUri(),
+        authorizationRequest.getClientId(),
+        authorizationRequest.getRedirectUri(),
+        authorizationRequest.getScopes(),
+        authorizationRequest.getState(),
+        authorizationRequest.getAdditionalParameters(),
+        authorizationRequest.getAttributes(),
+        authorizationRequest.getAuthorizationRequestUri(),
+        Instant.now().getEpochSecond());
+    try {
+      CookieSecurityContextRepository.addCookie(request, response, COOKIE_NAME,
+          codec.seal(COOKIE_NAME, mapper.writeValueAsBytes(login)), Duration.ofSeconds(loginTimeoutSeconds));
+    } catch (IOException e) {
+      throw new IllegalStateException("could not write the " + COOKIE_NAME + " cookie", e);
+    }
+  }
+
+  @Override
+  @Deprecated
+  public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request) {
+    return loadAuthorizationRequest(request);
+  }
+
+  @Override
+  public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request,
+      HttpServletResponse response) {
+    OAuth2AuthorizationRequest authorizationRequest = loadAuthorizationRequest(request);
+    if (WebUtils.getCookie(request, COOKIE_NAME) != null) {
+      CookieSecurityContextRepository.addCookie(request, response, COOKIE_NAME, "", Duration.ZERO);
+    }
+    return authorizationRequest;
+  }
+}
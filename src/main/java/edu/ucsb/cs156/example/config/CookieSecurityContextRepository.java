@@ -0,0 +1,291 @@
+package edu.ucsb.cs156.example.config;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.client.registration.ClientRegistrationRepository;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.SaveContextOnUpdateOrErrorResponseWrapper;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.WebUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the signed-in user in a sealed cookie instead of the HttpSession,
+ * when <code>app.session.stateless</code> is true, so any node can serve
+ * any request and a restart logs nobody out.
+ *
+ * The cookie holds the OAuth2 registration, the user's profile attributes
+ * that CurrentUserServiceImpl reads, the authorities computed at login by
+ * SecurityConfig's userAuthoritiesMapper, and the time of that login,
+ * sealed by {@link SessionCookieCodec}.  It lasts
+ * <code>app.session.maxAgeSeconds</code> and is resealed once it is half
+ * that old, so an active user stays signed in; when it is, the roles
+ * {@link SecurityConfig#rolesFor(String)} grants are computed again from the
+ * current users table, so a revoked admin loses the role within half the
+ * max age.  However often it is resealed, a cookie is refused
+ * <code>app.session.absoluteMaxAgeSeconds</code> after the login, and the
+ * user has to sign in again.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.session.stateless", havingValue = "true")
+public class CookieSecurityContextRepository implements SecurityContextRepository {
+  public static final String COOKIE_NAME = "SESSION_CONTEXT";
+
+  /** The OAuth2 user attributes kept in the cookie; see CurrentUserServiceImpl. */
+  static final Set<String> ATTRIBUTES = Set.of("sub", "email", "email_verified", "name", "given_name",
+      "family_name", "picture", "locale", "hd");
+
+  /** The authority OAuth2 login grants every user, restored with the user's attributes. */
+  static final String USER_AUTHORITY = "ROLE_USER";
+
+  private static final String LOADED = CookieSecurityContextRepository.class.getName() + ".LOADED";
+
+  @Value("${app.session.maxAgeSeconds:28800}")
+  long maxAgeSeconds;
+
+  @Value("${app.session.absoluteMaxAgeSeconds:604800}")
+  long absoluteMaxAgeSeconds;
+
+  @Autowired
+  SessionCookieCodec codec;
+
+  @Autowired
+  ClientRegistrationRepository clientRegistrationRepository;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  // lazy: SecurityConfig itself is wired with this repository
+  @Lazy
+  @Autowired
+  SecurityConfig securityConfig;
+
+  private Duration maxAge;
+  private Duration absoluteMaxAge;
+
+  /** What the cookie holds, with short names to keep it small. */
+  @Data
+  @AllArgsConstructor
+  @NoArgsConstructor(access = AccessLevel.PROTECTED)
+  static class Session {
+    /** OAuth2 registration id, e.g. google */
+    private String r;
+    /** user attributes */
+    private Map<String, Object> a;
+    /** authorities */
+    private List<String> g;
+    /** when it was sealed, in epoch seconds */
+    private long t;
+    /** when the user signed in, in epoch seconds */
+    private long l;
+  }
+
+  /** The authentication restored from the cookie, when the cookie was sealed and when the user signed in. */
+  private record Loaded(OAuth2AuthenticationToken authentication, Instant sealedAt, Instant loggedInAt) {
+  }
+
+  @PostConstruct
+  void start() {
+    maxAge = Duration.ofSeconds(maxAgeSeconds);
+    absoluteMaxAge = Duration.ofSeconds(absoluteMaxAgeSeconds);
+  }
+
+  @Override
+  public SecurityContext loadContext(HttpRequestResponseHolder holder) {
+    HttpServletRequest request = holder.getRequest();
+    SecurityContext context = SecurityContextHolder.createEmptyContext();
+    read(request).ifPresent(loaded -> {
+      request.setAttribute(LOADED, loaded);
+      context.setAuthentication(loaded.authentication());
+    });
+    holder.setResponse(new SaveToCookieResponseWrapper(holder.getResponse(), request));
+    return context;
+  }
+
+  @Override
+  public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+    SaveToCookieResponseWrapper wrapper = WebUtils.getNativeResponse(response, SaveToCookieResponseWrapper.class);
+    if (wrapper == null) {
+      write(context, request, response);
+    } else if (!wrapper.isContextSaved()) {
+      wrapper.saveContext(context);
+    }
+  }
+
+  @Override
+  public boolean containsContext(HttpServletRequest request) {
+    return read(request).isPresent();
+  }
+
+  private Optional<Loaded> read(HttpServletRequest request) {
+    Object loaded = request.getAttribute(LOADED);
+    if (loaded instanceof Loaded) {
+      return Optional.of((Loaded) loaded);
+    }
+    Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+    if (cookie == null) {
+      return Optional.empty();
+    }
+    return codec.open(COOKIE_NAME, cookie.getValue()).flatMap(this::restore);
+  }
+
+  private Optional<Loaded> restore(byte[] json) {
+    try {
+      Session session = mapper.readValue(json, Session.class);
+      Instant now = Instant.now();
+      Instant sealedAt = Instant.ofEpochSecond(session.getT());
+      Instant loggedInAt = Instant.ofEpochSecond(session.getL());
+      if (sealedAt.plus(maxAge).isBefore(now) || loggedInAt.plus(absoluteMaxAge).isBefore(now)) {
+        return Optional.empty();
+      }
+      ClientRegistration registration = clientRegistrationRepository.findByRegistrationId(session.getR());
+      if (registration == null) {
+        return Optional.empty();
+      }
+      String nameAttribute = registration.getProviderDetails().getUserInfoEndpoint().getUserNameAttributeName();
+      List<GrantedAuthority> authorities = new ArrayList<>();
+      for (String authority : session.getG()) {
+        if (authority.equals(USER_AUTHORITY)) {
+          authorities.add(new OAuth2UserAuthority(authority, session.getA()));
+        } else if (!dueForResealing(sealedAt, now) || !SecurityConfig.GRANTED_ROLES.contains(authority)) {
+          authorities.add(new SimpleGrantedAuthority(authority));
+        }
+      }
+      if (dueForResealing(sealedAt, now) && session.getA().get("email") instanceof String email) {
+        // the cookie is about to be resealed: seal the roles the users table grants today
+        authorities.addAll(securityConfig.rolesFor(email));
+      }
+      OAuth2User user = new DefaultOAuth2User(authorities, session.getA(), nameAttribute);
+      return Optional.of(new Loaded(new OAuth2AuthenticationToken(user, authorities, session.getR()), sealedAt,
+          loggedInAt));
+    } catch (IOException | RuntimeException e) {
+      log.warn("Ignoring an unreadable {} cookie: {}", COOKIE_NAME, e.toString());
+      return Optional.empty();
+    }
+  }
+
+  private boolean dueForResealing(Instant sealedAt, Instant now) {
+    return !sealedAt.plus(maxAge.dividedBy(2)).isAfter(now);
+  }
+
+  /**
+   * Seals the user into the cookie if they just signed in or their cookie
+   * is half way to expiring, and clears the cookie if they signed out.
+   * Other kinds of authentication are not kept.  The cookie never outlives
+   * the absolute max age of the login.
+   */
+  private void write(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+    Optional<Loaded> loaded = read(request);
+    if (!(context.getAuthentication() instanceof OAuth2AuthenticationToken authentication)) {
+      boolean hasCookie = WebUtils.getCookie(request, COOKIE_NAME) != null;
+      if (hasCookie && (context.getAuthentication() == null || loaded.isEmpty())) {
+        addCookie(request, response, COOKIE_NAME, "", Duration.ZERO);
+      }
+      return;
+    }
+    Instant now = Instant.now();
+    boolean resealing = loaded.isPresent() && loaded.get().authentication() == authentication;
+    if (resealing && !dueForResealing(loaded.get().sealedAt(), now)) {
+      return;
+    }
+    Instant loggedInAt = resealing ? loaded.get().loggedInAt() : now;
+
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    authentication.getPrincipal().getAttributes().forEach((name, value) -> {
+      if (ATTRIBUTES.contains(name)) {
+        attributes.put(name, value);
+      }
+    });
+    String nameAttribute = clientRegistrationRepository
+        .findByRegistrationId(authentication.getAuthorizedClientRegistrationId())
+        .getProviderDetails().getUserInfoEndpoint().getUserNameAttributeName();
+    attributes.put(nameAttribute, authentication.getPrincipal().getAttribute(nameAttribute));
+    List<String> authorities = authentication.getAuthorities().stream()
+        .map(GrantedAuthority::getAuthority)
+        .distinct()
+        .toList();
+    Session session = new Session(authentication.getAuthorizedClientRegistrationId(), attributes, authorities,
+        now.getEpochSecond(), loggedInAt.getEpochSecond());
+    Duration untilLogout = Duration.between(now, loggedInAt.plus(absoluteMaxAge));
+    try {
+      addCookie(request, response, COOKIE_NAME, codec.seal(COOKIE_NAME, mapper.writeValueAsBytes(session)),
+          untilLogout.compareTo(maxAge) < 0 ? untilLogout : maxAge);
+    } catch (IOException e) {
+      throw new IllegalStateException("could not write the " + COOKIE_NAME + " cookie", e);
+    }
+  }
+
+  /**
+   * Adds an HttpOnly, SameSite=Lax cookie for the whole application, secure
+   * if the request was; a zero <code>maxAge</code> deletes it.  Behind
+   * Heroku's router the request is secure if the router was reached over
+   * https (X-Forwarded-Proto; see server.forward-headers-strategy).
+   */
+  static void addCookie(HttpServletRequest request, HttpServletResponse response, String name, String value,
+      Duration maxAge) {
+    ResponseCookie cookie = ResponseCookie.from(name, value)
+        .path(request.getContextPath().isEmpty() ? "/" : request.getContextPath())
+        .httpOnly(true)
+        .secure(request.isSecure())
+        .sameSite("Lax")
+        .maxAge(maxAge)
+        .build();
+    response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+  }
+
+  /**
+   * Saves the context as soon as the response is about to be committed,
+   * e.g. by the redirect after login, since the cookie cannot be added
+   * after that.
+   */
+  private class SaveToCookieResponseWrapper extends SaveContextOnUpdateOrErrorResponseWrapper {
+    private final HttpServletRequest request;
+
+    SaveToCookieResponseWrapper(HttpServletResponse response, HttpServletRequest request) {
+      super(response, true);
+      this.request = request;
+    }
+
+    @Override
+    protected void saveContext(SecurityContext context) {
+      write(context, request, this);
+    }
+  }
+}
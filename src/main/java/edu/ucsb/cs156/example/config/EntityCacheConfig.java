@@ -0,0 +1,73 @@
+package edu.ucsb.cs156.example.config;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+import javax.cache.CacheManager;
+import javax.persistence.Cacheable;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+
+/**
+ * Hibernate's second-level cache, kept in Caffeine.
+ *
+ * Every <code>@Cacheable</code> entity gets its own region, bounded by
+ * <code>app.entityCache.maximumSize</code> (Caffeine evicts with W-TinyLFU)
+ * and <code>app.entityCache.timeToLive</code>.  Lookups by id, including the
+ * ones inside <code>save</code> and <code>delete</code>, are answered from the
+ * region; Hibernate updates or evicts an entry whenever the entity is saved
+ * or deleted, so the cache never needs invalidating by hand.  Hit ratios are
+ * served by {@link edu.ucsb.cs156.example.services.EntityCacheStatsService}.
+ */
+
+@Configuration
+public class EntityCacheConfig {
+
+    private static final String ENTITIES_PACKAGE = "edu.ucsb.cs156.example.entities";
+
+    @Value("${app.entityCache.maximumSize:10000}")
+    private long maximumSize;
+
+    @Value("${app.entityCache.timeToLive:10m}")
+    private Duration timeToLive;
+
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager() {
+        // a manager of its own, so that application contexts in the tests do not share regions
+        CaffeineCachingProvider provider = new CaffeineCachingProvider();
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("entity-cache:" + System.identityHashCode(this)), getClass().getClassLoader());
+
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+        scanner.addIncludeFilter(new AnnotationTypeFilter(Cacheable.class));
+        for (BeanDefinition entity : scanner.findCandidateComponents(ENTITIES_PACKAGE)) {
+            // Hibernate names an entity's region after its class
+            cacheManager.createCache(entity.getBeanClassName(), regionConfiguration());
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheHibernateProperties(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
+    private CaffeineConfiguration<Object, Object> regionConfiguration() {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maximumSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(timeToLive.toNanos()));
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Shuts the application down as soon as it is ready when
+ * <code>app.exit-when-ready</code> is set.  The <code>cds</code> Maven
+ * profile uses this for its training run, which records the classes
+ * loaded during a full startup, and the CDS benchmark uses it to time
+ * startups.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty("app.exit-when-ready")
+public class ExitWhenReadyConfig {
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void exit(ApplicationReadyEvent event) {
+        log.info("app.exit-when-ready is set; shutting down");
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
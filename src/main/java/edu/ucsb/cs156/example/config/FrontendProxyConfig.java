@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.config;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+/**
+ * Connections to the React dev server, used in development by
+ * {@link edu.ucsb.cs156.example.controllers.FrontendProxyController}.
+ *
+ * The JDK HttpClient pools keep-alive connections on its own, so one shared
+ * client avoids a new TCP connection per asset.  The dev server's hot reload
+ * WebSocket (<code>/ws</code>) is relayed through the same client.
+ */
+
+@Profile("development")
+@Configuration
+@EnableWebSocket
+public class FrontendProxyConfig implements WebSocketConfigurer {
+
+    @Value("${app.frontend.devServer}")
+    private URI devServer;
+
+    @Bean
+    public HttpClient devServerHttpClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(new FrontendWebSocketRelay(devServerHttpClient(), devServer), "/ws");
+    }
+}
@@ -0,0 +1,138 @@
+package edu.ucsb.cs156.example.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Relays the React dev server's hot reload WebSocket in development, so the
+ * page served through
+ * {@link edu.ucsb.cs156.example.controllers.FrontendProxyController} can
+ * reach it on the backend's port; {@link FrontendProxyConfig} registers it
+ * at <code>/ws</code>.  Each browser connection gets its own connection to the
+ * dev server, and messages are passed through unchanged in both directions.
+ */
+@Slf4j
+public class FrontendWebSocketRelay extends AbstractWebSocketHandler {
+  private static final int SEND_TIME_LIMIT_MILLIS = 5000;
+  private static final int BUFFER_SIZE_LIMIT = 1 << 20;
+
+  private final HttpClient devServerHttpClient;
+  private final URI devServer;
+  private final Map<String, WebSocket> upstreams = new ConcurrentHashMap<>();
+
+  public FrontendWebSocketRelay(HttpClient devServerHttpClient, URI devServer) {
+    this.devServerHttpClient = devServerHttpClient;
+    this.devServer = devServer;
+  }
+
+  @Override
+  public void afterConnectionEstablished(WebSocketSession session) {
+    URI uri = session.getUri();
+    URI target = URI.create(devServer.toString().replaceFirst("^http", "ws")).resolve(uri.getRawPath()
+        + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery()));
+    WebSocketSession downstream = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MILLIS,
+        BUFFER_SIZE_LIMIT);
+    WebSocket upstream = devServerHttpClient.newWebSocketBuilder()
+        .buildAsync(target, new Relay(downstream))
+        .join();
+    upstreams.put(session.getId(), upstream);
+  }
+
+  @Override
+  protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+    // WebSocket allows one outstanding send at a time, so wait for each
+    upstreams.get(session.getId()).sendText(message.getPayload(), true).join();
+  }
+
+  @Override
+  protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) {
+    upstreams.get(session.getId()).sendBinary(message.getPayload(), true).join();
+  }
+
+  @Override
+  public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+    WebSocket upstream = upstreams.remove(session.getId());
+    if (upstream != null && !upstream.isOutputClosed()) {
+      upstream.sendClose(status.getCode(), status.getReason() == null ? "" : status.getReason());
+    }
+  }
+
+  /** Passes the dev server's messages on to the browser. */
+  private static class Relay implements WebSocket.Listener {
+    private final WebSocketSession downstream;
+    private final StringBuilder text = new StringBuilder();
+    private final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+
+    Relay(WebSocketSession downstream) {
+      this.downstream = downstream;
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+      text.append(data);
+      if (last) {
+        send(new TextMessage(text.toString()));
+        text.setLength(0);
+      }
+      webSocket.request(1);
+      return null;
+    }
+
+    @Override
+    public CompletionStage<?> onBinary(WebSocket webSocket, ByteBuffer data, boolean last) {
+      byte[] bytes = new byte[data.remaining()];
+      data.get(bytes);
+      binary.writeBytes(bytes);
+      if (last) {
+        send(new BinaryMessage(binary.toByteArray()));
+        binary.reset();
+      }
+      webSocket.request(1);
+      return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+      close(new CloseStatus(statusCode, reason));
+      return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+      log.warn("dev server WebSocket failed", error);
+      close(CloseStatus.SERVER_ERROR);
+    }
+
+    private void send(WebSocketMessage<?> message) {
+      try {
+        downstream.sendMessage(message);
+      } catch (IOException e) {
+        log.warn("could not relay dev server message", e);
+      }
+    }
+
+    private void close(CloseStatus status) {
+      try {
+        downstream.close(status);
+      } catch (IOException e) {
+        log.warn("could not close relayed WebSocket", e);
+      }
+    }
+  }
+}
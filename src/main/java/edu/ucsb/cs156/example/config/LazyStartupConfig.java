@@ -0,0 +1,53 @@
+package edu.ucsb.cs156.example.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+
+import lombok.extern.slf4j.Slf4j;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsBootstrapper;
+
+/**
+ * Beans that stay eager, and work that is moved off the startup path, when
+ * the <code>lazy</code> profile (see
+ * <code>application-lazy.properties</code>) turns on lazy initialization.
+ *
+ * The data source and entity manager factory stay eager so a bad database
+ * configuration still fails the deploy, and so Hibernate can bootstrap in
+ * the background while the rest of the context starts.  Swagger's
+ * documentation scan, which is not needed to serve the API, runs on its own
+ * thread once the application is ready.
+ */
+@Slf4j
+@Configuration
+@Profile("lazy")
+public class LazyStartupConfig {
+
+    @Bean
+    public static LazyInitializationExcludeFilter eagerDataAccess() {
+        return (beanName, beanDefinition, beanType) -> beanName.equals("entityManagerFactory")
+                || (beanType != null && DataSource.class.isAssignableFrom(beanType));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startDocumentation(ApplicationReadyEvent event) {
+        ObjectProvider<DocumentationPluginsBootstrapper> bootstrapper = event.getApplicationContext()
+                .getBeanProvider(DocumentationPluginsBootstrapper.class);
+        bootstrapper.ifAvailable(documentation -> {
+            if (!documentation.isRunning()) {
+                Thread thread = new Thread(() -> {
+                    documentation.start();
+                    log.info("Swagger documentation scan finished");
+                }, "springfox-bootstrap");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        });
+    }
+}
@@ -0,0 +1,107 @@
+package edu.ucsb.cs156.example.config;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.services.RateLimiter;
+import edu.ucsb.cs156.example.services.RateLimiter.Budget;
+
+/**
+ * Applies {@link RateLimiter} to <code>/api/**</code>.
+ *
+ * It runs after the security filters, so a signed-in user is limited by
+ * email wherever they connect from, and anonymous requests by address.
+ * <code>/api/admin/**</code> draws on the admin budget; other GETs on the
+ * read budget and everything else on the write budget, so a burst of
+ * page loads cannot use up a user's writes.  Requests over budget get a 429
+ * with <code>Retry-After</code> and never reach a controller.
+ *
+ * A <code>/api/batch</code> call costs one read; BatchDispatcher charges each
+ * request in it to the budget it would draw on if sent on its own.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+  @Autowired
+  RateLimiter rateLimiter;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !rateLimiter.isEnabled() || !request.getRequestURI().startsWith("/api/");
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    long waitNanos = rateLimiter.acquire(client(request), budget(request));
+    if (waitNanos <= 0) {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    long retryAfterSeconds = retryAfterSeconds(waitNanos);
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    mapper.writeValue(response.getOutputStream(), Map.of(
+        "type", "TooManyRequests",
+        "message", "rate limit exceeded; try again in " + retryAfterSeconds + " s"));
+  }
+
+  /** Seconds to send in <code>Retry-After</code> for a wait of <code>waitNanos</code>, rounded up. */
+  public static long retryAfterSeconds(long waitNanos) {
+    return Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+  }
+
+  public static Budget budget(HttpServletRequest request) {
+    if (request.getRequestURI().startsWith("/api/admin/")) {
+      return Budget.ADMIN;
+    }
+    if (request.getRequestURI().equals("/api/batch")) {
+      return Budget.READ;
+    }
+    switch (request.getMethod()) {
+      case "GET":
+      case "HEAD":
+      case "OPTIONS":
+        return Budget.READ;
+      default:
+        return Budget.WRITE;
+    }
+  }
+
+  public static String client(HttpServletRequest request) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null || !authentication.isAuthenticated()
+        || authentication instanceof AnonymousAuthenticationToken) {
+      return "ip:" + request.getRemoteAddr();
+    }
+    if (authentication.getPrincipal() instanceof OAuth2AuthenticatedPrincipal principal
+        && principal.getAttribute("email") instanceof String email) {
+      return email;
+    }
+    return authentication.getName();
+  }
+}
@@ -22,6 +22,7 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
@@ -47,6 +48,13 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
   @Autowired
   UserRepository userRepository;
 
+  /** Present when app.session.stateless is true. */
+  @Autowired(required = false)
+  CookieSecurityContextRepository cookieSecurityContextRepository;
+
+  @Autowired(required = false)
+  CookieAuthorizationRequestRepository cookieAuthorizationRequestRepository;
+
   @Override
   protected void configure(HttpSecurity http) throws Exception {
     http.authorizeRequests(authorize -> authorize
@@ -60,11 +68,21 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         .logout(logout -> logout
             .logoutRequestMatcher(new AntPathRequestMatcher("/logout"))
             .logoutSuccessUrl("/"));
+
+    if (cookieSecurityContextRepository != null) {
+      http.sessionManagement(session -> session
+          .sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+          .securityContext(context -> context
+              .securityContextRepository(cookieSecurityContextRepository))
+          .oauth2Login(oauth2 -> oauth2.authorizationEndpoint(authorization -> authorization
+              .authorizationRequestRepository(cookieAuthorizationRequestRepository)));
+    }
   }
 
   @Override
   public void configure(WebSecurity web) throws Exception {
     web.ignoring().antMatchers("/h2-console/**");
+    web.ignoring().antMatchers(StaticResourceConfig.STATIC_PATHS);
   }
 
   private GrantedAuthoritiesMapper userAuthoritiesMapper() {
@@ -81,13 +99,7 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
           log.info("********** userAttributes={}", userAttributes);
 
           String email = (String) userAttributes.get("email");
-          if (getAdmin(email)) {
-            mappedAuthorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
-          }
-
-          if (email.endsWith("@ucsb.edu")) {
-            mappedAuthorities.add(new SimpleGrantedAuthority("ROLE_MEMBER"));
-          }
+          mappedAuthorities.addAll(rolesFor(email));
         }
 
       });
@@ -95,6 +107,26 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     };
   }
 
+  /** Every role {@link #rolesFor(String)} can grant. */
+  public static final Set<String> GRANTED_ROLES = Set.of("ROLE_ADMIN", "ROLE_MEMBER");
+
+  /**
+   * The roles granted to <code>email</code> on top of ROLE_USER; shared by
+   * OAuth2 login, the gRPC API (GrpcAuthInterceptor) and resealed session
+   * cookies (CookieSecurityContextRepository).
+   */
+  public Set<GrantedAuthority> rolesFor(String email) {
+    Set<GrantedAuthority> roles = new HashSet<>();
+    if (getAdmin(email)) {
+      roles.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+    }
+
+    if (email.endsWith("@ucsb.edu")) {
+      roles.add(new SimpleGrantedAuthority("ROLE_MEMBER"));
+    }
+    return roles;
+  }
+
   public boolean getAdmin(String email) {
     if (adminEmails.contains(email)) {
       return true;
@@ -0,0 +1,171 @@
+package edu.ucsb.cs156.example.config;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.annotation.PostConstruct;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Seals cookie values so the browser can carry them but neither read nor
+ * change them: the value is compressed, then encrypted and authenticated
+ * with AES-GCM.
+ *
+ * <code>app.session.keys</code> is a comma separated list of
+ * <code>id:base64 key</code> entries (16, 24 or 32 bytes; e.g.
+ * <code>openssl rand -base64 32</code>).  The first key seals new values;
+ * the others only open values sealed before it was added.  To rotate, put a
+ * new key first on every node, then drop the old one once cookies sealed
+ * with it have expired.  The key id and the cookie's purpose are bound
+ * into the tag, so a value cannot be moved from one cookie to another.
+ */
+@Component
+@ConditionalOnProperty(name = "app.session.stateless", havingValue = "true")
+public class SessionCookieCodec {
+  private static final String CIPHER = "AES/GCM/NoPadding";
+  private static final int IV_BYTES = 12;
+  private static final int TAG_BITS = 128;
+
+  /** Most bytes a sealed value may inflate to, far beyond what fits in a cookie. */
+  static final int MAX_PLAINTEXT_BYTES = 64 * 1024;
+
+  private record Key(String id, SecretKey secret) {
+  }
+
+  @Value("${app.session.keys:}")
+  String keys;
+
+  private final SecureRandom random = new SecureRandom();
+  private List<Key> keyRing;
+
+  @PostConstruct
+  void start() {
+    List<Key> parsed = new ArrayList<>();
+    for (String entry : keys.split(",")) {
+      if (entry.isBlank()) {
+        continue;
+      }
+      String[] idAndKey = entry.strip().split(":", 2);
+      if (idAndKey.length != 2 || idAndKey[0].isEmpty() || idAndKey[0].contains(".")) {
+        throw new IllegalStateException("app.session.keys entries must look like id:base64key");
+      }
+      byte[] secret = Base64.getDecoder().decode(idAndKey[1]);
+      if (secret.length != 16 && secret.length != 24 && secret.length != 32) {
+        throw new IllegalStateException("session key " + idAndKey[0] + " must be 16, 24 or 32 bytes");
+      }
+      parsed.add(new Key(idAndKey[0], new SecretKeySpec(secret, "AES")));
+    }
+    if (parsed.isEmpty()) {
+      throw new IllegalStateException(
+          "app.session.stateless needs at least one key in app.session.keys, e.g. 1:$(openssl rand -base64 32)");
+    }
+    keyRing = List.copyOf(parsed);
+  }
+
+  /** Seals <code>plaintext</code> for the cookie named <code>purpose</code> with the current key. */
+  public String seal(String purpose, byte[] plaintext) {
+    Key key = keyRing.get(0);
+    byte[] iv = new byte[IV_BYTES];
+    random.nextBytes(iv);
+    try {
+      Cipher cipher = Cipher.getInstance(CIPHER);
+      cipher.init(Cipher.ENCRYPT_MODE, key.secret(), new GCMParameterSpec(TAG_BITS, iv));
+      cipher.updateAAD(associatedData(key.id(), purpose));
+      byte[] ciphertext = cipher.doFinal(deflate(plaintext));
+      byte[] sealed = ByteBuffer.allocate(iv.length + ciphertext.length).put(iv).put(ciphertext).array();
+      return key.id() + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(sealed);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("could not seal a " + purpose + " cookie", e);
+    }
+  }
+
+  /**
+   * Opens a value sealed by {@link #seal} for the same <code>purpose</code>
+   * with any key still in the ring; empty if it is malformed, was changed,
+   * or its key has been dropped.
+   */
+  public Optional<byte[]> open(String purpose, String value) {
+    int dot = value == null ? -1 : value.indexOf('.');
+    if (dot <= 0) {
+      return Optional.empty();
+    }
+    String keyId = value.substring(0, dot);
+    Optional<Key> key = keyRing.stream().filter(k -> k.id().equals(keyId)).findFirst();
+    if (key.isEmpty()) {
+      return Optional.empty();
+    }
+    try {
+      byte[] sealed = Base64.getUrlDecoder().decode(value.substring(dot + 1));
+      if (sealed.length <= IV_BYTES) {
+        return Optional.empty();
+      }
+      Cipher cipher = Cipher.getInstance(CIPHER);
+      cipher.init(Cipher.DECRYPT_MODE, key.get().secret(), new GCMParameterSpec(TAG_BITS, sealed, 0, IV_BYTES));
+      cipher.updateAAD(associatedData(keyId, purpose));
+      return inflate(cipher.doFinal(sealed, IV_BYTES, sealed.length - IV_BYTES));
+    } catch (IllegalArgumentException | GeneralSecurityException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static byte[] associatedData(String keyId, String purpose) {
+    return (keyId + "." + purpose).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] deflate(byte[] bytes) {
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+    try {
+      deflater.setInput(bytes);
+      deflater.finish();
+      ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+      byte[] buffer = new byte[512];
+      while (!deflater.finished()) {
+        out.write(buffer, 0, deflater.deflate(buffer));
+      }
+      return out.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static Optional<byte[]> inflate(byte[] bytes) {
+    Inflater inflater = new Inflater(true);
+    try {
+      inflater.setInput(bytes);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 3);
+      byte[] buffer = new byte[512];
+      while (!inflater.finished()) {
+        int inflated = inflater.inflate(buffer);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          return Optional.empty();
+        }
+        out.write(buffer, 0, inflated);
+        if (out.size() > MAX_PLAINTEXT_BYTES) {
+          return Optional.empty();
+        }
+      }
+      return Optional.of(out.toByteArray());
+    } catch (DataFormatException e) {
+      return Optional.empty();
+    } finally {
+      inflater.end();
+    }
+  }
+}
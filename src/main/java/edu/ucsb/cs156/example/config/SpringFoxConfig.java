@@ -3,6 +3,7 @@ package edu.ucsb.cs156.example.config;
 import java.util.Collections;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
 import springfox.documentation.service.Contact;
 import springfox.documentation.builders.RequestHandlerSelectors;
@@ -18,10 +19,15 @@ import static springfox.documentation.builders.PathSelectors.regex;
  * Configuration for Swagger, a package that provides documentation
  * for REST API endpoints.
  * 
+ * Springfox scans the controllers at runtime only in development; the other
+ * profiles serve the document generated at build time, see
+ * {@link edu.ucsb.cs156.example.controllers.ApiDocsController}.
+ * 
  * @see <a href=
  *      "https://www.baeldung.com/swagger-2-documentation-for-spring-rest-api">https://www.baeldung.com/swagger-2-documentation-for-spring-rest-api</a>
  */
 
+@Profile("development")
 @Configuration
 public class SpringFoxConfig {
     @Bean
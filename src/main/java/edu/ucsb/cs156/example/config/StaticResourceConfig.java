@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.Duration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+
+/**
+ * Serves the hashed assets of the React build (<code>/static/**</code>).
+ *
+ * The file names change whenever their content does, so responses may be
+ * cached for a year without revalidation.  <code>npm run build</code> writes
+ * <code>.br</code> and <code>.gz</code> copies next to each asset
+ * (frontend/scripts/compress-build.js), and the EncodedResourceResolver picks
+ * the best one the client accepts, so nothing is compressed per request.
+ *
+ * <code>index.html</code> is served by
+ * {@link edu.ucsb.cs156.example.controllers.FrontendController}, and
+ * SecurityConfig skips the security filters for these paths.
+ */
+
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    public static final String[] STATIC_PATHS = {
+        "/static/**", "/favicon.ico", "/manifest.json", "/robots.txt", "/logo*.png"
+    };
+
+    // Spring 5.3's CacheControl has no immutable(), so the header is spelled out
+    private static final CacheControl IMMUTABLE_FOR_A_YEAR = new CacheControl() {
+        @Override
+        public String getHeaderValue() {
+            return "max-age=" + Duration.ofDays(365).toSeconds() + ", public, immutable";
+        }
+    };
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/static/**")
+                .addResourceLocations("classpath:/public/static/")
+                .setCacheControl(IMMUTABLE_FOR_A_YEAR)
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new PathResourceResolver());
+    }
+}
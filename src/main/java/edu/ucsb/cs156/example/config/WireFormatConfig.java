@@ -0,0 +1,45 @@
+package edu.ucsb.cs156.example.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/**
+ * Binary alternatives to JSON for the REST API, selected with the
+ * <code>Accept</code> header:
+ *
+ * <ul>
+ * <li><code>application/cbor</code></li>
+ * <li><code>application/x-jackson-smile</code></li>
+ * </ul>
+ *
+ * Spring MVC would register converters for these formats on its own, but
+ * with a plain ObjectMapper that writes <code>LocalDateTime</code> as an
+ * array of numbers.  These beans replace them with mappers built from Spring
+ * Boot's Jackson builder, so every format carries the same ISO-8601 dates and
+ * property settings as the JSON responses.  Spring Boot adds any
+ * HttpMessageConverter bean to the MVC converter list, which covers regular
+ * responses and the error bodies from
+ * {@link edu.ucsb.cs156.example.controllers.ApiController} alike.
+ */
+
+@Configuration
+public class WireFormatConfig {
+
+    public static final String SMILE_VALUE = "application/x-jackson-smile";
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+}
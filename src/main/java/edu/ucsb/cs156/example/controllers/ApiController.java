@@ -1,20 +1,41 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.errors.InvalidRequestException;
 import net.bytebuddy.implementation.bytecode.Throw;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import edu.ucsb.cs156.example.entities.ChangeTracked;
+import edu.ucsb.cs156.example.entities.Tombstone;
+import edu.ucsb.cs156.example.models.ChangeSet;
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 
 @Slf4j
 public abstract class ApiController {
+  /** Value of a listing's <code>fields</code> parameter that selects its summary projection. */
+  protected static final String SUMMARY_FIELDS = "summary";
+
+  /** Most ids a multi-get endpoint accepts in one request. */
+  protected static final int MAX_MULTI_GET_IDS = 100;
+
   @Autowired
   private CurrentUserService currentUserService;
 
@@ -26,6 +47,128 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  /**
+   * Builds the response of a <code>/changes</code> endpoint.  The returned
+   * token is the highest change sequence seen among the changed rows and
+   * tombstones, or <code>since</code> if there were none.  Since numbers are
+   * assigned in commit order (see ChangeSequenceListener), every change a
+   * later request could see is numbered above the token.
+   */
+  protected <T extends ChangeTracked> ChangeSet<T> changeSet(Iterable<T> changed, Iterable<Tombstone> deleted, long since) {
+    long token = since;
+
+    List<T> changedRows = new ArrayList<>();
+    for (T row : changed) {
+      changedRows.add(row);
+      if (row.getChangeSeq() != null) {
+        token = Math.max(token, row.getChangeSeq());
+      }
+    }
+
+    List<String> deletedIds = new ArrayList<>();
+    for (Tombstone tombstone : deleted) {
+      deletedIds.add(tombstone.getEntityId());
+      token = Math.max(token, tombstone.getChangeSeq());
+    }
+
+    return ChangeSet.<T>builder()
+      .changed(changedRows)
+      .deleted(deletedIds)
+      .token(token)
+      .build();
+  }
+
+  /**
+   * Builds the response of a multi-get endpoint with a single
+   * <code>findAllById</code> query.  Duplicate ids are looked up once, and
+   * requests for more than {@link #MAX_MULTI_GET_IDS} distinct ids are
+   * rejected.
+   */
+  protected <K, T> MultiGetResult<K, T> multiGet(List<K> ids, Function<Iterable<K>, Iterable<T>> findAllById,
+      Function<T, K> idOf) {
+    Set<K> uniqueIds = new LinkedHashSet<>();
+    ids.stream().filter(Objects::nonNull).forEach(uniqueIds::add);
+    if (uniqueIds.size() > MAX_MULTI_GET_IDS) {
+      throw new InvalidRequestException("at most %d ids may be requested at once".formatted(MAX_MULTI_GET_IDS));
+    }
+
+    Map<K, T> rowsById = new HashMap<>();
+    if (!uniqueIds.isEmpty()) {
+      for (T row : findAllById.apply(uniqueIds)) {
+        rowsById.put(idOf.apply(row), row);
+      }
+    }
+
+    Map<K, T> found = new LinkedHashMap<>();
+    List<K> missing = new ArrayList<>();
+    for (K id : uniqueIds) {
+      T row = rowsById.get(id);
+      if (row != null) {
+        found.put(id, row);
+      } else {
+        missing.add(id);
+      }
+    }
+
+    return MultiGetResult.<K, T>builder()
+      .found(found)
+      .missing(missing)
+      .build();
+  }
+
+  /**
+   * Parses the comma separated <code>fields</code> parameter of a listing,
+   * rejecting names that are not fields of <code>entityType</code>.
+   */
+  protected List<String> parseFields(String fields, Class<?> entityType) {
+    List<String> names = new ArrayList<>();
+    for (String field : fields.split(",")) {
+      String name = field.trim();
+      if (name.isEmpty() || names.contains(name)) {
+        continue;
+      }
+      try {
+        entityType.getDeclaredField(name);
+      } catch (NoSuchFieldException e) {
+        throw new InvalidRequestException("%s has no field %s".formatted(entityType.getSimpleName(), name));
+      }
+      names.add(name);
+    }
+    if (names.isEmpty()) {
+      throw new InvalidRequestException("fields must name at least one field");
+    }
+    return names;
+  }
+
+  @ExceptionHandler({ InvalidRequestException.class })
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleInvalidRequest(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", e.getMessage()
+    );
+  }
+
+  /** The JdbcExecutor's queue is full; the client should retry later. */
+  @ExceptionHandler({ RejectedExecutionException.class })
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public Object handleRejectedExecution(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", "too many requests are waiting for the database; try again later"
+    );
+  }
+
+  /** A coalesced request's shared query outlasted app.coalescing.timeoutMillis. */
+  @ExceptionHandler({ TimeoutException.class })
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public Object handleTimeout(Throwable e) {
+    return Map.of(
+      "type", e.getClass().getSimpleName(),
+      "message", "the database took too long to answer; try again later"
+    );
+  }
+
   @ExceptionHandler({ EntityNotFoundException.class })
   @ResponseStatus(HttpStatus.NOT_FOUND)
   public Object handleGenericException(Throwable e) {
@@ -0,0 +1,70 @@
+package edu.ucsb.cs156.example.controllers;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the Swagger document that the build generates from the
+ * <code>@Api</code> annotations (see the swagger-maven-plugin in pom.xml),
+ * in place of Springfox's runtime scan, which only runs in development.
+ * The <code>/swagger-resources</code> endpoints are the ones the bundled
+ * swagger-ui page asks for, so <code>/swagger-ui/index.html</code> keeps
+ * working against the static document.
+ */
+@Profile("!development")
+@RestController
+public class ApiDocsController {
+  static final String API_DOCS = "api-docs/api-docs.json";
+  static final String API_DOCS_GZIP = API_DOCS + ".gz";
+
+  private final Resource apiDocs = new ClassPathResource(API_DOCS);
+  private final Resource apiDocsGzip = new ClassPathResource(API_DOCS_GZIP);
+
+  @GetMapping("/api/docs")
+  public ResponseEntity<Resource> apiDocs(
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+    if (!apiDocs.exists()) {
+      return ResponseEntity.notFound().build();
+    }
+
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_JSON)
+        .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS))
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (acceptEncoding != null && acceptEncoding.contains("gzip") && apiDocsGzip.exists()) {
+      return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(apiDocsGzip);
+    }
+    return response.body(apiDocs);
+  }
+
+  @GetMapping("/swagger-resources")
+  public List<Map<String, String>> swaggerResources() {
+    return List.of(Map.of(
+        "name", "default",
+        "url", "/api/docs",
+        "location", "/api/docs",
+        "swaggerVersion", "2.0"));
+  }
+
+  @GetMapping("/swagger-resources/configuration/ui")
+  public Map<String, Object> uiConfiguration() {
+    return Map.of();
+  }
+
+  @GetMapping("/swagger-resources/configuration/security")
+  public Map<String, Object> securityConfiguration() {
+    return Map.of("enableCsrfSupport", true);
+  }
+}
@@ -2,7 +2,12 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Article;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
+import edu.ucsb.cs156.example.services.ResponseCache;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -12,6 +17,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,42 +28,93 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
-
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The endpoints return a CompletableFuture and query the database on the
+ * {@link JdbcExecutor}, so Tomcat's request threads are not held while they
+ * wait for it.  The full listing is served from the {@link ResponseCache}.
+ */
 @Api(description = "Articles")
 @RequestMapping("/api/article")
 @RestController
 @Slf4j
 public class ArticleController extends ApiController {
 
+    private static final String ALL_ARTICLES = "articles/all";
+
     @Autowired
     ArticleRepository articleRepository;
 
-    @ApiOperation(value = "List all articles")
+    @Autowired
+    TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    JdbcExecutor jdbcExecutor;
+
+    @Autowired
+    ResponseCache responseCache;
+
+    @ApiOperation(value = "List all articles", response = Article.class, responseContainer = "List")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Article> allArticles() {
-        Iterable<Article> articles = articleRepository.findAll();
-        return articles;
+    public CompletableFuture<ResponseEntity<ByteBuffer>> allArticles(
+            @ApiParam("\"summary\" for every field except explanation, or a comma separated list of fields; omit for every field") @RequestParam(required = false) String fields,
+            HttpServletRequest request) {
+        if (fields == null) {
+            return responseCache.get(ALL_ARTICLES, request, () -> jdbcExecutor.supply(() -> articleRepository.findAll()));
+        }
+        if (fields.equals(SUMMARY_FIELDS)) {
+            return responseCache.get(ALL_ARTICLES, SUMMARY_FIELDS, request,
+                    () -> jdbcExecutor.supply(() -> articleRepository.findAllBy()));
+        }
+        List<String> names = parseFields(fields, Article.class);
+        return responseCache.get(ALL_ARTICLES, String.join(",", names), request,
+                () -> jdbcExecutor.supply(() -> articleRepository.findAllFields(Article.class, names)));
     }
 
-    @ApiOperation(value = "Get a single article")
+    @ApiOperation(value = "List articles changed since a token", response = ChangeSet.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/changes")
+    public CompletableFuture<ChangeSet<Article>> changedArticles(
+            @ApiParam("token returned by the previous call; omit to list everything") @RequestParam(required = false) Long since) {
+        return jdbcExecutor.supply(() -> {
+            if (since == null) {
+                return changeSet(articleRepository.findAll(), List.of(), 0L);
+            }
+            return changeSet(articleRepository.findByChangeSeqGreaterThan(since),
+                    tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(Article.class.getSimpleName(), since),
+                    since);
+        });
+    }
+
+    @ApiOperation(value = "Get a single article", response = Article.class)
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public Article getById(
+    public CompletableFuture<Article> getById(
             @ApiParam("id") @RequestParam Long id) {
-        Article article = articleRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Article.class, id));
+        return jdbcExecutor.supply(() -> articleRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(Article.class, id)));
+    }
 
-        return article;
+    @ApiOperation(value = "Get several articles in one request", response = MultiGetResult.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public CompletableFuture<MultiGetResult<Long, Article>> getByIds(
+            @ApiParam("comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return jdbcExecutor.supply(() -> multiGet(ids, articleRepository::findAllById, Article::getId));
     }
 
-    @ApiOperation(value = "Create a new article")
+    @ApiOperation(value = "Create a new article", response = Article.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
-    public Article postArticle(
+    public CompletableFuture<Article> postArticle(
             @ApiParam("title") @RequestParam String title,
             @ApiParam("url") @RequestParam String url,
             @ApiParam("explanation") @RequestParam String explanation,
@@ -77,41 +134,50 @@ public class ArticleController extends ApiController {
         article.setEmail(email);
         article.setDateAdded(dateAdded);
 
-        Article savedArticle = articleRepository.save(article);
+        return jdbcExecutor.supply(() -> {
+            Article savedArticle = articleRepository.save(article);
+            responseCache.invalidate(ALL_ARTICLES);
 
-        return savedArticle;
+            return savedArticle;
+        });
     }
 
-    @ApiOperation(value = "Delete an article")
+    @ApiOperation(value = "Delete an article", response = Object.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
-    public Object deleteArticle(
+    public CompletableFuture<Object> deleteArticle(
             @ApiParam("id") @RequestParam Long id) {
-        Article article = articleRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Article.class, id));
+        return jdbcExecutor.supply(() -> {
+            Article article = articleRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(Article.class, id));
+
+            articleRepository.delete(article);
+            responseCache.invalidate(ALL_ARTICLES);
 
-        articleRepository.delete(article);
-        return genericMessage("Article with id %s deleted".formatted(id));
+            return genericMessage("Article with id %s deleted".formatted(id));
+        });
     }
 
-    @ApiOperation(value = "Update a single article")
+    @ApiOperation(value = "Update a single article", response = Article.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public Article updateArticle(
+    public CompletableFuture<Article> updateArticle(
             @ApiParam("id") @RequestParam Long id,
             @RequestBody @Valid Article incoming) {
+        return jdbcExecutor.supply(() -> {
+            Article article = articleRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(Article.class, id));
 
-        Article article = articleRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Article.class, id));
-
-        article.setTitle(incoming.getTitle());
-        article.setUrl(incoming.getUrl());
-        article.setExplanation(incoming.getExplanation());
-        article.setEmail(incoming.getEmail());
-        article.setDateAdded(incoming.getDateAdded());
+            article.setTitle(incoming.getTitle());
+            article.setUrl(incoming.getUrl());
+            article.setExplanation(incoming.getExplanation());
+            article.setEmail(incoming.getEmail());
+            article.setDateAdded(incoming.getDateAdded());
 
-        articleRepository.save(article);
+            articleRepository.save(article);
+            responseCache.invalidate(ALL_ARTICLES);
 
-        return article;
+            return article;
+        });
     }
 }
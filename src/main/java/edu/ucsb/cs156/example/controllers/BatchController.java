@@ -0,0 +1,47 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.BatchRequest;
+import edu.ucsb.cs156.example.models.BatchResponse;
+import edu.ucsb.cs156.example.services.BatchDispatcher;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Lets a page make its burst of small API calls in one round trip.  Each
+ * batched request is authorized on its own, so the batch itself needs no
+ * role; see {@link BatchDispatcher}.
+ */
+@Api(description = "Batched API requests")
+@RequestMapping("/api/batch")
+@RestController
+public class BatchController extends ApiController {
+
+    @Autowired
+    BatchDispatcher batchDispatcher;
+
+    @Autowired
+    DispatcherServlet dispatcherServlet;
+
+    @ApiOperation(value = "Run several API requests in one call; independent GETs run in parallel", response = BatchResponse.class, responseContainer = "List")
+    @PostMapping("")
+    public CompletableFuture<List<BatchResponse>> batch(
+            @ApiParam("requests as {id, method, url, body}, e.g. {\"id\": \"me\", \"method\": \"GET\", \"url\": \"/api/currentUser\"}") @RequestBody List<BatchRequest> requests,
+            HttpServletRequest request,
+            HttpServletResponse response) {
+        return batchDispatcher.dispatch(dispatcherServlet, request, response, requests);
+    }
+}
@@ -0,0 +1,140 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.ArticleSummary;
+import edu.ucsb.cs156.example.models.Dashboard;
+import edu.ucsb.cs156.example.models.DashboardSection;
+import edu.ucsb.cs156.example.models.HelpRequestSummary;
+import edu.ucsb.cs156.example.models.MenuItemReviewSummary;
+import edu.ucsb.cs156.example.models.RecommendationSummary;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * What the home page shows, in one request instead of four full listings.
+ *
+ * The four sections are queried in parallel on the {@link JdbcExecutor},
+ * each with its own <code>app.dashboard.timeoutMillis</code>.  A section
+ * whose query fails, times out or cannot be queued is reported as
+ * unavailable and the others are returned; a query that times out still
+ * finishes on its JDBC thread, but nobody waits for it.
+ */
+@Api(description = "Dashboard")
+@RequestMapping("/api/dashboard")
+@RestController
+@Slf4j
+public class DashboardController extends ApiController {
+    public static final String UNSOLVED_HELP_REQUESTS = "unsolvedHelpRequests";
+    public static final String UPCOMING_RECOMMENDATIONS = "upcomingRecommendations";
+    public static final String LATEST_ARTICLES = "latestArticles";
+    public static final String RECENT_REVIEWS = "recentReviews";
+
+    @Autowired
+    HelpRequestRepository helpRequestRepository;
+
+    @Autowired
+    RecommendationRepository recommendationRepository;
+
+    @Autowired
+    ArticleRepository articleRepository;
+
+    @Autowired
+    MenuItemReviewRepository menuItemReviewRepository;
+
+    @Autowired
+    JdbcExecutor jdbcExecutor;
+
+    @Value("${app.dashboard.items:5}")
+    int items;
+
+    @Value("${app.dashboard.timeoutMillis:2000}")
+    long timeoutMillis;
+
+    @ApiOperation(value = "Counts and the first few unsolved help requests, upcoming recommendation deadlines, latest articles and recent reviews", response = Dashboard.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("")
+    public CompletableFuture<Dashboard> dashboard() {
+        LocalDateTime now = LocalDateTime.now();
+
+        CompletableFuture<DashboardSection<HelpRequestSummary>> helpRequests = section(UNSOLVED_HELP_REQUESTS,
+                () -> new DashboardSection<>(
+                        helpRequestRepository.countBySolved(false),
+                        helpRequestRepository.findBySolved(false,
+                                PageRequest.of(0, items, Sort.by("requestTime")))));
+        CompletableFuture<DashboardSection<RecommendationSummary>> recommendations = section(UPCOMING_RECOMMENDATIONS,
+                () -> new DashboardSection<>(
+                        recommendationRepository.countByDoneAndDateNeededGreaterThanEqual(false, now),
+                        recommendationRepository.findByDoneAndDateNeededGreaterThanEqual(false, now,
+                                PageRequest.of(0, items, Sort.by("dateNeeded")))));
+        CompletableFuture<DashboardSection<ArticleSummary>> articles = section(LATEST_ARTICLES,
+                () -> new DashboardSection<>(
+                        articleRepository.count(),
+                        articleRepository.findAllBy(
+                                PageRequest.of(0, items, Sort.by("dateAdded").descending()))));
+        CompletableFuture<DashboardSection<MenuItemReviewSummary>> reviews = section(RECENT_REVIEWS,
+                () -> new DashboardSection<>(
+                        menuItemReviewRepository.count(),
+                        menuItemReviewRepository.findAllBy(
+                                PageRequest.of(0, items, Sort.by("dateReviewed").descending()))));
+
+        return CompletableFuture.allOf(helpRequests, recommendations, articles, reviews).thenApply(done -> {
+            List<String> unavailable = new ArrayList<>();
+            if (helpRequests.join() == null) {
+                unavailable.add(UNSOLVED_HELP_REQUESTS);
+            }
+            if (recommendations.join() == null) {
+                unavailable.add(UPCOMING_RECOMMENDATIONS);
+            }
+            if (articles.join() == null) {
+                unavailable.add(LATEST_ARTICLES);
+            }
+            if (reviews.join() == null) {
+                unavailable.add(RECENT_REVIEWS);
+            }
+            return Dashboard.builder()
+                    .unsolvedHelpRequests(helpRequests.join())
+                    .upcomingRecommendations(recommendations.join())
+                    .latestArticles(articles.join())
+                    .recentReviews(reviews.join())
+                    .unavailable(unavailable)
+                    .build();
+        });
+    }
+
+    /** Runs one section's queries; the future completes with null if they fail or take too long. */
+    private <T> CompletableFuture<DashboardSection<T>> section(String name, Supplier<DashboardSection<T>> queries) {
+        CompletableFuture<DashboardSection<T>> section;
+        try {
+            section = jdbcExecutor.supply(queries);
+        } catch (RejectedExecutionException e) {
+            log.warn("Dashboard section {} is unavailable: the JDBC executor is full", name);
+            return CompletableFuture.completedFuture(null);
+        }
+        return section.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS).exceptionally(e -> {
+            log.warn("Dashboard section {} is unavailable: {}", name, e.toString());
+            return null;
+        });
+    }
+}
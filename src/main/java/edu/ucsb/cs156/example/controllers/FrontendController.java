@@ -1,16 +1,57 @@
 package edu.ucsb.cs156.example.controllers;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPOutputStream;
+
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 
 @Profile("!development")
 @Controller
 public class FrontendController {
-  @GetMapping("/**/{path:[^\\.]*}")
-  public String index() {
-    return "forward:/index.html";
+  private final Resource indexHtmlResource;
+
+  /** index.html, read once; its plain and gzipped bytes are kept in memory. */
+  private volatile IndexHtml indexHtml;
+
+  public FrontendController() {
+    this(new ClassPathResource("public/index.html"));
+  }
+
+  FrontendController(Resource indexHtmlResource) {
+    this.indexHtmlResource = indexHtmlResource;
+  }
+
+  @GetMapping({ "/", "/**/{path:[^\\.]*}" })
+  public ResponseEntity<byte[]> index(
+      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) throws IOException {
+    IndexHtml index = indexHtml();
+    if (index == null) {
+      return ResponseEntity.notFound().build();
+    }
+
+    // index.html names the current hashed bundles, so browsers must revalidate it;
+    // the ETag is weak because the gzipped and plain bodies share it
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(MediaType.TEXT_HTML)
+        .cacheControl(CacheControl.noCache())
+        .eTag(index.etag)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+      return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(index.gzipped);
+    }
+    return response.body(index.identity);
   }
 
   @GetMapping("/csrf")
@@ -18,4 +59,30 @@ public class FrontendController {
     return ResponseEntity.notFound().build();
   }
 
+  private IndexHtml indexHtml() throws IOException {
+    IndexHtml index = indexHtml;
+    if (index == null && indexHtmlResource.exists()) {
+      try (InputStream in = indexHtmlResource.getInputStream()) {
+        index = new IndexHtml(in.readAllBytes());
+      }
+      indexHtml = index;
+    }
+    return index;
+  }
+
+  private static class IndexHtml {
+    final byte[] identity;
+    final byte[] gzipped;
+    final String etag;
+
+    IndexHtml(byte[] identity) throws IOException {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+        gzip.write(identity);
+      }
+      this.identity = identity;
+      this.gzipped = buffer.toByteArray();
+      this.etag = "W/\"" + DigestUtils.md5DigestAsHex(identity) + "\"";
+    }
+  }
 }
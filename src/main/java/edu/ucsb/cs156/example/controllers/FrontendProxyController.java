@@ -1,37 +1,88 @@
 package edu.ucsb.cs156.example.controllers;
 
-import org.springframework.cloud.gateway.mvc.ProxyExchange;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.ResourceAccessException;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collections;
+import java.util.Set;
 
+/**
+ * Forwards requests for the frontend to the React dev server in development.
+ * Bodies are streamed through unchanged, and the HttpClient from
+ * {@link edu.ucsb.cs156.example.config.FrontendProxyConfig} keeps its
+ * connections to the dev server alive between requests.  Hot reload's
+ * WebSocket is relayed by
+ * {@link edu.ucsb.cs156.example.config.FrontendWebSocketRelay}.
+ */
 @Profile("development")
 @RestController
 public class FrontendProxyController {
-  @GetMapping({"/", "/{path:^(?!api|oauth2|swagger-ui).*}/**"})
-  public ResponseEntity<String> proxy(ProxyExchange<String> proxy) {
-    String path = proxy.path("/");
+  /** Headers that describe a single connection, plus those HttpClient sets itself. */
+  static final Set<String> HOP_BY_HOP_HEADERS = Set.of(
+      "connection", "keep-alive", "proxy-authenticate", "proxy-authorization", "te", "trailer",
+      "transfer-encoding", "upgrade", "host", "content-length", "expect");
+
+  private final HttpClient devServerHttpClient;
+  private final URI devServer;
+
+  public FrontendProxyController(HttpClient devServerHttpClient, @Value("${app.frontend.devServer}") URI devServer) {
+    this.devServerHttpClient = devServerHttpClient;
+    this.devServer = devServer;
+  }
+
+  @GetMapping({"/", "/{path:^(?!api|oauth2|swagger-ui|ws$).*}/**"})
+  public void proxy(HttpServletRequest request, HttpServletResponse response) throws IOException, InterruptedException {
+    String query = request.getQueryString();
+    HttpRequest.Builder forwarded = HttpRequest.newBuilder(
+        devServer.resolve(request.getRequestURI() + (query == null ? "" : "?" + query)));
+    for (String name : Collections.list(request.getHeaderNames())) {
+      if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+        Collections.list(request.getHeaders(name)).forEach(value -> forwarded.header(name, value));
+      }
+    }
+
+    HttpResponse<InputStream> upstream;
     try {
-      return proxy.uri("http://localhost:3000/" + path).get();
-    } catch (ResourceAccessException e) {
-      if (e.getCause() instanceof ConnectException) {
-        String instructions = """
-                <p>Failed to connect to the frontend server...</p>
-                <p>On Heroku, be sure that <code>PRODUCTION</code> is defined.</p>
-                <p>On localhost, open a second terminal window, cd into <code>frontend</code> and type: <code>npm install; npm start</code></p>
-                <p>Or, you may click to access: </p>
-                <ul>
-                  <li><a href='/swagger-ui/index.html'>/swagger-ui/index.html</a></li>
-                  <li><a href='/h2-console'>/h2-console</a></li>
-                </ul>""";
-
-        return ResponseEntity.ok(instructions);
+      upstream = devServerHttpClient.send(forwarded.build(), HttpResponse.BodyHandlers.ofInputStream());
+    } catch (ConnectException e) {
+      String instructions = """
+              <p>Failed to connect to the frontend server...</p>
+              <p>On Heroku, be sure that <code>PRODUCTION</code> is defined.</p>
+              <p>On localhost, open a second terminal window, cd into <code>frontend</code> and type: <code>npm install; npm start</code></p>
+              <p>Or, you may click to access: </p>
+              <ul>
+                <li><a href='/swagger-ui/index.html'>/swagger-ui/index.html</a></li>
+                <li><a href='/h2-console'>/h2-console</a></li>
+              </ul>""";
+
+      response.setContentType(MediaType.TEXT_HTML_VALUE);
+      response.setCharacterEncoding("UTF-8");
+      response.getWriter().write(instructions);
+      return;
+    }
+
+    response.setStatus(upstream.statusCode());
+    upstream.headers().map().forEach((name, values) -> {
+      // the body is copied byte for byte, so its length still holds
+      if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase()) || name.equalsIgnoreCase("content-length")) {
+        values.forEach(value -> response.addHeader(name, value));
       }
-      throw e;
+    });
+    try (InputStream body = upstream.body()) {
+      body.transferTo(response.getOutputStream());
     }
   }
 }
@@ -2,7 +2,12 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -12,6 +17,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,40 +28,92 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
-
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The endpoints return a CompletableFuture and query the database on the
+ * {@link JdbcExecutor}, so Tomcat's request threads are not held while they
+ * wait for it.  Concurrent identical requests for the full listing share
+ * one query through the {@link RequestCoalescer}.
+ */
 @Api(description = "HelpRequest")
 @RequestMapping("/api/helprequest")
 @RestController
 @Slf4j
 public class HelpRequestController extends ApiController {
+    public static final String ALL_HELP_REQUESTS = "/api/helprequest/all";
+
     @Autowired
     HelpRequestRepository helpRequestRepository;
 
-    @ApiOperation(value = "List all help requests")
+    @Autowired
+    TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    JdbcExecutor jdbcExecutor;
+
+    @Autowired
+    RequestCoalescer requestCoalescer;
+
+    @ApiOperation(value = "List all help requests", response = HelpRequest.class, responseContainer = "List")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<HelpRequest> allHelpRequests() {
-        Iterable<HelpRequest> helpRequests = helpRequestRepository.findAll();
-        return helpRequests;
+    public CompletableFuture<ResponseEntity<byte[]>> allHelpRequests(
+            @ApiParam("\"summary\" for every field except explanation, or a comma separated list of fields; omit for every field") @RequestParam(required = false) String fields,
+            HttpServletRequest request) {
+        return requestCoalescer.get(request, () -> jdbcExecutor.supply(() -> {
+            if (fields == null) {
+                Iterable<HelpRequest> helpRequests = helpRequestRepository.findAll();
+                return helpRequests;
+            }
+            if (fields.equals(SUMMARY_FIELDS)) {
+                return helpRequestRepository.findAllBy();
+            }
+            return helpRequestRepository.findAllFields(HelpRequest.class, parseFields(fields, HelpRequest.class));
+        }));
     }
 
-    @ApiOperation(value = "Get a single help request")
+    @ApiOperation(value = "List help requests changed since a token", response = ChangeSet.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/changes")
+    public CompletableFuture<ChangeSet<HelpRequest>> changedHelpRequests(
+            @ApiParam("token returned by the previous call; omit to list everything") @RequestParam(required = false) Long since) {
+        return jdbcExecutor.supply(() -> {
+            if (since == null) {
+                return changeSet(helpRequestRepository.findAll(), List.of(), 0L);
+            }
+            return changeSet(helpRequestRepository.findByChangeSeqGreaterThan(since),
+                    tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(HelpRequest.class.getSimpleName(), since),
+                    since);
+        });
+    }
+
+    @ApiOperation(value = "Get a single help request", response = HelpRequest.class)
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public HelpRequest getById(
+    public CompletableFuture<HelpRequest> getById(
             @ApiParam("Help Request ID") @RequestParam Long id) {
-        HelpRequest helpRequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-        return helpRequest;
+        return jdbcExecutor.supply(() -> helpRequestRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id)));
     }
 
-    @ApiOperation(value = "Create a new help request")
+    @ApiOperation(value = "Get several help requests in one request", response = MultiGetResult.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public CompletableFuture<MultiGetResult<Long, HelpRequest>> getByIds(
+            @ApiParam("comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return jdbcExecutor.supply(() -> multiGet(ids, helpRequestRepository::findAllById, HelpRequest::getId));
+    }
+
+    @ApiOperation(value = "Create a new help request", response = HelpRequest.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
-    public HelpRequest postHelpRequest(
+    public CompletableFuture<HelpRequest> postHelpRequest(
             @ApiParam("email of the requester") @RequestParam String requesterEmail,
             @ApiParam("team-id") @RequestParam String teamId,
             @ApiParam("table or breakout room?") @RequestParam String tableOrBreakoutRoom,
@@ -76,43 +134,50 @@ public class HelpRequestController extends ApiController {
         helpRequest.setRequestTime(requestTime);
         helpRequest.setExplanation(explanation);
         helpRequest.setSolved(solved);
-      
-        HelpRequest savedHelpRequest = helpRequestRepository.save(helpRequest);
 
-        return savedHelpRequest;
+        return jdbcExecutor.supply(() -> {
+            HelpRequest savedHelpRequest = helpRequestRepository.save(helpRequest);
+            requestCoalescer.invalidate(ALL_HELP_REQUESTS);
+            return savedHelpRequest;
+        });
     }
 
-    @ApiOperation(value = "Delete a help request")
+    @ApiOperation(value = "Delete a help request", response = Object.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
-    public Object deleteHelpRequest(
+    public CompletableFuture<Object> deleteHelpRequest(
             @ApiParam("id") @RequestParam Long id) {
-        HelpRequest helpRequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-
-        helpRequestRepository.delete(helpRequest);
-        return genericMessage("Help Request with id %s deleted".formatted(id));
+        return jdbcExecutor.supply(() -> {
+            HelpRequest helpRequest = helpRequestRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+
+            helpRequestRepository.delete(helpRequest);
+            requestCoalescer.invalidate(ALL_HELP_REQUESTS);
+            return genericMessage("Help Request with id %s deleted".formatted(id));
+        });
     }
 
-    @ApiOperation(value = "Update a single help request")
+    @ApiOperation(value = "Update a single help request", response = HelpRequest.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public HelpRequest updateHelpRequest(
+    public CompletableFuture<HelpRequest> updateHelpRequest(
             @ApiParam("id") @RequestParam Long id,
             @RequestBody @Valid HelpRequest incoming) {
-
-        HelpRequest helpRequest = helpRequestRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
-
-        helpRequest.setRequesterEmail(incoming.getRequesterEmail());
-        helpRequest.setTeamId(incoming.getTeamId());
-        helpRequest.setTableOrBreakoutRoom(incoming.getTableOrBreakoutRoom());
-        helpRequest.setRequestTime(incoming.getRequestTime());
-        helpRequest.setExplanation(incoming.getExplanation());
-        helpRequest.setSolved(incoming.getSolved());
-
-        helpRequestRepository.save(helpRequest);
-
-        return helpRequest;
+        return jdbcExecutor.supply(() -> {
+            HelpRequest helpRequest = helpRequestRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
+
+            helpRequest.setRequesterEmail(incoming.getRequesterEmail());
+            helpRequest.setTeamId(incoming.getTeamId());
+            helpRequest.setTableOrBreakoutRoom(incoming.getTableOrBreakoutRoom());
+            helpRequest.setRequestTime(incoming.getRequestTime());
+            helpRequest.setExplanation(incoming.getExplanation());
+            helpRequest.setSolved(incoming.getSolved());
+
+            helpRequestRepository.save(helpRequest);
+            requestCoalescer.invalidate(ALL_HELP_REQUESTS);
+
+            return helpRequest;
+        });
     }   
 }
\ No newline at end of file
@@ -2,7 +2,11 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -22,9 +26,17 @@ import org.springframework.format.annotation.DateTimeFormat;
 
 import javax.validation.Valid;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 
 
+/**
+ * The endpoints return a CompletableFuture and query the database on the
+ * {@link JdbcExecutor}, so Tomcat's request threads are not held while they
+ * wait for it.
+ */
 @Api(description = "MenuItemReview")
 @RequestMapping("/api/MenuItemReview")
 @RestController
@@ -34,29 +46,65 @@ public class MenuItemReviewController extends ApiController {
     @Autowired
     MenuItemReviewRepository menuItemReviewRepository;
 
-    @ApiOperation(value = "Get reviews of all Menu Items")
+    @Autowired
+    TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    JdbcExecutor jdbcExecutor;
+
+    @ApiOperation(value = "Get reviews of all Menu Items", response = MenuItemReview.class, responseContainer = "List")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<MenuItemReview> allReviews() {
-        Iterable<MenuItemReview> reviews  = menuItemReviewRepository.findAll();
-        return reviews;
+    public CompletableFuture<Iterable<?>> allReviews(
+            @ApiParam("\"summary\" for every field except comments, or a comma separated list of fields; omit for every field") @RequestParam(required = false) String fields) {
+        return jdbcExecutor.supply(() -> {
+            if (fields == null) {
+                Iterable<MenuItemReview> reviews  = menuItemReviewRepository.findAll();
+                return reviews;
+            }
+            if (fields.equals(SUMMARY_FIELDS)) {
+                return menuItemReviewRepository.findAllBy();
+            }
+            return menuItemReviewRepository.findAllFields(MenuItemReview.class, parseFields(fields, MenuItemReview.class));
+        });
     }
 
-    @ApiOperation(value = "Get a single Menu Item Review")
+    @ApiOperation(value = "List reviews of Menu Items changed since a token", response = ChangeSet.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/changes")
+    public CompletableFuture<ChangeSet<MenuItemReview>> changedReviews(
+            @ApiParam("token returned by the previous call; omit to list everything") @RequestParam(required = false) Long since) {
+        return jdbcExecutor.supply(() -> {
+            if (since == null) {
+                return changeSet(menuItemReviewRepository.findAll(), List.of(), 0L);
+            }
+            return changeSet(menuItemReviewRepository.findByChangeSeqGreaterThan(since),
+                    tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(MenuItemReview.class.getSimpleName(), since),
+                    since);
+        });
+    }
+
+    @ApiOperation(value = "Get a single Menu Item Review", response = MenuItemReview.class)
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public MenuItemReview getById(
+    public CompletableFuture<MenuItemReview> getById(
             @ApiParam("id") @RequestParam Long id) {
-        MenuItemReview reviews = menuItemReviewRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+        return jdbcExecutor.supply(() -> menuItemReviewRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id)));
+    }
 
-        return reviews;
+    @ApiOperation(value = "Get several Menu Item Reviews in one request", response = MultiGetResult.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public CompletableFuture<MultiGetResult<Long, MenuItemReview>> getByIds(
+            @ApiParam("comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return jdbcExecutor.supply(() -> multiGet(ids, menuItemReviewRepository::findAllById, MenuItemReview::getId));
     }
 
-    @ApiOperation(value = "Create a new Menu Item Review")
+    @ApiOperation(value = "Create a new Menu Item Review", response = MenuItemReview.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
-    public MenuItemReview postMenuItemReview(
+    public CompletableFuture<MenuItemReview> postMenuItemReview(
         @ApiParam("itemID") @RequestParam Long itemId,
         @ApiParam("reviewerEmail") @RequestParam String reviewerEmail,
         @ApiParam("stars") @RequestParam int stars,
@@ -74,41 +122,42 @@ public class MenuItemReviewController extends ApiController {
         review.setDateReviewed(dateReviewed);
         review.setComments(comments);
 
-        MenuItemReview savedReview = menuItemReviewRepository.save(review);
-
-        return savedReview;
+        return jdbcExecutor.supply(() -> menuItemReviewRepository.save(review));
     }
 
-    @ApiOperation(value = "Delete a MenuItemReview")
+    @ApiOperation(value = "Delete a MenuItemReview", response = Object.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
-    public Object deleteReview(
+    public CompletableFuture<Object> deleteReview(
             @ApiParam("id") @RequestParam Long id) {
-                MenuItemReview review = menuItemReviewRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+        return jdbcExecutor.supply(() -> {
+            MenuItemReview review = menuItemReviewRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
-        menuItemReviewRepository.delete(review);
-        return genericMessage("MenuItemReview with id %s deleted".formatted(id));
+            menuItemReviewRepository.delete(review);
+            return genericMessage("MenuItemReview with id %s deleted".formatted(id));
+        });
     }
 
-    @ApiOperation(value = "Update a single review")
+    @ApiOperation(value = "Update a single review", response = MenuItemReview.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public MenuItemReview updateReview(
+    public CompletableFuture<MenuItemReview> updateReview(
             @ApiParam("id") @RequestParam Long id,
             @RequestBody @Valid MenuItemReview incoming) {
-
+        return jdbcExecutor.supply(() -> {
             MenuItemReview review = menuItemReviewRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
+                    .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
-        review.setItemId(incoming.getItemId());
-        review.setReviewerEmail(incoming.getReviewerEmail());  
-        review.setStars(incoming.getStars());
-        review.setDateReviewed(incoming.getDateReviewed());
-        review.setComments(incoming.getComments());
+            review.setItemId(incoming.getItemId());
+            review.setReviewerEmail(incoming.getReviewerEmail());
+            review.setStars(incoming.getStars());
+            review.setDateReviewed(incoming.getDateReviewed());
+            review.setComments(incoming.getComments());
 
-        menuItemReviewRepository.save(review);
+            menuItemReviewRepository.save(review);
 
-        return review;
+            return review;
+        });
     }
 }
@@ -0,0 +1,124 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.CoalescingStats;
+import edu.ucsb.cs156.example.models.ConnectionPoolStats;
+import edu.ucsb.cs156.example.models.EntityCacheStats;
+import edu.ucsb.cs156.example.models.JdbcExecutorStats;
+import edu.ucsb.cs156.example.models.QueryStatsReport;
+import edu.ucsb.cs156.example.models.RateLimitStats;
+import edu.ucsb.cs156.example.models.ReplicaRoutingStats;
+import edu.ucsb.cs156.example.models.ResponseCacheStats;
+import edu.ucsb.cs156.example.models.StartupReport;
+import edu.ucsb.cs156.example.services.ConnectionPoolMonitor;
+import edu.ucsb.cs156.example.services.EntityCacheStatsService;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
+import edu.ucsb.cs156.example.services.QueryStatistics;
+import edu.ucsb.cs156.example.services.RateLimiter;
+import edu.ucsb.cs156.example.services.ReadReplicaRouter;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
+import edu.ucsb.cs156.example.services.ResponseCache;
+import edu.ucsb.cs156.example.services.StartupReportService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Api(description = "Runtime metrics (admin only)")
+@RequestMapping("/api/admin/metrics")
+@RestController
+public class MetricsController extends ApiController {
+
+    @Autowired
+    ResponseCache responseCache;
+
+    @Autowired
+    StartupReportService startupReportService;
+
+    @Autowired
+    JdbcExecutor jdbcExecutor;
+
+    @Autowired
+    ConnectionPoolMonitor connectionPoolMonitor;
+
+    @Autowired
+    QueryStatistics queryStatistics;
+
+    @Autowired
+    EntityCacheStatsService entityCacheStatsService;
+
+    @Autowired
+    ReadReplicaRouter readReplicaRouter;
+
+    @Autowired
+    RateLimiter rateLimiter;
+
+    @Autowired
+    RequestCoalescer requestCoalescer;
+
+    @ApiOperation(value = "Get size, hit ratio and eviction counts of the serialized response cache")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/responseCache")
+    public ResponseCacheStats responseCache() {
+        return responseCache.getStats();
+    }
+
+    @ApiOperation(value = "Get the time the last startup took, per phase and for the slowest beans")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/startup")
+    public StartupReport startup() {
+        return startupReportService.getReport();
+    }
+
+    @ApiOperation(value = "Get queue depth and wait times of the executor that runs asynchronous database work")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/jdbcExecutor")
+    public JdbcExecutorStats jdbcExecutor() {
+        return jdbcExecutor.getStats();
+    }
+
+    @ApiOperation(value = "Get connection pool usage, wait and hold time histograms, the longest held connections and leaks by handler")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/connectionPool")
+    public ConnectionPoolStats connectionPool() {
+        return connectionPoolMonitor.getStats();
+    }
+
+    @ApiOperation(value = "Get statement counts, rows and latency per repository method and per normalized SQL statement")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/queries")
+    public QueryStatsReport queries() {
+        return queryStatistics.getReport();
+    }
+
+    @ApiOperation(value = "Get hit ratios and sizes of the second-level entity cache, per entity type")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/entityCache")
+    public EntityCacheStats entityCache() {
+        return entityCacheStatsService.getStats();
+    }
+
+    @ApiOperation(value = "Get how many connections went to the primary and to each read replica, and which replicas are up")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/replicas")
+    public ReplicaRoutingStats replicas() {
+        return readReplicaRouter.getStats();
+    }
+
+    @ApiOperation(value = "Get requests allowed and rejected per rate limit budget, and the clients rejected most often")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/rateLimits")
+    public RateLimitStats rateLimits() {
+        return rateLimiter.getStats();
+    }
+
+    @ApiOperation(value = "Get how many GET requests shared an identical request's query instead of running their own")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @GetMapping("/coalescing")
+    public CoalescingStats coalescing() {
+        return requestCoalescer.getStats();
+    }
+}
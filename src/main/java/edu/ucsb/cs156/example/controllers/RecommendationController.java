@@ -2,7 +2,11 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Recommendation;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.RecommendationRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -25,8 +29,15 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 
+/**
+ * The endpoints return a CompletableFuture and query the database on the
+ * {@link JdbcExecutor}, so Tomcat's request threads are not held while they
+ * wait for it.
+ */
 @Api(description = "Recommendations")
 @RequestMapping("/api/Recommendation")
 @RestController
@@ -36,29 +47,65 @@ public class RecommendationController extends ApiController{
     @Autowired
     RecommendationRepository recommendationRepository;
 
-    @ApiOperation(value = "List all recommendation")
+    @Autowired
+    TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    JdbcExecutor jdbcExecutor;
+
+    @ApiOperation(value = "List all recommendation", response = Recommendation.class, responseContainer = "List")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<Recommendation> allCommonss() {
-        Iterable<Recommendation> recommendation = recommendationRepository.findAll();
-        return recommendation;
+    public CompletableFuture<Iterable<?>> allCommonss(
+            @ApiParam("\"summary\" for every field except explanation, or a comma separated list of fields; omit for every field") @RequestParam(required = false) String fields) {
+        return jdbcExecutor.supply(() -> {
+            if (fields == null) {
+                Iterable<Recommendation> recommendation = recommendationRepository.findAll();
+                return recommendation;
+            }
+            if (fields.equals(SUMMARY_FIELDS)) {
+                return recommendationRepository.findAllBy();
+            }
+            return recommendationRepository.findAllFields(Recommendation.class, parseFields(fields, Recommendation.class));
+        });
+    }
+
+    @ApiOperation(value = "List recommendations changed since a token", response = ChangeSet.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/changes")
+    public CompletableFuture<ChangeSet<Recommendation>> changedRecommendations(
+            @ApiParam("token returned by the previous call; omit to list everything") @RequestParam(required = false) Long since) {
+        return jdbcExecutor.supply(() -> {
+            if (since == null) {
+                return changeSet(recommendationRepository.findAll(), List.of(), 0L);
+            }
+            return changeSet(recommendationRepository.findByChangeSeqGreaterThan(since),
+                    tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(Recommendation.class.getSimpleName(), since),
+                    since);
+        });
     }
 
-    @ApiOperation(value = "Get a single recommendation")
+    @ApiOperation(value = "Get a single recommendation", response = Recommendation.class)
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public Recommendation getById(
+    public CompletableFuture<Recommendation> getById(
             @ApiParam("id") @RequestParam Long id) {
-        Recommendation recommendation = recommendationRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Recommendation.class, id));
+        return jdbcExecutor.supply(() -> recommendationRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(Recommendation.class, id)));
+    }
 
-        return recommendation;
+    @ApiOperation(value = "Get several recommendations in one request", response = MultiGetResult.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public CompletableFuture<MultiGetResult<Long, Recommendation>> getByIds(
+            @ApiParam("comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return jdbcExecutor.supply(() -> multiGet(ids, recommendationRepository::findAllById, Recommendation::getId));
     }
 
-    @ApiOperation(value = "Create a new recommendation")
+    @ApiOperation(value = "Create a new recommendation", response = Recommendation.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
-    public Recommendation postRecommendation(
+    public CompletableFuture<Recommendation> postRecommendation(
         @ApiParam("requesterEmail") @RequestParam String requesterEmail,
         @ApiParam("professorEmail") @RequestParam String professorEmail,
         @ApiParam("explanation") @RequestParam String explanation,
@@ -79,43 +126,43 @@ public class RecommendationController extends ApiController{
         recommendation.setDateNeeded(dateNeeded);
         recommendation.setDone(done);
 
-        Recommendation savedRecommendation = recommendationRepository.save(recommendation);
-
-        return savedRecommendation;
+        return jdbcExecutor.supply(() -> recommendationRepository.save(recommendation));
     }
 
-    @ApiOperation(value = "Delete a Recommendation")
+    @ApiOperation(value = "Delete a Recommendation", response = Object.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
-    public Object deleteCommons(
+    public CompletableFuture<Object> deleteCommons(
             @ApiParam("id") @RequestParam Long id) {
-        Recommendation recommendation = recommendationRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Recommendation.class, id));
+        return jdbcExecutor.supply(() -> {
+            Recommendation recommendation = recommendationRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(Recommendation.class, id));
 
-        recommendationRepository.delete(recommendation);
-        return genericMessage("Recommendation with id %s deleted".formatted(id));
+            recommendationRepository.delete(recommendation);
+            return genericMessage("Recommendation with id %s deleted".formatted(id));
+        });
     }
 
-    @ApiOperation(value = "Update a single recommendation")
+    @ApiOperation(value = "Update a single recommendation", response = Recommendation.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public Recommendation updateRecommendation(
+    public CompletableFuture<Recommendation> updateRecommendation(
             @ApiParam("id") @RequestParam Long id,
             @RequestBody @Valid Recommendation incoming) {
+        return jdbcExecutor.supply(() -> {
+            Recommendation recommendation = recommendationRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(Recommendation.class, id));
 
-        Recommendation recommendation = recommendationRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(Recommendation.class, id));
-
-
-        recommendation.setRequesterEmail(incoming.getRequesterEmail());  
-        recommendation.setProfessorEmail(incoming.getProfessorEmail());
-        recommendation.setExplanation(incoming.getExplanation());
-        recommendation.setDateRequested(incoming.getDateRequested());
-        recommendation.setDateNeeded(incoming.getDateNeeded());
-        recommendation.setDone(incoming.getDone());
+            recommendation.setRequesterEmail(incoming.getRequesterEmail());
+            recommendation.setProfessorEmail(incoming.getProfessorEmail());
+            recommendation.setExplanation(incoming.getExplanation());
+            recommendation.setDateRequested(incoming.getDateRequested());
+            recommendation.setDateNeeded(incoming.getDateNeeded());
+            recommendation.setDone(incoming.getDone());
 
-        recommendationRepository.save(recommendation);
+            recommendationRepository.save(recommendation);
 
-        return recommendation;
+            return recommendation;
+        });
     }
 }
\ No newline at end of file
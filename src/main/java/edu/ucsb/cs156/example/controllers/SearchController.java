@@ -0,0 +1,38 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.models.SearchResult;
+import edu.ucsb.cs156.example.services.SearchService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * One search box for articles, organizations, menu items, dining commons
+ * and dates; see {@link SearchService}.
+ */
+@Api(description = "Search")
+@RequestMapping("/api/search")
+@RestController
+public class SearchController extends ApiController {
+
+    @Autowired
+    SearchService searchService;
+
+    @ApiOperation(value = "Search articles, organizations, menu items, dining commons and dates; sources that miss the deadline are left out", response = SearchResult.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("")
+    public CompletableFuture<SearchResult> search(
+            @ApiParam("text to look for, e.g. taco") @RequestParam String q,
+            @ApiParam("most results to return") @RequestParam(defaultValue = "20") int limit) {
+        return searchService.search(q, limit);
+    }
+}
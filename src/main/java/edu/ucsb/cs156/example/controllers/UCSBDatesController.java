@@ -2,7 +2,11 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -25,7 +29,14 @@ import org.springframework.web.bind.annotation.RestController;
 import javax.validation.Valid;
 
 import java.time.LocalDateTime;
-
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The endpoints return a CompletableFuture and query the database on the
+ * {@link JdbcExecutor}, so Tomcat's request threads are not held while they
+ * wait for it.
+ */
 @Api(description = "UCSBDates")
 @RequestMapping("/api/ucsbdates")
 @RestController
@@ -35,29 +46,55 @@ public class UCSBDatesController extends ApiController {
     @Autowired
     UCSBDateRepository ucsbDateRepository;
 
-    @ApiOperation(value = "List all ucsb dates")
+    @Autowired
+    TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    JdbcExecutor jdbcExecutor;
+
+    @ApiOperation(value = "List all ucsb dates", response = UCSBDate.class, responseContainer = "List")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDate> allUCSBDates() {
-        Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
-        return dates;
+    public CompletableFuture<Iterable<UCSBDate>> allUCSBDates() {
+        return jdbcExecutor.supply(() -> ucsbDateRepository.findAll());
+    }
+
+    @ApiOperation(value = "List ucsb dates changed since a token", response = ChangeSet.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/changes")
+    public CompletableFuture<ChangeSet<UCSBDate>> changedUCSBDates(
+            @ApiParam("token returned by the previous call; omit to list everything") @RequestParam(required = false) Long since) {
+        return jdbcExecutor.supply(() -> {
+            if (since == null) {
+                return changeSet(ucsbDateRepository.findAll(), List.of(), 0L);
+            }
+            return changeSet(ucsbDateRepository.findByChangeSeqGreaterThan(since),
+                    tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(UCSBDate.class.getSimpleName(), since),
+                    since);
+        });
     }
 
-    @ApiOperation(value = "Get a single date")
+    @ApiOperation(value = "Get a single date", response = UCSBDate.class)
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBDate getById(
+    public CompletableFuture<UCSBDate> getById(
             @ApiParam("id") @RequestParam Long id) {
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
+        return jdbcExecutor.supply(() -> ucsbDateRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id)));
+    }
 
-        return ucsbDate;
+    @ApiOperation(value = "Get several UCSBDates in one request", response = MultiGetResult.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public CompletableFuture<MultiGetResult<Long, UCSBDate>> getByIds(
+            @ApiParam("comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return jdbcExecutor.supply(() -> multiGet(ids, ucsbDateRepository::findAllById, UCSBDate::getId));
     }
 
-    @ApiOperation(value = "Create a new date")
+    @ApiOperation(value = "Create a new date", response = UCSBDate.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
-    public UCSBDate postUCSBDate(
+    public CompletableFuture<UCSBDate> postUCSBDate(
             @ApiParam("quarterYYYYQ") @RequestParam String quarterYYYYQ,
             @ApiParam("name") @RequestParam String name,
             @ApiParam("date (in iso format, e.g. YYYY-mm-ddTHH:MM:SS; see https://en.wikipedia.org/wiki/ISO_8601)") @RequestParam("localDateTime") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime localDateTime)
@@ -73,39 +110,40 @@ public class UCSBDatesController extends ApiController {
         ucsbDate.setName(name);
         ucsbDate.setLocalDateTime(localDateTime);
 
-        UCSBDate savedUcsbDate = ucsbDateRepository.save(ucsbDate);
-
-        return savedUcsbDate;
+        return jdbcExecutor.supply(() -> ucsbDateRepository.save(ucsbDate));
     }
 
-    @ApiOperation(value = "Delete a UCSBDate")
+    @ApiOperation(value = "Delete a UCSBDate", response = Object.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
-    public Object deleteUCSBDate(
+    public CompletableFuture<Object> deleteUCSBDate(
             @ApiParam("id") @RequestParam Long id) {
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
+        return jdbcExecutor.supply(() -> {
+            UCSBDate ucsbDate = ucsbDateRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
-        ucsbDateRepository.delete(ucsbDate);
-        return genericMessage("UCSBDate with id %s deleted".formatted(id));
+            ucsbDateRepository.delete(ucsbDate);
+            return genericMessage("UCSBDate with id %s deleted".formatted(id));
+        });
     }
 
-    @ApiOperation(value = "Update a single date")
+    @ApiOperation(value = "Update a single date", response = UCSBDate.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public UCSBDate updateUCSBDate(
+    public CompletableFuture<UCSBDate> updateUCSBDate(
             @ApiParam("id") @RequestParam Long id,
             @RequestBody @Valid UCSBDate incoming) {
+        return jdbcExecutor.supply(() -> {
+            UCSBDate ucsbDate = ucsbDateRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
-        UCSBDate ucsbDate = ucsbDateRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
-
-        ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
-        ucsbDate.setName(incoming.getName());
-        ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
+            ucsbDate.setQuarterYYYYQ(incoming.getQuarterYYYYQ());
+            ucsbDate.setName(incoming.getName());
+            ucsbDate.setLocalDateTime(incoming.getLocalDateTime());
 
-        ucsbDateRepository.save(ucsbDate);
+            ucsbDateRepository.save(ucsbDate);
 
-        return ucsbDate;
+            return ucsbDate;
+        });
     }
 }
@@ -2,13 +2,19 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,41 +25,82 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+
+/**
+ * The endpoints return a CompletableFuture and query the database on the
+ * {@link JdbcExecutor}, so Tomcat's request threads are not held while they
+ * wait for it.  Concurrent identical requests for the full listing share
+ * one query through the {@link RequestCoalescer}.
+ */
 @Api(description = "UCSBDiningCommons")
 @RequestMapping("/api/ucsbdiningcommons")
 @RestController
 @Slf4j
 public class UCSBDiningCommonsController extends ApiController {
+    private static final String ALL_COMMONS = "/api/ucsbdiningcommons/all";
 
     @Autowired
     UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
-    @ApiOperation(value = "List all ucsb dining commons")
+    @Autowired
+    TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    JdbcExecutor jdbcExecutor;
+
+    @Autowired
+    RequestCoalescer requestCoalescer;
+
+    @ApiOperation(value = "List all ucsb dining commons", response = UCSBDiningCommons.class, responseContainer = "List")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommons> allCommonss() {
-        Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-        return commons;
+    public CompletableFuture<ResponseEntity<byte[]>> allCommonss(HttpServletRequest request) {
+        // everyone loads this list at once when a lab starts; they share one query
+        return requestCoalescer.get(request, () -> jdbcExecutor.supply(() -> ucsbDiningCommonsRepository.findAll()));
+    }
+
+    @ApiOperation(value = "List ucsb dining commons changed since a token", response = ChangeSet.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/changes")
+    public CompletableFuture<ChangeSet<UCSBDiningCommons>> changedCommons(
+            @ApiParam("token returned by the previous call; omit to list everything") @RequestParam(required = false) Long since) {
+        return jdbcExecutor.supply(() -> {
+            if (since == null) {
+                return changeSet(ucsbDiningCommonsRepository.findAll(), List.of(), 0L);
+            }
+            return changeSet(ucsbDiningCommonsRepository.findByChangeSeqGreaterThan(since),
+                    tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(UCSBDiningCommons.class.getSimpleName(), since),
+                    since);
+        });
     }
 
-    @ApiOperation(value = "Get a single commons")
+    @ApiOperation(value = "Get a single commons", response = UCSBDiningCommons.class)
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBDiningCommons getById(
+    public CompletableFuture<UCSBDiningCommons> getById(
             @ApiParam("code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
+        return jdbcExecutor.supply(() -> ucsbDiningCommonsRepository.findById(code)
+                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code)));
+    }
 
-        return commons;
+    @ApiOperation(value = "Get several commons in one request", response = MultiGetResult.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "codes")
+    public CompletableFuture<MultiGetResult<String, UCSBDiningCommons>> getByCodes(
+            @ApiParam("comma separated codes, e.g. DLG,ORT") @RequestParam List<String> codes) {
+        return jdbcExecutor.supply(() -> multiGet(codes, ucsbDiningCommonsRepository::findAllById, UCSBDiningCommons::getCode));
     }
 
-    @ApiOperation(value = "Create a new commons")
+    @ApiOperation(value = "Create a new commons", response = UCSBDiningCommons.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
-    public UCSBDiningCommons postCommons(
+    public CompletableFuture<UCSBDiningCommons> postCommons(
         @ApiParam("code") @RequestParam String code,
         @ApiParam("name") @RequestParam String name,
         @ApiParam("hasSackMeal") @RequestParam boolean hasSackMeal,
@@ -73,43 +120,50 @@ public class UCSBDiningCommonsController extends ApiController {
         commons.setLatitude(latitude);
         commons.setLongitude(longitude);
 
-        UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+        return jdbcExecutor.supply(() -> {
+            UCSBDiningCommons savedCommons = ucsbDiningCommonsRepository.save(commons);
+            requestCoalescer.invalidate(ALL_COMMONS);
 
-        return savedCommons;
+            return savedCommons;
+        });
     }
 
-    @ApiOperation(value = "Delete a UCSBDiningCommons")
+    @ApiOperation(value = "Delete a UCSBDiningCommons", response = Object.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
-    public Object deleteCommons(
+    public CompletableFuture<Object> deleteCommons(
             @ApiParam("code") @RequestParam String code) {
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-        ucsbDiningCommonsRepository.delete(commons);
-        return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
+        return jdbcExecutor.supply(() -> {
+            UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
+                    .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
+
+            ucsbDiningCommonsRepository.delete(commons);
+            requestCoalescer.invalidate(ALL_COMMONS);
+            return genericMessage("UCSBDiningCommons with id %s deleted".formatted(code));
+        });
     }
 
-    @ApiOperation(value = "Update a single commons")
+    @ApiOperation(value = "Update a single commons", response = UCSBDiningCommons.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public UCSBDiningCommons updateCommons(
+    public CompletableFuture<UCSBDiningCommons> updateCommons(
             @ApiParam("code") @RequestParam String code,
             @RequestBody @Valid UCSBDiningCommons incoming) {
-
-        UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
-
-
-        commons.setName(incoming.getName());  
-        commons.setHasSackMeal(incoming.getHasSackMeal());
-        commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
-        commons.setHasDiningCam(incoming.getHasDiningCam());
-        commons.setLatitude(incoming.getLatitude());
-        commons.setLongitude(incoming.getLongitude());
-
-        ucsbDiningCommonsRepository.save(commons);
-
-        return commons;
+        return jdbcExecutor.supply(() -> {
+            UCSBDiningCommons commons = ucsbDiningCommonsRepository.findById(code)
+                    .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
+
+            commons.setName(incoming.getName());
+            commons.setHasSackMeal(incoming.getHasSackMeal());
+            commons.setHasTakeOutMeal(incoming.getHasTakeOutMeal());
+            commons.setHasDiningCam(incoming.getHasDiningCam());
+            commons.setLatitude(incoming.getLatitude());
+            commons.setLongitude(incoming.getLongitude());
+
+            ucsbDiningCommonsRepository.save(commons);
+            requestCoalescer.invalidate(ALL_COMMONS);
+
+            return commons;
+        });
     }
 }
@@ -1,8 +1,13 @@
 package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
+import edu.ucsb.cs156.example.services.ResponseCache;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -12,6 +17,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,39 +28,82 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The endpoints return a CompletableFuture and query the database on the
+ * {@link JdbcExecutor}, so Tomcat's request threads are not held while they
+ * wait for it.  The full listing is served from the {@link ResponseCache}.
+ */
 @Api(description = "UCSBDiningCommonsMenuItem")
 @RequestMapping("/api/ucsbdiningcommonsmenuitem")
 @RestController
 @Slf4j
 public class UCSBDiningCommonsMenuItemController extends ApiController{
     
+    private static final String ALL_MENU_ITEMS = "ucsbdiningcommonsmenuitem/all";
+
     @Autowired
     UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
-    @ApiOperation(value = "List all ucsb menu items")
+    @Autowired
+    TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    JdbcExecutor jdbcExecutor;
+
+    @Autowired
+    ResponseCache responseCache;
+
+    @ApiOperation(value = "List all ucsb menu items", response = UCSBDiningCommonsMenuItem.class, responseContainer = "List")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBDiningCommonsMenuItem> allMenuItems(){
-        Iterable<UCSBDiningCommonsMenuItem> items = ucsbDiningCommonsMenuItemRepository.findAll();
-        return items;
+    public CompletableFuture<ResponseEntity<ByteBuffer>> allMenuItems(HttpServletRequest request) {
+        return responseCache.get(ALL_MENU_ITEMS, request,
+                () -> jdbcExecutor.supply(() -> ucsbDiningCommonsMenuItemRepository.findAll()));
+    }
+
+    @ApiOperation(value = "List ucsb menu items changed since a token", response = ChangeSet.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/changes")
+    public CompletableFuture<ChangeSet<UCSBDiningCommonsMenuItem>> changedMenuItems(
+            @ApiParam("token returned by the previous call; omit to list everything") @RequestParam(required = false) Long since) {
+        return jdbcExecutor.supply(() -> {
+            if (since == null) {
+                return changeSet(ucsbDiningCommonsMenuItemRepository.findAll(), List.of(), 0L);
+            }
+            return changeSet(ucsbDiningCommonsMenuItemRepository.findByChangeSeqGreaterThan(since),
+                    tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(UCSBDiningCommonsMenuItem.class.getSimpleName(), since),
+                    since);
+        });
     }
 
-    @ApiOperation(value = "Get a single menu item")
+    @ApiOperation(value = "Get a single menu item", response = UCSBDiningCommonsMenuItem.class)
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBDiningCommonsMenuItem getById(
+    public CompletableFuture<UCSBDiningCommonsMenuItem> getById(
         @ApiParam("id") @RequestParam Long id) {
-            UCSBDiningCommonsMenuItem item = ucsbDiningCommonsMenuItemRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
-            return item;
+            return jdbcExecutor.supply(() -> ucsbDiningCommonsMenuItemRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id)));
+    }
+
+    @ApiOperation(value = "Get several menu items in one request", response = MultiGetResult.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "ids")
+    public CompletableFuture<MultiGetResult<Long, UCSBDiningCommonsMenuItem>> getByIds(
+            @ApiParam("comma separated ids, e.g. 1,2,3") @RequestParam List<Long> ids) {
+        return jdbcExecutor.supply(() -> multiGet(ids, ucsbDiningCommonsMenuItemRepository::findAllById, UCSBDiningCommonsMenuItem::getId));
     }
     
-    @ApiOperation(value = "Create a new menu item")
+    @ApiOperation(value = "Create a new menu item", response = UCSBDiningCommonsMenuItem.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
-    public UCSBDiningCommonsMenuItem postItem(
+    public CompletableFuture<UCSBDiningCommonsMenuItem> postItem(
         @ApiParam("diningCommonsCode") @RequestParam String diningCommonsCode,
         @ApiParam("name") @RequestParam String name,
         @ApiParam("station") @RequestParam String station
@@ -65,39 +114,49 @@ public class UCSBDiningCommonsMenuItemController extends ApiController{
         item.setName(name);
         item.setStation(station);
 
-        UCSBDiningCommonsMenuItem savedItem = ucsbDiningCommonsMenuItemRepository.save(item);
-        return savedItem;
+        return jdbcExecutor.supply(() -> {
+            UCSBDiningCommonsMenuItem savedItem = ucsbDiningCommonsMenuItemRepository.save(item);
+            responseCache.invalidate(ALL_MENU_ITEMS);
+
+            return savedItem;
+        });
     }
 
-    @ApiOperation(value = "Delete a menu item")
+    @ApiOperation(value = "Delete a menu item", response = Object.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
-    public Object deleteItem(
+    public CompletableFuture<Object> deleteItem(
             @ApiParam("id") @RequestParam Long id) {
-        UCSBDiningCommonsMenuItem item = ucsbDiningCommonsMenuItemRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
-        
-        ucsbDiningCommonsMenuItemRepository.delete(item);
-        return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
+        return jdbcExecutor.supply(() -> {
+            UCSBDiningCommonsMenuItem item = ucsbDiningCommonsMenuItemRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
+
+            ucsbDiningCommonsMenuItemRepository.delete(item);
+            responseCache.invalidate(ALL_MENU_ITEMS);
+
+            return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
+        });
     }
 
-    @ApiOperation(value = "Update a single menu item")
+    @ApiOperation(value = "Update a single menu item", response = UCSBDiningCommonsMenuItem.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public UCSBDiningCommonsMenuItem updateItem(
+    public CompletableFuture<UCSBDiningCommonsMenuItem> updateItem(
             @ApiParam("id") @RequestParam Long id,
             @RequestBody @Valid UCSBDiningCommonsMenuItem incoming){
-        
-        UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
-    
-        ucsbDiningCommonsMenuItem.setDiningCommonsCode(incoming.getDiningCommonsCode());
-        ucsbDiningCommonsMenuItem.setName(incoming.getName());
-        ucsbDiningCommonsMenuItem.setStation(incoming.getStation());
+        return jdbcExecutor.supply(() -> {
+            UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem = ucsbDiningCommonsMenuItemRepository.findById(id)
+                    .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
+
+            ucsbDiningCommonsMenuItem.setDiningCommonsCode(incoming.getDiningCommonsCode());
+            ucsbDiningCommonsMenuItem.setName(incoming.getName());
+            ucsbDiningCommonsMenuItem.setStation(incoming.getStation());
+
+            ucsbDiningCommonsMenuItemRepository.save(ucsbDiningCommonsMenuItem);
+            responseCache.invalidate(ALL_MENU_ITEMS);
 
-        ucsbDiningCommonsMenuItemRepository.save(ucsbDiningCommonsMenuItem);
-        
-        return ucsbDiningCommonsMenuItem;
+            return ucsbDiningCommonsMenuItem;
+        });
     }
 
     
@@ -3,7 +3,11 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganizations;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiParam;
@@ -22,6 +26,14 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The endpoints return a CompletableFuture and query the database on the
+ * {@link JdbcExecutor}, so Tomcat's request threads are not held while they
+ * wait for it.
+ */
 @Api(description = "UCSBOrganizations")
 @RequestMapping("/api/UCSBOrganizations")
 @RestController
@@ -31,30 +43,56 @@ public class UCSBOrganizationsController extends ApiController {
     @Autowired
     UCSBOrganizationsRepository ucsbOrganizationsRepository; 
 
-    @ApiOperation(value = "List all ucsb organizations")
+    @Autowired
+    TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    JdbcExecutor jdbcExecutor;
+
+    @ApiOperation(value = "List all ucsb organizations", response = UCSBOrganizations.class, responseContainer = "List")
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("/all")
-    public Iterable<UCSBOrganizations> allOrganizations() {
-        Iterable<UCSBOrganizations> org = ucsbOrganizationsRepository.findAll();
-        return org;
+    public CompletableFuture<Iterable<UCSBOrganizations>> allOrganizations() {
+        return jdbcExecutor.supply(() -> ucsbOrganizationsRepository.findAll());
     }
 
-    @ApiOperation(value = "Get a single organization")
+    @ApiOperation(value = "List ucsb organizations changed since a token", response = ChangeSet.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping("/changes")
+    public CompletableFuture<ChangeSet<UCSBOrganizations>> changedOrganizations(
+            @ApiParam("token returned by the previous call; omit to list everything") @RequestParam(required = false) Long since) {
+        return jdbcExecutor.supply(() -> {
+            if (since == null) {
+                return changeSet(ucsbOrganizationsRepository.findAll(), List.of(), 0L);
+            }
+            return changeSet(ucsbOrganizationsRepository.findByChangeSeqGreaterThan(since),
+                    tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(UCSBOrganizations.class.getSimpleName(), since),
+                    since);
+        });
+    }
+
+    @ApiOperation(value = "Get a single organization", response = UCSBOrganizations.class)
     @PreAuthorize("hasRole('ROLE_USER')")
     @GetMapping("")
-    public UCSBOrganizations getById(
+    public CompletableFuture<UCSBOrganizations> getById(
             @ApiParam("code") @RequestParam String code) {
-        UCSBOrganizations org = ucsbOrganizationsRepository.findById(code)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganizations.class, code));
+        return jdbcExecutor.supply(() -> ucsbOrganizationsRepository.findById(code)
+                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganizations.class, code)));
+    }
 
-        return org;
+    @ApiOperation(value = "Get several organizations in one request", response = MultiGetResult.class)
+    @PreAuthorize("hasRole('ROLE_USER')")
+    @GetMapping(value = "", params = "codes")
+    public CompletableFuture<MultiGetResult<String, UCSBOrganizations>> getByCodes(
+            @ApiParam("comma separated codes, e.g. ZPR,SKY") @RequestParam List<String> codes) {
+        return jdbcExecutor.supply(() -> multiGet(codes, ucsbOrganizationsRepository::findAllById, UCSBOrganizations::getOrgCode));
     }
       
 
-    @ApiOperation(value = "Create a new org")
+    @ApiOperation(value = "Create a new org", response = UCSBOrganizations.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping("/post")
-    public UCSBOrganizations postOrganizations(
+    public CompletableFuture<UCSBOrganizations> postOrganizations(
         @ApiParam("orgCode") @RequestParam String orgCode,
         @ApiParam("orgTranslationShort") @RequestParam String orgTranslationShort,
         @ApiParam("orgTranslation") @RequestParam String orgTranslation,
@@ -69,42 +107,42 @@ public class UCSBOrganizationsController extends ApiController {
         org.setInactive(inactive);
         
 
-        UCSBOrganizations savedOrg = ucsbOrganizationsRepository.save(org);
-
-        return savedOrg;
+        return jdbcExecutor.supply(() -> ucsbOrganizationsRepository.save(org));
     }
 
-    @ApiOperation(value = "Delete a UCSBOrganization")
+    @ApiOperation(value = "Delete a UCSBOrganization", response = Object.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @DeleteMapping("")
-    public Object deleteUCSBOrganization(
+    public CompletableFuture<Object> deleteUCSBOrganization(
             @ApiParam("orgCode") @RequestParam String orgCode) {
-        UCSBOrganizations ucsbOrganizations = ucsbOrganizationsRepository.findById(orgCode)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganizations.class, orgCode));
+        return jdbcExecutor.supply(() -> {
+            UCSBOrganizations ucsbOrganizations = ucsbOrganizationsRepository.findById(orgCode)
+                    .orElseThrow(() -> new EntityNotFoundException(UCSBOrganizations.class, orgCode));
 
-        ucsbOrganizationsRepository.delete(ucsbOrganizations);
-        return genericMessage("UCSBOrganizations with orgCode %s deleted".formatted(orgCode));
+            ucsbOrganizationsRepository.delete(ucsbOrganizations);
+            return genericMessage("UCSBOrganizations with orgCode %s deleted".formatted(orgCode));
+        });
     }
 
-    @ApiOperation(value = "Update a single organization")
+    @ApiOperation(value = "Update a single organization", response = UCSBOrganizations.class)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PutMapping("")
-    public UCSBOrganizations updateOrganizations(
+    public CompletableFuture<UCSBOrganizations> updateOrganizations(
             @ApiParam("orgCode") @RequestParam String orgCode,
             @RequestBody @Valid UCSBOrganizations incoming) {
+        return jdbcExecutor.supply(() -> {
+            UCSBOrganizations org = ucsbOrganizationsRepository.findById(orgCode)
+                    .orElseThrow(() -> new EntityNotFoundException(UCSBOrganizations.class, orgCode));
 
-        UCSBOrganizations org = ucsbOrganizationsRepository.findById(orgCode)
-                .orElseThrow(() -> new EntityNotFoundException(UCSBOrganizations.class, orgCode));
-
-
-        org.setOrgCode(incoming.getOrgCode());
-        org.setOrgTranslationShort(incoming.getOrgTranslationShort());
-        org.setOrgTranslation(incoming.getOrgTranslation());
-        org.setInactive(incoming.getInactive());
+            org.setOrgCode(incoming.getOrgCode());
+            org.setOrgTranslationShort(incoming.getOrgTranslationShort());
+            org.setOrgTranslation(incoming.getOrgTranslation());
+            org.setInactive(incoming.getInactive());
 
-        ucsbOrganizationsRepository.save(org);
+            ucsbOrganizationsRepository.save(org);
 
-        return org;
+            return org;
+        });
     }
 
 
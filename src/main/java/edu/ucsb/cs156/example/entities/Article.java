@@ -2,7 +2,9 @@ package edu.ucsb.cs156.example.entities;
 
 import java.time.LocalDateTime;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
@@ -16,9 +18,11 @@ import lombok.Builder;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Cacheable
 @Entity(name = "articles")
+@EntityListeners(ChangeSequenceListener.class)
 
-public class Article {
+public class Article implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
@@ -28,4 +32,5 @@ public class Article {
     private String explanation;
     private String email;
     private LocalDateTime dateAdded;
+    private Long changeSeq;
 }
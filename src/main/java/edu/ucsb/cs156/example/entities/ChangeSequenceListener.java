@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PostRemove;
+import javax.persistence.PrePersist;
+import javax.persistence.PreRemove;
+import javax.persistence.PreUpdate;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener that stamps every insert and update of a
+ * {@link ChangeTracked} entity with the next change sequence number, and
+ * writes a {@link Tombstone} (numbered the same way) for every delete.
+ *
+ * Numbers come from the single row of <code>change_clock</code>, which is
+ * advanced with an update.  The update locks the row until the transaction
+ * commits or rolls back, so a second writer waits for the first to finish
+ * before it gets its number: numbers are handed out in commit order, and
+ * once a reader sees a row stamped N, every change stamped below N is
+ * already visible too.  A sequence could not promise that, since a value
+ * drawn early may commit late and be skipped by a client that already
+ * moved its token past it.  The price is that transactions writing tracked
+ * rows run one at a time from their first stamp to their commit.
+ *
+ * Deletes take their number before the row is deleted, so like inserts and
+ * updates they lock the clock before any tracked row.
+ *
+ * The statements run through {@link JdbcTemplate}, which joins the
+ * connection of the surrounding JPA transaction, so a tombstone is only
+ * visible if the delete commits.
+ */
+@Component
+public class ChangeSequenceListener {
+
+  private static final String ADVANCE_CLOCK = "update change_clock set last_seq = last_seq + 1 where id = 1";
+
+  private static final String READ_CLOCK = "select last_seq from change_clock where id = 1";
+
+  private static final String INSERT_TOMBSTONE = "insert into tombstones (change_seq, entity_type, entity_id, deleted_at) values (?, ?, ?, ?)";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  // looked up lazily; the entity manager factory is still being built
+  // when Hibernate asks Spring for this listener
+  @Autowired
+  private ObjectProvider<EntityManagerFactory> entityManagerFactory;
+
+  @PrePersist
+  @PreUpdate
+  public void assignChangeSeq(ChangeTracked entity) {
+    entity.setChangeSeq(nextChangeSeq());
+  }
+
+  // the removed entity is not flushed again, so its changeSeq carries the
+  // tombstone's number to recordTombstone
+  @PreRemove
+  public void assignTombstoneSeq(ChangeTracked entity) {
+    entity.setChangeSeq(nextChangeSeq());
+  }
+
+  @PostRemove
+  public void recordTombstone(ChangeTracked entity) {
+    Object id = entityManagerFactory.getObject().getPersistenceUnitUtil().getIdentifier(entity);
+    jdbcTemplate.update(INSERT_TOMBSTONE,
+        entity.getChangeSeq(), entity.getClass().getSimpleName(), String.valueOf(id), LocalDateTime.now());
+  }
+
+  private Long nextChangeSeq() {
+    jdbcTemplate.update(ADVANCE_CLOCK);
+    return jdbcTemplate.queryForObject(READ_CLOCK, Long.class);
+  }
+}
@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.example.entities;
+
+/**
+ * An entity whose rows carry a change sequence number.
+ *
+ * The number is assigned by {@link ChangeSequenceListener} whenever a row
+ * is inserted or updated.  It increases across all tracked tables in the
+ * order the changes commit, so clients use it (via the <code>/changes</code>
+ * endpoints) to fetch only the rows that changed since their last refresh
+ * without missing a change that committed after they read.
+ */
+public interface ChangeTracked {
+  Long getChangeSeq();
+
+  void setChangeSeq(Long changeSeq);
+}
@@ -1,7 +1,9 @@
 package edu.ucsb.cs156.example.entities;
 
 import javax.annotation.processing.Generated;
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Id;
 import java.time.LocalDateTime;
 import lombok.Data;
@@ -15,8 +17,10 @@ import javax.persistence.GenerationType;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Cacheable
 @Entity(name = "helprequest")
-public class HelpRequest {
+@EntityListeners(ChangeSequenceListener.class)
+public class HelpRequest implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
@@ -26,4 +30,5 @@ public class HelpRequest {
     private LocalDateTime requestTime;
     private String explanation;
     private boolean solved;
+    private Long changeSeq;
 }
\ No newline at end of file
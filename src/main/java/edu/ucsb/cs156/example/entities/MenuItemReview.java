@@ -1,7 +1,9 @@
 package edu.ucsb.cs156.example.entities;
 import java.time.LocalDateTime;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
@@ -15,8 +17,10 @@ import lombok.Builder;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Cacheable
 @Entity(name = "menuitemreview")
-public class MenuItemReview {
+@EntityListeners(ChangeSequenceListener.class)
+public class MenuItemReview implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -25,5 +29,6 @@ public class MenuItemReview {
     private int stars;
     private LocalDateTime dateReviewed;
     private String comments;
+    private Long changeSeq;
     
 }
\ No newline at end of file
@@ -2,7 +2,9 @@ package edu.ucsb.cs156.example.entities;
 
 import java.time.LocalDateTime;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
@@ -16,8 +18,10 @@ import lombok.Builder;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Cacheable
 @Entity(name = "recommendations")
-public class Recommendation {
+@EntityListeners(ChangeSequenceListener.class)
+public class Recommendation implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;  
@@ -28,4 +32,5 @@ public class Recommendation {
     private LocalDateTime dateRequested;
     private LocalDateTime dateNeeded;
     private boolean done;
+    private Long changeSeq;
 }
@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.entities;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+
+/**
+ * Records the deletion of a {@link ChangeTracked} row, so that the
+ * <code>/changes</code> endpoints can tell clients which cached rows to drop.
+ * Rows are written by {@link ChangeSequenceListener}, which also assigns
+ * their change sequence numbers.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "tombstones")
+public class Tombstone {
+  @Id
+  private Long changeSeq;
+
+  private String entityType;
+  private String entityId;
+  private LocalDateTime deletedAt;
+}
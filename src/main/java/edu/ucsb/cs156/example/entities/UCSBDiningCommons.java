@@ -1,6 +1,8 @@
 package edu.ucsb.cs156.example.entities;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Id;
 
 import lombok.Data;
@@ -12,8 +14,10 @@ import lombok.Builder;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Cacheable
 @Entity(name = "ucsbdiningcommons")
-public class UCSBDiningCommons {
+@EntityListeners(ChangeSequenceListener.class)
+public class UCSBDiningCommons implements ChangeTracked {
   @Id
   private String code;
   private String name;
@@ -22,4 +26,5 @@ public class UCSBDiningCommons {
   private boolean hasDiningCam;
   private Double latitude;
   private Double longitude;
+  private Long changeSeq;
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package edu.ucsb.cs156.example.entities;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.GenerationType;
@@ -13,8 +15,10 @@ import lombok.Builder;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Cacheable
 @Entity(name = "ucsbdiningcommonsmenuitem")
-public class UCSBDiningCommonsMenuItem {
+@EntityListeners(ChangeSequenceListener.class)
+public class UCSBDiningCommonsMenuItem implements ChangeTracked {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
 
@@ -23,4 +27,5 @@ public class UCSBDiningCommonsMenuItem {
     private String diningCommonsCode;
     private String name;
     private String station;
+    private Long changeSeq;
 }   
\ No newline at end of file
@@ -2,7 +2,9 @@
 
 package edu.ucsb.cs156.example.entities;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.Id;
 
 import lombok.Data;
@@ -14,11 +16,14 @@ import lombok.Builder;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Cacheable
 @Entity(name = "ucsborganizations")
-public class UCSBOrganizations {
+@EntityListeners(ChangeSequenceListener.class)
+public class UCSBOrganizations implements ChangeTracked {
   @Id
   private String orgCode;
   private String orgTranslationShort;
   private String orgTranslation;
   private boolean inactive;
+  private Long changeSeq;
 }
\ No newline at end of file
@@ -0,0 +1,175 @@
+package edu.ucsb.cs156.example.grpc;
+
+import edu.ucsb.cs156.example.aop.CurrentHandler;
+import edu.ucsb.cs156.example.config.SecurityConfig;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Authenticates and authorizes gRPC calls the way SecurityConfig and the
+ * controllers' <code>@PreAuthorize</code> rules do for REST.
+ *
+ * Callers send <code>authorization: Bearer &lt;token&gt;</code>.  Tokens are
+ * issued per consumer in <code>app.grpc.clients</code>, a comma separated
+ * list of <code>email=token</code>; the email is the identity the call runs
+ * as, with ROLE_USER plus the roles {@link SecurityConfig#rolesFor(String)}
+ * grants it.  Insert calls need ROLE_ADMIN, like the REST POST endpoints, and
+ * the rest need ROLE_USER.
+ *
+ * Every callback of an authorized call runs with that identity in the
+ * SecurityContext and with <code>grpc:Service/Method</code> as the
+ * {@link CurrentHandler}, so the query statistics and connection pool
+ * monitor attribute gRPC work as they do controller work.
+ */
+@Slf4j
+@Component
+public class GrpcAuthInterceptor implements ServerInterceptor {
+  static final Metadata.Key<String> AUTHORIZATION =
+      Metadata.Key.of("authorization", Metadata.ASCII_STRING_MARSHALLER);
+  static final String BEARER = "Bearer ";
+
+  @Autowired
+  SecurityConfig securityConfig;
+
+  private final List<Client> clients = new ArrayList<>();
+
+  private record Client(String email, byte[] token) {
+  }
+
+  @Value("${app.grpc.clients:}")
+  void setClients(List<String> entries) {
+    clients.clear();
+    for (String entry : entries) {
+      int equals = entry.indexOf('=');
+      if (equals <= 0 || equals == entry.length() - 1) {
+        if (!entry.isBlank()) {
+          log.warn("Ignoring app.grpc.clients entry without email=token");
+        }
+        continue;
+      }
+      clients.add(new Client(entry.substring(0, equals).trim(),
+          entry.substring(equals + 1).trim().getBytes(StandardCharsets.UTF_8)));
+    }
+  }
+
+  @Override
+  public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+      ServerCallHandler<ReqT, RespT> next) {
+    String email = authenticate(headers.get(AUTHORIZATION));
+    if (email == null) {
+      call.close(Status.UNAUTHENTICATED.withDescription("missing or unknown bearer token"), new Metadata());
+      return new ServerCall.Listener<>() {
+      };
+    }
+
+    Set<GrantedAuthority> authorities = new HashSet<>(securityConfig.rolesFor(email));
+    authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+    String required = requiredRole(call.getMethodDescriptor().getBareMethodName());
+    if (!authorities.contains(new SimpleGrantedAuthority(required))) {
+      call.close(Status.PERMISSION_DENIED.withDescription(required + " required"), new Metadata());
+      return new ServerCall.Listener<>() {
+      };
+    }
+
+    Authentication authentication = new UsernamePasswordAuthenticationToken(email, null, authorities);
+    String handler = "grpc:" + call.getMethodDescriptor().getFullMethodName();
+    ServerCall.Listener<ReqT> delegate = within(authentication, handler, () -> next.startCall(call, headers));
+    return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(delegate) {
+      @Override
+      public void onMessage(ReqT message) {
+        within(authentication, handler, () -> {
+          super.onMessage(message);
+          return null;
+        });
+      }
+
+      @Override
+      public void onHalfClose() {
+        within(authentication, handler, () -> {
+          super.onHalfClose();
+          return null;
+        });
+      }
+
+      @Override
+      public void onCancel() {
+        within(authentication, handler, () -> {
+          super.onCancel();
+          return null;
+        });
+      }
+
+      @Override
+      public void onComplete() {
+        within(authentication, handler, () -> {
+          super.onComplete();
+          return null;
+        });
+      }
+
+      @Override
+      public void onReady() {
+        within(authentication, handler, () -> {
+          super.onReady();
+          return null;
+        });
+      }
+    };
+  }
+
+  static String requiredRole(String method) {
+    return method.startsWith("Insert") ? "ROLE_ADMIN" : "ROLE_USER";
+  }
+
+  /** The email of the client holding the bearer token, compared in constant time; null if there is none. */
+  String authenticate(String authorization) {
+    if (authorization == null || !authorization.startsWith(BEARER)) {
+      return null;
+    }
+    byte[] token = authorization.substring(BEARER.length()).trim().getBytes(StandardCharsets.UTF_8);
+    String email = null;
+    for (Client client : clients) {
+      if (MessageDigest.isEqual(client.token(), token) && email == null) {
+        email = client.email();
+      }
+    }
+    return email;
+  }
+
+  private static <T> T within(Authentication authentication, String handler, Supplier<T> callback) {
+    SecurityContext previousContext = SecurityContextHolder.getContext();
+    SecurityContext context = SecurityContextHolder.createEmptyContext();
+    context.setAuthentication(authentication);
+    SecurityContextHolder.setContext(context);
+    String previousHandler = CurrentHandler.set(handler);
+    try {
+      return callback.get();
+    } finally {
+      CurrentHandler.set(previousHandler);
+      SecurityContextHolder.setContext(previousContext);
+    }
+  }
+}
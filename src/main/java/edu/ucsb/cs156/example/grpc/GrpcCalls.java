@@ -0,0 +1,193 @@
+package edu.ucsb.cs156.example.grpc;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.grpc.proto.InsertSummary;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * The three call shapes the gRPC services share: a unary lookup, a
+ * server-streaming listing and a client-streaming insert.  Exceptions become
+ * the status codes a REST client would see as the matching HTTP status:
+ * EntityNotFoundException is NOT_FOUND, a malformed value is
+ * INVALID_ARGUMENT and anything else is INTERNAL.
+ */
+@Slf4j
+final class GrpcCalls {
+
+  private GrpcCalls() {
+  }
+
+  static <T> void unary(StreamObserver<T> responseObserver, Supplier<T> body) {
+    T response;
+    try {
+      response = body.get();
+    } catch (RuntimeException e) {
+      responseObserver.onError(status(e));
+      return;
+    }
+    responseObserver.onNext(response);
+    responseObserver.onCompleted();
+  }
+
+  /**
+   * Sends the rows <code>pageAfter</code> returns, a page at a time and only
+   * while the client is ready for more, stopping early if it cancels.
+   *
+   * <code>pageAfter</code> is given a cursor and returns at most
+   * <code>pageSize</code> rows whose cursor (as <code>cursor</code> reads it)
+   * is above it, in cursor order; the first call gets <code>start</code>.
+   * Each page is its own short query, so only one page is in memory at a
+   * time and no connection is held while a slow client catches up: once
+   * the transport's buffer is full the call waits for gRPC's onReady
+   * callback instead of queueing every row.
+   */
+  static <E, P> void stream(StreamObserver<P> responseObserver, long start, int pageSize,
+      LongFunction<List<E>> pageAfter, ToLongFunction<E> cursor, Function<E, P> toProto) {
+    ServerCallStreamObserver<P> call = (ServerCallStreamObserver<P>) responseObserver;
+    PagedStream<E, P> stream = new PagedStream<>(call, start, pageSize, pageAfter, cursor, toProto);
+    call.setOnCancelHandler(stream::cancel);
+    call.setOnReadyHandler(stream);
+    // gRPC runs this method and its callbacks one at a time, so this cannot race the onReady handler
+    stream.run();
+  }
+
+  private static final class PagedStream<E, P> implements Runnable {
+    private final ServerCallStreamObserver<P> call;
+    private final int pageSize;
+    private final LongFunction<List<E>> pageAfter;
+    private final ToLongFunction<E> cursor;
+    private final Function<E, P> toProto;
+
+    private long after;
+    private Iterator<E> page = Collections.emptyIterator();
+    private boolean lastPage;
+    private boolean done;
+
+    PagedStream(ServerCallStreamObserver<P> call, long start, int pageSize, LongFunction<List<E>> pageAfter,
+        ToLongFunction<E> cursor, Function<E, P> toProto) {
+      this.call = call;
+      this.after = start;
+      this.pageSize = pageSize;
+      this.pageAfter = pageAfter;
+      this.cursor = cursor;
+      this.toProto = toProto;
+    }
+
+    void cancel() {
+      done = true;
+    }
+
+    /** Sends rows until the client stops being ready or there are none left. */
+    @Override
+    public void run() {
+      try {
+        while (!done && call.isReady()) {
+          if (!page.hasNext()) {
+            if (lastPage) {
+              done = true;
+              call.onCompleted();
+              return;
+            }
+            List<E> rows = pageAfter.apply(after);
+            lastPage = rows.size() < pageSize;
+            page = rows.iterator();
+            continue;
+          }
+          E row = page.next();
+          after = cursor.applyAsLong(row);
+          call.onNext(toProto.apply(row));
+        }
+      } catch (RuntimeException e) {
+        done = true;
+        call.onError(status(e));
+      }
+    }
+  }
+
+  /**
+   * Collects the client's messages and, once it half-closes, saves them all
+   * with <code>saveAll</code>, which returns the new ids.  More than
+   * <code>maxBatch</code> messages, or one that cannot be converted, fails
+   * the call before anything is saved.
+   */
+  static <P, E> StreamObserver<P> insert(StreamObserver<InsertSummary> responseObserver, int maxBatch,
+      Function<P, E> fromProto, Function<List<E>, List<Long>> saveAll) {
+    return new StreamObserver<P>() {
+      private final List<E> batch = new ArrayList<>();
+      private boolean failed;
+
+      @Override
+      public void onNext(P message) {
+        if (failed) {
+          return;
+        }
+        if (batch.size() >= maxBatch) {
+          fail(Status.RESOURCE_EXHAUSTED
+              .withDescription("at most %d rows may be inserted per call".formatted(maxBatch))
+              .asRuntimeException());
+          return;
+        }
+        try {
+          batch.add(fromProto.apply(message));
+        } catch (RuntimeException e) {
+          fail(status(e));
+        }
+      }
+
+      @Override
+      public void onError(Throwable t) {
+        // the client cancelled; nothing has been saved
+        failed = true;
+        batch.clear();
+      }
+
+      @Override
+      public void onCompleted() {
+        if (failed) {
+          return;
+        }
+        unary(responseObserver, () -> {
+          List<Long> ids = saveAll.apply(batch);
+          return InsertSummary.newBuilder()
+              .setInserted(ids.size())
+              .addAllIds(ids)
+              .build();
+        });
+      }
+
+      private void fail(StatusRuntimeException e) {
+        failed = true;
+        batch.clear();
+        responseObserver.onError(e);
+      }
+    };
+  }
+
+  static StatusRuntimeException status(RuntimeException e) {
+    if (e instanceof StatusRuntimeException statusException) {
+      return statusException;
+    }
+    if (e instanceof EntityNotFoundException) {
+      return Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException();
+    }
+    if (e instanceof DateTimeParseException || e instanceof IllegalArgumentException) {
+      return Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
+    }
+    log.error("gRPC call failed", e);
+    return Status.INTERNAL.withDescription(e.getClass().getSimpleName()).asRuntimeException();
+  }
+}
@@ -0,0 +1,103 @@
+package edu.ucsb.cs156.example.grpc;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.Recommendation;
+
+import java.time.LocalDateTime;
+
+/**
+ * Converts entities to and from their protobuf messages in example.proto.
+ *
+ * Protobuf has no nulls, so a missing string or date-time is sent as ""
+ * and a missing change_seq as 0.  Messages coming in are always new rows:
+ * their id and change_seq are ignored.
+ */
+public final class GrpcMapping {
+
+  private GrpcMapping() {
+  }
+
+  public static edu.ucsb.cs156.example.grpc.proto.HelpRequest toProto(HelpRequest helpRequest) {
+    return edu.ucsb.cs156.example.grpc.proto.HelpRequest.newBuilder()
+        .setId(helpRequest.getId())
+        .setRequesterEmail(text(helpRequest.getRequesterEmail()))
+        .setTeamId(text(helpRequest.getTeamId()))
+        .setTableOrBreakoutRoom(text(helpRequest.getTableOrBreakoutRoom()))
+        .setRequestTime(text(helpRequest.getRequestTime()))
+        .setExplanation(text(helpRequest.getExplanation()))
+        .setSolved(helpRequest.getSolved())
+        .setChangeSeq(number(helpRequest.getChangeSeq()))
+        .build();
+  }
+
+  public static HelpRequest fromProto(edu.ucsb.cs156.example.grpc.proto.HelpRequest message) {
+    return HelpRequest.builder()
+        .requesterEmail(message.getRequesterEmail())
+        .teamId(message.getTeamId())
+        .tableOrBreakoutRoom(message.getTableOrBreakoutRoom())
+        .requestTime(dateTime(message.getRequestTime()))
+        .explanation(message.getExplanation())
+        .solved(message.getSolved())
+        .build();
+  }
+
+  public static edu.ucsb.cs156.example.grpc.proto.MenuItemReview toProto(MenuItemReview review) {
+    return edu.ucsb.cs156.example.grpc.proto.MenuItemReview.newBuilder()
+        .setId(number(review.getId()))
+        .setItemId(number(review.getItemId()))
+        .setReviewerEmail(text(review.getReviewerEmail()))
+        .setStars(review.getStars())
+        .setDateReviewed(text(review.getDateReviewed()))
+        .setComments(text(review.getComments()))
+        .setChangeSeq(number(review.getChangeSeq()))
+        .build();
+  }
+
+  public static MenuItemReview fromProto(edu.ucsb.cs156.example.grpc.proto.MenuItemReview message) {
+    return MenuItemReview.builder()
+        .itemId(message.getItemId())
+        .reviewerEmail(message.getReviewerEmail())
+        .stars(message.getStars())
+        .dateReviewed(dateTime(message.getDateReviewed()))
+        .comments(message.getComments())
+        .build();
+  }
+
+  public static edu.ucsb.cs156.example.grpc.proto.Recommendation toProto(Recommendation recommendation) {
+    return edu.ucsb.cs156.example.grpc.proto.Recommendation.newBuilder()
+        .setId(recommendation.getId())
+        .setRequesterEmail(text(recommendation.getRequesterEmail()))
+        .setProfessorEmail(text(recommendation.getProfessorEmail()))
+        .setExplanation(text(recommendation.getExplanation()))
+        .setDateRequested(text(recommendation.getDateRequested()))
+        .setDateNeeded(text(recommendation.getDateNeeded()))
+        .setDone(recommendation.getDone())
+        .setChangeSeq(number(recommendation.getChangeSeq()))
+        .build();
+  }
+
+  public static Recommendation fromProto(edu.ucsb.cs156.example.grpc.proto.Recommendation message) {
+    return Recommendation.builder()
+        .requesterEmail(message.getRequesterEmail())
+        .professorEmail(message.getProfessorEmail())
+        .explanation(message.getExplanation())
+        .dateRequested(dateTime(message.getDateRequested()))
+        .dateNeeded(dateTime(message.getDateNeeded()))
+        .done(message.getDone())
+        .build();
+  }
+
+  private static String text(Object value) {
+    return value == null ? "" : value.toString();
+  }
+
+  private static long number(Long value) {
+    return value == null ? 0 : value;
+  }
+
+  /** Parses an ISO-8601 local date-time; throws DateTimeParseException, an INVALID_ARGUMENT, if it is malformed. */
+  private static LocalDateTime dateTime(String value) {
+    return value.isEmpty() ? null : LocalDateTime.parse(value);
+  }
+}
@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.grpc;
+
+import io.grpc.BindableService;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptors;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves the gRPC services in this package on <code>app.grpc.port</code>,
+ * next to the REST API on the servlet port, when
+ * <code>app.grpc.enabled</code> is true.
+ *
+ * The port speaks plaintext HTTP/2, so the bearer tokens GrpcAuthInterceptor
+ * checks cross the wire unencrypted.  It therefore listens on
+ * <code>app.grpc.address</code>, the loopback interface unless configured
+ * otherwise; set it to another address only on a private network that
+ * untrusted hosts cannot reach (e.g. a Dokku or Docker internal network),
+ * never on a public interface.
+ *
+ * Calls run on a fixed pool of <code>app.grpc.threads</code> threads, so a
+ * burst of streaming consumers cannot take more database connections than
+ * that.  The server starts after the application context and drains for up
+ * to ten seconds on shutdown.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.grpc.enabled", havingValue = "true")
+public class GrpcServer implements SmartLifecycle {
+
+  @Value("${app.grpc.address:127.0.0.1}")
+  String address;
+
+  @Value("${app.grpc.port:9090}")
+  int port;
+
+  @Value("${app.grpc.threads:8}")
+  int threads;
+
+  @Autowired
+  List<BindableService> services;
+
+  @Autowired
+  GrpcAuthInterceptor authInterceptor;
+
+  private ExecutorService executor;
+  private Server server;
+
+  @Override
+  public void start() {
+    executor = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("grpc-"));
+    ServerBuilder<?> builder = NettyServerBuilder.forAddress(new InetSocketAddress(address, port)).executor(executor);
+    services.forEach(service -> builder.addService(ServerInterceptors.intercept(service, authInterceptor)));
+    try {
+      server = builder.build().start();
+    } catch (IOException e) {
+      executor.shutdown();
+      throw new UncheckedIOException("gRPC server could not listen on " + address + ":" + port, e);
+    }
+    log.info("gRPC server listening on {}:{} with {}", address, port,
+        services.stream().map(service -> service.bindService().getServiceDescriptor().getName()).toList());
+  }
+
+  @Override
+  public void stop() {
+    server.shutdown();
+    try {
+      if (!server.awaitTermination(10, TimeUnit.SECONDS)) {
+        server.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      server.shutdownNow();
+      Thread.currentThread().interrupt();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return server != null && !server.isShutdown();
+  }
+}
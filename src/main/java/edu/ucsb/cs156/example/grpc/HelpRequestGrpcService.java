@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.grpc;
+
+import edu.ucsb.cs156.example.controllers.HelpRequestController;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.grpc.proto.HelpRequestServiceGrpc;
+import edu.ucsb.cs156.example.grpc.proto.Id;
+import edu.ucsb.cs156.example.grpc.proto.InsertSummary;
+import edu.ucsb.cs156.example.grpc.proto.ListRequest;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
+import io.grpc.stub.StreamObserver;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/** HelpRequestService in example.proto, over the same repository as HelpRequestController. */
+@Component
+public class HelpRequestGrpcService extends HelpRequestServiceGrpc.HelpRequestServiceImplBase {
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Autowired
+  RequestCoalescer requestCoalescer;
+
+  @Value("${app.grpc.maxBatch:1000}")
+  int maxBatch;
+
+  @Value("${app.grpc.pageSize:500}")
+  int pageSize;
+
+  @Override
+  public void get(Id request, StreamObserver<edu.ucsb.cs156.example.grpc.proto.HelpRequest> responseObserver) {
+    GrpcCalls.unary(responseObserver, () -> GrpcMapping.toProto(helpRequestRepository.findById(request.getId())
+        .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, request.getId()))));
+  }
+
+  @Override
+  public void list(ListRequest request, StreamObserver<edu.ucsb.cs156.example.grpc.proto.HelpRequest> responseObserver) {
+    Pageable page = PageRequest.of(0, pageSize);
+    if (request.getSince() == 0) {
+      GrpcCalls.stream(responseObserver, 0, pageSize,
+          after -> helpRequestRepository.findByIdGreaterThanOrderById(after, page), HelpRequest::getId, GrpcMapping::toProto);
+    } else {
+      GrpcCalls.stream(responseObserver, request.getSince(), pageSize,
+          after -> helpRequestRepository.findByChangeSeqGreaterThanOrderByChangeSeq(after, page), HelpRequest::getChangeSeq,
+          GrpcMapping::toProto);
+    }
+  }
+
+  @Override
+  public StreamObserver<edu.ucsb.cs156.example.grpc.proto.HelpRequest> insert(
+      StreamObserver<InsertSummary> responseObserver) {
+    return GrpcCalls.insert(responseObserver, maxBatch, GrpcMapping::fromProto, batch -> {
+      List<Long> ids = transactionTemplate.execute(status -> StreamSupport
+          .stream(helpRequestRepository.saveAll(batch).spliterator(), false)
+          .map(HelpRequest::getId)
+          .collect(Collectors.toList()));
+      requestCoalescer.invalidate(HelpRequestController.ALL_HELP_REQUESTS);
+      return ids;
+    });
+  }
+}
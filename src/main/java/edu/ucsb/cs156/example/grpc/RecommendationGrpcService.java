@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.grpc;
+
+import edu.ucsb.cs156.example.entities.Recommendation;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.grpc.proto.Id;
+import edu.ucsb.cs156.example.grpc.proto.InsertSummary;
+import edu.ucsb.cs156.example.grpc.proto.ListRequest;
+import edu.ucsb.cs156.example.grpc.proto.RecommendationServiceGrpc;
+import edu.ucsb.cs156.example.repositories.RecommendationRepository;
+import io.grpc.stub.StreamObserver;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/** RecommendationService in example.proto, over the same repository as RecommendationController. */
+@Component
+public class RecommendationGrpcService extends RecommendationServiceGrpc.RecommendationServiceImplBase {
+
+  @Autowired
+  RecommendationRepository recommendationRepository;
+
+  @Autowired
+  TransactionTemplate transactionTemplate;
+
+  @Value("${app.grpc.maxBatch:1000}")
+  int maxBatch;
+
+  @Value("${app.grpc.pageSize:500}")
+  int pageSize;
+
+  @Override
+  public void get(Id request, StreamObserver<edu.ucsb.cs156.example.grpc.proto.Recommendation> responseObserver) {
+    GrpcCalls.unary(responseObserver, () -> GrpcMapping.toProto(recommendationRepository.findById(request.getId())
+        .orElseThrow(() -> new EntityNotFoundException(Recommendation.class, request.getId()))));
+  }
+
+  @Override
+  public void list(ListRequest request,
+      StreamObserver<edu.ucsb.cs156.example.grpc.proto.Recommendation> responseObserver) {
+    Pageable page = PageRequest.of(0, pageSize);
+    if (request.getSince() == 0) {
+      GrpcCalls.stream(responseObserver, 0, pageSize,
+          after -> recommendationRepository.findByIdGreaterThanOrderById(after, page), Recommendation::getId, GrpcMapping::toProto);
+    } else {
+      GrpcCalls.stream(responseObserver, request.getSince(), pageSize,
+          after -> recommendationRepository.findByChangeSeqGreaterThanOrderByChangeSeq(after, page), Recommendation::getChangeSeq,
+          GrpcMapping::toProto);
+    }
+  }
+
+  @Override
+  public StreamObserver<edu.ucsb.cs156.example.grpc.proto.Recommendation> insert(
+      StreamObserver<InsertSummary> responseObserver) {
+    return GrpcCalls.insert(responseObserver, maxBatch, GrpcMapping::fromProto,
+        batch -> transactionTemplate.execute(status -> StreamSupport
+            .stream(recommendationRepository.saveAll(batch).spliterator(), false)
+            .map(Recommendation::getId)
+            .collect(Collectors.toList())));
+  }
+}
@@ -0,0 +1,15 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Article without its explanation, for listings.  Spring Data selects only
+ * these columns when it is passed to a dynamic projection query.
+ */
+public interface ArticleSummary {
+  long getId();
+  String getTitle();
+  String getUrl();
+  String getEmail();
+  LocalDateTime getDateAdded();
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One request in the body of <code>POST /api/batch</code>: a method, an
+ * <code>/api/</code> URL with its query string, and for POST and PUT an
+ * optional JSON body.  The <code>id</code> is the caller's own label and is
+ * echoed in the matching {@link BatchResponse}.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BatchRequest {
+  private String id;
+  private String method;
+  private String url;
+  private JsonNode body;
+}
@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The answer to one {@link BatchRequest}: the status, headers and body the
+ * endpoint would have sent on its own.  A JSON body is embedded as JSON, any
+ * other body as a string, and an empty body is null.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class BatchResponse {
+  private String id;
+  private int status;
+  private Map<String, String> headers;
+  private JsonNode body;
+}
@@ -0,0 +1,26 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response of the <code>/changes</code> endpoints: the rows inserted or
+ * updated since the requested token, the ids of rows deleted since then,
+ * and the token to pass on the next call.  Clients should apply
+ * <code>deleted</code> before <code>changed</code>, since a key may be
+ * deleted and then reused.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ChangeSet<T> {
+  private List<T> changed;
+  private List<String> deleted;
+  private Long token;
+}
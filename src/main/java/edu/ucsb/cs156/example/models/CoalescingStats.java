@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Requests answered by RequestCoalescer: <code>flights</code> ran their own
+ * query, <code>coalesced</code> shared one already in flight.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class CoalescingStats {
+  private long requests;
+  private long flights;
+  private long coalesced;
+  private long timeouts;
+  private long inFlight;
+  private double coalescingRatio;
+  private long timeoutMillis;
+}
@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ConnectionPoolStats {
+  private String poolName;
+  private int active;
+  private int idle;
+  private int pending;
+  private int total;
+  private int maxPoolSize;
+  private long timeouts;
+  private HistogramSnapshot acquireMillis;
+  private HistogramSnapshot usageMillis;
+  private List<HeldConnection> longestHeld;
+  private Map<String, Long> leaksByHandler;
+}
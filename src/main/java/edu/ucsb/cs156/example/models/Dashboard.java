@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response of <code>GET /api/dashboard</code>.  A section whose query
+ * failed or took too long is left out and named in
+ * <code>unavailable</code>, so the rest can still be shown.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class Dashboard {
+  private DashboardSection<HelpRequestSummary> unsolvedHelpRequests;
+  private DashboardSection<RecommendationSummary> upcomingRecommendations;
+  private DashboardSection<ArticleSummary> latestArticles;
+  private DashboardSection<MenuItemReviewSummary> recentReviews;
+  private List<String> unavailable;
+}
@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** A connection that is currently borrowed from the pool. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class HeldConnection {
+  /** Controller method that borrowed it, or null outside a request. */
+  private String handler;
+  private String thread;
+  private long heldMillis;
+  private List<String> stackTrace;
+}
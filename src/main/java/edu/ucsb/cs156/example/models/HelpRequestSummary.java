@@ -0,0 +1,15 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * HelpRequest without its explanation, for listings.
+ */
+public interface HelpRequestSummary {
+  long getId();
+  String getRequesterEmail();
+  String getTeamId();
+  String getTableOrBreakoutRoom();
+  LocalDateTime getRequestTime();
+  boolean getSolved();
+}
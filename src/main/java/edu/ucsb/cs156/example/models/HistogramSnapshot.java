@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Distribution of a duration.  <code>buckets</code> maps the upper bound of
+ * each bucket in milliseconds ("+Inf" for the last) to the number of
+ * samples that fell into it.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class HistogramSnapshot {
+  private long count;
+  private double meanMillis;
+  private double maxMillis;
+  private Map<String, Long> buckets;
+}
@@ -0,0 +1,22 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JdbcExecutorStats {
+  private int threads;
+  private int activeThreads;
+  private int queueDepth;
+  private int queueCapacity;
+  private long completed;
+  private long rejected;
+  private double averageWaitMillis;
+  private double maxWaitMillis;
+}
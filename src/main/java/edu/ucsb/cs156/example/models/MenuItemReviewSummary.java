@@ -0,0 +1,14 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * MenuItemReview without its comments, for listings.
+ */
+public interface MenuItemReviewSummary {
+  Long getId();
+  Long getItemId();
+  String getReviewerEmail();
+  int getStars();
+  LocalDateTime getDateReviewed();
+}
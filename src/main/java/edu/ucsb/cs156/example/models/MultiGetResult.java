@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response of the multi-get endpoints (<code>?ids=1,2,3</code>): the rows
+ * that exist keyed by id, in the order requested, and the requested ids
+ * that have no row.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class MultiGetResult<K, T> {
+  private Map<K, T> found;
+  private List<K> missing;
+}
@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Totals for one normalized statement or one repository method.  In the
+ * per-repository-method view <code>sql</code> is null; in the per-statement
+ * view <code>repositoryMethod</code> names where the statement was issued
+ * from.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class QueryStatsEntry {
+  private String repositoryMethod;
+  private String sql;
+  private long count;
+  private long errors;
+  private long rows;
+  private double totalMillis;
+  private double meanMillis;
+  private double maxMillis;
+}
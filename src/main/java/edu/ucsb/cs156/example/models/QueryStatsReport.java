@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class QueryStatsReport {
+  private long statements;
+  private long slowStatements;
+  private long slowQueryMillis;
+  private List<QueryStatsEntry> byRepositoryMethod;
+  private List<QueryStatsEntry> bySql;
+}
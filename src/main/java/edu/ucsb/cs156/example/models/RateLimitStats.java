@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Requests allowed and turned away with a 429 per budget, and the clients
+ * turned away most often.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class RateLimitStats {
+  private boolean enabled;
+  private long clients;
+  private List<RateLimitBudgetStats> budgets;
+  private List<RateLimitClientStats> topRejected;
+}
@@ -0,0 +1,27 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Where connections were routed.  <code>stickyReads</code> went to the
+ * primary because the user had just written; <code>fallbacks</code> went
+ * there because no replica was available.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ReplicaRoutingStats {
+  private long primaryConnections;
+  private long replicaConnections;
+  private long stickyReads;
+  private long fallbacks;
+  private long stickyMillis;
+  private List<ReplicaStats> replicas;
+}
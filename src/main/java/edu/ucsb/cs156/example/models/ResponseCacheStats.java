@@ -0,0 +1,21 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class ResponseCacheStats {
+  private int entries;
+  private long usedBytes;
+  private long maxBytes;
+  private long hits;
+  private long misses;
+  private long evictions;
+  private double hitRatio;
+}
@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row matching a <code>GET /api/search</code>: which kind of row it
+ * is, its id as a string, what to show for it, and how well it matched
+ * (1.0 when its title is exactly the query).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class SearchHit {
+  private String type;
+  private String id;
+  private String title;
+  private String description;
+  private double score;
+}
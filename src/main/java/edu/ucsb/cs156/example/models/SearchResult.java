@@ -0,0 +1,24 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response of <code>GET /api/search</code>: the best matches, best first,
+ * and how each kind of row fared, keyed by its type.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class SearchResult {
+  private String query;
+  private List<SearchHit> hits;
+  private Map<String, SearchSourceStats> sources;
+}
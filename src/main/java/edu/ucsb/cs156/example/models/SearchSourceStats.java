@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How one kind of row fared in a search: <code>ok</code>,
+ * <code>timeout</code> if it missed the deadline, <code>error</code> or
+ * <code>rejected</code> if it could not be queued; the milliseconds from the
+ * start of the search until it finished or was given up on; and how many
+ * rows it matched.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class SearchSourceStats {
+  public static final String OK = "ok";
+  public static final String TIMEOUT = "timeout";
+  public static final String ERROR = "error";
+  public static final String REJECTED = "rejected";
+
+  private String status;
+  private double latencyMillis;
+  private int matches;
+}
@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * How long the last start of the application took: overall, per startup
+ * phase (context refresh, bean post-processing, ...) and for the slowest
+ * bean instantiations.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class StartupReport {
+  /** From JVM start to the application being ready to serve requests. */
+  private Long jvmToReadyMillis;
+  /** From the first recorded startup step to the application being ready. */
+  private Long contextToReadyMillis;
+  private List<StartupStepTiming> phases;
+  private List<StartupStepTiming> slowestBeans;
+  /** False when the timeline buffer filled up, so later steps are missing. */
+  private boolean complete;
+}
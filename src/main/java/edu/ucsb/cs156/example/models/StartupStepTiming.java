@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One step of the startup timeline.  <code>durationMillis</code> includes
+ * nested steps, such as the dependencies a bean pulled in while being
+ * created; <code>selfMillis</code> excludes them.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class StartupStepTiming {
+  private String name;
+  private Map<String, String> tags;
+  private long durationMillis;
+  private long selfMillis;
+}
@@ -1,12 +1,30 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.models.ArticleSummary;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 
 @Repository
-public interface ArticleRepository extends CrudRepository<Article, Long> {
+public interface ArticleRepository extends CrudRepository<Article, Long>, FieldSelectionRepository {
+    Iterable<Article> findByChangeSeqGreaterThan(Long changeSeq);
+
+    // the ArticleSummary columns, listed as in HelpRequestRepository
+    @Query("select a.id as id, a.title as title, a.url as url, a.email as email, a.dateAdded as dateAdded from articles a")
+    Iterable<ArticleSummary> findAllBy();
+
+    @Query("select a.id as id, a.title as title, a.url as url, a.email as email, a.dateAdded as dateAdded from articles a")
+    List<ArticleSummary> findAllBy(Pageable pageable);
 
+    // articles whose title or explanation contains the lower case needle: exact titles, then prefixes, then shortest titles first
+    @Query("select a from articles a where locate(?1, lower(a.title)) > 0 or locate(?1, lower(a.explanation)) > 0"
+            + " order by case when lower(a.title) = ?1 then 0 when locate(?1, lower(a.title)) = 1 then 1 else 2 end,"
+            + " length(a.title), a.id")
+    List<Article> findSearchCandidates(String needle, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package edu.ucsb.cs156.example.repositories;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Repository fragment that loads only the named columns of an entity, for
+ * listings where the caller asked for a sparse fieldset.
+ */
+public interface FieldSelectionRepository {
+    List<Map<String, Object>> findAllFields(Class<?> entityType, List<String> fields);
+}
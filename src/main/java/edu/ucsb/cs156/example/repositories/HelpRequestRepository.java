@@ -1,10 +1,32 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestSummary;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {
+public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long>, FieldSelectionRepository {
+    Iterable<HelpRequest> findByChangeSeqGreaterThan(Long changeSeq);
+
+    // pages for the gRPC list call (GrpcCalls.stream), after the last id or change sequence number sent
+    List<HelpRequest> findByIdGreaterThanOrderById(long id, Pageable pageable);
+
+    List<HelpRequest> findByChangeSeqGreaterThanOrderByChangeSeq(Long changeSeq, Pageable pageable);
+
+    // Spring Data JPA 2.6.1 cannot build a derived query for a closed
+    // interface projection (JpaQueryCreator fails with a NullPointerException),
+    // so the HelpRequestSummary columns are selected explicitly
+    @Query("select h.id as id, h.requesterEmail as requesterEmail, h.teamId as teamId, h.tableOrBreakoutRoom as tableOrBreakoutRoom, h.requestTime as requestTime, h.solved as solved from helprequest h")
+    Iterable<HelpRequestSummary> findAllBy();
+
+    @Query("select h.id as id, h.requesterEmail as requesterEmail, h.teamId as teamId, h.tableOrBreakoutRoom as tableOrBreakoutRoom, h.requestTime as requestTime, h.solved as solved from helprequest h where h.solved = ?1")
+    List<HelpRequestSummary> findBySolved(boolean solved, Pageable pageable);
+
+    long countBySolved(boolean solved);
 }
\ No newline at end of file
@@ -1,10 +1,27 @@
 package edu.ucsb.cs156.example.repositories;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.MenuItemReviewSummary;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
-public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long>{
-    
+public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long>, FieldSelectionRepository {
+    Iterable<MenuItemReview> findByChangeSeqGreaterThan(Long changeSeq);
+
+    // gRPC list pages, as in HelpRequestRepository
+    List<MenuItemReview> findByIdGreaterThanOrderById(long id, Pageable pageable);
+
+    List<MenuItemReview> findByChangeSeqGreaterThanOrderByChangeSeq(Long changeSeq, Pageable pageable);
+
+    // the MenuItemReviewSummary columns, listed as in HelpRequestRepository
+    @Query("select r.id as id, r.itemId as itemId, r.reviewerEmail as reviewerEmail, r.stars as stars, r.dateReviewed as dateReviewed from menuitemreview r")
+    Iterable<MenuItemReviewSummary> findAllBy();
+
+    @Query("select r.id as id, r.itemId as itemId, r.reviewerEmail as reviewerEmail, r.stars as stars, r.dateReviewed as dateReviewed from menuitemreview r")
+    List<MenuItemReviewSummary> findAllBy(Pageable pageable);
 }
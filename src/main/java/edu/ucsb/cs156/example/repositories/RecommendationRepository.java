@@ -1,12 +1,32 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Recommendation;
+import edu.ucsb.cs156.example.models.RecommendationSummary;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 
 @Repository
-public interface RecommendationRepository extends CrudRepository<Recommendation, Long> {
-    
+public interface RecommendationRepository extends CrudRepository<Recommendation, Long>, FieldSelectionRepository {
+    Iterable<Recommendation> findByChangeSeqGreaterThan(Long changeSeq);
+
+    // gRPC list pages, as in HelpRequestRepository
+    List<Recommendation> findByIdGreaterThanOrderById(long id, Pageable pageable);
+
+    List<Recommendation> findByChangeSeqGreaterThanOrderByChangeSeq(Long changeSeq, Pageable pageable);
+
+    // the RecommendationSummary columns, listed as in HelpRequestRepository
+    @Query("select r.id as id, r.requesterEmail as requesterEmail, r.professorEmail as professorEmail, r.dateRequested as dateRequested, r.dateNeeded as dateNeeded, r.done as done from recommendations r")
+    Iterable<RecommendationSummary> findAllBy();
+
+    @Query("select r.id as id, r.requesterEmail as requesterEmail, r.professorEmail as professorEmail, r.dateRequested as dateRequested, r.dateNeeded as dateNeeded, r.done as done from recommendations r where r.done = ?1 and r.dateNeeded >= ?2")
+    List<RecommendationSummary> findByDoneAndDateNeededGreaterThanEqual(boolean done, LocalDateTime from, Pageable pageable);
+
+    long countByDoneAndDateNeededGreaterThanEqual(boolean done, LocalDateTime from);
 }
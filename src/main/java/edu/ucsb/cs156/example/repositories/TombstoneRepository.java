@@ -0,0 +1,11 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.Tombstone;
+
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TombstoneRepository extends CrudRepository<Tombstone, Long> {
+  Iterable<Tombstone> findByEntityTypeAndChangeSeqGreaterThan(String entityType, Long changeSeq);
+}
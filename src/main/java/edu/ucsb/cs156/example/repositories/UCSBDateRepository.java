@@ -2,11 +2,21 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 
 @Repository
 public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
+  Iterable<UCSBDate> findByChangeSeqGreaterThan(Long changeSeq);
+  // dates whose name or quarter contains the lower case needle: exact names, then prefixes, then shortest names first
+  @Query("select d from ucsbdates d where locate(?1, lower(d.name)) > 0 or locate(?1, d.quarterYYYYQ) > 0"
+      + " order by case when lower(d.name) = ?1 then 0 when locate(?1, lower(d.name)) = 1 then 1 else 2 end,"
+      + " length(d.name), d.id")
+  List<UCSBDate> findSearchCandidates(String needle, Pageable pageable);
 }
\ No newline at end of file
@@ -2,10 +2,20 @@ package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface UCSBDiningCommonsMenuItemRepository extends CrudRepository<UCSBDiningCommonsMenuItem, Long> {
-    
+    Iterable<UCSBDiningCommonsMenuItem> findByChangeSeqGreaterThan(Long changeSeq);
+
+    // items whose name or station contains the lower case needle: exact names, then prefixes, then shortest names first
+    @Query("select m from ucsbdiningcommonsmenuitem m where locate(?1, lower(m.name)) > 0 or locate(?1, lower(m.station)) > 0"
+            + " order by case when lower(m.name) = ?1 then 0 when locate(?1, lower(m.name)) = 1 then 1 else 2 end,"
+            + " length(m.name), m.id")
+    List<UCSBDiningCommonsMenuItem> findSearchCandidates(String needle, Pageable pageable);
 }
\ No newline at end of file
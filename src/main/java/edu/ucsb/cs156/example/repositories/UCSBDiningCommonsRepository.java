@@ -3,11 +3,21 @@ package edu.ucsb.cs156.example.repositories;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
 
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 
 @Repository
 public interface UCSBDiningCommonsRepository extends CrudRepository<UCSBDiningCommons, String> {
- 
+  Iterable<UCSBDiningCommons> findByChangeSeqGreaterThan(Long changeSeq);
+  // dining commons whose code or name contains the lower case needle: exact matches, then prefixes, then shortest names first
+  @Query("select c from ucsbdiningcommons c where locate(?1, lower(c.code)) > 0 or locate(?1, lower(c.name)) > 0"
+      + " order by case when lower(c.code) = ?1 or lower(c.name) = ?1 then 0"
+      + " when locate(?1, lower(c.code)) = 1 or locate(?1, lower(c.name)) = 1 then 1 else 2 end,"
+      + " length(c.name), c.code")
+  List<UCSBDiningCommons> findSearchCandidates(String needle, Pageable pageable);
 }
\ No newline at end of file
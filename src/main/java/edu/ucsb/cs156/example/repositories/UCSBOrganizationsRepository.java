@@ -4,11 +4,23 @@ package edu.ucsb.cs156.example.repositories;
 import edu.ucsb.cs156.example.entities.UCSBOrganizations;
 
 import org.springframework.beans.propertyeditors.StringArrayPropertyEditor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 
 @Repository
 public interface UCSBOrganizationsRepository extends CrudRepository<UCSBOrganizations, String> {
- 
+  Iterable<UCSBOrganizations> findByChangeSeqGreaterThan(Long changeSeq);
+  // organizations whose code or either translation contains the lower case needle: exact codes or short
+  // translations, then prefixes of them, then shortest short translations first
+  @Query("select o from ucsborganizations o where locate(?1, lower(o.orgCode)) > 0"
+      + " or locate(?1, lower(o.orgTranslationShort)) > 0 or locate(?1, lower(o.orgTranslation)) > 0"
+      + " order by case when lower(o.orgCode) = ?1 or lower(o.orgTranslationShort) = ?1 then 0"
+      + " when locate(?1, lower(o.orgCode)) = 1 or locate(?1, lower(o.orgTranslationShort)) = 1 then 1 else 2 end,"
+      + " length(o.orgTranslationShort), o.orgCode")
+  List<UCSBOrganizations> findSearchCandidates(String needle, Pageable pageable);
 }
\ No newline at end of file
@@ -0,0 +1,297 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+
+import edu.ucsb.cs156.example.config.RateLimitFilter;
+import edu.ucsb.cs156.example.errors.InvalidRequestException;
+import edu.ucsb.cs156.example.models.BatchRequest;
+import edu.ucsb.cs156.example.models.BatchResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutor;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.DispatcherType;
+import javax.servlet.Servlet;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the requests of a <code>POST /api/batch</code> through the
+ * DispatcherServlet, so each goes through the same handler mapping,
+ * argument binding, <code>@PreAuthorize</code> checks and exception
+ * handlers as if it had been sent on its own, as the same user.
+ *
+ * Consecutive GETs run in parallel on a pool of
+ * <code>app.batch.threads</code> threads, queued when all are busy.  A
+ * POST, PUT or DELETE waits for the reads before it and runs alone, so the
+ * requests after it see its effect.  The batch is answered asynchronously
+ * once its last request has been, so no request thread is held while they
+ * run.  Requests still unanswered <code>app.batch.timeoutMillis</code>
+ * after the batch started get a 503; the others are returned as usual.
+ *
+ * Sub-requests go straight to the DispatcherServlet, not through the
+ * servlet filter chain, which only the batch request itself passes.  The
+ * filters they skip, and what stands in for each:
+ *
+ * <ul>
+ * <li>Spring Security's SecurityContextPersistenceFilter: each sub-request
+ * runs with the batch request's security context, i.e. as the same user
+ * (or anonymous).</li>
+ * <li>CsrfFilter: the batch POST carries the token; its writes need none of
+ * their own.</li>
+ * <li>ExceptionTranslationFilter: an AccessDeniedException from a
+ * sub-request becomes its 403 here.</li>
+ * <li>HeaderWriterFilter: the security headers are on the batch response,
+ * not repeated in each sub-response.</li>
+ * <li>LogoutFilter and the OAuth2 login filters: they only match URLs
+ * outside <code>/api/</code>, which a batch may not contain.</li>
+ * <li>RateLimitFilter: each sub-request is charged here to the budget it
+ * would draw on if sent alone, and gets the same 429.</li>
+ * <li>CharacterEncodingFilter, FormContentFilter and RequestContextFilter:
+ * sub-request bodies are always UTF-8 JSON built here, and the
+ * DispatcherServlet exposes each sub-request to RequestContextHolder
+ * itself.</li>
+ * </ul>
+ *
+ * Forwarded headers are not a filter here: Tomcat applies them to the batch
+ * request (server.forward-headers-strategy=native), and a sub-request
+ * reports the batch request's scheme, security and remote address.
+ * BatchControllerTests has a test for each of these.  A new servlet filter
+ * that API handlers rely on has to be added to this list and to
+ * {@link #execute}.
+ */
+@Slf4j
+@Service("batchDispatcher")
+public class BatchDispatcher implements DisposableBean {
+  static final Set<String> METHODS = Set.of("GET", "HEAD", "POST", "PUT", "DELETE");
+  static final Set<String> READ_METHODS = Set.of("GET", "HEAD");
+  static final String API_PREFIX = "/api/";
+
+  @Value("${app.batch.maxRequests:20}")
+  int maxRequests;
+
+  @Value("${app.batch.threads:8}")
+  int threads;
+
+  @Value("${app.batch.timeoutMillis:10000}")
+  long timeoutMillis;
+
+  @Autowired
+  RateLimiter rateLimiter;
+
+  @Autowired
+  ObjectMapper mapper;
+
+  private ThreadPoolExecutor executor;
+
+  @PostConstruct
+  void start() {
+    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+        new CustomizableThreadFactory("batch-"));
+  }
+
+  /**
+   * Answers each of <code>requests</code> by dispatching it to
+   * <code>servlet</code>, in the order given.  The future completes with
+   * their responses, in the same order, once the last is answered.
+   *
+   * @throws InvalidRequestException if the batch is empty, too long, or has
+   *         a request that is not for an <code>/api/</code> URL
+   */
+  public CompletableFuture<List<BatchResponse>> dispatch(Servlet servlet, HttpServletRequest batchRequest,
+      HttpServletResponse batchResponse, List<BatchRequest> requests) {
+    validate(requests);
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+    // batch threads have no security context of their own; each request runs with the caller's
+    Executor asCaller = new DelegatingSecurityContextExecutor(executor, SecurityContextHolder.getContext());
+
+    List<CompletableFuture<BatchResponse>> responses = new ArrayList<>();
+    List<CompletableFuture<BatchResponse>> reads = new ArrayList<>();
+    CompletableFuture<?> previousWrite = CompletableFuture.completedFuture(null);
+    for (BatchRequest request : requests) {
+      if (READ_METHODS.contains(method(request))) {
+        CompletableFuture<BatchResponse> read = previousWrite.thenApplyAsync(
+            done -> execute(servlet, batchRequest, batchResponse, request, deadline), asCaller);
+        reads.add(read);
+        responses.add(read);
+      } else {
+        CompletableFuture<BatchResponse> write = CompletableFuture.allOf(
+            reads.isEmpty() ? new CompletableFuture<?>[] { previousWrite } : reads.toArray(CompletableFuture[]::new))
+            .thenApplyAsync(done -> execute(servlet, batchRequest, batchResponse, request, deadline), asCaller);
+        reads.clear();
+        responses.add(write);
+        previousWrite = write;
+      }
+    }
+    return CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new))
+        .thenApply(done -> responses.stream().map(CompletableFuture::join).collect(Collectors.toList()));
+  }
+
+  void validate(List<BatchRequest> requests) {
+    if (requests == null || requests.isEmpty()) {
+      throw new InvalidRequestException("a batch needs at least one request");
+    }
+    if (requests.size() > maxRequests) {
+      throw new InvalidRequestException("at most %d requests may be batched".formatted(maxRequests));
+    }
+    for (BatchRequest request : requests) {
+      if (request == null || !METHODS.contains(method(request))) {
+        throw new InvalidRequestException("batched requests must be one of %s".formatted(METHODS));
+      }
+      String url = request.getUrl();
+      String path = url == null ? "" : url.split("[?#]", 2)[0];
+      if (!path.startsWith(API_PREFIX) || !StringUtils.cleanPath(path).equals(path) || path.contains("//")) {
+        throw new InvalidRequestException("%s is not an API URL".formatted(url));
+      }
+      if (path.equals("/api/batch") || path.startsWith("/api/batch/")) {
+        throw new InvalidRequestException("batches cannot be nested");
+      }
+    }
+  }
+
+  private static String method(BatchRequest request) {
+    return request.getMethod() == null ? "" : request.getMethod().toUpperCase(Locale.ROOT);
+  }
+
+  /** Runs one request; never throws, since a failure is that request's response. */
+  private BatchResponse execute(Servlet servlet, HttpServletRequest batchRequest, HttpServletResponse batchResponse,
+      BatchRequest request, long deadline) {
+    if (deadline - System.nanoTime() <= 0) {
+      // waited in the queue past the batch's deadline; not started at all
+      return error(request, HttpStatus.SERVICE_UNAVAILABLE, TimeoutException.class.getSimpleName(),
+          "the request took too long to answer; try again later", Map.of());
+    }
+    try {
+      byte[] body = request.getBody() == null || request.getBody().isNull()
+          ? null
+          : mapper.writeValueAsBytes(request.getBody());
+      BatchSubRequest subRequest = new BatchSubRequest(batchRequest, method(request), request.getUrl(), body);
+      BatchSubResponse subResponse = new BatchSubResponse(batchResponse);
+
+      if (rateLimiter.isEnabled()) {
+        long waitNanos = rateLimiter.acquire(RateLimitFilter.client(subRequest), RateLimitFilter.budget(subRequest));
+        if (waitNanos > 0) {
+          long retryAfterSeconds = RateLimitFilter.retryAfterSeconds(waitNanos);
+          return error(request, HttpStatus.TOO_MANY_REQUESTS, "TooManyRequests",
+              "rate limit exceeded; try again in " + retryAfterSeconds + " s",
+              Map.of(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds)));
+        }
+      }
+
+      servlet.service(subRequest, subResponse);
+      while (subRequest.isAsyncStarted()) {
+        long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        if (!subRequest.awaitDispatch(remainingMillis)) {
+          break;
+        }
+        subRequest.setDispatcherType(DispatcherType.ASYNC);
+        servlet.service(subRequest, subResponse);
+      }
+      subRequest.complete();
+      return response(request, subResponse);
+    } catch (TimeoutException e) {
+      return error(request, HttpStatus.SERVICE_UNAVAILABLE, e.getClass().getSimpleName(),
+          "the request took too long to answer; try again later", Map.of());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return error(request, HttpStatus.SERVICE_UNAVAILABLE, e.getClass().getSimpleName(),
+          "the batch was interrupted", Map.of());
+    } catch (Exception e) {
+      for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+        if (cause instanceof AccessDeniedException) {
+          return error(request, HttpStatus.FORBIDDEN, cause.getClass().getSimpleName(), cause.getMessage(), Map.of());
+        }
+      }
+      Throwable failure = e instanceof ServletException && e.getCause() != null ? e.getCause() : e;
+      log.error("Batched request {} {} failed", request.getMethod(), request.getUrl(), failure);
+      return error(request, HttpStatus.INTERNAL_SERVER_ERROR, failure.getClass().getSimpleName(),
+          "the request failed", Map.of());
+    }
+  }
+
+  private BatchResponse response(BatchRequest request, BatchSubResponse subResponse) {
+    return BatchResponse.builder()
+        .id(request.getId())
+        .status(subResponse.getStatus())
+        .headers(subResponse.getHeaderValues())
+        .body(body(subResponse))
+        .build();
+  }
+
+  private JsonNode body(BatchSubResponse subResponse) {
+    byte[] bytes = subResponse.getBody();
+    if (bytes.length == 0) {
+      return null;
+    }
+    if (isJson(subResponse.getContentType())) {
+      try {
+        return mapper.readTree(bytes);
+      } catch (IOException e) {
+        // not JSON after all; passed on as text
+      }
+    }
+    return TextNode.valueOf(new String(bytes, Charset.forName(subResponse.getCharacterEncoding())));
+  }
+
+  private static boolean isJson(String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    try {
+      MediaType mediaType = MediaType.parseMediaType(contentType);
+      return MediaType.APPLICATION_JSON.isCompatibleWith(mediaType)
+          || "json".equals(mediaType.getSubtypeSuffix());
+    } catch (InvalidMediaTypeException e) {
+      return false;
+    }
+  }
+
+  private BatchResponse error(BatchRequest request, HttpStatus status, String type, String message,
+      Map<String, String> headers) {
+    Map<String, String> responseHeaders = new LinkedHashMap<>(headers);
+    responseHeaders.put(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+    return BatchResponse.builder()
+        .id(request.getId())
+        .status(status.value())
+        .headers(responseHeaders)
+        .body(mapper.valueToTree(Map.of("type", type, "message", message)))
+        .build();
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+  }
+}
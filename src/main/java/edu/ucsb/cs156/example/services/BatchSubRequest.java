@@ -0,0 +1,449 @@
+package edu.ucsb.cs156.example.services;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * One sub-request of a batch, as the DispatcherServlet sees it.
+ *
+ * It carries the batch request's session, cookies and other headers, but
+ * its own method, URL, parameters, JSON body and attributes, so nothing a
+ * handler stores on it leaks into the batch request or a sibling.  It asks
+ * for JSON without gzip, so the response can be embedded in the batch body.
+ *
+ * Asynchronous handlers get a {@link SubAsyncContext}: when their result is
+ * ready its <code>dispatch()</code> wakes {@link BatchDispatcher}, which
+ * dispatches the request again, as the servlet container would.  As in a
+ * container, the request stays async-started until the
+ * <code>service()</code> call that started it returns, even if the handler
+ * dispatches before then; the dispatch is kept pending until that point.
+ */
+class BatchSubRequest extends HttpServletRequestWrapper {
+  private final String method;
+  private final String path;
+  private final String queryString;
+  private final Map<String, String[]> parameters = new LinkedHashMap<>();
+  private final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>();
+  private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+  private final byte[] body;
+
+  private volatile DispatcherType dispatcherType = DispatcherType.REQUEST;
+  private volatile SubAsyncContext asyncContext;
+  private volatile boolean asyncStarted;
+
+  BatchSubRequest(HttpServletRequest batchRequest, String method, String url, byte[] body) {
+    super(batchRequest);
+    this.method = method;
+    UriComponents uri = UriComponentsBuilder.fromUriString(url).build();
+    this.path = uri.getPath();
+    this.queryString = uri.getQuery();
+    MultiValueMap<String, String> queryParams = uri.getQueryParams();
+    queryParams.forEach((name, values) -> parameters.put(decode(name),
+        values.stream().map(value -> value == null ? "" : decode(value)).toArray(String[]::new)));
+    this.body = body;
+
+    for (String name : Collections.list(batchRequest.getHeaderNames())) {
+      headers.put(name, Collections.list(batchRequest.getHeaders(name)));
+    }
+    headers.remove(HttpHeaders.CONTENT_TYPE);
+    headers.remove(HttpHeaders.CONTENT_LENGTH);
+    headers.remove(HttpHeaders.ACCEPT_ENCODING);
+    headers.put(HttpHeaders.ACCEPT, List.of(MediaType.APPLICATION_JSON_VALUE));
+    if (body != null) {
+      headers.put(HttpHeaders.CONTENT_TYPE, List.of(MediaType.APPLICATION_JSON_VALUE));
+      headers.put(HttpHeaders.CONTENT_LENGTH, List.of(Integer.toString(body.length)));
+    }
+  }
+
+  private static String decode(String value) {
+    return UriUtils.decode(value, StandardCharsets.UTF_8);
+  }
+
+  void setDispatcherType(DispatcherType dispatcherType) {
+    this.dispatcherType = dispatcherType;
+  }
+
+  /**
+   * Waits, once the <code>service()</code> call that started async
+   * processing has returned, until the asynchronous handler's result is
+   * ready; returns at once if it already is.  The request then leaves the
+   * async-started state, ready to be dispatched again.
+   *
+   * @return true if the request should be dispatched again, false if the
+   *         handler completed the response itself
+   * @throws TimeoutException if it is not ready within <code>millis</code>
+   */
+  boolean awaitDispatch(long millis) throws TimeoutException, InterruptedException {
+    boolean dispatch;
+    try {
+      dispatch = asyncContext.dispatched.get(Math.max(0, millis), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+    asyncStarted = false;
+    return dispatch;
+  }
+
+  /** Tells the handler's async listeners that the request is finished, as the container would. */
+  void complete() {
+    SubAsyncContext context = asyncContext;
+    if (context != null) {
+      context.fireComplete();
+    }
+  }
+
+  @Override
+  public String getMethod() {
+    return method;
+  }
+
+  @Override
+  public String getRequestURI() {
+    return getContextPath() + path;
+  }
+
+  @Override
+  public StringBuffer getRequestURL() {
+    StringBuffer url = new StringBuffer(getScheme()).append("://").append(getServerName());
+    int port = getServerPort();
+    if (port > 0 && !(getScheme().equals("http") && port == 80) && !(getScheme().equals("https") && port == 443)) {
+      url.append(':').append(port);
+    }
+    return url.append(getRequestURI());
+  }
+
+  @Override
+  public String getServletPath() {
+    return path;
+  }
+
+  @Override
+  public String getPathInfo() {
+    return null;
+  }
+
+  @Override
+  public String getPathTranslated() {
+    return null;
+  }
+
+  @Override
+  public String getQueryString() {
+    return queryString;
+  }
+
+  @Override
+  public String getParameter(String name) {
+    String[] values = parameters.get(name);
+    return values == null || values.length == 0 ? null : values[0];
+  }
+
+  @Override
+  public Map<String, String[]> getParameterMap() {
+    return Collections.unmodifiableMap(parameters);
+  }
+
+  @Override
+  public Enumeration<String> getParameterNames() {
+    return Collections.enumeration(parameters.keySet());
+  }
+
+  @Override
+  public String[] getParameterValues(String name) {
+    return parameters.get(name);
+  }
+
+  @Override
+  public String getHeader(String name) {
+    List<String> values = headers.get(name);
+    return values == null || values.isEmpty() ? null : values.get(0);
+  }
+
+  @Override
+  public Enumeration<String> getHeaders(String name) {
+    return Collections.enumeration(headers.getOrDefault(name, List.of()));
+  }
+
+  @Override
+  public Enumeration<String> getHeaderNames() {
+    return Collections.enumeration(new ArrayList<>(headers.keySet()));
+  }
+
+  @Override
+  public int getIntHeader(String name) {
+    String value = getHeader(name);
+    return value == null ? -1 : Integer.parseInt(value);
+  }
+
+  @Override
+  public long getDateHeader(String name) {
+    String value = getHeader(name);
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Cannot parse date header " + name + ": " + value, e);
+    }
+  }
+
+  @Override
+  public String getContentType() {
+    return body == null ? null : MediaType.APPLICATION_JSON_VALUE;
+  }
+
+  @Override
+  public int getContentLength() {
+    return body == null ? -1 : body.length;
+  }
+
+  @Override
+  public long getContentLengthLong() {
+    return getContentLength();
+  }
+
+  @Override
+  public String getCharacterEncoding() {
+    return body == null ? null : StandardCharsets.UTF_8.name();
+  }
+
+  @Override
+  public ServletInputStream getInputStream() {
+    ByteArrayInputStream in = new ByteArrayInputStream(body == null ? new byte[0] : body);
+    return new ServletInputStream() {
+      @Override
+      public int read() {
+        return in.read();
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) {
+        return in.read(b, off, len);
+      }
+
+      @Override
+      public boolean isFinished() {
+        return in.available() == 0;
+      }
+
+      @Override
+      public boolean isReady() {
+        return true;
+      }
+
+      @Override
+      public void setReadListener(ReadListener readListener) {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  @Override
+  public BufferedReader getReader() {
+    return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public Object getAttribute(String name) {
+    return attributes.get(name);
+  }
+
+  @Override
+  public Enumeration<String> getAttributeNames() {
+    return Collections.enumeration(new ArrayList<>(attributes.keySet()));
+  }
+
+  @Override
+  public void setAttribute(String name, Object value) {
+    if (value == null) {
+      attributes.remove(name);
+    } else {
+      attributes.put(name, value);
+    }
+  }
+
+  @Override
+  public void removeAttribute(String name) {
+    attributes.remove(name);
+  }
+
+  @Override
+  public DispatcherType getDispatcherType() {
+    return dispatcherType;
+  }
+
+  @Override
+  public boolean isAsyncSupported() {
+    return true;
+  }
+
+  @Override
+  public boolean isAsyncStarted() {
+    return asyncStarted;
+  }
+
+  @Override
+  public AsyncContext startAsync() {
+    return startAsync(this, null);
+  }
+
+  @Override
+  public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+    if (asyncContext == null) {
+      asyncContext = new SubAsyncContext(request, response);
+    } else {
+      asyncContext.restart(request, response);
+    }
+    asyncStarted = true;
+    return asyncContext;
+  }
+
+  @Override
+  public AsyncContext getAsyncContext() {
+    if (asyncContext == null) {
+      throw new IllegalStateException("async processing has not been started");
+    }
+    return asyncContext;
+  }
+
+  /** What an asynchronous handler holds on to until its result is ready. */
+  private class SubAsyncContext implements AsyncContext {
+    private final List<AsyncListener> listeners = new ArrayList<>();
+    private volatile ServletRequest request;
+    private volatile ServletResponse response;
+    private volatile CompletableFuture<Boolean> dispatched = new CompletableFuture<>();
+    private volatile long timeout;
+
+    SubAsyncContext(ServletRequest request, ServletResponse response) {
+      this.request = request;
+      this.response = response;
+    }
+
+    void restart(ServletRequest request, ServletResponse response) {
+      this.request = request;
+      this.response = response;
+      this.dispatched = new CompletableFuture<>();
+    }
+
+    synchronized void fireComplete() {
+      for (AsyncListener listener : listeners) {
+        try {
+          listener.onComplete(new AsyncEvent(this, request, response));
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      listeners.clear();
+    }
+
+    @Override
+    public ServletRequest getRequest() {
+      return request;
+    }
+
+    @Override
+    public ServletResponse getResponse() {
+      return response;
+    }
+
+    @Override
+    public boolean hasOriginalRequestAndResponse() {
+      return request == BatchSubRequest.this;
+    }
+
+    // dispatch() and complete() only record what to do next; BatchDispatcher
+    // acts on it after the current service() call returns
+
+    @Override
+    public void dispatch() {
+      dispatched.complete(true);
+    }
+
+    @Override
+    public void dispatch(String path) {
+      dispatch();
+    }
+
+    @Override
+    public void dispatch(ServletContext context, String path) {
+      dispatch();
+    }
+
+    @Override
+    public void complete() {
+      dispatched.complete(false);
+    }
+
+    @Override
+    public void start(Runnable run) {
+      CompletableFuture.runAsync(run);
+    }
+
+    @Override
+    public synchronized void addListener(AsyncListener listener) {
+      listeners.add(listener);
+    }
+
+    @Override
+    public synchronized void addListener(AsyncListener listener, ServletRequest request, ServletResponse response) {
+      listeners.add(listener);
+    }
+
+    @Override
+    public <T extends AsyncListener> T createListener(Class<T> type) throws ServletException {
+      try {
+        return type.getDeclaredConstructor().newInstance();
+      } catch (ReflectiveOperationException e) {
+        throw new ServletException(e);
+      }
+    }
+
+    @Override
+    public void setTimeout(long timeout) {
+      this.timeout = timeout;
+    }
+
+    @Override
+    public long getTimeout() {
+      return timeout;
+    }
+  }
+}
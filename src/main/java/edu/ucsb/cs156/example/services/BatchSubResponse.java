@@ -0,0 +1,275 @@
+package edu.ucsb.cs156.example.services;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Collects the status, headers and body a handler writes for one
+ * sub-request of a batch; nothing reaches the batch response itself.
+ */
+class BatchSubResponse extends HttpServletResponseWrapper {
+  private final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>();
+  private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+  private int status = SC_OK;
+  private String characterEncoding;
+  private PrintWriter writer;
+  private ServletOutputStream outputStream;
+
+  BatchSubResponse(HttpServletResponse batchResponse) {
+    super(batchResponse);
+  }
+
+  /** The body written so far, after flushing the writer if the handler used one. */
+  synchronized byte[] getBody() {
+    if (writer != null) {
+      writer.flush();
+    }
+    return body.toByteArray();
+  }
+
+  /** The headers, with repeated ones joined by commas. */
+  synchronized Map<String, String> getHeaderValues() {
+    Map<String, String> values = new LinkedHashMap<>();
+    headers.forEach((name, list) -> values.put(name, String.join(", ", list)));
+    return values;
+  }
+
+  @Override
+  public synchronized void setStatus(int status) {
+    this.status = status;
+  }
+
+  @Override
+  @Deprecated
+  public synchronized void setStatus(int status, String message) {
+    this.status = status;
+  }
+
+  @Override
+  public synchronized int getStatus() {
+    return status;
+  }
+
+  @Override
+  public synchronized void sendError(int status) {
+    sendError(status, null);
+  }
+
+  @Override
+  public synchronized void sendError(int status, String message) {
+    resetBuffer();
+    this.status = status;
+  }
+
+  @Override
+  public synchronized void sendRedirect(String location) {
+    resetBuffer();
+    status = SC_FOUND;
+    setHeader(HttpHeaders.LOCATION, location);
+  }
+
+  @Override
+  public void addCookie(Cookie cookie) {
+    // sub-requests share the batch request's session; their cookies are not passed on
+  }
+
+  @Override
+  public synchronized boolean containsHeader(String name) {
+    return headers.containsKey(name);
+  }
+
+  @Override
+  public synchronized String getHeader(String name) {
+    List<String> values = headers.get(name);
+    return values == null || values.isEmpty() ? null : values.get(0);
+  }
+
+  @Override
+  public synchronized Collection<String> getHeaders(String name) {
+    return new ArrayList<>(headers.getOrDefault(name, List.of()));
+  }
+
+  @Override
+  public synchronized Collection<String> getHeaderNames() {
+    return new ArrayList<>(headers.keySet());
+  }
+
+  @Override
+  public synchronized void setHeader(String name, String value) {
+    if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+      setContentType(value);
+      return;
+    }
+    List<String> values = new ArrayList<>();
+    values.add(value);
+    headers.put(name, values);
+  }
+
+  @Override
+  public synchronized void addHeader(String name, String value) {
+    if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+      setContentType(value);
+      return;
+    }
+    headers.computeIfAbsent(name, n -> new ArrayList<>()).add(value);
+  }
+
+  @Override
+  public void setIntHeader(String name, int value) {
+    setHeader(name, Integer.toString(value));
+  }
+
+  @Override
+  public void addIntHeader(String name, int value) {
+    addHeader(name, Integer.toString(value));
+  }
+
+  @Override
+  public void setDateHeader(String name, long date) {
+    setHeader(name, httpDate(date));
+  }
+
+  @Override
+  public void addDateHeader(String name, long date) {
+    addHeader(name, httpDate(date));
+  }
+
+  private static String httpDate(long date) {
+    return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(date).atZone(ZoneOffset.UTC));
+  }
+
+  @Override
+  public synchronized void setContentType(String type) {
+    if (type == null) {
+      headers.remove(HttpHeaders.CONTENT_TYPE);
+      return;
+    }
+    int charset = type.toLowerCase(Locale.ROOT).indexOf("charset=");
+    if (charset >= 0) {
+      characterEncoding = type.substring(charset + "charset=".length()).trim();
+    }
+    List<String> values = new ArrayList<>();
+    values.add(type);
+    headers.put(HttpHeaders.CONTENT_TYPE, values);
+  }
+
+  @Override
+  public synchronized String getContentType() {
+    return getHeader(HttpHeaders.CONTENT_TYPE);
+  }
+
+  @Override
+  public synchronized void setCharacterEncoding(String characterEncoding) {
+    this.characterEncoding = characterEncoding;
+  }
+
+  @Override
+  public synchronized String getCharacterEncoding() {
+    return characterEncoding == null ? StandardCharsets.ISO_8859_1.name() : characterEncoding;
+  }
+
+  @Override
+  public void setContentLength(int length) {
+  }
+
+  @Override
+  public void setContentLengthLong(long length) {
+  }
+
+  @Override
+  public synchronized ServletOutputStream getOutputStream() {
+    if (outputStream == null) {
+      outputStream = new ServletOutputStream() {
+        @Override
+        public void write(int b) {
+          synchronized (BatchSubResponse.this) {
+            body.write(b);
+          }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+          synchronized (BatchSubResponse.this) {
+            body.write(b, off, len);
+          }
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+    return outputStream;
+  }
+
+  @Override
+  public synchronized PrintWriter getWriter() {
+    if (writer == null) {
+      writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+    }
+    return writer;
+  }
+
+  @Override
+  public synchronized void flushBuffer() {
+    if (writer != null) {
+      writer.flush();
+    }
+  }
+
+  @Override
+  public boolean isCommitted() {
+    return false;
+  }
+
+  @Override
+  public synchronized void reset() {
+    resetBuffer();
+    headers.clear();
+    status = SC_OK;
+    characterEncoding = null;
+  }
+
+  @Override
+  public synchronized void resetBuffer() {
+    if (writer != null) {
+      writer.flush();
+    }
+    body.reset();
+  }
+
+  @Override
+  public void setBufferSize(int size) {
+  }
+
+  @Override
+  public void setLocale(Locale locale) {
+  }
+}
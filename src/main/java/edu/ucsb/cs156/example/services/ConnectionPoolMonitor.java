@@ -0,0 +1,219 @@
+package edu.ucsb.cs156.example.services;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import edu.ucsb.cs156.example.aop.CurrentHandler;
+import edu.ucsb.cs156.example.models.ConnectionPoolStats;
+import edu.ucsb.cs156.example.models.HeldConnection;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.sql.DataSource;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Instruments the Hikari connection pool.
+ *
+ * As Hikari's MetricsTrackerFactory it records how long callers wait for a
+ * connection, how long they keep it, and how often they time out.  The
+ * DataSource it wraps ({@link #monitor(DataSource)}, applied by
+ * ConnectionPoolConfig) tracks each borrowed connection together with the
+ * {@link CurrentHandler} that borrowed it and, if
+ * <code>app.connectionPool.captureStacks</code> is set, where it was borrowed.
+ * Connections held longer than <code>app.connectionPool.leakThresholdMillis</code>
+ * are logged once as probable leaks and counted against their handler.
+ */
+@Slf4j
+@Service("connectionPoolMonitor")
+public class ConnectionPoolMonitor implements MetricsTrackerFactory, DisposableBean {
+  static final int LONGEST_HELD = 5;
+  static final int STACK_DEPTH = 40;
+  static final String NO_HANDLER = "(no request)";
+
+  @Value("${app.connectionPool.leakThresholdMillis:60000}")
+  long leakThresholdMillis;
+
+  @Value("${app.connectionPool.captureStacks:true}")
+  boolean captureStacks;
+
+  private volatile String poolName;
+  private volatile PoolStats poolStats;
+
+  private final LatencyHistogram acquireMillis = new LatencyHistogram();
+  private final LatencyHistogram usageMillis = new LatencyHistogram();
+  private final LongAdder timeouts = new LongAdder();
+
+  private final Set<Borrow> borrowed = ConcurrentHashMap.newKeySet();
+  private final Map<String, LongAdder> leaksByHandler = new ConcurrentHashMap<>();
+
+  private ScheduledExecutorService leakChecker;
+
+  private static class Borrow {
+    final String handler;
+    final String thread;
+    final long borrowedAt = System.nanoTime();
+    // the stack is only walked if the borrow is ever reported
+    final Throwable origin;
+    volatile boolean reported;
+
+    Borrow(String handler, String thread, Throwable origin) {
+      this.handler = handler;
+      this.thread = thread;
+      this.origin = origin;
+    }
+
+    long heldMillis() {
+      return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - borrowedAt);
+    }
+  }
+
+  @PostConstruct
+  void start() {
+    if (leakThresholdMillis > 0) {
+      long interval = Math.max(1000, leakThresholdMillis / 2);
+      leakChecker = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("connection-leak-check-"));
+      leakChecker.scheduleWithFixedDelay(this::checkForLeaks, interval, interval, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @Override
+  public IMetricsTracker create(String poolName, PoolStats poolStats) {
+    this.poolName = poolName;
+    this.poolStats = poolStats;
+    return new IMetricsTracker() {
+      @Override
+      public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+        acquireMillis.recordNanos(elapsedAcquiredNanos);
+      }
+
+      @Override
+      public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+        usageMillis.record(elapsedBorrowedMillis);
+      }
+
+      @Override
+      public void recordConnectionTimeout() {
+        timeouts.increment();
+      }
+    };
+  }
+
+  /** Wraps <code>dataSource</code> so that borrowed connections are tracked. */
+  public DataSource monitor(DataSource dataSource) {
+    return new DelegatingDataSource(dataSource) {
+      @Override
+      public Connection getConnection() throws SQLException {
+        return track(super.getConnection());
+      }
+
+      @Override
+      public Connection getConnection(String username, String password) throws SQLException {
+        return track(super.getConnection(username, password));
+      }
+    };
+  }
+
+  Connection track(Connection connection) {
+    Borrow borrow = new Borrow(CurrentHandler.get(), Thread.currentThread().getName(),
+        captureStacks ? new Throwable("connection borrowed here") : null);
+    borrowed.add(borrow);
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+        (proxy, method, args) -> {
+          if (method.getName().equals("close")) {
+            borrowed.remove(borrow);
+          }
+          try {
+            return method.invoke(connection, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+        });
+  }
+
+  void checkForLeaks() {
+    for (Borrow borrow : borrowed) {
+      long heldMillis = borrow.heldMillis();
+      if (heldMillis >= leakThresholdMillis && !borrow.reported) {
+        borrow.reported = true;
+        String handler = borrow.handler == null ? NO_HANDLER : borrow.handler;
+        leaksByHandler.computeIfAbsent(handler, h -> new LongAdder()).increment();
+        log.warn("Connection held for {} ms by {} on thread {}; probable leak", heldMillis, handler, borrow.thread,
+            borrow.origin);
+      }
+    }
+  }
+
+  public ConnectionPoolStats getStats() {
+    PoolStats pool = poolStats;
+    List<HeldConnection> longestHeld = borrowed.stream()
+        .sorted(Comparator.comparingLong(borrow -> borrow.borrowedAt))
+        .limit(LONGEST_HELD)
+        .map(borrow -> HeldConnection.builder()
+            .handler(borrow.handler)
+            .thread(borrow.thread)
+            .heldMillis(borrow.heldMillis())
+            .stackTrace(stackTrace(borrow.origin))
+            .build())
+        .collect(Collectors.toList());
+    Map<String, Long> leaks = new TreeMap<>();
+    leaksByHandler.forEach((handler, count) -> leaks.put(handler, count.sum()));
+
+    return ConnectionPoolStats.builder()
+        .poolName(poolName)
+        .active(pool == null ? 0 : pool.getActiveConnections())
+        .idle(pool == null ? 0 : pool.getIdleConnections())
+        .pending(pool == null ? 0 : pool.getPendingThreads())
+        .total(pool == null ? 0 : pool.getTotalConnections())
+        .maxPoolSize(pool == null ? 0 : pool.getMaxConnections())
+        .timeouts(timeouts.sum())
+        .acquireMillis(acquireMillis.snapshot())
+        .usageMillis(usageMillis.snapshot())
+        .longestHeld(longestHeld)
+        .leaksByHandler(leaks)
+        .build();
+  }
+
+  private static List<String> stackTrace(Throwable origin) {
+    if (origin == null) {
+      return List.of();
+    }
+    // skip the frames inside this class and its nested classes, such as the DataSource wrapper
+    String monitor = ConnectionPoolMonitor.class.getName();
+    return Arrays.stream(origin.getStackTrace())
+        .dropWhile(frame -> frame.getClassName().equals(monitor) || frame.getClassName().startsWith(monitor + "$"))
+        .limit(STACK_DEPTH)
+        .map(StackTraceElement::toString)
+        .collect(Collectors.toList());
+  }
+
+  @Override
+  public void destroy() {
+    if (leakChecker != null) {
+      leakChecker.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.EntityCacheRegionStats;
+import edu.ucsb.cs156.example.models.EntityCacheStats;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Hit ratios of the second-level entity cache (see EntityCacheConfig), per
+ * entity type, from Hibernate's statistics and the size of each Caffeine
+ * region.
+ */
+@Service("entityCacheStats")
+public class EntityCacheStatsService {
+
+  @Autowired
+  EntityManagerFactory entityManagerFactory;
+
+  @Autowired
+  CacheManager entityCacheManager;
+
+  public EntityCacheStats getStats() {
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    List<EntityCacheRegionStats> regions = Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+        .sorted()
+        .map(region -> regionStats(region, statistics.getDomainDataRegionStatistics(region)))
+        .collect(Collectors.toList());
+
+    long hits = regions.stream().mapToLong(EntityCacheRegionStats::getHits).sum();
+    long misses = regions.stream().mapToLong(EntityCacheRegionStats::getMisses).sum();
+    return EntityCacheStats.builder()
+        .hits(hits)
+        .misses(misses)
+        .hitRatio(hitRatio(hits, misses))
+        .regions(regions)
+        .build();
+  }
+
+  private EntityCacheRegionStats regionStats(String region, CacheRegionStatistics statistics) {
+    return EntityCacheRegionStats.builder()
+        .entity(region.substring(region.lastIndexOf('.') + 1))
+        .size(size(region))
+        .hits(statistics.getHitCount())
+        .misses(statistics.getMissCount())
+        .puts(statistics.getPutCount())
+        .hitRatio(hitRatio(statistics.getHitCount(), statistics.getMissCount()))
+        .build();
+  }
+
+  /** Estimated number of entries in a region, or -1 if it is not a Caffeine cache. */
+  private long size(String region) {
+    Cache<Object, Object> cache = entityCacheManager.getCache(region);
+    if (cache == null) {
+      return -1;
+    }
+    try {
+      return cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class).estimatedSize();
+    } catch (IllegalArgumentException e) {
+      return -1;
+    }
+  }
+
+  private static double hitRatio(long hits, long misses) {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0.0 : (double) hits / lookups;
+  }
+}
@@ -0,0 +1,107 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.aop.CurrentHandler;
+import edu.ucsb.cs156.example.models.JdbcExecutorStats;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs repository work for controllers that return a
+ * <code>CompletableFuture</code>, so a slow query holds one of these threads
+ * rather than a Tomcat request thread.
+ *
+ * There is one thread per database connection
+ * (<code>spring.datasource.hikari.maximum-pool-size</code>, unless
+ * <code>app.jdbcExecutor.threads</code> says otherwise), since more could only
+ * wait for a connection.  Work beyond that waits in a queue of
+ * <code>app.jdbcExecutor.queueCapacity</code> entries; once the queue is full
+ * further work is rejected with a RejectedExecutionException, which
+ * ApiController turns into a 503.
+ */
+@Slf4j
+@Service("jdbcExecutor")
+public class JdbcExecutor implements DisposableBean {
+
+  @Value("${app.jdbcExecutor.threads:${spring.datasource.hikari.maximum-pool-size:10}}")
+  int threads;
+
+  @Value("${app.jdbcExecutor.queueCapacity:100}")
+  int queueCapacity;
+
+  private ThreadPoolExecutor executor;
+
+  private final LongAdder rejected = new LongAdder();
+  private final LongAdder started = new LongAdder();
+  private final LongAdder totalWaitNanos = new LongAdder();
+  private final AtomicLong maxWaitNanos = new AtomicLong();
+
+  @PostConstruct
+  void start() {
+    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("jdbc-"));
+  }
+
+  /**
+   * Runs <code>work</code> on the executor with the caller's security
+   * context and {@link CurrentHandler}.  The future completes with its
+   * result, or exceptionally with whatever it threw.
+   */
+  public <T> CompletableFuture<T> supply(Supplier<T> work) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    long queuedAt = System.nanoTime();
+    Runnable task = new DelegatingSecurityContextRunnable(CurrentHandler.wrap(() -> {
+      long waitNanos = System.nanoTime() - queuedAt;
+      started.increment();
+      totalWaitNanos.add(waitNanos);
+      maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+      try {
+        result.complete(work.get());
+      } catch (Throwable e) {
+        result.completeExceptionally(e);
+      }
+    }));
+    try {
+      executor.execute(task);
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      log.warn("JDBC executor queue is full ({} waiting)", executor.getQueue().size());
+      throw e;
+    }
+    return result;
+  }
+
+  public JdbcExecutorStats getStats() {
+    long startedCount = started.sum();
+    return JdbcExecutorStats.builder()
+        .threads(threads)
+        .activeThreads(executor.getActiveCount())
+        .queueDepth(executor.getQueue().size())
+        .queueCapacity(queueCapacity)
+        .completed(executor.getCompletedTaskCount())
+        .rejected(rejected.sum())
+        .averageWaitMillis(startedCount == 0 ? 0.0 : totalWaitNanos.sum() / 1e6 / startedCount)
+        .maxWaitMillis(maxWaitNanos.get() / 1e6)
+        .build();
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+  }
+}
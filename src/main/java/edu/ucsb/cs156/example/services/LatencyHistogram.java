@@ -0,0 +1,58 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.HistogramSnapshot;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Lock-free histogram of durations over fixed millisecond buckets, cheap
+ * enough to record on every connection borrow or query.
+ */
+public class LatencyHistogram {
+  private static final double[] BOUNDS_MILLIS = {
+      0.1, 0.5, 1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000, 30000
+  };
+
+  private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MILLIS.length + 1);
+  private final DoubleAdder totalMillis = new DoubleAdder();
+  // raw bits of a non-negative double order the same way as the double
+  private final AtomicLong maxMillisBits = new AtomicLong(Double.doubleToLongBits(0.0));
+
+  public void record(double millis) {
+    int bucket = 0;
+    while (bucket < BOUNDS_MILLIS.length && millis > BOUNDS_MILLIS[bucket]) {
+      bucket++;
+    }
+    counts.incrementAndGet(bucket);
+    totalMillis.add(millis);
+    maxMillisBits.accumulateAndGet(Double.doubleToLongBits(Math.max(millis, 0.0)), Math::max);
+  }
+
+  public void recordNanos(long nanos) {
+    record(nanos / 1e6);
+  }
+
+  public HistogramSnapshot snapshot() {
+    Map<String, Long> buckets = new LinkedHashMap<>();
+    long count = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      long bucketCount = counts.get(i);
+      count += bucketCount;
+      buckets.put(i < BOUNDS_MILLIS.length ? formatBound(BOUNDS_MILLIS[i]) : "+Inf", bucketCount);
+    }
+    return HistogramSnapshot.builder()
+        .count(count)
+        .meanMillis(count == 0 ? 0.0 : totalMillis.sum() / count)
+        .maxMillis(Double.longBitsToDouble(maxMillisBits.get()))
+        .buckets(buckets)
+        .build();
+  }
+
+  private static String formatBound(double bound) {
+    return bound == Math.rint(bound) ? String.valueOf((long) bound) : String.valueOf(bound);
+  }
+}
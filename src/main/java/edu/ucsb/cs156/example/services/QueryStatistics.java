@@ -0,0 +1,307 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.aop.CurrentHandler;
+import edu.ucsb.cs156.example.aop.CurrentRepositoryMethod;
+import edu.ucsb.cs156.example.models.QueryStatsEntry;
+import edu.ucsb.cs156.example.models.QueryStatsReport;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the statements the application sends to the database.
+ *
+ * The DataSource it wraps ({@link #monitor(DataSource)}, applied by
+ * ConnectionPoolConfig) times every statement execution and counts the rows
+ * it returns or updates.  Totals are kept per normalized statement (literals
+ * replaced by <code>?</code>, <code>IN</code> lists collapsed) and per
+ * {@link CurrentRepositoryMethod} that issued it.  Statements slower than
+ * <code>app.queryStats.slowQueryMillis</code> are logged with the handler
+ * and repository method behind them; bind parameters are logged by type and
+ * length only, never by value.
+ */
+@Slf4j
+@Service("queryStatistics")
+public class QueryStatistics {
+  static final int TOP = 50;
+  static final String NO_REPOSITORY = "(no repository)";
+  static final String OTHER = "(other statements)";
+
+  private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+  private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w$.])-?\\d+(?:\\.\\d+)?(?![\\w$])");
+  private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  @Value("${app.queryStats.slowQueryMillis:500}")
+  long slowQueryMillis;
+
+  @Value("${app.queryStats.maxStatements:1000}")
+  int maxStatements;
+
+  private final Map<Key, Totals> totals = new ConcurrentHashMap<>();
+  private final Map<String, String> normalized = new ConcurrentHashMap<>();
+  private final LongAdder statements = new LongAdder();
+  private final LongAdder slowStatements = new LongAdder();
+
+  private record Key(String repositoryMethod, String sql) {
+  }
+
+  private static class Totals {
+    final LongAdder count = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder rows = new LongAdder();
+    final DoubleAdder totalMillis = new DoubleAdder();
+    final DoubleAccumulator maxMillis = new DoubleAccumulator(Math::max, 0);
+
+    void record(double millis, boolean failed) {
+      count.increment();
+      if (failed) {
+        errors.increment();
+      }
+      totalMillis.add(millis);
+      maxMillis.accumulate(millis);
+    }
+  }
+
+  /** What a statement proxy knows about the statement it wraps. */
+  private static class StatementState {
+    final String sql;
+    final Map<Integer, String> parameters = new TreeMap<>();
+    Totals lastExecution;
+
+    StatementState(String sql) {
+      this.sql = sql;
+    }
+  }
+
+  /** Wraps <code>dataSource</code> so that statements on its connections are counted. */
+  public DataSource monitor(DataSource dataSource) {
+    return new DelegatingDataSource(dataSource) {
+      @Override
+      public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+      }
+
+      @Override
+      public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+      }
+    };
+  }
+
+  Connection connection(Connection connection) {
+    return proxy(Connection.class, connection, (proxy, method, args) -> {
+      Object result = invoke(connection, method, args);
+      String name = method.getName();
+      if (result instanceof Statement statement && (name.startsWith("prepare") || name.equals("createStatement"))) {
+        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+        return statement(method.getReturnType(), statement, new StatementState(sql));
+      }
+      return result;
+    });
+  }
+
+  private Object statement(Class<?> type, Statement statement, StatementState state) {
+    return proxy(type, statement, (proxy, method, args) -> {
+      String name = method.getName();
+      if (name.startsWith("execute")) {
+        return execute(statement, method, args, state);
+      }
+      if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+        state.parameters.put(index, name.equals("setNull") ? "null" : describe(args[1]));
+      } else if (name.equals("clearParameters")) {
+        state.parameters.clear();
+      }
+      Object result = invoke(statement, method, args);
+      if (name.equals("getResultSet") && result instanceof ResultSet resultSet && state.lastExecution != null) {
+        return countRows(resultSet, state.lastExecution);
+      }
+      return result;
+    });
+  }
+
+  private Object execute(Statement statement, Method method, Object[] args, StatementState state) throws Throwable {
+    String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : state.sql;
+    String normalizedSql = normalize(sql);
+    String repositoryMethod = CurrentRepositoryMethod.get();
+    Totals statementTotals = totalsFor(repositoryMethod, normalizedSql);
+    state.lastExecution = statementTotals;
+
+    long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      Object result = invoke(statement, method, args);
+      failed = false;
+      if (result instanceof ResultSet resultSet) {
+        return countRows(resultSet, statementTotals);
+      }
+      statementTotals.rows.add(updateCount(result));
+      return result;
+    } finally {
+      double millis = (System.nanoTime() - start) / (double) TimeUnit.MILLISECONDS.toNanos(1);
+      statementTotals.record(millis, failed);
+      statements.increment();
+      if (slowQueryMillis > 0 && millis >= slowQueryMillis) {
+        slowStatements.increment();
+        String handler = CurrentHandler.get();
+        log.warn("Slow statement ({} ms) from {} in {}: {} parameters {}", Math.round(millis),
+            repositoryMethod == null ? NO_REPOSITORY : repositoryMethod,
+            handler == null ? ConnectionPoolMonitor.NO_HANDLER : handler, normalizedSql, state.parameters.values());
+      }
+    }
+  }
+
+  private ResultSet countRows(ResultSet resultSet, Totals statementTotals) {
+    return proxy(ResultSet.class, resultSet, (proxy, method, args) -> {
+      Object result = invoke(resultSet, method, args);
+      if (method.getName().equals("next") && Boolean.TRUE.equals(result)) {
+        statementTotals.rows.increment();
+      }
+      return result;
+    });
+  }
+
+  private Totals totalsFor(String repositoryMethod, String sql) {
+    Key key = new Key(repositoryMethod == null ? NO_REPOSITORY : repositoryMethod, sql);
+    Totals existing = totals.get(key);
+    if (existing != null) {
+      return existing;
+    }
+    // keep the map bounded if something generates unique statements
+    if (totals.size() >= maxStatements) {
+      key = new Key(key.repositoryMethod(), OTHER);
+    }
+    return totals.computeIfAbsent(key, k -> new Totals());
+  }
+
+  private static long updateCount(Object result) {
+    if (result instanceof Number count) {
+      return Math.max(0, count.longValue());
+    }
+    long sum = 0;
+    if (result instanceof int[] counts) {
+      for (int count : counts) {
+        sum += Math.max(0, count);
+      }
+    } else if (result instanceof long[] counts) {
+      for (long count : counts) {
+        sum += Math.max(0, count);
+      }
+    }
+    return sum;
+  }
+
+  /** Type and, for text and binary values, length of a bind parameter, but never its value. */
+  static String describe(Object value) {
+    if (value == null) {
+      return "null";
+    }
+    String type = value.getClass().getSimpleName();
+    if (value instanceof CharSequence text) {
+      return type + "(" + text.length() + ")";
+    }
+    if (value instanceof byte[] bytes) {
+      return type + "(" + bytes.length + ")";
+    }
+    return type;
+  }
+
+  /** The statement with literals replaced by <code>?</code>, so that executions with different values group together. */
+  String normalize(String sql) {
+    if (sql == null) {
+      return "(unknown)";
+    }
+    String cached = normalized.get(sql);
+    if (cached != null) {
+      return cached;
+    }
+    String result = normalizeUncached(sql);
+    if (normalized.size() < maxStatements * 4) {
+      normalized.put(sql, result);
+    }
+    return result;
+  }
+
+  static String normalizeUncached(String sql) {
+    String result = STRING_LITERAL.matcher(sql).replaceAll("?");
+    result = NUMBER_LITERAL.matcher(result).replaceAll("?");
+    result = IN_LIST.matcher(result).replaceAll("(?, ...)");
+    return WHITESPACE.matcher(result).replaceAll(" ").trim();
+  }
+
+  public QueryStatsReport getReport() {
+    List<QueryStatsEntry> bySql = totals.entrySet().stream()
+        .map(entry -> entry(entry.getKey().repositoryMethod(), entry.getKey().sql(), List.of(entry.getValue())))
+        .sorted(Comparator.comparingDouble(QueryStatsEntry::getTotalMillis).reversed())
+        .limit(TOP)
+        .collect(Collectors.toList());
+    List<QueryStatsEntry> byRepositoryMethod = totals.entrySet().stream()
+        .collect(Collectors.groupingBy(entry -> entry.getKey().repositoryMethod(),
+            Collectors.mapping(Map.Entry::getValue, Collectors.toList())))
+        .entrySet().stream()
+        .map(entry -> entry(entry.getKey(), null, entry.getValue()))
+        .sorted(Comparator.comparingDouble(QueryStatsEntry::getTotalMillis).reversed())
+        .limit(TOP)
+        .collect(Collectors.toList());
+
+    return QueryStatsReport.builder()
+        .statements(statements.sum())
+        .slowStatements(slowStatements.sum())
+        .slowQueryMillis(slowQueryMillis)
+        .byRepositoryMethod(byRepositoryMethod)
+        .bySql(bySql)
+        .build();
+  }
+
+  private static QueryStatsEntry entry(String repositoryMethod, String sql, List<Totals> parts) {
+    long count = parts.stream().mapToLong(part -> part.count.sum()).sum();
+    double totalMillis = parts.stream().mapToDouble(part -> part.totalMillis.sum()).sum();
+    return QueryStatsEntry.builder()
+        .repositoryMethod(repositoryMethod)
+        .sql(sql)
+        .count(count)
+        .errors(parts.stream().mapToLong(part -> part.errors.sum()).sum())
+        .rows(parts.stream().mapToLong(part -> part.rows.sum()).sum())
+        .totalMillis(totalMillis)
+        .meanMillis(count == 0 ? 0 : totalMillis / count)
+        .maxMillis(parts.stream().mapToDouble(part -> part.maxMillis.get()).max().orElse(0))
+        .build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
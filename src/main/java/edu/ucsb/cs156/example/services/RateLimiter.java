@@ -0,0 +1,213 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.RateLimitBudgetStats;
+import edu.ucsb.cs156.example.models.RateLimitClientStats;
+import edu.ucsb.cs156.example.models.RateLimitStats;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Per-client token buckets for the API, applied by RateLimitFilter.
+ *
+ * Each client (a user's email, or <code>ip:</code> and the address for
+ * anonymous requests) has one bucket per {@link Budget}, refilled at
+ * <code>app.rateLimit.&lt;budget&gt;.perMinute</code> and holding at most
+ * <code>app.rateLimit.&lt;budget&gt;.burst</code> requests.  A bucket is kept
+ * as a single long, the time at which it will be full again (the generic
+ * cell rate algorithm), and updated with compare-and-set, so requests never
+ * wait on a lock and a client costs one small array in a map.  Clients whose
+ * buckets are all full again are dropped once
+ * <code>app.rateLimit.maxClients</code> are tracked; forgetting them changes
+ * nothing, since a new bucket starts full.
+ */
+@Service("rateLimiter")
+public class RateLimiter {
+  static final int TOP = 20;
+
+  /** The separate allowances a client draws on. */
+  public enum Budget {
+    READ, WRITE, ADMIN
+  }
+
+  @Value("${app.rateLimit.enabled:true}")
+  boolean enabled;
+
+  @Value("${app.rateLimit.read.perMinute:600}")
+  long readPerMinute;
+
+  @Value("${app.rateLimit.read.burst:100}")
+  long readBurst;
+
+  @Value("${app.rateLimit.write.perMinute:60}")
+  long writePerMinute;
+
+  @Value("${app.rateLimit.write.burst:20}")
+  long writeBurst;
+
+  @Value("${app.rateLimit.admin.perMinute:120}")
+  long adminPerMinute;
+
+  @Value("${app.rateLimit.admin.burst:30}")
+  long adminBurst;
+
+  @Value("${app.rateLimit.maxClients:100000}")
+  int maxClients;
+
+  LongSupplier nanoTime = System::nanoTime;
+
+  private final long origin = System.nanoTime();
+  private final Map<String, AtomicLongArray> buckets = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> rejectionsByClient = new ConcurrentHashMap<>();
+  private final LongAdder[] allowed = adders();
+  private final LongAdder[] rejected = adders();
+  private final AtomicLong lastPrune = new AtomicLong(Long.MIN_VALUE);
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Takes one request from <code>client</code>'s <code>budget</code>.
+   *
+   * @return 0 if the request may proceed, otherwise how many nanoseconds
+   *         until it would be allowed
+   */
+  public long acquire(String client, Budget budget) {
+    long now = now();
+    long interval = interval(budget);
+    long tolerance = interval * Math.max(1, burst(budget));
+    AtomicLongArray clientBuckets = bucketsFor(client, now);
+    int index = budget.ordinal();
+
+    while (true) {
+      // the bucket is full again at fullAt; each request pushes that out by one interval
+      long fullAt = clientBuckets.get(index);
+      long next = Math.max(fullAt, now) + interval;
+      long wait = next - now - tolerance;
+      if (wait > 0) {
+        rejected[index].increment();
+        rejectionsFor(client).increment();
+        return wait;
+      }
+      if (clientBuckets.compareAndSet(index, fullAt, next)) {
+        allowed[index].increment();
+        return 0;
+      }
+    }
+  }
+
+  private AtomicLongArray bucketsFor(String client, long now) {
+    AtomicLongArray existing = buckets.get(client);
+    if (existing != null) {
+      return existing;
+    }
+    if (buckets.size() >= maxClients) {
+      prune(now);
+    }
+    return buckets.computeIfAbsent(client, c -> new AtomicLongArray(Budget.values().length));
+  }
+
+  /** Forgets clients whose buckets are all full, at most once a second. */
+  private void prune(long now) {
+    long last = lastPrune.get();
+    if (last != Long.MIN_VALUE && now - last < TimeUnit.SECONDS.toNanos(1)) {
+      return;
+    }
+    if (!lastPrune.compareAndSet(last, now)) {
+      return;
+    }
+    buckets.values().removeIf(clientBuckets -> {
+      for (int i = 0; i < clientBuckets.length(); i++) {
+        if (clientBuckets.get(i) > now) {
+          return false;
+        }
+      }
+      return true;
+    });
+    rejectionsByClient.keySet().retainAll(buckets.keySet());
+  }
+
+  private LongAdder rejectionsFor(String client) {
+    LongAdder existing = rejectionsByClient.get(client);
+    if (existing != null) {
+      return existing;
+    }
+    return rejectionsByClient.computeIfAbsent(client, c -> new LongAdder());
+  }
+
+  /** Nanoseconds since this limiter was created, so that 0 is always in the past. */
+  private long now() {
+    return nanoTime.getAsLong() - origin;
+  }
+
+  private long interval(Budget budget) {
+    return TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute(budget));
+  }
+
+  private long perMinute(Budget budget) {
+    switch (budget) {
+      case WRITE:
+        return writePerMinute;
+      case ADMIN:
+        return adminPerMinute;
+      default:
+        return readPerMinute;
+    }
+  }
+
+  private long burst(Budget budget) {
+    switch (budget) {
+      case WRITE:
+        return writeBurst;
+      case ADMIN:
+        return adminBurst;
+      default:
+        return readBurst;
+    }
+  }
+
+  private static LongAdder[] adders() {
+    LongAdder[] adders = new LongAdder[Budget.values().length];
+    Arrays.setAll(adders, i -> new LongAdder());
+    return adders;
+  }
+
+  public RateLimitStats getStats() {
+    List<RateLimitBudgetStats> budgets = Arrays.stream(Budget.values())
+        .map(budget -> RateLimitBudgetStats.builder()
+            .budget(budget.name())
+            .perMinute(perMinute(budget))
+            .burst(burst(budget))
+            .allowed(allowed[budget.ordinal()].sum())
+            .rejected(rejected[budget.ordinal()].sum())
+            .build())
+        .collect(Collectors.toList());
+    List<RateLimitClientStats> topRejected = rejectionsByClient.entrySet().stream()
+        .map(entry -> RateLimitClientStats.builder()
+            .client(entry.getKey())
+            .rejected(entry.getValue().sum())
+            .build())
+        .sorted(Comparator.comparingLong(RateLimitClientStats::getRejected).reversed())
+        .limit(TOP)
+        .collect(Collectors.toList());
+    return RateLimitStats.builder()
+        .enabled(enabled)
+        .clients(buckets.size())
+        .budgets(budgets)
+        .topRejected(topRejected)
+        .build();
+  }
+}
@@ -0,0 +1,272 @@
+package edu.ucsb.cs156.example.services;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import edu.ucsb.cs156.example.models.ReplicaRoutingStats;
+import edu.ucsb.cs156.example.models.ReplicaStats;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Sends read-only transactions to read replicas.
+ *
+ * {@link #route(DataSource)} (applied by ConnectionPoolConfig) wraps the
+ * primary DataSource when <code>app.datasource.replicas</code> lists replica
+ * JDBC URLs.  Connections are fetched lazily, at the first statement, by
+ * which time Spring has marked the transaction read-only or not:
+ * Spring Data's <code>find*</code> methods run read-only and go to the
+ * replicas in turn; everything else, including statements outside a
+ * transaction such as Flyway's, goes to the primary.
+ *
+ * After a user's read-write transaction commits, that user's reads stay
+ * on the primary for <code>app.datasource.replicaStickyMillis</code>, so
+ * they see their own writes while the replicas catch up.  A replica that
+ * cannot hand out a connection is skipped for
+ * <code>app.datasource.replicaRetryMillis</code> and its reads go to the
+ * next replica, or to the primary if none is left.
+ */
+@Slf4j
+@Service("readReplicaRouter")
+public class ReadReplicaRouter implements DisposableBean {
+  /** Users whose stickiness has expired are forgotten once this many are tracked. */
+  static final int MAX_STICKY_USERS = 10_000;
+
+  @Value("${app.datasource.replicas:}")
+  List<String> replicaUrls = List.of();
+
+  @Value("${app.datasource.replicaUsername:${spring.datasource.username:}}")
+  String replicaUsername;
+
+  @Value("${app.datasource.replicaPassword:${spring.datasource.password:}}")
+  String replicaPassword;
+
+  @Value("${app.datasource.replicaPoolSize:10}")
+  int replicaPoolSize;
+
+  @Value("${app.datasource.replicaConnectionTimeoutMillis:1000}")
+  long replicaConnectionTimeoutMillis;
+
+  @Value("${app.datasource.replicaStickyMillis:5000}")
+  long stickyMillis;
+
+  @Value("${app.datasource.replicaRetryMillis:30000}")
+  long retryMillis;
+
+  private final List<Replica> replicas = new ArrayList<>();
+  private final AtomicInteger next = new AtomicInteger();
+  private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+
+  private final LongAdder primaryConnections = new LongAdder();
+  private final LongAdder stickyReads = new LongAdder();
+  private final LongAdder fallbacks = new LongAdder();
+
+  private static class Replica {
+    final String name;
+    final DataSource dataSource;
+    final LongAdder connections = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    volatile long downUntil;
+
+    Replica(String name, DataSource dataSource) {
+      this.name = name;
+      this.dataSource = dataSource;
+    }
+
+    boolean available() {
+      return downUntil == 0 || System.nanoTime() - downUntil >= 0;
+    }
+  }
+
+  /**
+   * Wraps <code>primary</code> so that read-only transactions use the
+   * configured replicas; returns it unchanged if there are none.
+   */
+  public DataSource route(DataSource primary) {
+    Map<String, DataSource> pools = new LinkedHashMap<>();
+    for (String url : replicaUrls) {
+      if (!url.isBlank()) {
+        pools.put(withoutParameters(url.trim()), pool(url.trim(), pools.size() + 1));
+      }
+    }
+    return route(primary, pools);
+  }
+
+  /** Like {@link #route(DataSource)}, with the replicas' DataSources given by name. */
+  DataSource route(DataSource primary, Map<String, DataSource> replicaDataSources) {
+    if (replicaDataSources.isEmpty()) {
+      return primary;
+    }
+    replicaDataSources.forEach((name, dataSource) -> replicas.add(new Replica(name, dataSource)));
+    log.info("Read-only transactions are routed to {}", replicaDataSources.keySet());
+
+    return new LazyConnectionDataSourceProxy(new AbstractDataSource() {
+      @Override
+      public Connection getConnection() throws SQLException {
+        return connection(primary);
+      }
+
+      @Override
+      public Connection getConnection(String username, String password) throws SQLException {
+        return primary.getConnection(username, password);
+      }
+
+      @Override
+      public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? (T) this : primary.unwrap(iface);
+      }
+    });
+  }
+
+  private Connection connection(DataSource primary) throws SQLException {
+    if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+      recordWrite();
+      primaryConnections.increment();
+      return primary.getConnection();
+    }
+
+    String user = currentUser();
+    Long lastWrite = user == null ? null : lastWriteByUser.get(user);
+    if (lastWrite != null && System.nanoTime() - lastWrite < TimeUnit.MILLISECONDS.toNanos(stickyMillis)) {
+      stickyReads.increment();
+      primaryConnections.increment();
+      return primary.getConnection();
+    }
+
+    int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+    for (int i = 0; i < replicas.size(); i++) {
+      Replica replica = replicas.get((start + i) % replicas.size());
+      if (!replica.available()) {
+        continue;
+      }
+      try {
+        Connection connection = replica.dataSource.getConnection();
+        replica.connections.increment();
+        return connection;
+      } catch (SQLException e) {
+        replica.failures.increment();
+        replica.downUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryMillis);
+        log.warn("Read replica {} is unavailable; skipping it for {} ms: {}", replica.name, retryMillis,
+            e.getMessage());
+      }
+    }
+
+    fallbacks.increment();
+    primaryConnections.increment();
+    return primary.getConnection();
+  }
+
+  /**
+   * Makes the current user's reads sticky once the current transaction
+   * commits; read-write transactions are the ones that may write.
+   */
+  private void recordWrite() {
+    String user = currentUser();
+    if (user == null || !TransactionSynchronizationManager.isActualTransactionActive()) {
+      return;
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          markWrite(user);
+        }
+      });
+    } else {
+      markWrite(user);
+    }
+  }
+
+  void markWrite(String user) {
+    if (lastWriteByUser.size() >= MAX_STICKY_USERS) {
+      long now = System.nanoTime();
+      long sticky = TimeUnit.MILLISECONDS.toNanos(stickyMillis);
+      lastWriteByUser.values().removeIf(lastWrite -> now - lastWrite >= sticky);
+    }
+    lastWriteByUser.put(user, System.nanoTime());
+  }
+
+  private static String currentUser() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    return authentication == null || !authentication.isAuthenticated() ? null : authentication.getName();
+  }
+
+  private DataSource pool(String url, int number) {
+    HikariConfig config = new HikariConfig();
+    config.setPoolName("replica-" + number);
+    config.setJdbcUrl(url);
+    config.setUsername(replicaUsername);
+    config.setPassword(replicaPassword);
+    config.setMaximumPoolSize(replicaPoolSize);
+    config.setConnectionTimeout(replicaConnectionTimeoutMillis);
+    config.setReadOnly(true);
+    // start even if a replica is down; it is retried when reads need it
+    config.setInitializationFailTimeout(-1);
+    return new HikariDataSource(config);
+  }
+
+  /** The URL without its query string, which may hold credentials. */
+  private static String withoutParameters(String url) {
+    int query = url.indexOf('?');
+    return query < 0 ? url : url.substring(0, query);
+  }
+
+  public ReplicaRoutingStats getStats() {
+    List<ReplicaStats> replicaStats = replicas.stream()
+        .map(replica -> ReplicaStats.builder()
+            .name(replica.name)
+            .available(replica.available())
+            .connections(replica.connections.sum())
+            .failures(replica.failures.sum())
+            .build())
+        .collect(Collectors.toList());
+    return ReplicaRoutingStats.builder()
+        .primaryConnections(primaryConnections.sum())
+        .replicaConnections(replicaStats.stream().mapToLong(ReplicaStats::getConnections).sum())
+        .stickyReads(stickyReads.sum())
+        .fallbacks(fallbacks.sum())
+        .stickyMillis(stickyMillis)
+        .replicas(replicaStats)
+        .build();
+  }
+
+  @Override
+  public void destroy() throws IOException {
+    for (Replica replica : replicas) {
+      if (replica.dataSource instanceof Closeable closeable) {
+        closeable.close();
+      }
+    }
+  }
+}
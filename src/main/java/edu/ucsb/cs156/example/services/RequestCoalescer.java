@@ -0,0 +1,178 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.CoalescingStats;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import javax.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Single-flight for hot GET endpoints: identical requests that arrive while
+ * one is being answered wait for that answer instead of running their own
+ * query.
+ *
+ * Requests are identical when they have the same path, parameters, roles
+ * (the authorization scope), negotiated wire format and gzip support, so
+ * only endpoints whose response depends on nothing else may use it.  The
+ * first request's loader runs once and its result is serialized once; every
+ * request in the flight gets the same bytes.  Nothing is kept once the
+ * flight lands, so unlike {@link ResponseCache} a later request always sees
+ * fresh data.
+ *
+ * A flight that takes longer than <code>app.coalescing.timeoutMillis</code>
+ * fails every request waiting on it with a TimeoutException, which
+ * ApiController turns into a 503, and the next request starts a new one.
+ * Write handlers call {@link #invalidate(String)} so that requests after a
+ * write do not join a flight that started before it.
+ */
+@Service("requestCoalescer")
+public class RequestCoalescer {
+
+  @Autowired
+  HttpMessageConverters httpMessageConverters;
+
+  @Value("${app.coalescing.timeoutMillis:5000}")
+  long timeoutMillis;
+
+  private final Map<String, CompletableFuture<ResponseEntity<byte[]>>> flights = new ConcurrentHashMap<>();
+
+  private final LongAdder flightsStarted = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+  private final LongAdder timeouts = new LongAdder();
+
+  /**
+   * Answers <code>request</code> with the serialized result of
+   * <code>loader</code>, or with that of an identical request already in
+   * flight.
+   */
+  public CompletableFuture<ResponseEntity<byte[]>> get(HttpServletRequest request,
+      Supplier<? extends CompletableFuture<?>> loader) {
+    boolean gzip = ResponseCache.acceptsGzip(request);
+    AbstractJackson2HttpMessageConverter converter = ResponseCache.negotiate(httpMessageConverters, request);
+    MediaType mediaType = converter.getSupportedMediaTypes().get(0);
+    String key = key(request, mediaType, gzip);
+
+    CompletableFuture<ResponseEntity<byte[]>> flight = new CompletableFuture<>();
+    CompletableFuture<ResponseEntity<byte[]>> existing = flights.putIfAbsent(key, flight);
+    if (existing != null) {
+      coalesced.increment();
+      // a copy, so that nothing a waiter does can complete the shared flight
+      return existing.copy();
+    }
+    flightsStarted.increment();
+
+    CompletableFuture<?> loading;
+    try {
+      loading = loader.get();
+    } catch (RuntimeException e) {
+      loading = CompletableFuture.failedFuture(e);
+    }
+    loading
+        .thenApply(value -> response(converter, mediaType, gzip, value))
+        .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+        .whenComplete((response, e) -> {
+          flights.remove(key, flight);
+          if (e == null) {
+            flight.complete(response);
+            return;
+          }
+          Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+          if (cause instanceof TimeoutException) {
+            timeouts.increment();
+          }
+          flight.completeExceptionally(cause);
+        });
+    return flight.copy();
+  }
+
+  /** Lets requests for <code>path</code> start new flights rather than join ones already under way. */
+  public void invalidate(String path) {
+    String prefix = path + " ";
+    flights.keySet().removeIf(key -> key.startsWith(prefix));
+  }
+
+  private static ResponseEntity<byte[]> response(AbstractJackson2HttpMessageConverter converter,
+      MediaType mediaType, boolean gzip, Object value) {
+    try {
+      byte[] body = converter.getObjectMapper().writeValueAsBytes(value);
+      ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+          .contentType(mediaType)
+          .header(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+      if (gzip) {
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(ResponseCache.gzip(body));
+      }
+      return response.body(body);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static String key(HttpServletRequest request, MediaType mediaType, boolean gzip) {
+    StringBuilder key = new StringBuilder(request.getRequestURI()).append(' ');
+    new TreeMap<>(request.getParameterMap()).forEach((name, values) -> {
+      for (String value : values) {
+        key.append(encode(name)).append('=').append(encode(value)).append('&');
+      }
+    });
+    return key.append(' ').append(scope())
+        .append(' ').append(mediaType)
+        .append(gzip ? " gzip" : "")
+        .toString();
+  }
+
+  private static String scope() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (authentication == null) {
+      return "";
+    }
+    return authentication.getAuthorities().stream()
+        .map(GrantedAuthority::getAuthority)
+        .sorted()
+        .distinct()
+        .collect(Collectors.joining(","));
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+
+  public CoalescingStats getStats() {
+    long started = flightsStarted.sum();
+    long joined = coalesced.sum();
+    long requests = started + joined;
+    return CoalescingStats.builder()
+        .requests(requests)
+        .flights(started)
+        .coalesced(joined)
+        .timeouts(timeouts.sum())
+        .inFlight(flights.size())
+        .coalescingRatio(requests == 0 ? 0.0 : (double) joined / requests)
+        .timeoutMillis(timeoutMillis)
+        .build();
+  }
+}
@@ -0,0 +1,313 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.models.ResponseCacheStats;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.stereotype.Service;
+
+import javax.servlet.http.HttpServletRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cache of fully serialized JSON responses for hot listing endpoints.
+ *
+ * Each endpoint keeps one entry per wire format (JSON, CBOR, Smile; picked
+ * from the <code>Accept</code> header the same way Spring MVC would) holding
+ * the response body and its gzip variant in direct (off-heap) buffers, so a
+ * hit is written from the buffer (see
+ * {@link edu.ucsb.cs156.example.config.ByteBufferHttpMessageConverter})
+ * rather than costing a database query and a fresh Jackson serialization.  Callers load on the {@link JdbcExecutor} and return the
+ * future, so a miss does not hold a request thread either.  Entries are evicted least-recently-used first once
+ * the total size exceeds <code>app.responseCache.maxBytes</code>.
+ *
+ * Write handlers call {@link #invalidate(String)}, which bumps the
+ * endpoint's version; an entry built from data read under an older version
+ * is never served, so a listing that races with a write cannot be cached
+ * stale.
+ */
+@Slf4j
+@Service("responseCache")
+public class ResponseCache {
+
+  @Autowired
+  HttpMessageConverters httpMessageConverters;
+
+  @Value("${app.responseCache.maxBytes:33554432}")
+  private long maxBytes;
+
+  // keyed by endpoint and media type; access-ordered, so iteration starts at
+  // the least recently used entry; guarded by this
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long usedBytes = 0;
+
+  private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  private static class Entry {
+    final String endpoint;
+    final long version;
+    final ByteBuffer identity;
+    final ByteBuffer gzipped;
+
+    Entry(String endpoint, long version, ByteBuffer identity, ByteBuffer gzipped) {
+      this.endpoint = endpoint;
+      this.version = version;
+      this.identity = identity;
+      this.gzipped = gzipped;
+    }
+
+    long size() {
+      return identity.capacity() + gzipped.capacity();
+    }
+  }
+
+  /**
+   * Answers <code>request</code> with <code>endpoint</code>'s response in
+   * the format it accepts, starting <code>loader</code> and serializing its
+   * result only on a cache miss.
+   */
+  public CompletableFuture<ResponseEntity<ByteBuffer>> get(String endpoint, HttpServletRequest request,
+      Supplier<? extends CompletableFuture<?>> loader) {
+    return get(endpoint, "", request, loader);
+  }
+
+  /**
+   * Like {@link #get(String, HttpServletRequest, Supplier)} for one variant
+   * of an endpoint, such as a sparse fieldset.  Variants are cached
+   * separately but invalidated together with their endpoint.
+   */
+  public CompletableFuture<ResponseEntity<ByteBuffer>> get(String endpoint, String variant, HttpServletRequest request,
+      Supplier<? extends CompletableFuture<?>> loader) {
+    boolean gzip = acceptsGzip(request);
+    AbstractJackson2HttpMessageConverter converter = negotiate(request);
+    MediaType mediaType = converter.getSupportedMediaTypes().get(0);
+    String key = endpoint + " " + variant + " " + mediaType;
+
+    Entry entry = lookup(key);
+    if (entry != null) {
+      hits.increment();
+      return CompletableFuture.completedFuture(response(mediaType, gzip, gzip ? entry.gzipped : entry.identity));
+    }
+
+    misses.increment();
+    // read the version before loading, so a concurrent write makes this entry stale
+    long version = currentVersion(endpoint);
+    return loader.get().thenApply(value -> {
+      try {
+        byte[] body = converter.getObjectMapper().writeValueAsBytes(value);
+        byte[] gzipped = gzip(body);
+        store(key, new Entry(endpoint, version, toDirectBuffer(body), toDirectBuffer(gzipped)));
+        return response(mediaType, gzip, ByteBuffer.wrap(gzip ? gzipped : body).asReadOnlyBuffer());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  public void invalidate(String endpoint) {
+    versions.computeIfAbsent(endpoint, key -> new AtomicLong()).incrementAndGet();
+    synchronized (this) {
+      Iterator<Entry> iterator = entries.values().iterator();
+      while (iterator.hasNext()) {
+        Entry entry = iterator.next();
+        if (entry.endpoint.equals(endpoint)) {
+          iterator.remove();
+          usedBytes -= entry.size();
+        }
+      }
+    }
+  }
+
+  public void invalidateAll() {
+    versions.keySet().forEach(this::invalidate);
+    synchronized (this) {
+      entries.clear();
+      usedBytes = 0;
+    }
+  }
+
+  public synchronized ResponseCacheStats getStats() {
+    long hitCount = hits.sum();
+    long missCount = misses.sum();
+    long requests = hitCount + missCount;
+    return ResponseCacheStats.builder()
+        .entries(entries.size())
+        .usedBytes(usedBytes)
+        .maxBytes(maxBytes)
+        .hits(hitCount)
+        .misses(missCount)
+        .evictions(evictions.sum())
+        .hitRatio(requests == 0 ? 0.0 : (double) hitCount / requests)
+        .build();
+  }
+
+  private long currentVersion(String endpoint) {
+    return versions.computeIfAbsent(endpoint, key -> new AtomicLong()).get();
+  }
+
+  private synchronized Entry lookup(String key) {
+    Entry entry = entries.get(key);
+    if (entry != null && entry.version != currentVersion(entry.endpoint)) {
+      entries.remove(key);
+      usedBytes -= entry.size();
+      return null;
+    }
+    return entry;
+  }
+
+  private synchronized void store(String key, Entry entry) {
+    if (entry.version != currentVersion(entry.endpoint) || entry.size() > maxBytes) {
+      return;
+    }
+    Entry previous = entries.put(key, entry);
+    if (previous != null) {
+      usedBytes -= previous.size();
+    }
+    usedBytes += entry.size();
+
+    Iterator<Entry> leastRecentlyUsed = entries.values().iterator();
+    while (usedBytes > maxBytes && leastRecentlyUsed.hasNext()) {
+      Entry victim = leastRecentlyUsed.next();
+      if (victim != entry) {
+        leastRecentlyUsed.remove();
+        usedBytes -= victim.size();
+        evictions.increment();
+      }
+    }
+  }
+
+  /**
+   * Picks the first Jackson converter that can write the most preferred
+   * acceptable media type, falling back to JSON when nothing matches.
+   */
+  private AbstractJackson2HttpMessageConverter negotiate(HttpServletRequest request) {
+    return negotiate(httpMessageConverters, request);
+  }
+
+  static AbstractJackson2HttpMessageConverter negotiate(HttpMessageConverters httpMessageConverters,
+      HttpServletRequest request) {
+    List<AbstractJackson2HttpMessageConverter> converters = new ArrayList<>();
+    for (Object converter : httpMessageConverters.getConverters()) {
+      if (converter instanceof AbstractJackson2HttpMessageConverter) {
+        converters.add((AbstractJackson2HttpMessageConverter) converter);
+      }
+    }
+
+    AbstractJackson2HttpMessageConverter json = converters.stream()
+        .filter(converter -> converter.canWrite(List.class, MediaType.APPLICATION_JSON))
+        .findFirst()
+        .orElseThrow(() -> new IllegalStateException("No JSON message converter is registered"));
+
+    List<MediaType> accepted;
+    try {
+      accepted = MediaType.parseMediaTypes(request.getHeader(HttpHeaders.ACCEPT));
+    } catch (InvalidMediaTypeException e) {
+      return json;
+    }
+    MediaType.sortBySpecificityAndQuality(accepted);
+
+    for (MediaType mediaType : accepted) {
+      if (mediaType.isWildcardType() || json.canWrite(List.class, mediaType)) {
+        return json;
+      }
+      for (AbstractJackson2HttpMessageConverter converter : converters) {
+        if (converter.canWrite(List.class, mediaType)) {
+          return converter;
+        }
+      }
+    }
+    return json;
+  }
+
+  /**
+   * Whether <code>Accept-Encoding</code> allows gzip: listed by name, or
+   * covered by <code>*</code> when not named, with a q-value above zero.
+   */
+  static boolean acceptsGzip(HttpServletRequest request) {
+    String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    if (acceptEncoding == null) {
+      return false;
+    }
+    Double gzip = null;
+    Double wildcard = null;
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim();
+      if (name.equalsIgnoreCase("gzip")) {
+        gzip = quality(parts);
+      } else if (name.equals("*")) {
+        wildcard = quality(parts);
+      }
+    }
+    if (gzip != null) {
+      return gzip > 0;
+    }
+    return wildcard != null && wildcard > 0;
+  }
+
+  private static double quality(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim();
+      if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+        try {
+          return Double.parseDouble(parameter.substring(2).trim());
+        } catch (NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  private static ResponseEntity<ByteBuffer> response(MediaType mediaType, boolean gzip, ByteBuffer body) {
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+        .contentType(mediaType)
+        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+    if (gzip) {
+      response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    // duplicate() gives this response its own position over the shared bytes
+    return response.body(body.duplicate());
+  }
+
+  private static ByteBuffer toDirectBuffer(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+    buffer.put(bytes);
+    buffer.flip();
+    return buffer.asReadOnlyBuffer();
+  }
+
+  static byte[] gzip(byte[] bytes) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+      gzip.write(bytes);
+    }
+    return out.toByteArray();
+  }
+}
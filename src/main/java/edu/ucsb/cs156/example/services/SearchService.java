@@ -0,0 +1,298 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.errors.InvalidRequestException;
+import edu.ucsb.cs156.example.models.SearchHit;
+import edu.ucsb.cs156.example.models.SearchResult;
+import edu.ucsb.cs156.example.models.SearchSourceStats;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Searches articles, organizations, menu items, dining commons and dates
+ * for one string.
+ *
+ * Each kind of row is one source, queried in parallel on the
+ * {@link JdbcExecutor} for at most <code>app.search.candidatesPerSource</code>
+ * rows containing the query, case-insensitively; the database returns exact
+ * matches first, then prefix matches, then the shortest titles, so a full
+ * page of candidates holds the best ones.  Candidates are scored
+ * by where the query appears in them, a match in a title counting double
+ * one in a description, and the best <code>limit</code> of all sources are
+ * kept in a heap of that size.  Sources that have not answered
+ * <code>app.search.deadlineMillis</code> after the search started are
+ * dropped and reported as timed out, as are ones that fail; the
+ * response lists every source's status and latency.  Each query also runs
+ * with a JDBC query timeout of the time left to the deadline, rounded up to
+ * the whole seconds JDBC counts in, so a dropped source's query is
+ * cancelled and gives back its connection rather than running to the end.
+ */
+@Slf4j
+@Service("searchService")
+public class SearchService {
+  public static final String ARTICLES = "articles";
+  public static final String ORGANIZATIONS = "organizations";
+  public static final String MENU_ITEMS = "menuItems";
+  public static final String DINING_COMMONS = "diningCommons";
+  public static final String DATES = "dates";
+
+  static final String QUERY_TIMEOUT = "javax.persistence.query.timeout";
+
+  /** Weight of a match in a description, relative to one in a title. */
+  static final double DESCRIPTION_WEIGHT = 0.5;
+
+  /** Best first; ties go to the shorter, then alphabetically first, title. */
+  static final Comparator<SearchHit> RANKING = Comparator.comparingDouble(SearchHit::getScore).reversed()
+      .thenComparing(hit -> hit.getTitle() == null ? Integer.MAX_VALUE : hit.getTitle().length())
+      .thenComparing(SearchHit::getTitle, Comparator.nullsLast(Comparator.naturalOrder()))
+      .thenComparing(SearchHit::getType)
+      .thenComparing(SearchHit::getId);
+
+  @Value("${app.search.deadlineMillis:1000}")
+  long deadlineMillis;
+
+  @Value("${app.search.candidatesPerSource:50}")
+  int candidatesPerSource;
+
+  @Value("${app.search.maxResults:50}")
+  int maxResults;
+
+  @Value("${app.search.minQueryLength:2}")
+  int minQueryLength;
+
+  @Autowired
+  ArticleRepository articleRepository;
+
+  @Autowired
+  UCSBOrganizationsRepository ucsbOrganizationsRepository;
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @Autowired
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired
+  UCSBDateRepository ucsbDateRepository;
+
+  @Autowired
+  JdbcExecutor jdbcExecutor;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @Autowired
+  EntityManager entityManager;
+
+  /** A source's matches and how it fared. */
+  private record Outcome(List<SearchHit> hits, SearchSourceStats stats) {
+  }
+
+  /**
+   * Finds the <code>limit</code> rows that best match <code>q</code>.
+   *
+   * @throws InvalidRequestException if <code>q</code> is shorter than
+   *         <code>app.search.minQueryLength</code> or <code>limit</code> is not
+   *         between 1 and <code>app.search.maxResults</code>
+   */
+  public CompletableFuture<SearchResult> search(String q, int limit) {
+    String query = q == null ? "" : q.strip();
+    if (query.length() < minQueryLength) {
+      throw new InvalidRequestException("search for at least %d characters".formatted(minQueryLength));
+    }
+    if (limit < 1 || limit > maxResults) {
+      throw new InvalidRequestException("limit must be between 1 and %d".formatted(maxResults));
+    }
+    String needle = query.toLowerCase(Locale.ROOT);
+    Pageable candidates = PageRequest.of(0, candidatesPerSource);
+    long start = System.nanoTime();
+    long deadline = start + TimeUnit.MILLISECONDS.toNanos(deadlineMillis);
+
+    Map<String, CompletableFuture<Outcome>> sources = new LinkedHashMap<>();
+    sources.put(ARTICLES, source(ARTICLES, start, deadline, () -> articleRepository
+        .findSearchCandidates(needle, candidates).stream()
+        .map(article -> hit(ARTICLES, Long.toString(article.getId()), article.getTitle(), article.getUrl(),
+            score(needle, article.getTitle()), score(needle, article.getExplanation())))
+        .collect(Collectors.toList())));
+    sources.put(ORGANIZATIONS, source(ORGANIZATIONS, start, deadline, () -> ucsbOrganizationsRepository
+        .findSearchCandidates(needle, candidates).stream()
+        .map(organization -> hit(ORGANIZATIONS, organization.getOrgCode(), organization.getOrgTranslationShort(),
+            organization.getOrgTranslation(),
+            score(needle, organization.getOrgCode(), organization.getOrgTranslationShort()),
+            score(needle, organization.getOrgTranslation())))
+        .collect(Collectors.toList())));
+    sources.put(MENU_ITEMS, source(MENU_ITEMS, start, deadline, () -> ucsbDiningCommonsMenuItemRepository
+        .findSearchCandidates(needle, candidates).stream()
+        .map(menuItem -> hit(MENU_ITEMS, Long.toString(menuItem.getId()), menuItem.getName(),
+            menuItem.getStation() + " at " + menuItem.getDiningCommonsCode(),
+            score(needle, menuItem.getName()), score(needle, menuItem.getStation())))
+        .collect(Collectors.toList())));
+    sources.put(DINING_COMMONS, source(DINING_COMMONS, start, deadline, () -> ucsbDiningCommonsRepository
+        .findSearchCandidates(needle, candidates).stream()
+        .map(diningCommons -> hit(DINING_COMMONS, diningCommons.getCode(), diningCommons.getName(),
+            diningCommons.getCode(), score(needle, diningCommons.getCode(), diningCommons.getName()), 0))
+        .collect(Collectors.toList())));
+    sources.put(DATES, source(DATES, start, deadline, () -> ucsbDateRepository
+        .findSearchCandidates(needle, candidates).stream()
+        .map(date -> hit(DATES, Long.toString(date.getId()), date.getName(),
+            date.getQuarterYYYYQ() + " " + date.getLocalDateTime(),
+            score(needle, date.getName()), score(needle, date.getQuarterYYYYQ())))
+        .collect(Collectors.toList())));
+
+    return CompletableFuture.allOf(sources.values().toArray(CompletableFuture[]::new)).thenApply(done -> {
+      Map<String, SearchSourceStats> stats = new LinkedHashMap<>();
+      List<List<SearchHit>> hits = new ArrayList<>();
+      sources.forEach((type, outcome) -> {
+        stats.put(type, outcome.join().stats());
+        hits.add(outcome.join().hits());
+      });
+      return SearchResult.builder()
+          .query(query)
+          .hits(top(hits, limit))
+          .sources(stats)
+          .build();
+    });
+  }
+
+  /**
+   * Starts one source's query.  The future always completes normally, with
+   * no hits if the query failed, missed the deadline or could not be queued.
+   */
+  private CompletableFuture<Outcome> source(String type, long start, long deadline, Supplier<List<SearchHit>> query) {
+    CompletableFuture<List<SearchHit>> hits;
+    try {
+      hits = jdbcExecutor.supply(() -> withQueryTimeout(deadline, query));
+    } catch (RejectedExecutionException e) {
+      log.warn("Search of {} was not queued: the JDBC executor is full", type);
+      return CompletableFuture.completedFuture(new Outcome(List.of(), stats(SearchSourceStats.REJECTED, start, 0)));
+    }
+    return hits.orTimeout(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS).handle((found, e) -> {
+      if (e == null) {
+        return new Outcome(found, stats(SearchSourceStats.OK, start, found.size()));
+      }
+      Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+      if (cause instanceof TimeoutException) {
+        log.warn("Search of {} missed the {} ms deadline", type, deadlineMillis);
+        return new Outcome(List.of(), stats(SearchSourceStats.TIMEOUT, start, 0));
+      }
+      log.error("Search of {} failed", type, cause);
+      return new Outcome(List.of(), stats(SearchSourceStats.ERROR, start, 0));
+    });
+  }
+
+  /**
+   * Runs <code>query</code> in a read-only transaction whose queries time
+   * out at <code>deadline</code>.  The timeout is set on the transaction's
+   * EntityManager, which Hibernate copies into every query it creates.
+   */
+  private <T> T withQueryTimeout(long deadline, Supplier<T> query) {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setReadOnly(true);
+    return transaction.execute(status -> {
+      entityManager.setProperty(QUERY_TIMEOUT, queryTimeoutMillis(deadline - System.nanoTime()));
+      return query.get();
+    });
+  }
+
+  /** <code>remainingNanos</code> rounded up to whole seconds, and at least one. */
+  static int queryTimeoutMillis(long remainingNanos) {
+    long seconds = Math.max(1, (remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+    return (int) TimeUnit.SECONDS.toMillis(seconds);
+  }
+
+  private static SearchSourceStats stats(String status, long start, int matches) {
+    return SearchSourceStats.builder()
+        .status(status)
+        .latencyMillis((System.nanoTime() - start) / 1e6)
+        .matches(matches)
+        .build();
+  }
+
+  private static SearchHit hit(String type, String id, String title, String description, double titleScore,
+      double descriptionScore) {
+    return SearchHit.builder()
+        .type(type)
+        .id(id)
+        .title(title)
+        .description(description)
+        .score(Math.max(titleScore, DESCRIPTION_WEIGHT * descriptionScore))
+        .build();
+  }
+
+  /**
+   * How well the lower case <code>needle</code> matches the best of
+   * <code>texts</code>: 1.0 if one is exactly it, 0.8 if one starts with
+   * it, 0.6 if a word in one starts with it, 0.4 if one merely contains it
+   * and 0 otherwise.
+   */
+  static double score(String needle, String... texts) {
+    double best = 0;
+    for (String text : texts) {
+      if (text == null) {
+        continue;
+      }
+      String haystack = text.toLowerCase(Locale.ROOT);
+      if (haystack.equals(needle)) {
+        return 1.0;
+      }
+      if (haystack.startsWith(needle)) {
+        best = Math.max(best, 0.8);
+        continue;
+      }
+      for (int at = haystack.indexOf(needle); at > 0; at = haystack.indexOf(needle, at + 1)) {
+        best = Math.max(best, Character.isLetterOrDigit(haystack.charAt(at - 1)) ? 0.4 : 0.6);
+      }
+    }
+    return best;
+  }
+
+  /**
+   * The best <code>limit</code> of <code>hits</code>, best first, keeping
+   * no more than <code>limit</code> of them at a time.
+   */
+  static List<SearchHit> top(List<List<SearchHit>> hits, int limit) {
+    PriorityQueue<SearchHit> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+    for (List<SearchHit> sourceHits : hits) {
+      for (SearchHit hit : sourceHits) {
+        if (hit.getScore() <= 0) {
+          continue;
+        }
+        best.offer(hit);
+        if (best.size() > limit) {
+          best.poll();
+        }
+      }
+    }
+    List<SearchHit> top = new ArrayList<>(best);
+    top.sort(RANKING);
+    return top;
+  }
+}
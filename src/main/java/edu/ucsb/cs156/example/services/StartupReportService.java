@@ -0,0 +1,123 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.ExampleApplication;
+import edu.ucsb.cs156.example.models.StartupReport;
+import edu.ucsb.cs156.example.models.StartupStepTiming;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline.TimelineEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Turns the startup timeline recorded by {@link ExampleApplication} into a
+ * {@link StartupReport}.  The timeline is only recorded when the
+ * application is launched through its <code>main</code> method; in tests
+ * the report is empty.
+ */
+@Slf4j
+@Service("startupReport")
+public class StartupReportService {
+
+  static final String BEAN_INSTANTIATION = "spring.beans.instantiate";
+
+  /** Number of bean instantiations listed in the report. */
+  static final int SLOWEST_BEANS = 25;
+
+  @Autowired
+  ApplicationStartup applicationStartup;
+
+  private volatile Long readyAt;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void applicationReady(ApplicationReadyEvent event) {
+    readyAt = event.getTimestamp();
+    StartupReport report = getReport();
+    log.info("Application ready {} ms after JVM start ({} ms after context start)",
+        report.getJvmToReadyMillis(), report.getContextToReadyMillis());
+  }
+
+  public StartupReport getReport() {
+    if (!(applicationStartup instanceof BufferingApplicationStartup)) {
+      return StartupReport.builder()
+          .jvmToReadyMillis(jvmToReadyMillis())
+          .phases(List.of())
+          .slowestBeans(List.of())
+          .complete(false)
+          .build();
+    }
+
+    StartupTimeline timeline = ((BufferingApplicationStartup) applicationStartup).getBufferedTimeline();
+    List<TimelineEvent> events = timeline.getEvents();
+
+    // nested steps point at their parent, so a step's own time is its duration minus its children's
+    Map<Long, Long> childMillis = new HashMap<>();
+    for (TimelineEvent event : events) {
+      Long parentId = event.getStartupStep().getParentId();
+      if (parentId != null) {
+        childMillis.merge(parentId, event.getDuration().toMillis(), Long::sum);
+      }
+    }
+
+    List<StartupStepTiming> phases = new ArrayList<>();
+    List<StartupStepTiming> beans = new ArrayList<>();
+    for (TimelineEvent event : events) {
+      StartupStep step = event.getStartupStep();
+      long durationMillis = event.getDuration().toMillis();
+      StartupStepTiming timing = StartupStepTiming.builder()
+          .name(step.getName())
+          .tags(tags(step))
+          .durationMillis(durationMillis)
+          .selfMillis(Math.max(0, durationMillis - childMillis.getOrDefault(step.getId(), 0L)))
+          .build();
+      if (BEAN_INSTANTIATION.equals(step.getName())) {
+        beans.add(timing);
+      } else {
+        phases.add(timing);
+      }
+    }
+
+    List<StartupStepTiming> slowestBeans = beans.stream()
+        .sorted(Comparator.comparingLong(StartupStepTiming::getSelfMillis).reversed())
+        .limit(SLOWEST_BEANS)
+        .collect(Collectors.toList());
+
+    return StartupReport.builder()
+        .jvmToReadyMillis(jvmToReadyMillis())
+        .contextToReadyMillis(readyAt == null ? null : readyAt - timeline.getStartTime().toEpochMilli())
+        .phases(phases)
+        .slowestBeans(slowestBeans)
+        .complete(events.size() < ExampleApplication.STARTUP_TIMELINE_CAPACITY)
+        .build();
+  }
+
+  private Long jvmToReadyMillis() {
+    if (readyAt == null) {
+      return null;
+    }
+    return readyAt - ManagementFactory.getRuntimeMXBean().getStartTime();
+  }
+
+  private static Map<String, String> tags(StartupStep step) {
+    Map<String, String> tags = new LinkedHashMap<>();
+    for (StartupStep.Tag tag : step.getTags()) {
+      tags.put(tag.getKey(), tag.getValue());
+    }
+    return tags;
+  }
+}
@@ -0,0 +1,51 @@
+CREATE TABLE articles (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  title VARCHAR(255),
+  url VARCHAR(255),
+  explanation VARCHAR(255),
+  email VARCHAR(255),
+  date_added TIMESTAMP
+);
+
+CREATE TABLE helprequest (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  requester_email VARCHAR(255),
+  team_id VARCHAR(255),
+  table_or_breakout_room VARCHAR(255),
+  request_time TIMESTAMP,
+  explanation VARCHAR(255),
+  solved BOOLEAN NOT NULL
+);
+
+CREATE TABLE menuitemreview (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  item_id BIGINT,
+  reviewer_email VARCHAR(255),
+  stars INTEGER NOT NULL,
+  date_reviewed TIMESTAMP,
+  comments VARCHAR(255)
+);
+
+CREATE TABLE recommendations (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  requester_email VARCHAR(255),
+  professor_email VARCHAR(255),
+  explanation VARCHAR(255),
+  date_requested TIMESTAMP,
+  date_needed TIMESTAMP,
+  done BOOLEAN NOT NULL
+);
+
+CREATE TABLE ucsbdiningcommonsmenuitem (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  dining_commons_code VARCHAR(255),
+  name VARCHAR(255),
+  station VARCHAR(255)
+);
+
+CREATE TABLE ucsborganizations (
+  org_code VARCHAR(255) NOT NULL PRIMARY KEY,
+  org_translation_short VARCHAR(255),
+  org_translation VARCHAR(255),
+  inactive BOOLEAN NOT NULL
+);
@@ -0,0 +1,32 @@
+-- Databases that ran with ddl-auto=update before migrations were applied
+-- already have the sequence, columns and tombstones table, so every
+-- statement here tolerates existing objects.
+
+CREATE SEQUENCE IF NOT EXISTS change_seq START WITH 1 INCREMENT BY 1;
+
+ALTER TABLE articles ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+ALTER TABLE helprequest ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+ALTER TABLE menuitemreview ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+ALTER TABLE recommendations ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+ALTER TABLE ucsbdates ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+ALTER TABLE ucsbdiningcommons ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+ALTER TABLE ucsbdiningcommonsmenuitem ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+ALTER TABLE ucsborganizations ADD COLUMN IF NOT EXISTS change_seq BIGINT;
+
+CREATE INDEX IF NOT EXISTS articles_change_seq_idx ON articles (change_seq);
+CREATE INDEX IF NOT EXISTS helprequest_change_seq_idx ON helprequest (change_seq);
+CREATE INDEX IF NOT EXISTS menuitemreview_change_seq_idx ON menuitemreview (change_seq);
+CREATE INDEX IF NOT EXISTS recommendations_change_seq_idx ON recommendations (change_seq);
+CREATE INDEX IF NOT EXISTS ucsbdates_change_seq_idx ON ucsbdates (change_seq);
+CREATE INDEX IF NOT EXISTS ucsbdiningcommons_change_seq_idx ON ucsbdiningcommons (change_seq);
+CREATE INDEX IF NOT EXISTS ucsbdiningcommonsmenuitem_change_seq_idx ON ucsbdiningcommonsmenuitem (change_seq);
+CREATE INDEX IF NOT EXISTS ucsborganizations_change_seq_idx ON ucsborganizations (change_seq);
+
+CREATE TABLE IF NOT EXISTS tombstones (
+  change_seq BIGINT NOT NULL PRIMARY KEY,
+  entity_type VARCHAR(255),
+  entity_id VARCHAR(255),
+  deleted_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS tombstones_entity_type_change_seq_idx ON tombstones (entity_type, change_seq);
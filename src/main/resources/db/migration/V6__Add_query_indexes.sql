@@ -0,0 +1,9 @@
+-- Logins and current-user lookups find the user by email
+CREATE INDEX IF NOT EXISTS users_email_idx ON users (email);
+
+-- UCSBDateRepository.findAllByQuarterYYYYQ
+CREATE INDEX IF NOT EXISTS ucsbdates_quarteryyyyq_idx ON ucsbdates (quarteryyyyq);
+
+-- Reviews are resolved per menu item, and menu items per dining commons
+CREATE INDEX IF NOT EXISTS menuitemreview_item_id_idx ON menuitemreview (item_id);
+CREATE INDEX IF NOT EXISTS ucsbdiningcommonsmenuitem_dining_commons_code_idx ON ucsbdiningcommonsmenuitem (dining_commons_code);
@@ -0,0 +1,24 @@
+-- change_seq values are now taken from a single-row clock instead of the
+-- change_seq sequence.  Advancing the clock locks its row until the
+-- transaction ends, so stamps are handed out in commit order
+-- (see ChangeSequenceListener).
+
+CREATE TABLE IF NOT EXISTS change_clock (
+  id INT NOT NULL PRIMARY KEY,
+  last_seq BIGINT NOT NULL
+);
+
+-- Rows written before V5 (or by ddl-auto=update) were never stamped, so
+-- no /changes request could return them.
+UPDATE articles SET change_seq = nextval('change_seq') WHERE change_seq IS NULL;
+UPDATE helprequest SET change_seq = nextval('change_seq') WHERE change_seq IS NULL;
+UPDATE menuitemreview SET change_seq = nextval('change_seq') WHERE change_seq IS NULL;
+UPDATE recommendations SET change_seq = nextval('change_seq') WHERE change_seq IS NULL;
+UPDATE ucsbdates SET change_seq = nextval('change_seq') WHERE change_seq IS NULL;
+UPDATE ucsbdiningcommons SET change_seq = nextval('change_seq') WHERE change_seq IS NULL;
+UPDATE ucsbdiningcommonsmenuitem SET change_seq = nextval('change_seq') WHERE change_seq IS NULL;
+UPDATE ucsborganizations SET change_seq = nextval('change_seq') WHERE change_seq IS NULL;
+
+-- Start the clock above every value the sequence has handed out.  The
+-- sequence is left in place for nodes still running the previous release.
+INSERT INTO change_clock (id, last_seq) SELECT 1, nextval('change_seq');
@@ -6,8 +6,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Import;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
 
+import edu.ucsb.cs156.example.config.WireFormatConfig;
+import edu.ucsb.cs156.example.services.RateLimiter;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
@@ -16,8 +21,13 @@ import org.springframework.test.web.servlet.MvcResult;
 import java.io.UnsupportedEncodingException;
 import java.util.Map;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
 @ActiveProfiles("test")
-@Import(TestConfig.class)
+// RateLimitFilter is part of every MockMvc; tests share one mock user, so it is switched off
+@TestPropertySource(properties = "app.rateLimit.enabled=false")
+@Import({ TestConfig.class, WireFormatConfig.class, RateLimiter.class })
 public abstract class ControllerTestCase {
   @Autowired
   public CurrentUserService currentUserService;
@@ -31,6 +41,18 @@ public abstract class ControllerTestCase {
   @Autowired
   public ObjectMapper mapper;
 
+  /**
+   * Performs a request whose handler returns a CompletableFuture, and
+   * dispatches it again once the future is done, as the servlet container
+   * would.
+   */
+  protected ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+    MvcResult started = mockMvc.perform(requestBuilder)
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    return mockMvc.perform(asyncDispatch(started));
+  }
+
   protected Map<String, Object> responseToJson(MvcResult result) throws UnsupportedEncodingException, JsonProcessingException {
     String responseString = result.getResponse().getContentAsString();
     return mapper.readValue(responseString, Map.class);
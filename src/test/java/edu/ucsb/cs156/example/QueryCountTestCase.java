@@ -0,0 +1,80 @@
+package edu.ucsb.cs156.example;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.context.TypeExcludeFilter;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import edu.ucsb.cs156.example.testconfig.QueryCount;
+import edu.ucsb.cs156.example.testconfig.QueryCounter;
+import edu.ucsb.cs156.example.testconfig.QueryCounterConfig;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Base class for tests that check how many statements an endpoint
+ * executes.  Unlike {@link ControllerTestCase}, the whole application runs,
+ * against an embedded H2 database migrated by Flyway, so the repositories
+ * and entity listeners issue their real queries.
+ *
+ * The application is scanned as {@link ExampleApplication} would scan it,
+ * except for the <code>testconfig</code> package: its mocks (e.g. the
+ * <code>currentUser</code> service) stand in for real beans in the
+ * {@link ControllerTestCase} slices and would clash with them here.
+ */
+@SpringBootTest(classes = QueryCountTestCase.Application.class)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryCounterConfig.class)
+public abstract class QueryCountTestCase {
+  // not a @SpringBootConfiguration, so the @WebMvcTest slices still find ExampleApplication
+  @Configuration
+  @EnableAutoConfiguration
+  @ComponentScan(basePackageClasses = ExampleApplication.class, excludeFilters = {
+      @ComponentScan.Filter(type = FilterType.CUSTOM, classes = TypeExcludeFilter.class),
+      @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ExampleApplication.class),
+      @ComponentScan.Filter(type = FilterType.REGEX, pattern = "edu\\.ucsb\\.cs156\\.example\\.testconfig\\..*") })
+  static class Application {
+  }
+
+  @Autowired
+  public MockMvc mockMvc;
+
+  @Autowired
+  public ObjectMapper mapper;
+
+  @Autowired
+  public QueryCounter queryCounter;
+
+  public interface Action {
+    void run() throws Exception;
+  }
+
+  /** Runs <code>action</code> and returns the statements it executed. */
+  protected QueryCount queriesDuring(Action action) throws Exception {
+    queryCounter.reset();
+    action.run();
+    return new QueryCount(queryCounter.statements());
+  }
+
+  /** See {@link ControllerTestCase#performAsync(RequestBuilder)}. */
+  protected ResultActions performAsync(RequestBuilder requestBuilder) throws Exception {
+    MvcResult started = mockMvc.perform(requestBuilder)
+        .andExpect(request().asyncStarted())
+        .andReturn();
+    return mockMvc.perform(asyncDispatch(started));
+  }
+}
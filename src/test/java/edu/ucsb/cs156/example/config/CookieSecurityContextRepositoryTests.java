@@ -0,0 +1,273 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import javax.servlet.http.Cookie;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.config.oauth2.client.CommonOAuth2Provider;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class CookieSecurityContextRepositoryTests {
+
+  private SessionCookieCodec codec;
+  private CookieSecurityContextRepository repository;
+  private CookieAuthorizationRequestRepository authorizationRequestRepository;
+
+  @BeforeEach
+  void createRepositories() {
+    codec = SessionCookieCodecTests.codec(SessionCookieCodecTests.NEW_KEY);
+    repository = new CookieSecurityContextRepository();
+    repository.codec = codec;
+    repository.mapper = new ObjectMapper();
+    repository.clientRegistrationRepository = new InMemoryClientRegistrationRepository(
+        CommonOAuth2Provider.GOOGLE.getBuilder("google").clientId("client").clientSecret("secret").build());
+    repository.securityConfig = mock(SecurityConfig.class);
+    repository.maxAgeSeconds = 3600;
+    repository.absoluteMaxAgeSeconds = 86400;
+    repository.start();
+
+    authorizationRequestRepository = new CookieAuthorizationRequestRepository();
+    authorizationRequestRepository.codec = codec;
+    authorizationRequestRepository.mapper = new ObjectMapper();
+    authorizationRequestRepository.loginTimeoutSeconds = 300;
+  }
+
+  private static OAuth2AuthenticationToken login() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("sub", "1234567890");
+    attributes.put("email", "cgaucho@ucsb.edu");
+    attributes.put("email_verified", true);
+    attributes.put("name", "Chris Gaucho");
+    attributes.put("given_name", "Chris");
+    attributes.put("family_name", "Gaucho");
+    attributes.put("picture", "https://example.org/cgaucho.png");
+    attributes.put("locale", "en");
+    attributes.put("hd", "ucsb.edu");
+    attributes.put("unused", "not kept");
+    List<GrantedAuthority> authorities = List.of(new OAuth2UserAuthority("ROLE_USER", attributes),
+        new SimpleGrantedAuthority("SCOPE_email"), new SimpleGrantedAuthority("ROLE_ADMIN"),
+        new SimpleGrantedAuthority("ROLE_MEMBER"));
+    return new OAuth2AuthenticationToken(new DefaultOAuth2User(authorities, attributes, "sub"), authorities,
+        "google");
+  }
+
+  private static SecurityContext contextOf(OAuth2AuthenticationToken authentication) {
+    SecurityContext context = SecurityContextHolder.createEmptyContext();
+    context.setAuthentication(authentication);
+    return context;
+  }
+
+  /** The value of the SESSION_CONTEXT cookie set on <code>response</code>, or null. */
+  private static String sessionCookie(MockHttpServletResponse response) {
+    String setCookie = response.getHeader(HttpHeaders.SET_COOKIE);
+    if (setCookie == null) {
+      return null;
+    }
+    assertTrue(setCookie.startsWith(CookieSecurityContextRepository.COOKIE_NAME + "="));
+    return setCookie.substring(setCookie.indexOf('=') + 1, setCookie.indexOf(';'));
+  }
+
+  private SecurityContext load(MockHttpServletRequest request, MockHttpServletResponse response) {
+    return repository.loadContext(new HttpRequestResponseHolder(request, response));
+  }
+
+  @Test
+  void the_signed_in_user_and_their_roles_come_back_from_the_cookie() {
+    MockHttpServletResponse loginResponse = new MockHttpServletResponse();
+    repository.saveContext(contextOf(login()), new MockHttpServletRequest("GET", "/login/oauth2/code/google"),
+        loginResponse);
+
+    String setCookie = loginResponse.getHeader(HttpHeaders.SET_COOKIE);
+    assertTrue(setCookie.contains("HttpOnly"));
+    assertTrue(setCookie.contains("SameSite=Lax"));
+    assertTrue(setCookie.contains("Max-Age=3600"));
+    assertFalse(setCookie.contains("cgaucho"));
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/currentUser");
+    request.setCookies(new Cookie(CookieSecurityContextRepository.COOKIE_NAME, sessionCookie(loginResponse)));
+    OAuth2AuthenticationToken restored = assertInstanceOf(OAuth2AuthenticationToken.class,
+        load(request, new MockHttpServletResponse()).getAuthentication());
+
+    assertTrue(repository.containsContext(request));
+    assertEquals("google", restored.getAuthorizedClientRegistrationId());
+    assertEquals("1234567890", restored.getName());
+    assertEquals("cgaucho@ucsb.edu", restored.getPrincipal().getAttribute("email"));
+    assertEquals(Boolean.TRUE, restored.getPrincipal().getAttribute("email_verified"));
+    assertNull(restored.getPrincipal().getAttribute("unused"));
+    assertEquals(Set.of("ROLE_USER", "SCOPE_email", "ROLE_ADMIN", "ROLE_MEMBER"),
+        restored.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet()));
+    assertTrue(restored.getAuthorities().stream().anyMatch(OAuth2UserAuthority.class::isInstance));
+  }
+
+  @Test
+  void a_fresh_cookie_is_not_rewritten_but_signing_out_clears_it() {
+    MockHttpServletResponse loginResponse = new MockHttpServletResponse();
+    repository.saveContext(contextOf(login()), new MockHttpServletRequest(), loginResponse);
+    Cookie cookie = new Cookie(CookieSecurityContextRepository.COOKIE_NAME, sessionCookie(loginResponse));
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/currentUser");
+    request.setCookies(cookie);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    repository.saveContext(load(request, response), request, response);
+    assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+
+    MockHttpServletRequest logout = new MockHttpServletRequest("POST", "/logout");
+    logout.setCookies(cookie);
+    MockHttpServletResponse logoutResponse = new MockHttpServletResponse();
+    load(logout, logoutResponse);
+    repository.saveContext(SecurityContextHolder.createEmptyContext(), logout, logoutResponse);
+    assertEquals("", sessionCookie(logoutResponse));
+    assertTrue(logoutResponse.getHeader(HttpHeaders.SET_COOKIE).contains("Max-Age=0"));
+  }
+
+  @Test
+  void expired_or_changed_cookies_are_ignored() throws Exception {
+    CookieSecurityContextRepository.Session expired = new CookieSecurityContextRepository.Session("google",
+        Map.of("sub", "1234567890"), List.of("ROLE_USER", "ROLE_ADMIN"), Instant.now().getEpochSecond() - 7200,
+        Instant.now().getEpochSecond() - 7200);
+    String expiredValue = codec.seal(CookieSecurityContextRepository.COOKIE_NAME,
+        new ObjectMapper().writeValueAsBytes(expired));
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/currentUser");
+    request.setCookies(new Cookie(CookieSecurityContextRepository.COOKIE_NAME, expiredValue));
+    assertNull(load(request, new MockHttpServletResponse()).getAuthentication());
+
+    MockHttpServletRequest forged = new MockHttpServletRequest("GET", "/api/currentUser");
+    forged.setCookies(new Cookie(CookieSecurityContextRepository.COOKIE_NAME,
+        codec.seal(CookieAuthorizationRequestRepository.COOKIE_NAME, new ObjectMapper().writeValueAsBytes(expired))));
+    assertNull(load(forged, new MockHttpServletResponse()).getAuthentication());
+    assertFalse(repository.containsContext(forged));
+  }
+
+  /** A SESSION_CONTEXT cookie for login()'s user, sealed and signed in the given numbers of seconds ago. */
+  private Cookie sessionCookie(long sealedSecondsAgo, long loggedInSecondsAgo) throws Exception {
+    long now = Instant.now().getEpochSecond();
+    CookieSecurityContextRepository.Session session = new CookieSecurityContextRepository.Session("google",
+        Map.of("sub", "1234567890", "email", "cgaucho@ucsb.edu"),
+        List.of("ROLE_USER", "SCOPE_email", "ROLE_ADMIN", "ROLE_MEMBER"), now - sealedSecondsAgo,
+        now - loggedInSecondsAgo);
+    return new Cookie(CookieSecurityContextRepository.COOKIE_NAME,
+        codec.seal(CookieSecurityContextRepository.COOKIE_NAME, new ObjectMapper().writeValueAsBytes(session)));
+  }
+
+  private CookieSecurityContextRepository.Session open(String value) throws Exception {
+    return new ObjectMapper().readValue(codec.open(CookieSecurityContextRepository.COOKIE_NAME, value).get(),
+        CookieSecurityContextRepository.Session.class);
+  }
+
+  @Test
+  void a_cookie_half_way_to_expiring_is_resealed_with_the_roles_the_user_has_now() throws Exception {
+    when(repository.securityConfig.rolesFor("cgaucho@ucsb.edu"))
+        .thenReturn(Set.of(new SimpleGrantedAuthority("ROLE_MEMBER")));
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/currentUser");
+    request.setCookies(sessionCookie(2000, 5000));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    SecurityContext context = load(request, response);
+    repository.saveContext(context, request, response);
+
+    Set<String> roles = Set.of("ROLE_USER", "SCOPE_email", "ROLE_MEMBER");
+    assertEquals(roles,
+        context.getAuthentication().getAuthorities().stream().map(GrantedAuthority::getAuthority)
+            .collect(Collectors.toSet()));
+    CookieSecurityContextRepository.Session resealed = open(sessionCookie(response));
+    assertEquals(roles, Set.copyOf(resealed.getG()));
+    assertTrue(Instant.now().getEpochSecond() - resealed.getT() < 5);
+    assertEquals(Instant.now().getEpochSecond() - 5000, resealed.getL(), 5);
+    assertTrue(response.getHeader(HttpHeaders.SET_COOKIE).contains("Max-Age=3600"));
+  }
+
+  @Test
+  void a_fresh_cookie_keeps_its_roles_without_asking_the_users_table() throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/currentUser");
+    request.setCookies(sessionCookie(60, 60));
+
+    SecurityContext context = load(request, new MockHttpServletResponse());
+
+    assertTrue(context.getAuthentication().getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN")));
+    verifyNoInteractions(repository.securityConfig);
+  }
+
+  @Test
+  void resealing_never_outlives_the_absolute_max_age_of_the_login() throws Exception {
+    when(repository.securityConfig.rolesFor("cgaucho@ucsb.edu")).thenReturn(Set.of());
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/currentUser");
+    request.setCookies(sessionCookie(2000, 86400 - 600));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    repository.saveContext(load(request, response), request, response);
+
+    String setCookie = response.getHeader(HttpHeaders.SET_COOKIE);
+    long maxAge = Long.parseLong(setCookie.replaceAll(".*Max-Age=(\\d+).*", "$1"));
+    assertTrue(maxAge > 590 && maxAge <= 600, setCookie);
+
+    MockHttpServletRequest stale = new MockHttpServletRequest("GET", "/api/currentUser");
+    stale.setCookies(sessionCookie(60, 86400 + 60));
+    assertNull(load(stale, new MockHttpServletResponse()).getAuthentication());
+    assertFalse(repository.containsContext(stale));
+  }
+
+  @Test
+  void the_login_round_trip_is_kept_in_a_cookie_matched_by_state() {
+    OAuth2AuthorizationRequest authorizationRequest = OAuth2AuthorizationRequest.authorizationCode()
+        .authorizationUri("https://accounts.google.com/o/oauth2/v2/auth")
+        .clientId("client")
+        .redirectUri("http://localhost:8080/login/oauth2/code/google")
+        .scopes(Set.of("email", "profile"))
+        .state("state-1")
+        .attributes(Map.of("registration_id", "google"))
+        .build();
+    MockHttpServletResponse redirect = new MockHttpServletResponse();
+    authorizationRequestRepository.saveAuthorizationRequest(authorizationRequest,
+        new MockHttpServletRequest("GET", "/oauth2/authorization/google"), redirect);
+    String setCookie = redirect.getHeader(HttpHeaders.SET_COOKIE);
+    Cookie cookie = new Cookie(CookieAuthorizationRequestRepository.COOKIE_NAME,
+        setCookie.substring(setCookie.indexOf('=') + 1, setCookie.indexOf(';')));
+
+    MockHttpServletRequest callback = new MockHttpServletRequest("GET", "/login/oauth2/code/google");
+    callback.setParameter("state", "state-1");
+    callback.setCookies(cookie);
+    MockHttpServletResponse callbackResponse = new MockHttpServletResponse();
+    OAuth2AuthorizationRequest removed = authorizationRequestRepository.removeAuthorizationRequest(callback,
+        callbackResponse);
+    assertEquals("state-1", removed.getState());
+    assertEquals("google", removed.getAttribute("registration_id"));
+    assertEquals(authorizationRequest.getAuthorizationRequestUri(), removed.getAuthorizationRequestUri());
+    assertTrue(callbackResponse.getHeader(HttpHeaders.SET_COOKIE).contains("Max-Age=0"));
+
+    MockHttpServletRequest wrongState = new MockHttpServletRequest("GET", "/login/oauth2/code/google");
+    wrongState.setParameter("state", "state-2");
+    wrongState.setCookies(cookie);
+    assertNull(authorizationRequestRepository.loadAuthorizationRequest(wrongState));
+  }
+}
@@ -0,0 +1,116 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.services.RateLimiter;
+
+/**
+ * Starts Tomcat with the application's properties, as Heroku runs it behind
+ * its router, and checks that what RateLimitFilter sees of an anonymous
+ * client, and whether the session cookies are marked Secure, comes from the
+ * forwarded headers.  The test client connects from 127.0.0.1, which
+ * RemoteIpValve trusts as a proxy like the router's private address.
+ */
+@SpringBootTest(classes = ForwardedHeadersTests.Application.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ForwardedHeadersTests {
+
+  @Configuration
+  @ImportAutoConfiguration({ PropertyPlaceholderAutoConfiguration.class, ServletWebServerFactoryAutoConfiguration.class,
+      EmbeddedWebServerFactoryCustomizerAutoConfiguration.class, DispatcherServletAutoConfiguration.class,
+      WebMvcAutoConfiguration.class, JacksonAutoConfiguration.class })
+  @Import({ RateLimitFilter.class, RateLimiter.class, ClientController.class })
+  static class Application {
+  }
+
+  @RestController
+  static class ClientController {
+    @GetMapping("/api/test/client")
+    public Map<String, Object> client(HttpServletRequest request) {
+      return Map.of("client", RateLimitFilter.client(request));
+    }
+
+    @GetMapping("/api/test/cookie")
+    public Map<String, Object> cookie(HttpServletRequest request, HttpServletResponse response) {
+      CookieSecurityContextRepository.addCookie(request, response, CookieSecurityContextRepository.COOKIE_NAME,
+          "sealed", Duration.ofHours(1));
+      return Map.of();
+    }
+  }
+
+  @LocalServerPort
+  int port;
+
+  private final HttpClient httpClient = HttpClient.newHttpClient();
+
+  private Map<String, Object> get(String... headers) throws Exception {
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/test/client"));
+    if (headers.length > 0) {
+      request.headers(headers);
+    }
+    HttpResponse<String> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    assertEquals(200, response.statusCode());
+    return new ObjectMapper().readValue(response.body(), Map.class);
+  }
+
+  @Test
+  void anonymous_clients_are_keyed_on_the_forwarded_address() throws Exception {
+    assertEquals("ip:203.0.113.9", get("X-Forwarded-For", "203.0.113.9").get("client"));
+    assertEquals("ip:198.51.100.7", get("X-Forwarded-For", "198.51.100.7").get("client"));
+  }
+
+  @Test
+  void addresses_a_client_adds_itself_are_not_trusted() throws Exception {
+    // the router appends the address it saw to whatever the client sent
+    assertEquals("ip:203.0.113.9", get("X-Forwarded-For", "198.51.100.1, 203.0.113.9").get("client"));
+  }
+
+  private String setCookie(String... headers) throws Exception {
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/api/test/cookie"));
+    if (headers.length > 0) {
+      request.headers(headers);
+    }
+    return httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding())
+        .headers().firstValue("Set-Cookie").orElseThrow();
+  }
+
+  @Test
+  void cookies_are_secure_when_the_router_was_reached_over_https() throws Exception {
+    assertTrue(setCookie("X-Forwarded-For", "203.0.113.9", "X-Forwarded-Proto", "https").contains("; Secure"));
+    assertFalse(setCookie("X-Forwarded-For", "203.0.113.9", "X-Forwarded-Proto", "http").contains("Secure"));
+    assertFalse(setCookie().contains("Secure"));
+  }
+
+  @Test
+  void without_a_proxy_the_connection_address_is_used() throws Exception {
+    assertEquals("ip:127.0.0.1", get().get("client"));
+  }
+}
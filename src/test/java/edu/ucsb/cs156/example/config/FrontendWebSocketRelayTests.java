@@ -0,0 +1,93 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.testconfig.StubDevServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.List;
+
+import javax.websocket.CloseReason;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FrontendWebSocketRelayTests {
+
+  private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+  private StubDevServer devServer;
+  private FrontendWebSocketRelay relay;
+  private WebSocketSession browser;
+
+  @BeforeEach
+  public void connect() throws Exception {
+    devServer = new StubDevServer();
+    relay = new FrontendWebSocketRelay(httpClient, devServer.getUri());
+
+    browser = mock(WebSocketSession.class);
+    when(browser.getId()).thenReturn("browser-1");
+    when(browser.getUri()).thenReturn(URI.create("ws://localhost:8080/ws?token=abc"));
+    relay.afterConnectionEstablished(browser);
+  }
+
+  @AfterEach
+  public void stopDevServer() {
+    devServer.close();
+  }
+
+  @Test
+  public void the_dev_server_is_reached_on_the_same_path() {
+    assertEquals("/ws?token=abc", devServer.getRequests().get(0).uri());
+  }
+
+  @Test
+  public void text_messages_are_relayed_both_ways() throws Exception {
+    relay.handleMessage(browser, new TextMessage("{\"type\":\"hash\"}"));
+
+    verify(browser, timeout(5000)).sendMessage(new TextMessage("echo: {\"type\":\"hash\"}"));
+  }
+
+  @Test
+  public void binary_messages_are_relayed_whole() throws Exception {
+    // large enough that the dev server's reply may arrive in several parts
+    byte[] bytes = new byte[256 * 1024];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) i;
+    }
+
+    relay.handleMessage(browser, new BinaryMessage(bytes));
+
+    verify(browser, timeout(5000)).sendMessage(new BinaryMessage(bytes));
+  }
+
+  @Test
+  public void the_dev_server_closing_closes_the_browser_connection() throws Exception {
+    relay.handleMessage(browser, new TextMessage("close"));
+
+    verify(browser, timeout(5000)).close(new CloseStatus(StubDevServer.CLOSED_BY_REQUEST, "asked to"));
+  }
+
+  @Test
+  public void the_browser_closing_closes_the_dev_server_connection() throws Exception {
+    relay.afterConnectionClosed(browser, CloseStatus.GOING_AWAY);
+
+    List<CloseReason> closes = devServer.getWebSocketCloses();
+    for (long deadline = System.currentTimeMillis() + 5000; closes.isEmpty()
+        && System.currentTimeMillis() < deadline;) {
+      Thread.sleep(20);
+    }
+    assertEquals(1, closes.size());
+    assertEquals(CloseStatus.GOING_AWAY.getCode(), closes.get(0).getCloseCode().getCode());
+  }
+}
@@ -0,0 +1,126 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.services.RateLimiter;
+import edu.ucsb.cs156.example.services.RateLimiter.Budget;
+
+class RateLimitFilterTests {
+
+  private RateLimiter rateLimiter;
+  private RateLimitFilter filter;
+
+  @BeforeEach
+  void createFilter() {
+    rateLimiter = new RateLimiter() {
+      @Override
+      public boolean isEnabled() {
+        return true;
+      }
+
+      @Override
+      public long acquire(String client, Budget budget) {
+        return client.equals("limited@ucsb.edu") ? 1_500_000_000L : 0;
+      }
+    };
+    filter = new RateLimitFilter();
+    filter.rateLimiter = rateLimiter;
+    filter.mapper = new ObjectMapper();
+  }
+
+  @AfterEach
+  void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void requests_within_budget_reach_the_controller() throws Exception {
+    signIn("someone@ucsb.edu");
+    MockFilterChain chain = new MockFilterChain();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("GET", "/api/articles/all"), response, chain);
+
+    assertEquals(200, response.getStatus());
+    assertEquals("/api/articles/all", ((MockHttpServletRequest) chain.getRequest()).getRequestURI());
+  }
+
+  @Test
+  void requests_over_budget_get_429_with_retry_after() throws Exception {
+    signIn("limited@ucsb.edu");
+    MockFilterChain chain = new MockFilterChain();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    filter.doFilter(new MockHttpServletRequest("POST", "/api/articles/post"), response, chain);
+
+    assertEquals(429, response.getStatus());
+    assertEquals("2", response.getHeader("Retry-After"));
+    assertEquals(Map.of("type", "TooManyRequests", "message", "rate limit exceeded; try again in 2 s"),
+        new ObjectMapper().readValue(response.getContentAsString(), Map.class));
+    assertNull(chain.getRequest());
+  }
+
+  @Test
+  void only_the_api_is_limited() throws Exception {
+    signIn("limited@ucsb.edu");
+    MockFilterChain chain = new MockFilterChain();
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+
+    filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+    assertSame(request, chain.getRequest());
+  }
+
+  @Test
+  void budget_depends_on_path_and_method() {
+    assertEquals(Budget.READ, RateLimitFilter.budget(new MockHttpServletRequest("GET", "/api/articles/all")));
+    assertEquals(Budget.WRITE, RateLimitFilter.budget(new MockHttpServletRequest("PUT", "/api/articles")));
+    assertEquals(Budget.WRITE, RateLimitFilter.budget(new MockHttpServletRequest("DELETE", "/api/articles")));
+    assertEquals(Budget.ADMIN, RateLimitFilter.budget(new MockHttpServletRequest("GET", "/api/admin/users")));
+    assertEquals(Budget.READ, RateLimitFilter.budget(new MockHttpServletRequest("POST", "/api/batch")));
+  }
+
+  @Test
+  void users_are_limited_by_email_and_anonymous_requests_by_address() {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/articles/all");
+    request.setRemoteAddr("10.0.0.1");
+
+    assertEquals("ip:10.0.0.1", RateLimitFilter.client(request));
+
+    SecurityContextHolder.getContext().setAuthentication(new AnonymousAuthenticationToken("key", "anonymousUser",
+        AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS")));
+    assertEquals("ip:10.0.0.1", RateLimitFilter.client(request));
+
+    signIn("someone@ucsb.edu");
+    assertEquals("someone@ucsb.edu", RateLimitFilter.client(request));
+
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", "password", "ROLE_USER"));
+    assertEquals("user", RateLimitFilter.client(request));
+  }
+
+  private static void signIn(String email) {
+    DefaultOAuth2User user = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("ROLE_USER"),
+        Map.of("sub", "12345", "email", email), "sub");
+    SecurityContextHolder.getContext().setAuthentication(
+        new OAuth2AuthenticationToken(user, user.getAuthorities(), "google"));
+  }
+}
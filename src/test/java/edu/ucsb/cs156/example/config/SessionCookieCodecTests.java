@@ -0,0 +1,75 @@
+package edu.ucsb.cs156.example.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class SessionCookieCodecTests {
+
+  static final String OLD_KEY = "1:" + Base64.getEncoder().encodeToString(new byte[32]);
+  static final String NEW_KEY = "2:" + Base64.getEncoder().encodeToString("0123456789abcdef0123456789abcdef".getBytes());
+
+  static SessionCookieCodec codec(String keys) {
+    SessionCookieCodec codec = new SessionCookieCodec();
+    codec.keys = keys;
+    codec.start();
+    return codec;
+  }
+
+  private static final byte[] PLAINTEXT = "{\"email\":\"cgaucho@ucsb.edu\",\"roles\":[\"ROLE_USER\",\"ROLE_USER\"]}"
+      .getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  void sealed_values_open_to_the_same_bytes_and_are_not_readable() {
+    SessionCookieCodec codec = codec(NEW_KEY);
+
+    String sealed = codec.seal("SESSION_CONTEXT", PLAINTEXT);
+
+    assertTrue(sealed.startsWith("2."));
+    assertFalse(sealed.contains("cgaucho"));
+    assertTrue(sealed.matches("[A-Za-z0-9._-]+"));
+    assertEquals(new String(PLAINTEXT, StandardCharsets.UTF_8),
+        new String(codec.open("SESSION_CONTEXT", sealed).get(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void changed_values_and_values_for_another_cookie_do_not_open() {
+    SessionCookieCodec codec = codec(NEW_KEY);
+    String sealed = codec.seal("SESSION_CONTEXT", PLAINTEXT);
+    // flip a bit of the ciphertext itself; changing the last character may
+    // only touch padding bits the decoder drops
+    byte[] bytes = Base64.getUrlDecoder().decode(sealed.substring(2));
+    bytes[bytes.length / 2] ^= 1;
+    String changed = "2." + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+    assertTrue(codec.open("SESSION_CONTEXT", changed).isEmpty());
+    assertTrue(codec.open("OAUTH2_AUTHORIZATION_REQUEST", sealed).isEmpty());
+    assertTrue(codec.open("SESSION_CONTEXT", "2.not-base64!").isEmpty());
+    assertTrue(codec.open("SESSION_CONTEXT", "").isEmpty());
+    assertTrue(codec.open("SESSION_CONTEXT", null).isEmpty());
+  }
+
+  @Test
+  void old_keys_open_values_until_they_are_dropped() {
+    String sealedWithOldKey = codec(OLD_KEY).seal("SESSION_CONTEXT", PLAINTEXT);
+
+    SessionCookieCodec rotated = codec(NEW_KEY + "," + OLD_KEY);
+    assertTrue(rotated.open("SESSION_CONTEXT", sealedWithOldKey).isPresent());
+    assertTrue(rotated.seal("SESSION_CONTEXT", PLAINTEXT).startsWith("2."));
+
+    assertTrue(codec(NEW_KEY).open("SESSION_CONTEXT", sealedWithOldKey).isEmpty());
+  }
+
+  @Test
+  void keys_must_be_configured_and_well_formed() {
+    assertThrows(IllegalStateException.class, () -> codec(""));
+    assertThrows(IllegalStateException.class, () -> codec("no-id"));
+    assertThrows(IllegalStateException.class, () -> codec("1:" + Base64.getEncoder().encodeToString(new byte[20])));
+  }
+}
@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.controllers.FrontendController;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// src/test/resources/public/static stands in for the React build
+@WebMvcTest(controllers = FrontendController.class)
+public class StaticResourceConfigTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Test
+  public void hashed_assets_are_cached_for_a_year_without_revalidation() throws Exception {
+    mockMvc.perform(get("/static/js/main.4f2a1c9e.js"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+        .andExpect(content().string("console.log(\"main\");\n"));
+  }
+
+  @Test
+  public void missing_assets_are_not_found() throws Exception {
+    mockMvc.perform(get("/static/js/main.00000000.js"))
+        .andExpect(status().isNotFound());
+  }
+}
@@ -0,0 +1,179 @@
+package edu.ucsb.cs156.example.config;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.Recommendation;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganizations;
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares payload size and encode/decode time of JSON, CBOR and Smile for a
+ * listing of each entity.  The timings are logged rather than asserted, since
+ * they depend on the machine; the assertions only check that every format
+ * round-trips and that the binary formats are smaller than JSON.
+ */
+@Slf4j
+@JsonTest
+@Import(WireFormatConfig.class)
+public class WireFormatBenchmarkTests {
+
+  private static final int ROWS = 1000;
+  private static final int WARMUP_ROUNDS = 20;
+  private static final int MEASURED_ROUNDS = 50;
+
+  @Autowired
+  ObjectMapper jsonMapper;
+
+  @Autowired
+  MappingJackson2CborHttpMessageConverter cborConverter;
+
+  @Autowired
+  MappingJackson2SmileHttpMessageConverter smileConverter;
+
+  @Test
+  public void binary_formats_round_trip_and_are_smaller_than_json() throws Exception {
+    LocalDateTime start = LocalDateTime.parse("2022-01-03T00:00:00");
+
+    Map<Class<?>, IntFunction<Object>> fixtures = new LinkedHashMap<>();
+    fixtures.put(HelpRequest.class, i -> HelpRequest.builder()
+        .id(i)
+        .requesterEmail("student" + i + "@ucsb.edu")
+        .teamId("f22-6pm-" + (i % 4))
+        .tableOrBreakoutRoom(String.valueOf(i % 12))
+        .requestTime(start.plusMinutes(i))
+        .explanation("Need help with the controller tests for request " + i)
+        .solved(i % 3 == 0)
+        .changeSeq((long) i)
+        .build());
+    fixtures.put(MenuItemReview.class, i -> MenuItemReview.builder()
+        .id((long) i)
+        .itemId((long) (i % 50))
+        .reviewerEmail("reviewer" + i + "@ucsb.edu")
+        .stars(i % 5 + 1)
+        .dateReviewed(start.plusHours(i))
+        .comments("Review number " + i + " of the pasta station")
+        .changeSeq((long) i)
+        .build());
+    fixtures.put(Article.class, i -> Article.builder()
+        .id(i)
+        .title("Article " + i)
+        .url("https://example.org/articles/" + i)
+        .explanation("Background reading number " + i)
+        .email("author" + i + "@ucsb.edu")
+        .dateAdded(start.plusDays(i))
+        .changeSeq((long) i)
+        .build());
+    fixtures.put(Recommendation.class, i -> Recommendation.builder()
+        .id(i)
+        .requesterEmail("student" + i + "@ucsb.edu")
+        .professorEmail("professor" + (i % 20) + "@ucsb.edu")
+        .explanation("Graduate school application " + i)
+        .dateRequested(start.plusDays(i))
+        .dateNeeded(start.plusDays(i + 30))
+        .done(i % 2 == 0)
+        .changeSeq((long) i)
+        .build());
+    fixtures.put(UCSBDate.class, i -> UCSBDate.builder()
+        .id(i)
+        .quarterYYYYQ("2022" + (i % 4 + 1))
+        .name("Date " + i)
+        .localDateTime(start.plusDays(i))
+        .changeSeq((long) i)
+        .build());
+    fixtures.put(UCSBDiningCommons.class, i -> UCSBDiningCommons.builder()
+        .code("commons-" + i)
+        .name("Dining Commons " + i)
+        .hasSackMeal(i % 2 == 0)
+        .hasTakeOutMeal(i % 3 == 0)
+        .hasDiningCam(i % 5 == 0)
+        .latitude(34.409953 + i / 10000.0)
+        .longitude(-119.85277 - i / 10000.0)
+        .changeSeq((long) i)
+        .build());
+    fixtures.put(UCSBDiningCommonsMenuItem.class, i -> UCSBDiningCommonsMenuItem.builder()
+        .id(i)
+        .diningCommonsCode("ortega")
+        .name("Menu item " + i)
+        .station("Station " + (i % 6))
+        .changeSeq((long) i)
+        .build());
+    fixtures.put(UCSBOrganizations.class, i -> UCSBOrganizations.builder()
+        .orgCode("ORG" + i)
+        .orgTranslationShort("Org " + i)
+        .orgTranslation("Student Organization Number " + i)
+        .inactive(i % 7 == 0)
+        .changeSeq((long) i)
+        .build());
+
+    Map<String, ObjectMapper> formats = new LinkedHashMap<>();
+    formats.put("json", jsonMapper);
+    formats.put("cbor", cborConverter.getObjectMapper());
+    formats.put("smile", smileConverter.getObjectMapper());
+
+    for (Map.Entry<Class<?>, IntFunction<Object>> fixture : fixtures.entrySet()) {
+      List<Object> rows = new ArrayList<>();
+      for (int i = 1; i <= ROWS; i++) {
+        rows.add(fixture.getValue().apply(i));
+      }
+
+      int jsonSize = 0;
+      for (Map.Entry<String, ObjectMapper> format : formats.entrySet()) {
+        ObjectMapper mapper = format.getValue();
+        JavaType listType = mapper.getTypeFactory().constructCollectionType(List.class, fixture.getKey());
+
+        byte[] bytes = mapper.writeValueAsBytes(rows);
+        assertEquals(rows, mapper.readValue(bytes, listType));
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+          mapper.readValue(mapper.writeValueAsBytes(rows), listType);
+        }
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+          long started = System.nanoTime();
+          bytes = mapper.writeValueAsBytes(rows);
+          long encoded = System.nanoTime();
+          mapper.readValue(bytes, listType);
+          decodeNanos += System.nanoTime() - encoded;
+          encodeNanos += encoded - started;
+        }
+
+        if (format.getKey().equals("json")) {
+          jsonSize = bytes.length;
+        } else {
+          assertTrue(bytes.length < jsonSize,
+              format.getKey() + " should be smaller than json for " + fixture.getKey().getSimpleName());
+        }
+
+        log.info("{} x{} {}: {} bytes ({}% of json), encode {} us, decode {} us",
+            fixture.getKey().getSimpleName(), ROWS, format.getKey(), bytes.length,
+            100L * bytes.length / jsonSize,
+            encodeNanos / MEASURED_ROUNDS / 1000, decodeNanos / MEASURED_ROUNDS / 1000);
+      }
+    }
+  }
+}
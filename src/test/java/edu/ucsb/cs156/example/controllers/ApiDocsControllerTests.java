@@ -0,0 +1,82 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = ApiDocsController.class)
+public class ApiDocsControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  // written by the swagger-maven-plugin and gzipped by the antrun plugin
+  // during process-classes, which Maven runs before the tests; a build that
+  // leaves them out would serve 404 from /api/docs
+  @BeforeEach
+  public void requireGeneratedDocs() {
+    assertTrue(new ClassPathResource(ApiDocsController.API_DOCS).exists(),
+        ApiDocsController.API_DOCS + " was not generated; run the tests through Maven");
+    assertTrue(new ClassPathResource(ApiDocsController.API_DOCS_GZIP).exists(),
+        ApiDocsController.API_DOCS_GZIP + " was not generated; run the tests through Maven");
+  }
+
+  @Test
+  public void api_docs_are_served_from_the_generated_document() throws Exception {
+    MvcResult response = mockMvc.perform(get("/api/docs"))
+        .andExpect(status().isOk())
+        .andExpect(header().doesNotExist("Content-Encoding"))
+        .andExpect(header().string("Vary", "Accept-Encoding"))
+        .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("2.0", json.get("swagger"));
+    Map<String, Object> paths = (Map<String, Object>) json.get("paths");
+    assertEquals(true, paths.containsKey("/api/article/all"));
+  }
+
+  @Test
+  public void api_docs_are_precompressed_when_gzip_is_accepted() throws Exception {
+    MvcResult response = mockMvc.perform(get("/api/docs").header("Accept-Encoding", "gzip, deflate"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "gzip"))
+        .andReturn();
+
+    byte[] body = response.getResponse().getContentAsByteArray();
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+      Map<String, Object> json = mapper.readValue(in, Map.class);
+      assertEquals("2.0", json.get("swagger"));
+    }
+  }
+
+  @Test
+  public void swagger_ui_is_pointed_at_the_generated_document() throws Exception {
+    MvcResult response = mockMvc.perform(get("/swagger-resources"))
+        .andExpect(status().isOk())
+        .andReturn();
+
+    List<Map<String, Object>> resources = mapper.readValue(response.getResponse().getContentAsString(), List.class);
+    assertEquals(1, resources.size());
+    assertEquals("/api/docs", resources.get(0).get("url"));
+
+    mockMvc.perform(get("/swagger-resources/configuration/security"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.enableCsrfSupport").value(true));
+  }
+}
@@ -4,12 +4,27 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.models.ArticleSummary;
+import edu.ucsb.cs156.example.entities.Tombstone;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.ResponseCache;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -25,15 +40,18 @@ import java.time.LocalDateTime;
 
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = ArticleController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, JdbcExecutor.class, ResponseCache.class })
 public class ArticleControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -42,6 +60,18 @@ public class ArticleControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        TombstoneRepository tombstoneRepository;
+
+        @Autowired
+        ResponseCache responseCache;
+
+        @BeforeEach
+        public void clearResponseCache() {
+                // the cache lives as long as the test context, which is shared by every test in this class
+                responseCache.invalidateAll();
+        }
+
         // Authorization tests for /api/article/admin/all
 
         @Test
@@ -53,7 +83,7 @@ public class ArticleControllerTests extends ControllerTestCase {
         @WithMockUser(roles = { "USER" })
         @Test
         public void logged_in_users_can_get_all() throws Exception {
-                mockMvc.perform(get("/api/article/all"))
+                performAsync(get("/api/article/all"))
                                 .andExpect(status().is(200)); // logged
         }
 
@@ -99,7 +129,7 @@ public class ArticleControllerTests extends ControllerTestCase {
                 when(articleRepository.findById(eq(7L))).thenReturn(Optional.of(article));
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/article?id=7"))
+                MvcResult response = performAsync(get("/api/article?id=7"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -119,7 +149,7 @@ public class ArticleControllerTests extends ControllerTestCase {
                 when(articleRepository.findById(eq(7L))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/article?id=7"))
+                MvcResult response = performAsync(get("/api/article?id=7"))
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
@@ -161,7 +191,7 @@ public class ArticleControllerTests extends ControllerTestCase {
                  when(articleRepository.findAll()).thenReturn(expectedArticles);
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/article/all"))
+                MvcResult response = performAsync(get("/api/article/all"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -190,7 +220,7 @@ public class ArticleControllerTests extends ControllerTestCase {
                 when(articleRepository.save(eq(article1))).thenReturn(article1);
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 post("/api/article/post?title=Using testing-playground with React Testing Library&url=https://dev.to/katieraby/using-testing-playground-with-react-testing-library-26j7&explanation=Helpful when we get to front end development&email=phtcon@ucsb.edu&dateAdded=2022-04-20T00:00:00")
                                                 .with(csrf()))
                                 .andExpect(status().isOk()).andReturn();
@@ -220,7 +250,7 @@ public class ArticleControllerTests extends ControllerTestCase {
                 when(articleRepository.findById(eq(2L))).thenReturn(Optional.of(article));
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 delete("/api/article?id=2")
                                                 .with(csrf()))
                                 .andExpect(status().isOk()).andReturn();
@@ -243,7 +273,7 @@ public class ArticleControllerTests extends ControllerTestCase {
                when(articleRepository.findById(eq(2L))).thenReturn(Optional.empty());
 
                // act
-               MvcResult response = mockMvc.perform(
+               MvcResult response = performAsync(
                                delete("/api/article?id=2")
                                                .with(csrf()))
                                .andExpect(status().isNotFound()).andReturn();
@@ -283,7 +313,7 @@ public class ArticleControllerTests extends ControllerTestCase {
                when(articleRepository.findById(eq(1L))).thenReturn(Optional.of(articleOrig));
 
                // act
-               MvcResult response = mockMvc.perform(
+               MvcResult response = performAsync(
                                put("/api/article?id=1")
                                                .contentType(MediaType.APPLICATION_JSON)
                                                .characterEncoding("utf-8")
@@ -318,7 +348,7 @@ public class ArticleControllerTests extends ControllerTestCase {
                 when(articleRepository.findById(eq(1L))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 put("/api/article?id=1")
                                                 .contentType(MediaType.APPLICATION_JSON)
                                                 .characterEncoding("utf-8")
@@ -331,4 +361,295 @@ public class ArticleControllerTests extends ControllerTestCase {
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("Article with id 1 not found", json.get("message"));
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_changes_since_a_token() throws Exception {
+
+                // arrange
+
+                Article changed = Article.builder()
+                                .title("Using testing-playground with React Testing Library")
+                                .url("https://kentcdodds.com/blog/using-testing-playground-with-react-testing-library")
+                                .changeSeq(7L)
+                                .build();
+
+                Tombstone deleted = Tombstone.builder()
+                                .changeSeq(9L)
+                                .entityType("Article")
+                                .entityId("3")
+                                .build();
+
+                when(articleRepository.findByChangeSeqGreaterThan(eq(5L))).thenReturn(List.of(changed));
+                when(tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(eq("Article"), eq(5L))).thenReturn(List.of(deleted));
+
+                // act
+                MvcResult response = performAsync(get("/api/article/changes?since=5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(articleRepository, times(1)).findByChangeSeqGreaterThan(5L);
+                ChangeSet<Article> expected = ChangeSet.<Article>builder()
+                                .changed(List.of(changed))
+                                .deleted(List.of("3"))
+                                .token(9L)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void repeated_get_all_is_served_from_the_response_cache() throws Exception {
+
+                // arrange
+
+                Article item = Article.builder()
+                                .title("Using testing-playground with React Testing Library")
+                                .url("https://dev.to/katieraby/using-testing-playground-with-react-testing-library-26j7")
+                                .explanation("Helpful when we get to front end development")
+                                .email("phtcon@ucsb.edu")
+                                .build();
+
+                when(articleRepository.findAll()).thenReturn(List.of(item));
+
+                // act
+                MvcResult first = performAsync(get("/api/article/all"))
+                                .andExpect(status().isOk()).andReturn();
+                MvcResult second = performAsync(get("/api/article/all"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(articleRepository, times(1)).findAll();
+                String expectedJson = mapper.writeValueAsString(List.of(item));
+                assertEquals(expectedJson, first.getResponse().getContentAsString());
+                assertEquals(expectedJson, second.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_returns_gzip_when_accepted() throws Exception {
+
+                // arrange
+
+                Article item = Article.builder()
+                                .title("Using testing-playground with React Testing Library")
+                                .url("https://dev.to/katieraby/using-testing-playground-with-react-testing-library-26j7")
+                                .explanation("Helpful when we get to front end development")
+                                .email("phtcon@ucsb.edu")
+                                .build();
+
+                when(articleRepository.findAll()).thenReturn(List.of(item));
+
+                // act
+                MvcResult response = performAsync(get("/api/article/all").header("Accept-Encoding", "gzip, deflate"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().string("Content-Encoding", "gzip")).andReturn();
+
+                // assert
+
+                byte[] body = new GZIPInputStream(new ByteArrayInputStream(response.getResponse().getContentAsByteArray())).readAllBytes();
+                assertEquals(mapper.writeValueAsString(List.of(item)), new String(body, "UTF-8"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_is_not_gzipped_when_gzip_has_q_zero() throws Exception {
+
+                // arrange
+
+                Article item = Article.builder()
+                                .title("Using testing-playground with React Testing Library")
+                                .url("https://dev.to/katieraby/using-testing-playground-with-react-testing-library-26j7")
+                                .explanation("Helpful when we get to front end development")
+                                .email("phtcon@ucsb.edu")
+                                .build();
+
+                when(articleRepository.findAll()).thenReturn(List.of(item));
+
+                // act
+
+                MvcResult miss = performAsync(get("/api/article/all").header("Accept-Encoding", "gzip;q=0, *"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().doesNotExist("Content-Encoding")).andReturn();
+                MvcResult hit = performAsync(get("/api/article/all").header("Accept-Encoding", "deflate, *;q=0"))
+                                .andExpect(status().isOk())
+                                .andExpect(header().doesNotExist("Content-Encoding")).andReturn();
+
+                // assert
+
+                verify(articleRepository, times(1)).findAll();
+                String expectedJson = mapper.writeValueAsString(List.of(item));
+                assertEquals(expectedJson, miss.getResponse().getContentAsString());
+                assertEquals(expectedJson, hit.getResponse().getContentAsString());
+                assertEquals(expectedJson.length(), hit.getResponse().getContentLength());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void get_all_serves_a_cached_gzip_body_to_each_request() throws Exception {
+
+                // arrange
+
+                Article item = Article.builder()
+                                .title("Using testing-playground with React Testing Library")
+                                .url("https://dev.to/katieraby/using-testing-playground-with-react-testing-library-26j7")
+                                .explanation("Helpful when we get to front end development")
+                                .email("phtcon@ucsb.edu")
+                                .build();
+
+                when(articleRepository.findAll()).thenReturn(List.of(item));
+                performAsync(get("/api/article/all").header("Accept-Encoding", "gzip")).andExpect(status().isOk());
+
+                // act
+
+                MvcResult first = performAsync(get("/api/article/all").header("Accept-Encoding", "GZIP;q=0.5"))
+                                .andExpect(header().string("Content-Encoding", "gzip")).andReturn();
+                MvcResult second = performAsync(get("/api/article/all").header("Accept-Encoding", "br, *"))
+                                .andExpect(header().string("Content-Encoding", "gzip")).andReturn();
+
+                // assert
+
+                verify(articleRepository, times(1)).findAll();
+                assertArrayEquals(first.getResponse().getContentAsByteArray(), second.getResponse().getContentAsByteArray());
+                byte[] body = new GZIPInputStream(new ByteArrayInputStream(second.getResponse().getContentAsByteArray())).readAllBytes();
+                assertEquals(mapper.writeValueAsString(List.of(item)), new String(body, "UTF-8"));
+        }
+
+        @WithMockUser(roles = { "ADMIN", "USER" })
+        @Test
+        public void post_invalidates_the_cached_get_all() throws Exception {
+
+                // arrange
+
+                Article item = Article.builder()
+                                .title("Using testing-playground with React Testing Library")
+                                .url("https://dev.to/katieraby/using-testing-playground-with-react-testing-library-26j7")
+                                .explanation("Helpful when we get to front end development")
+                                .email("phtcon@ucsb.edu")
+                                .build();
+
+                when(articleRepository.findAll()).thenReturn(List.of()).thenReturn(List.of(item));
+
+                // act
+                performAsync(get("/api/article/all")).andExpect(status().isOk());
+                performAsync(post("/api/article/post?title=title&url=url&explanation=explanation&email=email&dateAdded=2022-01-03T00:00:00").with(csrf())).andExpect(status().isOk());
+                MvcResult response = performAsync(get("/api/article/all"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(articleRepository, times(2)).findAll();
+                assertEquals(mapper.writeValueAsString(List.of(item)), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_summary_of_all_articles() throws Exception {
+
+                // arrange
+
+                Article article1 = Article.builder()
+                                .title("Using testing-playground with React Testing Library")
+                                .url("https://dev.to/katieraby/using-testing-playground-with-react-testing-library-26j7")
+                                .explanation("Helpful when we get to front end development")
+                                .email("phtcon@ucsb.edu")
+                                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+                ArticleSummary summary = new SpelAwareProxyProjectionFactory().createProjection(ArticleSummary.class, article1);
+
+                when(articleRepository.findAllBy()).thenReturn(List.of(summary));
+
+                // act
+                MvcResult response = performAsync(get("/api/article/all?fields=summary"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(articleRepository, never()).findAll();
+                Map<String, Object> row = mapper.readValue(response.getResponse().getContentAsString(), Map[].class)[0];
+                assertEquals("Using testing-playground with React Testing Library", row.get("title"));
+                assertFalse(row.containsKey("explanation"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_selected_fields_of_all_articles() throws Exception {
+
+                // arrange
+
+                List<Map<String, Object>> rows = List.of(Map.of("id", 1, "title", "Using testing-playground with React Testing Library"));
+                when(articleRepository.findAllFields(eq(Article.class), eq(List.of("id", "title")))).thenReturn(rows);
+
+                // act
+                MvcResult response = performAsync(get("/api/article/all?fields=id,title"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(articleRepository, never()).findAll();
+                verify(articleRepository, times(1)).findAllFields(eq(Article.class), eq(List.of("id", "title")));
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void unknown_field_is_rejected_with_a_400() throws Exception {
+
+                // act
+                MvcResult response = mockMvc.perform(get("/api/article/all?fields=id,body"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("InvalidRequestException", json.get("type"));
+                assertEquals("Article has no field body", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_several_articles_in_one_request() throws Exception {
+
+                // arrange
+
+                Article row1 = Article.builder()
+                                .id(1L)
+                                .title("Article 1")
+                                .url("https://example.org/1")
+                                .explanation("explanation 1")
+                                .email("phtcon@ucsb.edu")
+                                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                Article row3 = Article.builder()
+                                .id(3L)
+                                .title("Article 3")
+                                .url("https://example.org/3")
+                                .explanation("explanation 3")
+                                .email("phtcon@ucsb.edu")
+                                .dateAdded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                when(articleRepository.findAllById(eq(Set.of(1L, 2L, 3L)))).thenReturn(List.of(row1, row3));
+
+                // act
+                MvcResult response = performAsync(get("/api/article?ids=3,1,2,1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(articleRepository, times(1)).findAllById(eq(Set.of(1L, 2L, 3L)));
+                Map<Long, Article> found = new LinkedHashMap<>();
+                found.put(3L, row3);
+                found.put(1L, row1);
+                MultiGetResult<Long, Article> expected = MultiGetResult.<Long, Article>builder()
+                                .found(found)
+                                .missing(List.of(2L))
+                                .build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
 }
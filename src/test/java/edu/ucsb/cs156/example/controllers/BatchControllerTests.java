@@ -0,0 +1,321 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BatchDispatcher;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
+import edu.ucsb.cs156.example.services.RateLimiter;
+import edu.ucsb.cs156.example.services.RateLimiter.Budget;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import javax.servlet.http.HttpServletRequest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockServletConfig;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = { BatchController.class, UCSBDiningCommonsController.class, UserInfoController.class })
+@Import({ BatchDispatcher.class, JdbcExecutor.class, RequestCoalescer.class, BatchControllerTests.ReadyController.class })
+public class BatchControllerTests extends ControllerTestCase {
+
+  @RestController
+  static class ReadyController {
+    /** Answers asynchronously, but with a result that is ready before the handler returns. */
+    @GetMapping("/api/test/ready")
+    public CompletableFuture<Map<String, String>> ready() {
+      return CompletableFuture.completedFuture(Map.of("ready", "yes"));
+    }
+
+    /** What a handler sees of the request it is answering. */
+    @GetMapping("/api/test/request")
+    public Map<String, Object> request(HttpServletRequest request, @RequestParam("q") String q) {
+      return Map.of(
+          "user", SecurityContextHolder.getContext().getAuthentication().getName(),
+          "scheme", request.getScheme(),
+          "secure", request.isSecure(),
+          "remoteAddr", request.getRemoteAddr(),
+          "q", q);
+    }
+  }
+
+  @MockBean
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @MockBean
+  TombstoneRepository tombstoneRepository;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Autowired
+  BatchController batchController;
+
+  @Autowired
+  RateLimiter rateLimiter;
+
+  @Autowired
+  WebApplicationContext webApplicationContext;
+
+  private final UCSBDiningCommons carrillo = UCSBDiningCommons.builder()
+      .code("carrillo")
+      .name("Carrillo")
+      .hasSackMeal(false)
+      .hasTakeOutMeal(false)
+      .hasDiningCam(true)
+      .latitude(34.409953)
+      .longitude(-119.85277)
+      .build();
+
+  /**
+   * MockMvc's own DispatcherServlet hands asynchronous requests to MockMvc,
+   * so the batched requests go to a plain one over the same handlers, as
+   * they would in the servlet container.
+   */
+  @BeforeEach
+  public void dispatchToPlainServlet() throws Exception {
+    DispatcherServlet dispatcherServlet = new DispatcherServlet(webApplicationContext);
+    dispatcherServlet.init(new MockServletConfig(webApplicationContext.getServletContext()));
+    batchController.dispatcherServlet = dispatcherServlet;
+  }
+
+  private List<Map<String, Object>> batch(String requests) throws Exception {
+    return batch(post("/api/batch").with(csrf()), requests);
+  }
+
+  private List<Map<String, Object>> batch(MockHttpServletRequestBuilder request, String requests) throws Exception {
+    MvcResult response = performAsync(request
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(requests))
+        .andExpect(status().isOk())
+        .andReturn();
+    // JSON is UTF-8; MockMvc would read it as ISO-8859-1
+    return mapper.readValue(response.getResponse().getContentAsString(StandardCharsets.UTF_8), new TypeReference<>() {
+    });
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void reads_are_answered_in_order_with_their_own_statuses() throws Exception {
+    when(ucsbDiningCommonsRepository.findById("carrillo")).thenReturn(Optional.of(carrillo));
+    when(ucsbDiningCommonsRepository.findById("munger-hall")).thenReturn(Optional.empty());
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of(carrillo));
+
+    List<Map<String, Object>> responses = batch("["
+        + "{\"id\": \"me\", \"method\": \"GET\", \"url\": \"/api/currentUser\"},"
+        + "{\"id\": \"carrillo\", \"method\": \"GET\", \"url\": \"/api/ucsbdiningcommons?code=carrillo\"},"
+        + "{\"id\": \"munger\", \"method\": \"GET\", \"url\": \"/api/ucsbdiningcommons?code=munger-hall\"},"
+        + "{\"id\": \"all\", \"method\": \"GET\", \"url\": \"/api/ucsbdiningcommons/all\"}"
+        + "]");
+
+    assertEquals(List.of("me", "carrillo", "munger", "all"), responses.stream().map(r -> r.get("id")).toList());
+    assertEquals(List.of(200, 200, 404, 200), responses.stream().map(r -> r.get("status")).toList());
+    assertEquals(mapper.convertValue(carrillo, Map.class), responses.get(1).get("body"));
+    assertEquals("EntityNotFoundException", ((Map<?, ?>) responses.get(2).get("body")).get("type"));
+    assertEquals(List.of(mapper.convertValue(carrillo, Map.class)), responses.get(3).get("body"));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void results_ready_before_the_handler_returns_are_dispatched() throws Exception {
+    List<Map<String, Object>> responses = batch("["
+        + "{\"method\": \"GET\", \"url\": \"/api/test/ready\"},"
+        + "{\"method\": \"GET\", \"url\": \"/api/test/ready\"}"
+        + "]");
+
+    assertEquals(List.of(200, 200), responses.stream().map(r -> r.get("status")).toList());
+    assertEquals(Map.of("ready", "yes"), responses.get(0).get("body"));
+    assertEquals(Map.of("ready", "yes"), responses.get(1).get("body"));
+  }
+
+  @Test
+  public void each_request_is_authorized_on_its_own() throws Exception {
+    List<Map<String, Object>> responses = batch("["
+        + "{\"id\": \"carrillo\", \"method\": \"GET\", \"url\": \"/api/ucsbdiningcommons?code=carrillo\"}"
+        + "]");
+
+    assertEquals(403, responses.get(0).get("status"));
+    verify(ucsbDiningCommonsRepository, never()).findById(any());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void regular_users_cannot_write_through_a_batch() throws Exception {
+    List<Map<String, Object>> responses = batch("["
+        + "{\"method\": \"POST\", \"url\": \"/api/ucsbdiningcommons/post?code=ortega&name=Ortega&hasSackMeal=true"
+        + "&hasTakeOutMeal=true&hasDiningCam=true&latitude=34.41&longitude=-119.85\"}"
+        + "]");
+
+    assertEquals(403, responses.get(0).get("status"));
+    verify(ucsbDiningCommonsRepository, never()).save(any());
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void reads_after_a_write_see_it() throws Exception {
+    UCSBDiningCommons ortega = UCSBDiningCommons.builder()
+        .code("ortega")
+        .name("Ortega")
+        .hasSackMeal(true)
+        .hasTakeOutMeal(true)
+        .hasDiningCam(true)
+        .latitude(34.41)
+        .longitude(-119.85)
+        .build();
+    when(ucsbDiningCommonsRepository.save(ortega)).thenReturn(ortega);
+    when(ucsbDiningCommonsRepository.findById("ortega")).thenReturn(Optional.of(ortega));
+
+    List<Map<String, Object>> responses = batch("["
+        + "{\"method\": \"POST\", \"url\": \"/api/ucsbdiningcommons/post?code=ortega&name=Ortega&hasSackMeal=true"
+        + "&hasTakeOutMeal=true&hasDiningCam=true&latitude=34.41&longitude=-119.85\"},"
+        + "{\"method\": \"GET\", \"url\": \"/api/ucsbdiningcommons?code=ortega\"}"
+        + "]");
+
+    assertEquals(List.of(200, 200), responses.stream().map(r -> r.get("status")).toList());
+    assertEquals(mapper.convertValue(ortega, Map.class), responses.get(1).get("body"));
+    assertNull(responses.get(0).get("id"));
+    InOrder inOrder = inOrder(ucsbDiningCommonsRepository);
+    inOrder.verify(ucsbDiningCommonsRepository).save(ortega);
+    inOrder.verify(ucsbDiningCommonsRepository).findById("ortega");
+  }
+
+  // the filters that batched requests skip, and what stands in for each (see BatchDispatcher)
+
+  @WithMockUser(username = "alice", roles = { "USER" })
+  @Test
+  public void requests_see_the_batch_user_and_the_forwarded_client() throws Exception {
+    // as Tomcat's RemoteIpValve leaves a request that came through the proxy over https
+    List<Map<String, Object>> responses = batch(post("/api/batch")
+        .with(csrf())
+        .secure(true)
+        .with(request -> {
+          request.setScheme("https");
+          request.setRemoteAddr("203.0.113.7");
+          return request;
+        }), "["
+        + "{\"method\": \"GET\", \"url\": \"/api/test/request?q=caf%C3%A9\"}"
+        + "]");
+
+    assertEquals(200, responses.get(0).get("status"));
+    assertEquals(Map.of("user", "alice", "scheme", "https", "secure", true, "remoteAddr", "203.0.113.7",
+        "q", "caf\u00e9"), responses.get(0).get("body"));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void a_batch_without_a_csrf_token_runs_nothing() throws Exception {
+    mockMvc.perform(post("/api/batch")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("["
+            + "{\"method\": \"DELETE\", \"url\": \"/api/ucsbdiningcommons?code=carrillo\"}"
+            + "]"))
+        .andExpect(status().isForbidden());
+
+    verify(ucsbDiningCommonsRepository, never()).findById(any());
+    verify(ucsbDiningCommonsRepository, never()).delete(any());
+  }
+
+  @WithMockUser(username = "over-budget", roles = { "ADMIN", "USER" })
+  @Test
+  public void requests_are_charged_to_the_budget_they_would_use_alone() throws Exception {
+    ReflectionTestUtils.setField(rateLimiter, "enabled", true);
+    List<Map<String, Object>> responses;
+    try {
+      while (rateLimiter.acquire("over-budget", Budget.WRITE) == 0) {
+        // spends the write budget; the batch itself is charged to the read budget
+      }
+      responses = batch("["
+          + "{\"method\": \"GET\", \"url\": \"/api/test/ready\"},"
+          + "{\"method\": \"POST\", \"url\": \"/api/ucsbdiningcommons/post?code=ortega&name=Ortega&hasSackMeal=true"
+          + "&hasTakeOutMeal=true&hasDiningCam=true&latitude=34.41&longitude=-119.85\"}"
+          + "]");
+    } finally {
+      ReflectionTestUtils.setField(rateLimiter, "enabled", false);
+    }
+
+    assertEquals(List.of(200, 429), responses.stream().map(r -> r.get("status")).toList());
+    assertNotNull(((Map<?, ?>) responses.get(1).get("headers")).get("Retry-After"));
+    assertEquals("TooManyRequests", ((Map<?, ?>) responses.get(1).get("body")).get("type"));
+    verify(ucsbDiningCommonsRepository, never()).save(any());
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void security_headers_are_on_the_batch_response() throws Exception {
+    MvcResult started = mockMvc.perform(post("/api/batch")
+        .with(csrf())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("[{\"method\": \"GET\", \"url\": \"/api/test/ready\"}]"))
+        .andExpect(request().asyncStarted())
+        .andExpect(header().string("X-Content-Type-Options", "nosniff"))
+        .andReturn();
+
+    List<Map<String, Object>> responses = mapper.readValue(
+        mockMvc.perform(asyncDispatch(started)).andReturn().getResponse().getContentAsString(),
+        new TypeReference<>() {
+        });
+    assertNull(((Map<?, ?>) responses.get(0).get("headers")).get("X-Content-Type-Options"));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void malformed_batches_are_rejected() throws Exception {
+    String[] batches = {
+        "[]",
+        "[{\"method\": \"GET\", \"url\": \"/logout\"}]",
+        "[{\"method\": \"GET\", \"url\": \"/api/../h2-console\"}]",
+        "[{\"method\": \"PATCH\", \"url\": \"/api/currentUser\"}]",
+        "[{\"method\": \"POST\", \"url\": \"/api/batch\"}]",
+        "[" + "{\"method\": \"GET\", \"url\": \"/api/currentUser\"},".repeat(20)
+            + "{\"method\": \"GET\", \"url\": \"/api/currentUser\"}]",
+    };
+    for (String requests : batches) {
+      mockMvc.perform(post("/api/batch")
+          .with(csrf())
+          .contentType(MediaType.APPLICATION_JSON)
+          .content(requests))
+          .andExpect(status().isBadRequest());
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.QueryCountTestCase;
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.Recommendation;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Statement budget for the dashboard: a count and a page of summaries for
+ * each of its four sections.
+ */
+public class DashboardControllerQueryCountTests extends QueryCountTestCase {
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  @Autowired
+  RecommendationRepository recommendationRepository;
+
+  @Autowired
+  ArticleRepository articleRepository;
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @BeforeEach
+  public void createRows() {
+    LocalDateTime now = LocalDateTime.now();
+    helpRequestRepository.saveAll(List.of(
+        HelpRequest.builder().requesterEmail("cgaucho@ucsb.edu").teamId("6pm-1").tableOrBreakoutRoom("7")
+            .requestTime(now.minusHours(2)).explanation("dokku is down").solved(false).build(),
+        HelpRequest.builder().requesterEmail("ldelplaya@ucsb.edu").teamId("6pm-2").tableOrBreakoutRoom("8")
+            .requestTime(now.minusHours(1)).explanation("tests fail").solved(true).build(),
+        HelpRequest.builder().requesterEmail("pdg@ucsb.edu").teamId("6pm-3").tableOrBreakoutRoom("9")
+            .requestTime(now.minusHours(3)).explanation("merge conflict").solved(false).build()));
+    recommendationRepository.saveAll(List.of(
+        Recommendation.builder().requesterEmail("cgaucho@ucsb.edu").professorEmail("phtcon@ucsb.edu")
+            .explanation("grad school").dateRequested(now.minusDays(3)).dateNeeded(now.plusDays(7)).done(false).build(),
+        Recommendation.builder().requesterEmail("ldelplaya@ucsb.edu").professorEmail("phtcon@ucsb.edu")
+            .explanation("internship").dateRequested(now.minusDays(9)).dateNeeded(now.minusDays(1)).done(false)
+            .build()));
+    articleRepository.save(Article.builder().title("Using git").url("https://git-scm.com")
+        .explanation("a git tutorial").email("cgaucho@ucsb.edu").dateAdded(now.minusDays(1)).build());
+    menuItemReviewRepository.save(MenuItemReview.builder().itemId(7L).reviewerEmail("cgaucho@ucsb.edu").stars(4)
+        .dateReviewed(now.minusDays(2)).comments("fine").build());
+  }
+
+  @AfterEach
+  public void deleteRows() {
+    helpRequestRepository.deleteAll();
+    recommendationRepository.deleteAll();
+    articleRepository.deleteAll();
+    menuItemReviewRepository.deleteAll();
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void dashboard_is_a_count_and_a_page_per_section() throws Exception {
+    queriesDuring(() -> performAsync(get("/api/dashboard"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.unavailable.length()").value(0))
+        .andExpect(jsonPath("$.unsolvedHelpRequests.count").value(2))
+        .andExpect(jsonPath("$.unsolvedHelpRequests.items[0].teamId").value("6pm-3"))
+        .andExpect(jsonPath("$.unsolvedHelpRequests.items[1].teamId").value("6pm-1"))
+        .andExpect(jsonPath("$.upcomingRecommendations.count").value(1))
+        .andExpect(jsonPath("$.upcomingRecommendations.items[0].explanation").doesNotExist())
+        .andExpect(jsonPath("$.latestArticles.items[0].title").value("Using git"))
+        .andExpect(jsonPath("$.recentReviews.items[0].stars").value(4)))
+        .atMostSelects(8)
+        .atMostStatements(8);
+  }
+}
@@ -0,0 +1,194 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.Recommendation;
+import edu.ucsb.cs156.example.models.ArticleSummary;
+import edu.ucsb.cs156.example.models.HelpRequestSummary;
+import edu.ucsb.cs156.example.models.MenuItemReviewSummary;
+import edu.ucsb.cs156.example.models.RecommendationSummary;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.RecommendationRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = DashboardController.class)
+@Import({ TestConfig.class, JdbcExecutor.class })
+public class DashboardControllerTests extends ControllerTestCase {
+
+  @MockBean
+  HelpRequestRepository helpRequestRepository;
+
+  @MockBean
+  RecommendationRepository recommendationRepository;
+
+  @MockBean
+  ArticleRepository articleRepository;
+
+  @MockBean
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @Autowired
+  DashboardController dashboardController;
+
+  private final SpelAwareProxyProjectionFactory projections = new SpelAwareProxyProjectionFactory();
+
+  private final HelpRequest helpRequest = HelpRequest.builder()
+      .id(1)
+      .requesterEmail("cgaucho@ucsb.edu")
+      .teamId("f22-6pm-1")
+      .tableOrBreakoutRoom("7")
+      .requestTime(LocalDateTime.parse("2022-10-20T18:05:00"))
+      .explanation("Dokku deployment fails")
+      .solved(false)
+      .build();
+
+  private final Recommendation recommendation = Recommendation.builder()
+      .id(2)
+      .requesterEmail("cgaucho@ucsb.edu")
+      .professorEmail("phtcon@ucsb.edu")
+      .explanation("BS/MS program")
+      .dateRequested(LocalDateTime.parse("2022-10-01T00:00:00"))
+      .dateNeeded(LocalDateTime.parse("2999-01-01T00:00:00"))
+      .done(false)
+      .build();
+
+  private final Article article = Article.builder()
+      .id(3)
+      .title("Using Dokku")
+      .url("https://dokku.com/docs/")
+      .explanation("Deployment guide")
+      .email("phtcon@ucsb.edu")
+      .dateAdded(LocalDateTime.parse("2022-10-19T12:00:00"))
+      .build();
+
+  private final MenuItemReview review = MenuItemReview.builder()
+      .id(4L)
+      .itemId(27L)
+      .reviewerEmail("cgaucho@ucsb.edu")
+      .stars(5)
+      .dateReviewed(LocalDateTime.parse("2022-10-18T19:30:00"))
+      .comments("Great tacos")
+      .build();
+
+  private void stubAllSections() {
+    when(helpRequestRepository.countBySolved(false)).thenReturn(3L);
+    when(helpRequestRepository.findBySolved(eq(false), any(Pageable.class)))
+        .thenReturn(List.of(projections.createProjection(HelpRequestSummary.class, helpRequest)));
+    when(recommendationRepository.countByDoneAndDateNeededGreaterThanEqual(eq(false), any())).thenReturn(1L);
+    when(recommendationRepository.findByDoneAndDateNeededGreaterThanEqual(eq(false), any(), any(Pageable.class)))
+        .thenReturn(List.of(projections.createProjection(RecommendationSummary.class, recommendation)));
+    when(articleRepository.count()).thenReturn(12L);
+    when(articleRepository.findAllBy(any(Pageable.class)))
+        .thenReturn(List.of(projections.createProjection(ArticleSummary.class, article)));
+    when(menuItemReviewRepository.count()).thenReturn(40L);
+    when(menuItemReviewRepository.findAllBy(any(Pageable.class)))
+        .thenReturn(List.of(projections.createProjection(MenuItemReviewSummary.class, review)));
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_the_dashboard() throws Exception {
+    mockMvc.perform(get("/api/dashboard"))
+        .andExpect(status().is(403));
+    verify(helpRequestRepository, never()).countBySolved(false);
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void logged_in_users_get_every_section() throws Exception {
+    stubAllSections();
+
+    MvcResult response = performAsync(get("/api/dashboard"))
+        .andExpect(status().isOk()).andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(List.of(), json.get("unavailable"));
+    Map<?, ?> helpRequests = (Map<?, ?>) json.get("unsolvedHelpRequests");
+    assertEquals(3, helpRequests.get("count"));
+    Map<?, ?> helpRequestRow = (Map<?, ?>) ((List<?>) helpRequests.get("items")).get(0);
+    assertEquals("f22-6pm-1", helpRequestRow.get("teamId"));
+    assertFalse(helpRequestRow.containsKey("explanation"));
+    assertEquals(1, ((Map<?, ?>) json.get("upcomingRecommendations")).get("count"));
+    assertEquals(12, ((Map<?, ?>) json.get("latestArticles")).get("count"));
+    assertEquals(40, ((Map<?, ?>) json.get("recentReviews")).get("count"));
+
+    verify(helpRequestRepository).findBySolved(false, PageRequest.of(0, 5, Sort.by("requestTime")));
+    verify(articleRepository).findAllBy(PageRequest.of(0, 5, Sort.by("dateAdded").descending()));
+    verify(menuItemReviewRepository).findAllBy(PageRequest.of(0, 5, Sort.by("dateReviewed").descending()));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void a_slow_section_is_left_out() throws Exception {
+    stubAllSections();
+    when(articleRepository.count()).thenAnswer(invocation -> {
+      Thread.sleep(5000);
+      return 12L;
+    });
+    DashboardController target = AopTestUtils.getUltimateTargetObject(dashboardController);
+    long timeoutMillis = target.timeoutMillis;
+    target.timeoutMillis = 500;
+    try {
+      MvcResult response = performAsync(get("/api/dashboard"))
+          .andExpect(status().isOk()).andReturn();
+
+      Map<String, Object> json = responseToJson(response);
+      assertEquals(List.of(DashboardController.LATEST_ARTICLES), json.get("unavailable"));
+      assertFalse(json.containsKey("latestArticles"));
+      assertEquals(3, ((Map<?, ?>) json.get("unsolvedHelpRequests")).get("count"));
+      assertEquals(40, ((Map<?, ?>) json.get("recentReviews")).get("count"));
+    } finally {
+      target.timeoutMillis = timeoutMillis;
+    }
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void a_failing_section_is_left_out() throws Exception {
+    stubAllSections();
+    when(helpRequestRepository.countBySolved(false)).thenThrow(new IllegalStateException("connection reset"));
+
+    MvcResult response = performAsync(get("/api/dashboard"))
+        .andExpect(status().isOk()).andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(List.of(DashboardController.UNSOLVED_HELP_REQUESTS), json.get("unavailable"));
+    assertFalse(json.containsKey("unsolvedHelpRequests"));
+    assertEquals(1, ((Map<?, ?>) json.get("upcomingRecommendations")).get("count"));
+  }
+}
@@ -0,0 +1,123 @@
+package edu.ucsb.cs156.example.controllers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+public class FrontendControllerTests {
+
+  private static final byte[] INDEX_HTML = "<!doctype html><title>Example</title><div id=\"root\"></div>"
+      .getBytes(StandardCharsets.UTF_8);
+
+  /** index.html as a resource that counts how often it is read. */
+  private static class CountingResource extends ByteArrayResource {
+    final AtomicInteger reads = new AtomicInteger();
+
+    CountingResource(byte[] bytes) {
+      super(bytes);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+      reads.incrementAndGet();
+      return super.getInputStream();
+    }
+  }
+
+  private final CountingResource indexHtml = new CountingResource(INDEX_HTML);
+
+  private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new FrontendController(indexHtml)).build();
+
+  @Test
+  public void index_html_is_served_without_compression_and_must_be_revalidated() throws Exception {
+    MvcResult response = mockMvc.perform(get("/"))
+        .andExpect(status().isOk())
+        .andExpect(content().contentType("text/html"))
+        .andExpect(header().string("Cache-Control", "no-cache"))
+        .andExpect(header().string("Vary", "Accept-Encoding"))
+        .andExpect(header().doesNotExist("Content-Encoding"))
+        .andReturn();
+
+    assertArrayEquals(INDEX_HTML, response.getResponse().getContentAsByteArray());
+  }
+
+  @Test
+  public void index_html_is_gzipped_when_gzip_is_accepted() throws Exception {
+    MvcResult response = mockMvc.perform(get("/").header("Accept-Encoding", "gzip, deflate, br"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("Content-Encoding", "gzip"))
+        .andExpect(header().string("Cache-Control", "no-cache"))
+        .andReturn();
+
+    try (GZIPInputStream in = new GZIPInputStream(
+        new ByteArrayInputStream(response.getResponse().getContentAsByteArray()))) {
+      assertArrayEquals(INDEX_HTML, in.readAllBytes());
+    }
+  }
+
+  @Test
+  public void both_bodies_share_one_weak_etag() throws Exception {
+    String identity = mockMvc.perform(get("/"))
+        .andReturn().getResponse().getHeader("ETag");
+    String gzipped = mockMvc.perform(get("/").header("Accept-Encoding", "gzip"))
+        .andReturn().getResponse().getHeader("ETag");
+
+    assertTrue(identity.startsWith("W/\""), identity);
+    assertEquals(identity, gzipped);
+  }
+
+  @Test
+  public void a_matching_if_none_match_is_answered_with_304() throws Exception {
+    String etag = mockMvc.perform(get("/")).andReturn().getResponse().getHeader("ETag");
+
+    MvcResult response = mockMvc.perform(get("/").header("If-None-Match", etag).header("Accept-Encoding", "gzip"))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", etag))
+        .andReturn();
+    assertEquals(0, response.getResponse().getContentLength());
+
+    mockMvc.perform(get("/").header("If-None-Match", "W/\"stale\""))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  public void client_side_routes_get_index_html_which_is_read_once() throws Exception {
+    mockMvc.perform(get("/"))
+        .andExpect(status().isOk());
+    mockMvc.perform(get("/helprequest/list"))
+        .andExpect(status().isOk())
+        .andExpect(content().bytes(INDEX_HTML));
+    mockMvc.perform(get("/ucsbdates/edit/7").header("Accept-Encoding", "gzip"))
+        .andExpect(status().isOk());
+
+    assertEquals(1, indexHtml.reads.get());
+  }
+
+  @Test
+  public void without_a_frontend_build_index_html_is_not_found() throws Exception {
+    MockMvc withoutBuild = MockMvcBuilders
+        .standaloneSetup(new FrontendController(new ClassPathResource("no-such-build/index.html")))
+        .build();
+
+    withoutBuild.perform(get("/"))
+        .andExpect(status().isNotFound());
+    withoutBuild.perform(get("/helprequest/list"))
+        .andExpect(status().isNotFound());
+  }
+}
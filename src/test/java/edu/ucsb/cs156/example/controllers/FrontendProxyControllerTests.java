@@ -0,0 +1,133 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.testconfig.StubDevServer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FrontendProxyControllerTests {
+
+  private final HttpClient httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+  private StubDevServer devServer;
+  private FrontendProxyController controller;
+
+  @BeforeEach
+  public void startDevServer() throws Exception {
+    devServer = new StubDevServer();
+    controller = new FrontendProxyController(httpClient, devServer.getUri());
+  }
+
+  @AfterEach
+  public void stopDevServer() {
+    devServer.close();
+  }
+
+  @Test
+  public void binary_assets_are_streamed_unchanged() throws Exception {
+    // arrange
+
+    byte[] image = new byte[256 * 1024];
+    for (int i = 0; i < image.length; i++) {
+      image[i] = (byte) i;
+    }
+    devServer.respond("/static/media/logo.png", 200, "image/png", image);
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/static/media/logo.png");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // act
+
+    controller.proxy(request, response);
+
+    // assert
+
+    assertEquals(200, response.getStatus());
+    assertEquals("image/png", response.getContentType());
+    assertEquals(String.valueOf(image.length), response.getHeader("Content-Length"));
+    assertArrayEquals(image, response.getContentAsByteArray());
+  }
+
+  @Test
+  public void path_query_and_headers_are_forwarded() throws Exception {
+    // arrange
+
+    devServer.respond("/static/js/main.js", 200, "application/javascript", "console.log(1)".getBytes());
+
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/static/js/main.js");
+    request.setQueryString("v=2");
+    request.addHeader("Accept-Encoding", "gzip");
+    request.addHeader("Connection", "keep-alive");
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // act
+
+    controller.proxy(request, response);
+
+    // assert
+
+    assertEquals("console.log(1)", response.getContentAsString());
+    StubDevServer.Request forwarded = devServer.getRequests().get(0);
+    assertEquals("/static/js/main.js?v=2", forwarded.uri());
+    assertEquals("gzip", forwarded.headers().get("Accept-encoding").get(0));
+  }
+
+  @Test
+  public void hop_by_hop_response_headers_are_dropped() throws Exception {
+    // arrange
+
+    devServer.respond("/index.html", 200, "text/html", "<html></html>".getBytes());
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // act
+
+    controller.proxy(new MockHttpServletRequest("GET", "/index.html"), response);
+
+    // assert
+
+    assertNull(response.getHeader("Connection"));
+    assertNull(response.getHeader("Transfer-Encoding"));
+    assertEquals("<html></html>", response.getContentAsString());
+  }
+
+  @Test
+  public void dev_server_errors_are_passed_through() throws Exception {
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    controller.proxy(new MockHttpServletRequest("GET", "/missing"), response);
+
+    assertEquals(404, response.getStatus());
+    assertEquals("not found", response.getContentAsString());
+  }
+
+  @Test
+  public void instructions_are_shown_when_the_dev_server_is_down() throws Exception {
+    // arrange
+
+    URI stopped = devServer.getUri();
+    devServer.close();
+    controller = new FrontendProxyController(httpClient, stopped);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // act
+
+    controller.proxy(new MockHttpServletRequest("GET", "/"), response);
+
+    // assert
+
+    assertEquals(200, response.getStatus());
+    assertTrue(response.getContentType().startsWith("text/html"));
+    assertTrue(response.getContentAsString().contains("npm install; npm start"));
+  }
+}
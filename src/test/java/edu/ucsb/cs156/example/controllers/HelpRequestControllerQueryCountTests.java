@@ -0,0 +1,69 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.QueryCountTestCase;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Statement budgets for the HelpRequest reads, which run on JdbcExecutor
+ * rather than the request thread.
+ */
+public class HelpRequestControllerQueryCountTests extends QueryCountTestCase {
+
+  @Autowired
+  HelpRequestRepository helpRequestRepository;
+
+  List<HelpRequest> helpRequests;
+
+  @BeforeEach
+  public void createHelpRequests() {
+    helpRequests = List.of(helpRequest("6pm-1", false), helpRequest("6pm-2", true));
+    helpRequestRepository.saveAll(helpRequests);
+  }
+
+  @AfterEach
+  public void deleteHelpRequests() {
+    helpRequestRepository.deleteAll();
+  }
+
+  private static HelpRequest helpRequest(String teamId, boolean solved) {
+    return HelpRequest.builder()
+        .requesterEmail("cgaucho@ucsb.edu")
+        .teamId(teamId)
+        .tableOrBreakoutRoom("7")
+        .requestTime(LocalDateTime.parse("2022-10-01T12:00:00"))
+        .explanation("dokku is down")
+        .solved(solved)
+        .build();
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void all_is_one_select() throws Exception {
+    queriesDuring(() -> performAsync(get("/api/helprequest/all"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(2)))
+        .atMostStatements(1);
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void get_by_ids_is_one_select() throws Exception {
+    String ids = helpRequests.get(0).getId() + "," + helpRequests.get(1).getId();
+    queriesDuring(() -> performAsync(get("/api/helprequest?ids=" + ids))
+        .andExpect(status().isOk()))
+        .atMostStatements(1);
+  }
+}
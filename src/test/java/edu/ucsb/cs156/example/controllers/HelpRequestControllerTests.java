@@ -4,12 +4,25 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.HelpRequestSummary;
+import edu.ucsb.cs156.example.entities.Tombstone;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -26,14 +39,16 @@ import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = HelpRequestController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, JdbcExecutor.class, RequestCoalescer.class })
 public class HelpRequestControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -42,6 +57,12 @@ public class HelpRequestControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        TombstoneRepository tombstoneRepository;
+
+        @Autowired
+        MappingJackson2CborHttpMessageConverter cborConverter;
+
         // Authorization tests for /api/helprequest/admin/all
 
         @Test
@@ -53,7 +74,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
         @WithMockUser(roles = { "USER" })
         @Test
         public void logged_in_users_can_get_all() throws Exception {
-                mockMvc.perform(get("/api/helprequest/all"))
+                performAsync(get("/api/helprequest/all"))
                                 .andExpect(status().is(200)); // logged
         }
 
@@ -130,7 +151,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 when(helpRequestRepository.findById(eq(7L))).thenReturn(Optional.of(helpRequest));
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/helprequest?id=7"))
+                MvcResult response = performAsync(get("/api/helprequest?id=7"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -150,7 +171,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 when(helpRequestRepository.findById(eq(7L))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/helprequest?id=7"))
+                MvcResult response = performAsync(get("/api/helprequest?id=7"))
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
@@ -194,7 +215,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 when(helpRequestRepository.findAll()).thenReturn(expectedHelpRequests);
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/helprequest/all"))
+                MvcResult response = performAsync(get("/api/helprequest/all"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -224,7 +245,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 when(helpRequestRepository.save(eq(helpRequest1))).thenReturn(helpRequest1);
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 post("/api/helprequest/post?requesterEmail=pconrad@ucsb.edu&teamId=f22-5pm-1&tableOrBreakoutRoom=table&requestTime=2022-10-01T00:00:00&explanation=Im the teacher bro&solved=true")
                                                 .with(csrf()))
                                 .andExpect(status().isOk()).andReturn();
@@ -255,7 +276,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 when(helpRequestRepository.findById(eq(15L))).thenReturn(Optional.of(helpRequest1));
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 delete("/api/helprequest?id=15")
                                                 .with(csrf()))
                                 .andExpect(status().isOk()).andReturn();
@@ -277,7 +298,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 when(helpRequestRepository.findById(eq(15L))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 delete("/api/helprequest?id=15")
                                                 .with(csrf()))
                                 .andExpect(status().isNotFound()).andReturn();
@@ -320,7 +341,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.of(helpRequestOrig));
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 put("/api/helprequest?id=67")
                                                 .contentType(MediaType.APPLICATION_JSON)
                                                 .characterEncoding("utf-8")
@@ -356,7 +377,7 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 when(helpRequestRepository.findById(eq(67L))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 put("/api/helprequest?id=67")
                                                 .contentType(MediaType.APPLICATION_JSON)
                                                 .characterEncoding("utf-8")
@@ -369,4 +390,209 @@ public class HelpRequestControllerTests extends ControllerTestCase {
                 Map<String, Object> json = responseToJson(response);
                 assertEquals("HelpRequest with id 67 not found", json.get("message"));
         }
-}
\ No newline at end of file
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_changes_since_a_token() throws Exception {
+
+                // arrange
+
+                HelpRequest changed = HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("f22-6pm-1")
+                                .changeSeq(7L)
+                                .build();
+
+                Tombstone deleted = Tombstone.builder()
+                                .changeSeq(9L)
+                                .entityType("HelpRequest")
+                                .entityId("3")
+                                .build();
+
+                when(helpRequestRepository.findByChangeSeqGreaterThan(eq(5L))).thenReturn(List.of(changed));
+                when(tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(eq("HelpRequest"), eq(5L))).thenReturn(List.of(deleted));
+
+                // act
+                MvcResult response = performAsync(get("/api/helprequest/changes?since=5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(helpRequestRepository, times(1)).findByChangeSeqGreaterThan(5L);
+                ChangeSet<HelpRequest> expected = ChangeSet.<HelpRequest>builder()
+                                .changed(List.of(changed))
+                                .deleted(List.of("3"))
+                                .token(9L)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_all_helprequests_as_cbor() throws Exception {
+
+                // arrange
+
+                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
+
+                HelpRequest helpRequest1 = HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(ldt1)
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+
+                when(helpRequestRepository.findAll()).thenReturn(List.of(helpRequest1));
+
+                // act
+                MvcResult response = performAsync(get("/api/helprequest/all").accept(MediaType.APPLICATION_CBOR))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_CBOR)).andReturn();
+
+                // assert
+
+                verify(helpRequestRepository, times(1)).findAll();
+                byte[] body = response.getResponse().getContentAsByteArray();
+                HelpRequest[] decoded = cborConverter.getObjectMapper().readValue(body, HelpRequest[].class);
+                assertEquals(List.of(helpRequest1), List.of(decoded));
+
+                // dates travel as the same ISO-8601 strings the JSON responses use
+                Map<?, ?> first = cborConverter.getObjectMapper().readValue(body, Map[].class)[0];
+                assertEquals("2022-01-03T00:00:00", first.get("requestTime"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void not_found_error_is_returned_as_cbor_when_requested() throws Exception {
+
+                // arrange
+
+                when(helpRequestRepository.findById(eq(7L))).thenReturn(Optional.empty());
+
+                // act
+                MvcResult response = performAsync(get("/api/helprequest?id=7").accept(MediaType.APPLICATION_CBOR))
+                                .andExpect(status().isNotFound())
+                                .andExpect(content().contentType(MediaType.APPLICATION_CBOR)).andReturn();
+
+                // assert
+
+                Map<?, ?> error = cborConverter.getObjectMapper()
+                                .readValue(response.getResponse().getContentAsByteArray(), Map.class);
+                assertEquals("EntityNotFoundException", error.get("type"));
+                assertEquals("HelpRequest with id 7 not found", error.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_summary_of_all_helprequests() throws Exception {
+
+                // arrange
+
+                HelpRequest helpRequest1 = HelpRequest.builder()
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+                HelpRequestSummary summary = new SpelAwareProxyProjectionFactory().createProjection(HelpRequestSummary.class, helpRequest1);
+
+                when(helpRequestRepository.findAllBy()).thenReturn(List.of(summary));
+
+                // act
+                MvcResult response = performAsync(get("/api/helprequest/all?fields=summary"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(helpRequestRepository, never()).findAll();
+                Map<String, Object> row = mapper.readValue(response.getResponse().getContentAsString(), Map[].class)[0];
+                assertEquals("s22-5pm-3", row.get("teamId"));
+                assertFalse(row.containsKey("explanation"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_selected_fields_of_all_helprequests() throws Exception {
+
+                // arrange
+
+                List<Map<String, Object>> rows = List.of(Map.of("id", 1, "teamId", "s22-5pm-3"));
+                when(helpRequestRepository.findAllFields(eq(HelpRequest.class), eq(List.of("id", "teamId")))).thenReturn(rows);
+
+                // act
+                MvcResult response = performAsync(get("/api/helprequest/all?fields=id, teamId,id"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(helpRequestRepository, never()).findAll();
+                verify(helpRequestRepository, times(1)).findAllFields(eq(HelpRequest.class), eq(List.of("id", "teamId")));
+                assertEquals(mapper.writeValueAsString(rows), response.getResponse().getContentAsString());
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void unknown_field_is_rejected_with_a_400() throws Exception {
+
+                // act
+                MvcResult response = performAsync(get("/api/helprequest/all?fields=id,password"))
+                                .andExpect(status().isBadRequest()).andReturn();
+
+                // assert
+
+                Map<String, Object> json = responseToJson(response);
+                assertEquals("InvalidRequestException", json.get("type"));
+                assertEquals("HelpRequest has no field password", json.get("message"));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_several_helprequests_in_one_request() throws Exception {
+
+                // arrange
+
+                HelpRequest row1 = HelpRequest.builder()
+                                .id(1L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-1")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+
+                HelpRequest row3 = HelpRequest.builder()
+                                .id(3L)
+                                .requesterEmail("cgaucho@ucsb.edu")
+                                .teamId("s22-5pm-3")
+                                .tableOrBreakoutRoom("7")
+                                .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .explanation("Need help with Swagger-ui")
+                                .solved(false)
+                                .build();
+
+                when(helpRequestRepository.findAllById(eq(Set.of(1L, 2L, 3L)))).thenReturn(List.of(row1, row3));
+
+                // act
+                MvcResult response = performAsync(get("/api/helprequest?ids=3,1,2,1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(helpRequestRepository, times(1)).findAllById(eq(Set.of(1L, 2L, 3L)));
+                Map<Long, HelpRequest> found = new LinkedHashMap<>();
+                found.put(3L, row3);
+                found.put(1L, row1);
+                MultiGetResult<Long, HelpRequest> expected = MultiGetResult.<Long, HelpRequest>builder()
+                                .found(found)
+                                .missing(List.of(2L))
+                                .build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
+}
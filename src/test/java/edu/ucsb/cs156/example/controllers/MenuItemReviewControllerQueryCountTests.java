@@ -0,0 +1,167 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.QueryCountTestCase;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Statement budgets for the MenuItemReview endpoints.  Every insert,
+ * update and delete also advances and reads <code>change_clock</code>, and
+ * every delete writes a tombstone (see ChangeSequenceListener).
+ */
+public class MenuItemReviewControllerQueryCountTests extends QueryCountTestCase {
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  List<MenuItemReview> reviews;
+
+  @BeforeEach
+  public void createReviews() {
+    reviews = List.of(review("cgaucho@ucsb.edu", 4), review("ldelplaya@ucsb.edu", 2), review("pdg@ucsb.edu", 5));
+    menuItemReviewRepository.saveAll(reviews);
+  }
+
+  @AfterEach
+  public void deleteReviews() {
+    menuItemReviewRepository.deleteAll();
+  }
+
+  private static MenuItemReview review(String reviewerEmail, int stars) {
+    return MenuItemReview.builder()
+        .itemId(7L)
+        .reviewerEmail(reviewerEmail)
+        .stars(stars)
+        .dateReviewed(LocalDateTime.parse("2022-10-01T12:00:00"))
+        .comments("fine")
+        .build();
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void all_is_one_select_however_many_reviews_there_are() throws Exception {
+    queriesDuring(() -> performAsync(get("/api/MenuItemReview/all"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(3)))
+        .atMostSelects(1)
+        .atMostStatements(1);
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void summary_listing_is_one_select() throws Exception {
+    queriesDuring(() -> performAsync(get("/api/MenuItemReview/all?fields=summary"))
+        .andExpect(status().isOk()))
+        .atMostStatements(1);
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void get_by_id_is_one_select() throws Exception {
+    queriesDuring(() -> performAsync(get("/api/MenuItemReview?id=" + reviews.get(0).getId()))
+        .andExpect(status().isOk()))
+        .atMostStatements(1);
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void get_by_ids_is_one_select_for_all_the_ids() throws Exception {
+    String ids = reviews.get(0).getId() + "," + reviews.get(1).getId() + "," + reviews.get(2).getId();
+    queriesDuring(() -> performAsync(get("/api/MenuItemReview?ids=" + ids))
+        .andExpect(status().isOk()))
+        .atMostStatements(1);
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void changes_since_a_token_are_two_selects() throws Exception {
+    queriesDuring(() -> performAsync(get("/api/MenuItemReview/changes?since=0"))
+        .andExpect(status().isOk()))
+        .atMostSelects(2)
+        .atMostStatements(2);
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void post_is_one_insert() throws Exception {
+    queriesDuring(() -> performAsync(post("/api/MenuItemReview/post")
+        .param("itemId", "7")
+        .param("reviewerEmail", "cgaucho@ucsb.edu")
+        .param("stars", "3")
+        .param("dateReviewed", "2022-10-02T12:00:00")
+        .param("comments", "ok")
+        .with(csrf()))
+        .andExpect(status().isOk()))
+        .atMostInserts(1)
+        .atMostUpdates(1) // change_clock
+        .atMostSelects(1) // change_clock
+        .atMostStatements(3);
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void put_is_one_update() throws Exception {
+    MenuItemReview edited = review("cgaucho@ucsb.edu", 1);
+    // the controller's findById, the merge in save(), and change_clock
+    queriesDuring(() -> performAsync(put("/api/MenuItemReview?id=" + reviews.get(0).getId())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(mapper.writeValueAsString(edited))
+        .with(csrf()))
+        .andExpect(status().isOk()))
+        .atMostUpdates(2)
+        .atMostSelects(3)
+        .atMostStatements(5);
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void delete_is_one_delete_and_a_tombstone() throws Exception {
+    // the controller's findById, the lookup in delete(), and change_clock
+    queriesDuring(() -> performAsync(delete("/api/MenuItemReview?id=" + reviews.get(0).getId())
+        .with(csrf()))
+        .andExpect(status().isOk()))
+        .atMostDeletes(1)
+        .atMostInserts(1)
+        .atMostUpdates(1) // change_clock
+        .atMostSelects(3)
+        .atMostStatements(6);
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void get_by_id_is_served_from_the_entity_cache_until_the_review_changes() throws Exception {
+    String url = "/api/MenuItemReview?id=" + reviews.get(0).getId();
+    performAsync(get(url)).andExpect(status().isOk());
+
+    queriesDuring(() -> performAsync(get(url))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.stars").value(4)))
+        .atMostStatements(0);
+
+    performAsync(put(url)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(mapper.writeValueAsString(review("cgaucho@ucsb.edu", 1)))
+        .with(csrf()))
+        .andExpect(status().isOk());
+    performAsync(get(url))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.stars").value(1));
+
+    performAsync(delete(url).with(csrf())).andExpect(status().isOk());
+    performAsync(get(url)).andExpect(status().isNotFound());
+  }
+}
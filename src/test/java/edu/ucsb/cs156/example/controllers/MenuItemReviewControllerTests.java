@@ -4,14 +4,29 @@ package edu.ucsb.cs156.example.controllers;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.WireFormatConfig;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.MenuItemReviewSummary;
+import edu.ucsb.cs156.example.entities.Tombstone;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -26,14 +41,16 @@ import static org.springframework.security.test.web.servlet.request.SecurityMock
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = MenuItemReviewController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, JdbcExecutor.class })
 
 public class MenuItemReviewControllerTests extends ControllerTestCase {
     @MockBean
@@ -42,6 +59,12 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        TombstoneRepository tombstoneRepository;
+
+        @Autowired
+        MappingJackson2SmileHttpMessageConverter smileConverter;
+
         // Authorization tests for /api/MenuItemReview/admin/all
 
         @Test
@@ -53,7 +76,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
         @WithMockUser(roles = { "USER" })
         @Test
         public void logged_in_users_can_get_all() throws Exception {
-                mockMvc.perform(get("/api/MenuItemReview/all"))
+                performAsync(get("/api/MenuItemReview/all"))
                                 .andExpect(status().is(200)); // logged
         }
 
@@ -100,7 +123,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 when(menuItemReviewRepository.findById(eq(1L))).thenReturn(Optional.of(review));
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/MenuItemReview?id=1"))
+                MvcResult response = performAsync(get("/api/MenuItemReview?id=1"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -120,7 +143,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 when(menuItemReviewRepository.findById(eq(0L))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/MenuItemReview?id=0"))
+                MvcResult response = performAsync(get("/api/MenuItemReview?id=0"))
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
@@ -161,7 +184,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 when(menuItemReviewRepository.findAll()).thenReturn(expectedReviews);
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/MenuItemReview/all"))
+                MvcResult response = performAsync(get("/api/MenuItemReview/all"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -188,7 +211,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 when(menuItemReviewRepository.save(eq(review3))).thenReturn(review3);
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 post("/api/MenuItemReview/post?itemId=3&reviewerEmail=test2@gmail.com&stars=5&comments=Best Pizza in town&dateReviewed=2022-05-01T02:22:22")
                                                 .with(csrf()))
                                 .andExpect(status().isOk()).andReturn();
@@ -217,7 +240,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 when(menuItemReviewRepository.findById(eq(1L))).thenReturn(Optional.of(review4));
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 delete("/api/MenuItemReview?id=1")
                                                 .with(csrf()))
                                 .andExpect(status().isOk()).andReturn();
@@ -239,7 +262,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 when(menuItemReviewRepository.findById(eq(6L))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 delete("/api/MenuItemReview?id=6")
                                                 .with(csrf()))
                                 .andExpect(status().isNotFound()).andReturn();
@@ -279,7 +302,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 when(menuItemReviewRepository.findById(eq(2L))).thenReturn(Optional.of(reviewOrig));
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 put("/api/MenuItemReview?id=2")
                                                 .contentType(MediaType.APPLICATION_JSON)
                                                 .characterEncoding("utf-8")
@@ -314,7 +337,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
                 when(menuItemReviewRepository.findById(eq(1L))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 put("/api/MenuItemReview?id=3")
                                                 .contentType(MediaType.APPLICATION_JSON)
                                                 .characterEncoding("utf-8")
@@ -329,5 +352,203 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
 
         }
 
-    
+        @Test
+        public void logged_out_users_cannot_get_changes() throws Exception {
+                mockMvc.perform(get("/api/MenuItemReview/changes"))
+                                .andExpect(status().is(403)); // logged out users can't get changes
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_changes_since_a_token() throws Exception {
+
+                // arrange
+
+                MenuItemReview changed = MenuItemReview.builder()
+                                .itemId(1L)
+                                .reviewerEmail("cgaucho@ucsb.edu")
+                                .stars(5)
+                                .changeSeq(7L)
+                                .build();
+
+                Tombstone deleted = Tombstone.builder()
+                                .changeSeq(9L)
+                                .entityType("MenuItemReview")
+                                .entityId("3")
+                                .build();
+
+                when(menuItemReviewRepository.findByChangeSeqGreaterThan(eq(5L))).thenReturn(List.of(changed));
+                when(tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(eq("MenuItemReview"), eq(5L))).thenReturn(List.of(deleted));
+
+                // act
+                MvcResult response = performAsync(get("/api/MenuItemReview/changes?since=5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(menuItemReviewRepository, times(1)).findByChangeSeqGreaterThan(5L);
+                ChangeSet<MenuItemReview> expected = ChangeSet.<MenuItemReview>builder()
+                                .changed(List.of(changed))
+                                .deleted(List.of("3"))
+                                .token(9L)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_without_a_token_gets_everything() throws Exception {
+
+                // arrange
+
+                MenuItemReview changed = MenuItemReview.builder()
+                                .itemId(1L)
+                                .reviewerEmail("cgaucho@ucsb.edu")
+                                .stars(5)
+                                .changeSeq(7L)
+                                .build();
+
+                when(menuItemReviewRepository.findAll()).thenReturn(List.of(changed));
+
+                // act
+                MvcResult response = performAsync(get("/api/MenuItemReview/changes"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(menuItemReviewRepository, times(1)).findAll();
+                ChangeSet<MenuItemReview> expected = ChangeSet.<MenuItemReview>builder()
+                                .changed(List.of(changed))
+                                .deleted(List.of())
+                                .token(7L)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_all_reviews_as_smile() throws Exception {
+
+                // arrange
+
+                LocalDateTime ldt1 = LocalDateTime.parse("2022-01-03T00:00:00");
+
+                MenuItemReview review1 = MenuItemReview.builder()
+                                .itemId(1L)
+                                .reviewerEmail("cgaucho@ucsb.edu")
+                                .stars(5)
+                                .dateReviewed(ldt1)
+                                .comments("good food")
+                                .build();
+
+                when(menuItemReviewRepository.findAll()).thenReturn(List.of(review1));
+
+                // act
+                MvcResult response = performAsync(get("/api/MenuItemReview/all").accept(WireFormatConfig.SMILE_VALUE))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(WireFormatConfig.SMILE_VALUE)).andReturn();
+
+                // assert
+
+                verify(menuItemReviewRepository, times(1)).findAll();
+                MenuItemReview[] decoded = smileConverter.getObjectMapper()
+                                .readValue(response.getResponse().getContentAsByteArray(), MenuItemReview[].class);
+                assertEquals(List.of(review1), List.of(decoded));
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_a_summary_of_all_reviews() throws Exception {
+
+                // arrange
+
+                MenuItemReview review1 = MenuItemReview.builder()
+                                .itemId(1L)
+                                .reviewerEmail("cgaucho@ucsb.edu")
+                                .stars(5)
+                                .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .comments("good food")
+                                .build();
+                MenuItemReviewSummary summary = new SpelAwareProxyProjectionFactory().createProjection(MenuItemReviewSummary.class, review1);
+
+                when(menuItemReviewRepository.findAllBy()).thenReturn(List.of(summary));
+
+                // act
+                MvcResult response = performAsync(get("/api/MenuItemReview/all?fields=summary"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(menuItemReviewRepository, never()).findAll();
+                Map<String, Object> row = mapper.readValue(response.getResponse().getContentAsString(), Map[].class)[0];
+                assertEquals(5, row.get("stars"));
+                assertFalse(row.containsKey("comments"));
+        }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_several_reviews_in_one_request() throws Exception {
+
+            // arrange
+
+            MenuItemReview row1 = MenuItemReview.builder()
+                            .id(1L)
+                            .itemId(1L)
+                            .reviewerEmail("cgaucho@ucsb.edu")
+                            .stars(5)
+                            .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                            .comments("good food")
+                            .build();
+
+            MenuItemReview row3 = MenuItemReview.builder()
+                            .id(3L)
+                            .itemId(1L)
+                            .reviewerEmail("cgaucho@ucsb.edu")
+                            .stars(5)
+                            .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+                            .comments("good food")
+                            .build();
+
+            when(menuItemReviewRepository.findAllById(eq(Set.of(1L, 2L, 3L)))).thenReturn(List.of(row1, row3));
+
+            // act
+            MvcResult response = performAsync(get("/api/MenuItemReview?ids=3,1,2,1"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(menuItemReviewRepository, times(1)).findAllById(eq(Set.of(1L, 2L, 3L)));
+            Map<Long, MenuItemReview> found = new LinkedHashMap<>();
+            found.put(3L, row3);
+            found.put(1L, row1);
+            MultiGetResult<Long, MenuItemReview> expected = MultiGetResult.<Long, MenuItemReview>builder()
+                            .found(found)
+                            .missing(List.of(2L))
+                            .build();
+            assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void multi_get_rejects_too_many_ids() throws Exception {
+
+            // arrange
+
+            String ids = IntStream.rangeClosed(1, 101).mapToObj(Integer::toString).collect(Collectors.joining(","));
+
+            // act
+            MvcResult response = performAsync(get("/api/MenuItemReview?ids=" + ids))
+                            .andExpect(status().isBadRequest()).andReturn();
+
+            // assert
+
+            verify(menuItemReviewRepository, never()).findAllById(any());
+            Map<String, Object> json = responseToJson(response);
+            assertEquals("InvalidRequestException", json.get("type"));
+            assertEquals("at most 100 ids may be requested at once", json.get("message"));
+    }
 }
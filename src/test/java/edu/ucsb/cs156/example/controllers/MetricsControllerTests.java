@@ -0,0 +1,491 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.models.CoalescingStats;
+import edu.ucsb.cs156.example.models.ConnectionPoolStats;
+import edu.ucsb.cs156.example.models.EntityCacheRegionStats;
+import edu.ucsb.cs156.example.models.EntityCacheStats;
+import edu.ucsb.cs156.example.models.HeldConnection;
+import edu.ucsb.cs156.example.models.HistogramSnapshot;
+import edu.ucsb.cs156.example.models.JdbcExecutorStats;
+import edu.ucsb.cs156.example.models.QueryStatsEntry;
+import edu.ucsb.cs156.example.models.QueryStatsReport;
+import edu.ucsb.cs156.example.models.RateLimitBudgetStats;
+import edu.ucsb.cs156.example.models.RateLimitClientStats;
+import edu.ucsb.cs156.example.models.RateLimitStats;
+import edu.ucsb.cs156.example.models.ReplicaRoutingStats;
+import edu.ucsb.cs156.example.models.ReplicaStats;
+import edu.ucsb.cs156.example.models.ResponseCacheStats;
+import edu.ucsb.cs156.example.models.StartupReport;
+import edu.ucsb.cs156.example.models.StartupStepTiming;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.ConnectionPoolMonitor;
+import edu.ucsb.cs156.example.services.EntityCacheStatsService;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
+import edu.ucsb.cs156.example.services.QueryStatistics;
+import edu.ucsb.cs156.example.services.RateLimiter;
+import edu.ucsb.cs156.example.services.ReadReplicaRouter;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
+import edu.ucsb.cs156.example.services.ResponseCache;
+import edu.ucsb.cs156.example.services.StartupReportService;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = MetricsController.class)
+public class MetricsControllerTests extends ControllerTestCase {
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  ResponseCache responseCache;
+
+  @MockBean
+  StartupReportService startupReportService;
+
+  @MockBean
+  JdbcExecutor jdbcExecutor;
+
+  @MockBean
+  ConnectionPoolMonitor connectionPoolMonitor;
+
+  @MockBean
+  QueryStatistics queryStatistics;
+
+  @MockBean
+  EntityCacheStatsService entityCacheStatsService;
+
+  @MockBean
+  ReadReplicaRouter readReplicaRouter;
+
+  @MockBean
+  RateLimiter rateLimiter;
+
+  @MockBean
+  RequestCoalescer requestCoalescer;
+
+  @Test
+  public void responseCache__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/responseCache"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void responseCache__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/responseCache"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void responseCache__admin_logged_in() throws Exception {
+
+    // arrange
+
+    ResponseCacheStats stats = ResponseCacheStats.builder()
+        .entries(2)
+        .usedBytes(4096)
+        .maxBytes(33554432)
+        .hits(3)
+        .misses(1)
+        .evictions(0)
+        .hitRatio(0.75)
+        .build();
+    when(responseCache.getStats()).thenReturn(stats);
+    String expectedJson = mapper.writeValueAsString(stats);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/responseCache"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void startup__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/startup"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void startup__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/startup"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void startup__admin_logged_in() throws Exception {
+
+    // arrange
+
+    StartupReport report = StartupReport.builder()
+        .jvmToReadyMillis(5400L)
+        .contextToReadyMillis(4800L)
+        .phases(List.of(StartupStepTiming.builder()
+            .name("spring.context.refresh")
+            .tags(Map.of())
+            .durationMillis(4100)
+            .selfMillis(300)
+            .build()))
+        .slowestBeans(List.of(StartupStepTiming.builder()
+            .name("spring.beans.instantiate")
+            .tags(Map.of("beanName", "entityManagerFactory"))
+            .durationMillis(2200)
+            .selfMillis(1900)
+            .build()))
+        .complete(true)
+        .build();
+    when(startupReportService.getReport()).thenReturn(report);
+    String expectedJson = mapper.writeValueAsString(report);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/startup"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void jdbcExecutor__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/jdbcExecutor"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void jdbcExecutor__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/jdbcExecutor"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void jdbcExecutor__admin_logged_in() throws Exception {
+
+    // arrange
+
+    JdbcExecutorStats stats = JdbcExecutorStats.builder()
+        .threads(10)
+        .activeThreads(4)
+        .queueDepth(2)
+        .queueCapacity(100)
+        .completed(1500)
+        .rejected(0)
+        .averageWaitMillis(0.8)
+        .maxWaitMillis(42.5)
+        .build();
+    when(jdbcExecutor.getStats()).thenReturn(stats);
+    String expectedJson = mapper.writeValueAsString(stats);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/jdbcExecutor"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void connectionPool__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/connectionPool"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void connectionPool__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/connectionPool"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void connectionPool__admin_logged_in() throws Exception {
+
+    // arrange
+
+    HistogramSnapshot histogram = HistogramSnapshot.builder()
+        .count(3)
+        .meanMillis(1.5)
+        .maxMillis(3.0)
+        .buckets(Map.of("1", 1L, "2", 1L, "5", 1L))
+        .build();
+    ConnectionPoolStats stats = ConnectionPoolStats.builder()
+        .poolName("HikariPool-1")
+        .active(1)
+        .idle(9)
+        .pending(0)
+        .total(10)
+        .maxPoolSize(10)
+        .timeouts(0)
+        .acquireMillis(histogram)
+        .usageMillis(histogram)
+        .longestHeld(List.of(HeldConnection.builder()
+            .handler("HelpRequestController.allHelpRequests")
+            .thread("jdbc-1")
+            .heldMillis(12)
+            .stackTrace(List.of())
+            .build()))
+        .leaksByHandler(Map.of())
+        .build();
+    when(connectionPoolMonitor.getStats()).thenReturn(stats);
+    String expectedJson = mapper.writeValueAsString(stats);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/connectionPool"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void queries__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/queries"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void queries__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/queries"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void queries__admin_logged_in() throws Exception {
+
+    // arrange
+
+    QueryStatsEntry entry = QueryStatsEntry.builder()
+        .repositoryMethod("HelpRequestRepository.findAll")
+        .sql("select helpreques0_.id as id1_1_ from helprequest helpreques0_")
+        .count(12)
+        .errors(0)
+        .rows(96)
+        .totalMillis(18.0)
+        .meanMillis(1.5)
+        .maxMillis(4.0)
+        .build();
+    QueryStatsReport report = QueryStatsReport.builder()
+        .statements(12)
+        .slowStatements(0)
+        .slowQueryMillis(500)
+        .byRepositoryMethod(List.of(QueryStatsEntry.builder()
+            .repositoryMethod("HelpRequestRepository.findAll")
+            .count(12)
+            .rows(96)
+            .totalMillis(18.0)
+            .meanMillis(1.5)
+            .maxMillis(4.0)
+            .build()))
+        .bySql(List.of(entry))
+        .build();
+    when(queryStatistics.getReport()).thenReturn(report);
+    String expectedJson = mapper.writeValueAsString(report);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/queries"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void entityCache__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/entityCache"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void entityCache__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/entityCache"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void entityCache__admin_logged_in() throws Exception {
+
+    // arrange
+
+    EntityCacheStats stats = EntityCacheStats.builder()
+        .hits(90)
+        .misses(10)
+        .hitRatio(0.9)
+        .regions(List.of(EntityCacheRegionStats.builder()
+            .entity("Article")
+            .size(10)
+            .hits(90)
+            .misses(10)
+            .puts(10)
+            .hitRatio(0.9)
+            .build()))
+        .build();
+    when(entityCacheStatsService.getStats()).thenReturn(stats);
+    String expectedJson = mapper.writeValueAsString(stats);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/entityCache"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void replicas__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/replicas"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void replicas__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/replicas"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void replicas__admin_logged_in() throws Exception {
+
+    // arrange
+
+    ReplicaRoutingStats stats = ReplicaRoutingStats.builder()
+        .primaryConnections(40)
+        .replicaConnections(160)
+        .stickyReads(3)
+        .fallbacks(0)
+        .stickyMillis(5000)
+        .replicas(List.of(ReplicaStats.builder()
+            .name("jdbc:postgresql://replica-1/team02")
+            .available(true)
+            .connections(160)
+            .failures(0)
+            .build()))
+        .build();
+    when(readReplicaRouter.getStats()).thenReturn(stats);
+    String expectedJson = mapper.writeValueAsString(stats);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/replicas"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void rateLimits__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/rateLimits"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void rateLimits__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/rateLimits"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void rateLimits__admin_logged_in() throws Exception {
+
+    // arrange
+
+    RateLimitStats stats = RateLimitStats.builder()
+        .enabled(true)
+        .clients(42)
+        .budgets(List.of(RateLimitBudgetStats.builder()
+            .budget("READ")
+            .perMinute(600)
+            .burst(100)
+            .allowed(12000)
+            .rejected(7)
+            .build()))
+        .topRejected(List.of(RateLimitClientStats.builder()
+            .client("ip:10.0.0.1")
+            .rejected(7)
+            .build()))
+        .build();
+    when(rateLimiter.getStats()).thenReturn(stats);
+    String expectedJson = mapper.writeValueAsString(stats);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/rateLimits"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+
+  @Test
+  public void coalescing__logged_out() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/coalescing"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void coalescing__user_logged_in() throws Exception {
+    mockMvc.perform(get("/api/admin/metrics/coalescing"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = { "ADMIN", "USER" })
+  @Test
+  public void coalescing__admin_logged_in() throws Exception {
+
+    // arrange
+
+    CoalescingStats stats = CoalescingStats.builder()
+        .requests(400)
+        .flights(4)
+        .coalesced(396)
+        .timeouts(0)
+        .inFlight(1)
+        .coalescingRatio(0.99)
+        .timeoutMillis(5000)
+        .build();
+    when(requestCoalescer.getStats()).thenReturn(stats);
+    String expectedJson = mapper.writeValueAsString(stats);
+
+    // act
+    MvcResult response = mockMvc.perform(get("/api/admin/metrics/coalescing"))
+        .andExpect(status().isOk()).andReturn();
+
+    // assert
+    String responseString = response.getResponse().getContentAsString();
+    assertEquals(expectedJson, responseString);
+  }
+}
@@ -4,12 +4,22 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Recommendation;
+import edu.ucsb.cs156.example.models.RecommendationSummary;
+import edu.ucsb.cs156.example.entities.Tombstone;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.RecommendationRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -26,14 +36,16 @@ import java.time.LocalDateTime;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = RecommendationController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, JdbcExecutor.class })
 public class RecommendationControllerTests extends ControllerTestCase {
     
     @MockBean
@@ -42,6 +54,9 @@ public class RecommendationControllerTests extends ControllerTestCase {
     @MockBean
     UserRepository userRepository;
 
+    @MockBean
+    TombstoneRepository tombstoneRepository;
+
     // Authorization tests for /api/ucsbdates/admin/all
 
     @Test
@@ -53,7 +68,7 @@ public class RecommendationControllerTests extends ControllerTestCase {
     @WithMockUser(roles = { "USER" })
     @Test
     public void logged_in_users_can_get_all() throws Exception {
-            mockMvc.perform(get("/api/Recommendation/all"))
+            performAsync(get("/api/Recommendation/all"))
                             .andExpect(status().is(200)); // logged
     }
 
@@ -101,7 +116,7 @@ public class RecommendationControllerTests extends ControllerTestCase {
             when(recommendRepository.findById(eq(7L))).thenReturn(Optional.of(recommendation));
 
             // act
-            MvcResult response = mockMvc.perform(get("/api/Recommendation?id=7"))
+            MvcResult response = performAsync(get("/api/Recommendation?id=7"))
                             .andExpect(status().isOk()).andReturn();
 
             // assert
@@ -121,7 +136,7 @@ public class RecommendationControllerTests extends ControllerTestCase {
             when(recommendRepository.findById(eq(7L))).thenReturn(Optional.empty());
 
             // act
-            MvcResult response = mockMvc.perform(get("/api/Recommendation?id=7"))
+            MvcResult response = performAsync(get("/api/Recommendation?id=7"))
                             .andExpect(status().isNotFound()).andReturn();
 
             // assert
@@ -167,7 +182,7 @@ public class RecommendationControllerTests extends ControllerTestCase {
             when(recommendRepository.findAll()).thenReturn(expectedDates);
 
             // act
-            MvcResult response = mockMvc.perform(get("/api/Recommendation/all"))
+            MvcResult response = performAsync(get("/api/Recommendation/all"))
                             .andExpect(status().isOk()).andReturn();
 
             // assert
@@ -198,7 +213,7 @@ public class RecommendationControllerTests extends ControllerTestCase {
             when(recommendRepository.save(eq(recommend1))).thenReturn(recommend1);
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAsync(
                             post("/api/Recommendation/post?requesterEmail=cgaucho@ucsb.edu&professorEmail=phtcon@ucsb.edu&explanation=BS/MS program&dateRequested=2022-04-20T00:00:00&dateNeeded=2022-05-01T00:00:00&done=true")
                                             .with(csrf()))
                             .andExpect(status().isOk()).andReturn();
@@ -230,7 +245,7 @@ public class RecommendationControllerTests extends ControllerTestCase {
             when(recommendRepository.findById(eq(15L))).thenReturn(Optional.of(recommend1));
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAsync(
                             delete("/api/Recommendation?id=15")
                                             .with(csrf()))
                             .andExpect(status().isOk()).andReturn();
@@ -252,7 +267,7 @@ public class RecommendationControllerTests extends ControllerTestCase {
             when(recommendRepository.findById(eq(15L))).thenReturn(Optional.empty());
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAsync(
                             delete("/api/Recommendation?id=15")
                                             .with(csrf()))
                             .andExpect(status().isNotFound()).andReturn();
@@ -297,7 +312,7 @@ public class RecommendationControllerTests extends ControllerTestCase {
             when(recommendRepository.findById(eq(67L))).thenReturn(Optional.of(recommendOrigin));
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAsync(
                             put("/api/Recommendation?id=67")
                                             .contentType(MediaType.APPLICATION_JSON)
                                             .characterEncoding("utf-8")
@@ -334,7 +349,7 @@ public class RecommendationControllerTests extends ControllerTestCase {
             when(recommendRepository.findById(eq(67L))).thenReturn(Optional.empty());
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAsync(
                             put("/api/Recommendation?id=67")
                                             .contentType(MediaType.APPLICATION_JSON)
                                             .characterEncoding("utf-8")
@@ -348,4 +363,117 @@ public class RecommendationControllerTests extends ControllerTestCase {
             assertEquals("Recommendation with id 67 not found", json.get("message"));
 
     }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_changes_since_a_token() throws Exception {
+
+            // arrange
+
+            Recommendation changed = Recommendation.builder()
+                            .requesterEmail("cgaucho@ucsb.edu")
+                            .professorEmail("phtcon@ucsb.edu")
+                            .changeSeq(7L)
+                            .build();
+
+            Tombstone deleted = Tombstone.builder()
+                            .changeSeq(9L)
+                            .entityType("Recommendation")
+                            .entityId("3")
+                            .build();
+
+            when(recommendRepository.findByChangeSeqGreaterThan(eq(5L))).thenReturn(List.of(changed));
+            when(tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(eq("Recommendation"), eq(5L))).thenReturn(List.of(deleted));
+
+            // act
+            MvcResult response = performAsync(get("/api/Recommendation/changes?since=5"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(recommendRepository, times(1)).findByChangeSeqGreaterThan(5L);
+            ChangeSet<Recommendation> expected = ChangeSet.<Recommendation>builder()
+                            .changed(List.of(changed))
+                            .deleted(List.of("3"))
+                            .token(9L)
+                            .build();
+            String expectedJson = mapper.writeValueAsString(expected);
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_a_summary_of_all_recommendations() throws Exception {
+
+            // arrange
+
+            Recommendation recommendation1 = Recommendation.builder()
+                            .requesterEmail("cgaucho@ucsb.edu")
+                            .professorEmail("phtcon@ucsb.edu")
+                            .explanation("BS/MS program")
+                            .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                            .dateNeeded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                            .done(false)
+                            .build();
+            RecommendationSummary summary = new SpelAwareProxyProjectionFactory().createProjection(RecommendationSummary.class, recommendation1);
+
+            when(recommendRepository.findAllBy()).thenReturn(List.of(summary));
+
+            // act
+            MvcResult response = performAsync(get("/api/Recommendation/all?fields=summary"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(recommendRepository, never()).findAll();
+            Map<String, Object> row = mapper.readValue(response.getResponse().getContentAsString(), Map[].class)[0];
+            assertEquals("phtcon@ucsb.edu", row.get("professorEmail"));
+            assertFalse(row.containsKey("explanation"));
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_several_recommendations_in_one_request() throws Exception {
+
+            // arrange
+
+            Recommendation row1 = Recommendation.builder()
+                            .id(1L)
+                            .requesterEmail("cgaucho@ucsb.edu")
+                            .professorEmail("phtcon@ucsb.edu")
+                            .explanation("BS/MS program")
+                            .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                            .dateNeeded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                            .done(false)
+                            .build();
+
+            Recommendation row3 = Recommendation.builder()
+                            .id(3L)
+                            .requesterEmail("cgaucho@ucsb.edu")
+                            .professorEmail("phtcon@ucsb.edu")
+                            .explanation("BS/MS program")
+                            .dateRequested(LocalDateTime.parse("2022-01-03T00:00:00"))
+                            .dateNeeded(LocalDateTime.parse("2022-01-03T00:00:00"))
+                            .done(false)
+                            .build();
+
+            when(recommendRepository.findAllById(eq(Set.of(1L, 2L, 3L)))).thenReturn(List.of(row1, row3));
+
+            // act
+            MvcResult response = performAsync(get("/api/Recommendation?ids=3,1,2,1"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(recommendRepository, times(1)).findAllById(eq(Set.of(1L, 2L, 3L)));
+            Map<Long, Recommendation> found = new LinkedHashMap<>();
+            found.put(3L, row3);
+            found.put(1L, row1);
+            MultiGetResult<Long, Recommendation> expected = MultiGetResult.<Long, Recommendation>builder()
+                            .found(found)
+                            .missing(List.of(2L))
+                            .build();
+            assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
 }
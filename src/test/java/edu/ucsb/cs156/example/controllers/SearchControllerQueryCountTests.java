@@ -0,0 +1,71 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.QueryCountTestCase;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.test.context.support.WithMockUser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Search against the real candidate queries: one select per source, with
+ * the best matches in the first page.
+ */
+public class SearchControllerQueryCountTests extends QueryCountTestCase {
+
+  @Autowired
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @BeforeEach
+  public void createMenuItems() {
+    ucsbDiningCommonsMenuItemRepository.saveAll(List.of(
+        menuItem("Quesotacos", "Grill"),
+        menuItem("Fish tacos", "Grill"),
+        menuItem("Taco Tuesday special", "Grill"),
+        menuItem("Rice bowl", "Taco bar"),
+        menuItem("Taco salad", "Salads"),
+        menuItem("Taco", "Grill")));
+  }
+
+  @AfterEach
+  public void deleteMenuItems() {
+    ucsbDiningCommonsMenuItemRepository.deleteAll();
+  }
+
+  private static UCSBDiningCommonsMenuItem menuItem(String name, String station) {
+    return UCSBDiningCommonsMenuItem.builder()
+        .diningCommonsCode("ortega")
+        .name(name)
+        .station(station)
+        .build();
+  }
+
+  @Test
+  public void candidates_are_exact_then_prefix_then_shortest() {
+    List<String> names = ucsbDiningCommonsMenuItemRepository.findSearchCandidates("taco", PageRequest.of(0, 4))
+        .stream().map(UCSBDiningCommonsMenuItem::getName).collect(Collectors.toList());
+
+    assertEquals(List.of("Taco", "Taco salad", "Taco Tuesday special", "Rice bowl"), names);
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void search_is_one_select_per_source() throws Exception {
+    queriesDuring(() -> performAsync(get("/api/search?q=TACO&limit=3"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.hits[0].title").value("Taco"))
+        .andExpect(jsonPath("$.sources.menuItems.matches").value(6)))
+        .atMostStatements(5);
+  }
+}
@@ -0,0 +1,114 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
+import edu.ucsb.cs156.example.services.SearchService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = SearchController.class)
+@Import({ TestConfig.class, SearchService.class, JdbcExecutor.class })
+public class SearchControllerTests extends ControllerTestCase {
+
+  @MockBean
+  ArticleRepository articleRepository;
+
+  @MockBean
+  UCSBOrganizationsRepository ucsbOrganizationsRepository;
+
+  @MockBean
+  UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @MockBean
+  UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @MockBean
+  UCSBDateRepository ucsbDateRepository;
+
+  @MockBean
+  UserRepository userRepository;
+
+  @MockBean
+  PlatformTransactionManager transactionManager;
+
+  @MockBean
+  EntityManager entityManager;
+
+  @Test
+  public void logged_out_users_cannot_search() throws Exception {
+    mockMvc.perform(get("/api/search?q=ortega"))
+        .andExpect(status().is(403));
+    verifyNoInteractions(articleRepository);
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void logged_in_users_can_search_every_kind_of_row() throws Exception {
+    UCSBDiningCommons ortega = UCSBDiningCommons.builder()
+        .code("ortega")
+        .name("Ortega")
+        .hasSackMeal(true)
+        .hasTakeOutMeal(true)
+        .hasDiningCam(true)
+        .latitude(34.410987)
+        .longitude(-119.84709)
+        .build();
+    when(ucsbDiningCommonsRepository.findSearchCandidates(anyString(), any(Pageable.class))).thenReturn(List.of(ortega));
+
+    MvcResult response = performAsync(get("/api/search?q=Ortega&limit=5"))
+        .andExpect(status().isOk()).andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Ortega", json.get("query"));
+    List<?> hits = (List<?>) json.get("hits");
+    assertEquals(1, hits.size());
+    Map<?, ?> hit = (Map<?, ?>) hits.get(0);
+    assertEquals(SearchService.DINING_COMMONS, hit.get("type"));
+    assertEquals("ortega", hit.get("id"));
+    assertEquals(1.0, hit.get("score"));
+    Map<?, ?> sources = (Map<?, ?>) json.get("sources");
+    assertEquals(5, sources.size());
+    assertEquals("ok", ((Map<?, ?>) sources.get(SearchService.DINING_COMMONS)).get("status"));
+    verify(ucsbDiningCommonsRepository).findSearchCandidates("ortega", PageRequest.of(0, 50));
+  }
+
+  @WithMockUser(roles = { "USER" })
+  @Test
+  public void too_short_a_query_is_a_bad_request() throws Exception {
+    MvcResult response = mockMvc.perform(get("/api/search?q=o"))
+        .andExpect(status().isBadRequest()).andReturn();
+
+    assertEquals("InvalidRequestException", responseToJson(response).get("type"));
+    verifyNoInteractions(articleRepository);
+  }
+}
@@ -4,11 +4,19 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.Tombstone;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -33,7 +41,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBDatesController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, JdbcExecutor.class })
 public class UCSBDatesControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -42,6 +50,9 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        TombstoneRepository tombstoneRepository;
+
         // Authorization tests for /api/ucsbdates/admin/all
 
         @Test
@@ -53,7 +64,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
         @WithMockUser(roles = { "USER" })
         @Test
         public void logged_in_users_can_get_all() throws Exception {
-                mockMvc.perform(get("/api/ucsbdates/all"))
+                performAsync(get("/api/ucsbdates/all"))
                                 .andExpect(status().is(200)); // logged
         }
 
@@ -97,7 +108,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 when(ucsbDateRepository.findById(eq(7L))).thenReturn(Optional.of(ucsbDate));
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/ucsbdates?id=7"))
+                MvcResult response = performAsync(get("/api/ucsbdates?id=7"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -117,7 +128,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 when(ucsbDateRepository.findById(eq(7L))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/ucsbdates?id=7"))
+                MvcResult response = performAsync(get("/api/ucsbdates?id=7"))
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
@@ -155,7 +166,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 when(ucsbDateRepository.findAll()).thenReturn(expectedDates);
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/ucsbdates/all"))
+                MvcResult response = performAsync(get("/api/ucsbdates/all"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -182,7 +193,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 when(ucsbDateRepository.save(eq(ucsbDate1))).thenReturn(ucsbDate1);
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 post("/api/ucsbdates/post?name=firstDayOfClasses&quarterYYYYQ=20222&localDateTime=2022-01-03T00:00:00")
                                                 .with(csrf()))
                                 .andExpect(status().isOk()).andReturn();
@@ -210,7 +221,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.of(ucsbDate1));
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 delete("/api/ucsbdates?id=15")
                                                 .with(csrf()))
                                 .andExpect(status().isOk()).andReturn();
@@ -232,7 +243,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 when(ucsbDateRepository.findById(eq(15L))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 delete("/api/ucsbdates?id=15")
                                                 .with(csrf()))
                                 .andExpect(status().isNotFound()).andReturn();
@@ -268,7 +279,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.of(ucsbDateOrig));
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 put("/api/ucsbdates?id=67")
                                                 .contentType(MediaType.APPLICATION_JSON)
                                                 .characterEncoding("utf-8")
@@ -301,7 +312,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 when(ucsbDateRepository.findById(eq(67L))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 put("/api/ucsbdates?id=67")
                                                 .contentType(MediaType.APPLICATION_JSON)
                                                 .characterEncoding("utf-8")
@@ -315,4 +326,81 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDate with id 67 not found", json.get("message"));
 
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_changes_since_a_token() throws Exception {
+
+                // arrange
+
+                UCSBDate changed = UCSBDate.builder()
+                                .quarterYYYYQ("20222")
+                                .name("firstDayOfClasses")
+                                .changeSeq(7L)
+                                .build();
+
+                Tombstone deleted = Tombstone.builder()
+                                .changeSeq(9L)
+                                .entityType("UCSBDate")
+                                .entityId("3")
+                                .build();
+
+                when(ucsbDateRepository.findByChangeSeqGreaterThan(eq(5L))).thenReturn(List.of(changed));
+                when(tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(eq("UCSBDate"), eq(5L))).thenReturn(List.of(deleted));
+
+                // act
+                MvcResult response = performAsync(get("/api/ucsbdates/changes?since=5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDateRepository, times(1)).findByChangeSeqGreaterThan(5L);
+                ChangeSet<UCSBDate> expected = ChangeSet.<UCSBDate>builder()
+                                .changed(List.of(changed))
+                                .deleted(List.of("3"))
+                                .token(9L)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_several_ucsbdates_in_one_request() throws Exception {
+
+                // arrange
+
+                UCSBDate row1 = UCSBDate.builder()
+                                .id(1L)
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                UCSBDate row3 = UCSBDate.builder()
+                                .id(3L)
+                                .name("firstDayOfClasses")
+                                .quarterYYYYQ("20222")
+                                .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+                                .build();
+
+                when(ucsbDateRepository.findAllById(eq(Set.of(1L, 2L, 3L)))).thenReturn(List.of(row1, row3));
+
+                // act
+                MvcResult response = performAsync(get("/api/ucsbdates?ids=3,1,2,1"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDateRepository, times(1)).findAllById(eq(Set.of(1L, 2L, 3L)));
+                Map<Long, UCSBDate> found = new LinkedHashMap<>();
+                found.put(3L, row3);
+                found.put(1L, row1);
+                MultiGetResult<Long, UCSBDate> expected = MultiGetResult.<Long, UCSBDate>builder()
+                                .found(found)
+                                .missing(List.of(2L))
+                                .build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
 }
@@ -4,11 +4,20 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.Tombstone;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -31,7 +40,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBDiningCommonsController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, JdbcExecutor.class, RequestCoalescer.class })
 public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
         @MockBean
@@ -40,6 +49,9 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
         @MockBean
         UserRepository userRepository;
 
+        @MockBean
+        TombstoneRepository tombstoneRepository;
+
         // Authorization tests for /api/ucsbdiningcommons/admin/all
 
         @Test
@@ -51,7 +63,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
         @WithMockUser(roles = { "USER" })
         @Test
         public void logged_in_users_can_get_all() throws Exception {
-                mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+                performAsync(get("/api/ucsbdiningcommons/all"))
                                 .andExpect(status().is(200)); // logged
         }
 
@@ -98,7 +110,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(commons));
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons?code=carrillo"))
+                MvcResult response = performAsync(get("/api/ucsbdiningcommons?code=carrillo"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -118,7 +130,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons?code=munger-hall"))
+                MvcResult response = performAsync(get("/api/ucsbdiningcommons?code=munger-hall"))
                                 .andExpect(status().isNotFound()).andReturn();
 
                 // assert
@@ -161,7 +173,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 when(ucsbDiningCommonsRepository.findAll()).thenReturn(expectedCommons);
 
                 // act
-                MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommons/all"))
+                MvcResult response = performAsync(get("/api/ucsbdiningcommons/all"))
                                 .andExpect(status().isOk()).andReturn();
 
                 // assert
@@ -190,7 +202,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 when(ucsbDiningCommonsRepository.save(eq(ortega))).thenReturn(ortega);
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 post("/api/ucsbdiningcommons/post?name=Ortega&code=ortega&hasSackMeal=true&hasTakeOutMeal=true&hasDiningCam=true&latitude=34.410987&longitude=-119.84709")
                                                 .with(csrf()))
                                 .andExpect(status().isOk()).andReturn();
@@ -220,7 +232,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 when(ucsbDiningCommonsRepository.findById(eq("portola"))).thenReturn(Optional.of(portola));
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 delete("/api/ucsbdiningcommons?code=portola")
                                                 .with(csrf()))
                                 .andExpect(status().isOk()).andReturn();
@@ -242,7 +254,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 delete("/api/ucsbdiningcommons?code=munger-hall")
                                                 .with(csrf()))
                                 .andExpect(status().isNotFound()).andReturn();
@@ -283,7 +295,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 when(ucsbDiningCommonsRepository.findById(eq("carrillo"))).thenReturn(Optional.of(carrilloOrig));
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 put("/api/ucsbdiningcommons?code=carrillo")
                                                 .contentType(MediaType.APPLICATION_JSON)
                                                 .characterEncoding("utf-8")
@@ -318,7 +330,7 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 when(ucsbDiningCommonsRepository.findById(eq("munger-hall"))).thenReturn(Optional.empty());
 
                 // act
-                MvcResult response = mockMvc.perform(
+                MvcResult response = performAsync(
                                 put("/api/ucsbdiningcommons?code=munger-hall")
                                                 .contentType(MediaType.APPLICATION_JSON)
                                                 .characterEncoding("utf-8")
@@ -332,4 +344,87 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
                 assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
 
         }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_changes_since_a_token() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons changed = UCSBDiningCommons.builder()
+                                .name("Carrillo")
+                                .code("carrillo")
+                                .changeSeq(7L)
+                                .build();
+
+                Tombstone deleted = Tombstone.builder()
+                                .changeSeq(9L)
+                                .entityType("UCSBDiningCommons")
+                                .entityId("munger-hall")
+                                .build();
+
+                when(ucsbDiningCommonsRepository.findByChangeSeqGreaterThan(eq(5L))).thenReturn(List.of(changed));
+                when(tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(eq("UCSBDiningCommons"), eq(5L))).thenReturn(List.of(deleted));
+
+                // act
+                MvcResult response = performAsync(get("/api/ucsbdiningcommons/changes?since=5"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDiningCommonsRepository, times(1)).findByChangeSeqGreaterThan(5L);
+                ChangeSet<UCSBDiningCommons> expected = ChangeSet.<UCSBDiningCommons>builder()
+                                .changed(List.of(changed))
+                                .deleted(List.of("munger-hall"))
+                                .token(9L)
+                                .build();
+                String expectedJson = mapper.writeValueAsString(expected);
+                String responseString = response.getResponse().getContentAsString();
+                assertEquals(expectedJson, responseString);
+        }
+
+        @WithMockUser(roles = { "USER" })
+        @Test
+        public void logged_in_user_can_get_several_commons_in_one_request() throws Exception {
+
+                // arrange
+
+                UCSBDiningCommons row1 = UCSBDiningCommons.builder()
+                                .name("Dining Commons DLG")
+                                .code("DLG")
+                                .hasSackMeal(false)
+                                .hasTakeOutMeal(false)
+                                .hasDiningCam(true)
+                                .latitude(34.409953)
+                                .longitude(-119.85277)
+                                .build();
+
+                UCSBDiningCommons row3 = UCSBDiningCommons.builder()
+                                .name("Dining Commons CAR")
+                                .code("CAR")
+                                .hasSackMeal(false)
+                                .hasTakeOutMeal(false)
+                                .hasDiningCam(true)
+                                .latitude(34.409953)
+                                .longitude(-119.85277)
+                                .build();
+
+                when(ucsbDiningCommonsRepository.findAllById(eq(Set.of("DLG", "ORT", "CAR")))).thenReturn(List.of(row1, row3));
+
+                // act
+                MvcResult response = performAsync(get("/api/ucsbdiningcommons?codes=CAR,DLG,ORT,DLG"))
+                                .andExpect(status().isOk()).andReturn();
+
+                // assert
+
+                verify(ucsbDiningCommonsRepository, times(1)).findAllById(eq(Set.of("DLG", "ORT", "CAR")));
+                Map<String, UCSBDiningCommons> found = new LinkedHashMap<>();
+                found.put("CAR", row3);
+                found.put("DLG", row1);
+                MultiGetResult<String, UCSBDiningCommons> expected = MultiGetResult.<String, UCSBDiningCommons>builder()
+                                .found(found)
+                                .missing(List.of("ORT"))
+                                .build();
+                assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+        }
 }
@@ -4,13 +4,26 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.Tombstone;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.ResponseCache;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
@@ -32,7 +45,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBDiningCommonsMenuItemController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, JdbcExecutor.class, ResponseCache.class })
 public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase{
     
     @MockBean
@@ -41,6 +54,18 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
     @MockBean
     UserRepository userRepository;
 
+    @MockBean
+    TombstoneRepository tombstoneRepository;
+
+    @Autowired
+    ResponseCache responseCache;
+
+    @BeforeEach
+    public void clearResponseCache() {
+            // the cache lives as long as the test context, which is shared by every test in this class
+            responseCache.invalidateAll();
+    }
+
     // Authorization tests for /api/ucsbdiningcommonsmenuitem/admin/all
 
     @Test
@@ -52,7 +77,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
     @WithMockUser(roles = { "USER" })
     @Test
     public void logged_in_users_can_get_all() throws Exception {
-        mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/all"))
+        performAsync(get("/api/ucsbdiningcommonsmenuitem/all"))
                 .andExpect(status().is(200)); // logged
     }
 
@@ -89,11 +114,11 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 .name("Baked Pesto Pasta with Chicken")
                 .station("Entree Specials")
                 .build();
-        
+
         when(ucsbDiningCommonsMenuItemRepository.findById(eq(1L))).thenReturn(Optional.of(item));
 
         // act
-        MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem?id=1"))
+        MvcResult response = performAsync(get("/api/ucsbdiningcommonsmenuitem?id=1"))
                 .andExpect(status().isOk()).andReturn();
         
         // assert
@@ -113,7 +138,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         when(ucsbDiningCommonsMenuItemRepository.findById(eq(27L))).thenReturn(Optional.empty());
 
         // act
-        MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem?id=27"))
+        MvcResult response = performAsync(get("/api/ucsbdiningcommonsmenuitem?id=27"))
                 .andExpect(status().isNotFound()).andReturn();
 
         // assert
@@ -148,7 +173,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         when(ucsbDiningCommonsMenuItemRepository.findAll()).thenReturn(expectedMenuItems);
 
         // act
-        MvcResult response = mockMvc.perform(get("/api/ucsbdiningcommonsmenuitem/all"))
+        MvcResult response = performAsync(get("/api/ucsbdiningcommonsmenuitem/all"))
                 .andExpect(status().isOk()).andReturn();
 
         // assert
@@ -173,7 +198,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         when(ucsbDiningCommonsMenuItemRepository.save(eq(salad))).thenReturn(salad);
 
         // act
-        MvcResult response = mockMvc.perform(
+        MvcResult response = performAsync(
                 post("/api/ucsbdiningcommonsmenuitem/post?diningCommonsCode=Portola&name=salad&station=Greens")
                                 .with(csrf()))
                 .andExpect(status().isOk()).andReturn();
@@ -196,12 +221,12 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
                 .name("salad")
                 .station("Greens")
                 .build();
-        
+
 
         when(ucsbDiningCommonsMenuItemRepository.findById(eq(1L))).thenReturn(Optional.of(salad));
 
         // act
-        MvcResult response = mockMvc.perform(
+        MvcResult response = performAsync(
                         delete("/api/ucsbdiningcommonsmenuitem?id=1")
                                     .with(csrf()))
                         .andExpect(status().isOk()).andReturn();
@@ -223,7 +248,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         when(ucsbDiningCommonsMenuItemRepository.findById(eq(1L))).thenReturn(Optional.empty());
 
         // act
-        MvcResult response = mockMvc.perform(
+        MvcResult response = performAsync(
                         delete("/api/ucsbdiningcommonsmenuitem?id=1")
                                     .with(csrf()))
                         .andExpect(status().isNotFound()).andReturn();
@@ -256,7 +281,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         when(ucsbDiningCommonsMenuItemRepository.findById(eq(1L))).thenReturn(Optional.of(saladOrig));
 
         // act
-        MvcResult response = mockMvc.perform(
+        MvcResult response = performAsync(
                         put("/api/ucsbdiningcommonsmenuitem?id=1")
                                         .contentType(MediaType.APPLICATION_JSON)
                                         .characterEncoding("utf-8")
@@ -287,7 +312,7 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         when(ucsbDiningCommonsMenuItemRepository.findById(eq(1L))).thenReturn(Optional.empty());
 
         // act
-        MvcResult response = mockMvc.perform(
+        MvcResult response = performAsync(
                         put("/api/ucsbdiningcommonsmenuitem?id=1")
                                         .contentType(MediaType.APPLICATION_JSON)
                                         .characterEncoding("utf-8")
@@ -300,4 +325,161 @@ public class UCSBDiningCommonsMenuItemControllerTests extends ControllerTestCase
         Map<String, Object> json = responseToJson(response);
         assertEquals("UCSBDiningCommonsMenuItem with id 1 not found", json.get("message"));     
     }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_changes_since_a_token() throws Exception {
+
+            // arrange
+
+            UCSBDiningCommonsMenuItem changed = UCSBDiningCommonsMenuItem.builder()
+                            .diningCommonsCode("Portola")
+                            .name("salad")
+                            .station("Greens")
+                            .changeSeq(7L)
+                            .build();
+
+            Tombstone deleted = Tombstone.builder()
+                            .changeSeq(9L)
+                            .entityType("UCSBDiningCommonsMenuItem")
+                            .entityId("3")
+                            .build();
+
+            when(ucsbDiningCommonsMenuItemRepository.findByChangeSeqGreaterThan(eq(5L))).thenReturn(List.of(changed));
+            when(tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(eq("UCSBDiningCommonsMenuItem"), eq(5L))).thenReturn(List.of(deleted));
+
+            // act
+            MvcResult response = performAsync(get("/api/ucsbdiningcommonsmenuitem/changes?since=5"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(ucsbDiningCommonsMenuItemRepository, times(1)).findByChangeSeqGreaterThan(5L);
+            ChangeSet<UCSBDiningCommonsMenuItem> expected = ChangeSet.<UCSBDiningCommonsMenuItem>builder()
+                            .changed(List.of(changed))
+                            .deleted(List.of("3"))
+                            .token(9L)
+                            .build();
+            String expectedJson = mapper.writeValueAsString(expected);
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void repeated_get_all_is_served_from_the_response_cache() throws Exception {
+
+            // arrange
+
+            UCSBDiningCommonsMenuItem item = UCSBDiningCommonsMenuItem.builder()
+                            .diningCommonsCode("Ortega")
+                            .name("pasta")
+                            .station("Entrees")
+                            .build();
+
+            when(ucsbDiningCommonsMenuItemRepository.findAll()).thenReturn(List.of(item));
+
+            // act
+            MvcResult first = performAsync(get("/api/ucsbdiningcommonsmenuitem/all"))
+                            .andExpect(status().isOk()).andReturn();
+            MvcResult second = performAsync(get("/api/ucsbdiningcommonsmenuitem/all"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAll();
+            String expectedJson = mapper.writeValueAsString(List.of(item));
+            assertEquals(expectedJson, first.getResponse().getContentAsString());
+            assertEquals(expectedJson, second.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void get_all_returns_gzip_when_accepted() throws Exception {
+
+            // arrange
+
+            UCSBDiningCommonsMenuItem item = UCSBDiningCommonsMenuItem.builder()
+                            .diningCommonsCode("Ortega")
+                            .name("pasta")
+                            .station("Entrees")
+                            .build();
+
+            when(ucsbDiningCommonsMenuItemRepository.findAll()).thenReturn(List.of(item));
+
+            // act
+            MvcResult response = performAsync(get("/api/ucsbdiningcommonsmenuitem/all").header("Accept-Encoding", "gzip, deflate"))
+                            .andExpect(status().isOk())
+                            .andExpect(header().string("Content-Encoding", "gzip")).andReturn();
+
+            // assert
+
+            byte[] body = new GZIPInputStream(new ByteArrayInputStream(response.getResponse().getContentAsByteArray())).readAllBytes();
+            assertEquals(mapper.writeValueAsString(List.of(item)), new String(body, "UTF-8"));
+    }
+
+    @WithMockUser(roles = { "ADMIN", "USER" })
+    @Test
+    public void post_invalidates_the_cached_get_all() throws Exception {
+
+            // arrange
+
+            UCSBDiningCommonsMenuItem item = UCSBDiningCommonsMenuItem.builder()
+                            .diningCommonsCode("Ortega")
+                            .name("pasta")
+                            .station("Entrees")
+                            .build();
+
+            when(ucsbDiningCommonsMenuItemRepository.findAll()).thenReturn(List.of()).thenReturn(List.of(item));
+
+            // act
+            performAsync(get("/api/ucsbdiningcommonsmenuitem/all")).andExpect(status().isOk());
+            performAsync(post("/api/ucsbdiningcommonsmenuitem/post?diningCommonsCode=Ortega&name=pasta&station=Entrees").with(csrf())).andExpect(status().isOk());
+            MvcResult response = performAsync(get("/api/ucsbdiningcommonsmenuitem/all"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(ucsbDiningCommonsMenuItemRepository, times(2)).findAll();
+            assertEquals(mapper.writeValueAsString(List.of(item)), response.getResponse().getContentAsString());
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_several_menuitems_in_one_request() throws Exception {
+
+            // arrange
+
+            UCSBDiningCommonsMenuItem row1 = UCSBDiningCommonsMenuItem.builder()
+                            .id(1L)
+                            .diningCommonsCode("ortega")
+                            .name("pasta 1")
+                            .station("Entrees")
+                            .build();
+
+            UCSBDiningCommonsMenuItem row3 = UCSBDiningCommonsMenuItem.builder()
+                            .id(3L)
+                            .diningCommonsCode("ortega")
+                            .name("pasta 3")
+                            .station("Entrees")
+                            .build();
+
+            when(ucsbDiningCommonsMenuItemRepository.findAllById(eq(Set.of(1L, 2L, 3L)))).thenReturn(List.of(row1, row3));
+
+            // act
+            MvcResult response = performAsync(get("/api/ucsbdiningcommonsmenuitem?ids=3,1,2,1"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(ucsbDiningCommonsMenuItemRepository, times(1)).findAllById(eq(Set.of(1L, 2L, 3L)));
+            Map<Long, UCSBDiningCommonsMenuItem> found = new LinkedHashMap<>();
+            found.put(3L, row3);
+            found.put(1L, row1);
+            MultiGetResult<Long, UCSBDiningCommonsMenuItem> expected = MultiGetResult.<Long, UCSBDiningCommonsMenuItem>builder()
+                            .found(found)
+                            .missing(List.of(2L))
+                            .build();
+            assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
 }
@@ -6,11 +6,19 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBOrganizations;
+import edu.ucsb.cs156.example.entities.Tombstone;
+import edu.ucsb.cs156.example.models.ChangeSet;
+import edu.ucsb.cs156.example.models.MultiGetResult;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
@@ -33,7 +41,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebMvcTest(controllers = UCSBOrganizationsController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, JdbcExecutor.class })
 public class UCSBOrganizationsControllerTests extends ControllerTestCase {
 
     @MockBean
@@ -42,6 +50,9 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
     @MockBean
     UserRepository userRepository;
 
+    @MockBean
+    TombstoneRepository tombstoneRepository;
+
     // Authorization tests for /api/UCSBOrganizations/admin/all
 
     @Test
@@ -53,7 +64,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
     @WithMockUser(roles = { "USER" })
     @Test
     public void logged_in_users_can_get_all() throws Exception {
-            mockMvc.perform(get("/api/UCSBOrganizations/all"))
+            performAsync(get("/api/UCSBOrganizations/all"))
                             .andExpect(status().is(200)); // logged
     }
 
@@ -98,7 +109,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
             when(ucsbOrganizationsRepository.findById("THT")).thenReturn(Optional.of(ucsbOrg));
 
             // act
-            MvcResult response = mockMvc.perform(get("/api/UCSBOrganizations?code=THT"))
+            MvcResult response = performAsync(get("/api/UCSBOrganizations?code=THT"))
                             .andExpect(status().isOk()).andReturn();
 
             // assert
@@ -119,7 +130,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
             when(ucsbOrganizationsRepository.findById(eq("LBJ"))).thenReturn(Optional.empty());
 
             // act
-            MvcResult response = mockMvc.perform(get("/api/UCSBOrganizations?code=LBJ"))
+            MvcResult response = performAsync(get("/api/UCSBOrganizations?code=LBJ"))
                             .andExpect(status().isNotFound()).andReturn();
 
             // assert
@@ -156,7 +167,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
             when(ucsbOrganizationsRepository.findAll()).thenReturn(expectedOrgs);
 
             // act
-            MvcResult response = mockMvc.perform(get("/api/UCSBOrganizations/all"))
+            MvcResult response = performAsync(get("/api/UCSBOrganizations/all"))
                             .andExpect(status().isOk()).andReturn();
 
             // assert
@@ -181,7 +192,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
             when(ucsbOrganizationsRepository.save(eq(ucsbOrg1))).thenReturn(ucsbOrg1);
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAsync(
                             post("/api/UCSBOrganizations/post?orgCode=LBJ&orgTranslationShort=LeBrJa&orgTranslation=LeBronJames&inactive=false")
                                             .with(csrf()))
                             .andExpect(status().isOk()).andReturn();
@@ -207,7 +218,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
             when(ucsbOrganizationsRepository.findById("LBJ")).thenReturn(Optional.of(ucsbOrg1));
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAsync(
                             delete("/api/UCSBOrganizations?orgCode=LBJ")
                                             .with(csrf()))
                             .andExpect(status().isOk()).andReturn();
@@ -229,7 +240,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
             when(ucsbOrganizationsRepository.findById("lbj")).thenReturn(Optional.empty());
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAsync(
                             delete("/api/UCSBOrganizations?orgCode=lbj")
                                             .with(csrf()))
                             .andExpect(status().isNotFound()).andReturn();
@@ -263,7 +274,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
             when(ucsbOrganizationsRepository.findById("LBJ")).thenReturn(Optional.of(ucsbOrgOrig));
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAsync(
                             put("/api/UCSBOrganizations?orgCode=LBJ")
                                             .contentType(MediaType.APPLICATION_JSON)
                                             .characterEncoding("utf-8")
@@ -294,7 +305,7 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
             when(ucsbOrganizationsRepository.findById("LBJ")).thenReturn(Optional.empty());
 
             // act
-            MvcResult response = mockMvc.perform(
+            MvcResult response = performAsync(
                             put("/api/UCSBOrganizations?orgCode=LBJ")
                                             .contentType(MediaType.APPLICATION_JSON)
                                             .characterEncoding("utf-8")
@@ -308,4 +319,81 @@ public class UCSBOrganizationsControllerTests extends ControllerTestCase {
             assertEquals("UCSBOrganizations with id LBJ not found", json.get("message"));
 
     }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_changes_since_a_token() throws Exception {
+
+            // arrange
+
+            UCSBOrganizations changed = UCSBOrganizations.builder()
+                            .orgCode("ZPR")
+                            .orgTranslationShort("ZETA PHI RHO")
+                            .changeSeq(7L)
+                            .build();
+
+            Tombstone deleted = Tombstone.builder()
+                            .changeSeq(9L)
+                            .entityType("UCSBOrganizations")
+                            .entityId("LBJ")
+                            .build();
+
+            when(ucsbOrganizationsRepository.findByChangeSeqGreaterThan(eq(5L))).thenReturn(List.of(changed));
+            when(tombstoneRepository.findByEntityTypeAndChangeSeqGreaterThan(eq("UCSBOrganizations"), eq(5L))).thenReturn(List.of(deleted));
+
+            // act
+            MvcResult response = performAsync(get("/api/UCSBOrganizations/changes?since=5"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(ucsbOrganizationsRepository, times(1)).findByChangeSeqGreaterThan(5L);
+            ChangeSet<UCSBOrganizations> expected = ChangeSet.<UCSBOrganizations>builder()
+                            .changed(List.of(changed))
+                            .deleted(List.of("LBJ"))
+                            .token(9L)
+                            .build();
+            String expectedJson = mapper.writeValueAsString(expected);
+            String responseString = response.getResponse().getContentAsString();
+            assertEquals(expectedJson, responseString);
+    }
+
+    @WithMockUser(roles = { "USER" })
+    @Test
+    public void logged_in_user_can_get_several_organizations_in_one_request() throws Exception {
+
+            // arrange
+
+            UCSBOrganizations row1 = UCSBOrganizations.builder()
+                            .orgCode("ZPR")
+                            .orgTranslationShort("Org")
+                            .orgTranslation("Organization ZPR")
+                            .inactive(false)
+                            .build();
+
+            UCSBOrganizations row3 = UCSBOrganizations.builder()
+                            .orgCode("OSLI")
+                            .orgTranslationShort("Org")
+                            .orgTranslation("Organization OSLI")
+                            .inactive(false)
+                            .build();
+
+            when(ucsbOrganizationsRepository.findAllById(eq(Set.of("ZPR", "SKY", "OSLI")))).thenReturn(List.of(row1, row3));
+
+            // act
+            MvcResult response = performAsync(get("/api/UCSBOrganizations?codes=OSLI,ZPR,SKY,ZPR"))
+                            .andExpect(status().isOk()).andReturn();
+
+            // assert
+
+            verify(ucsbOrganizationsRepository, times(1)).findAllById(eq(Set.of("ZPR", "SKY", "OSLI")));
+            Map<String, UCSBOrganizations> found = new LinkedHashMap<>();
+            found.put("OSLI", row3);
+            found.put("ZPR", row1);
+            MultiGetResult<String, UCSBOrganizations> expected = MultiGetResult.<String, UCSBOrganizations>builder()
+                            .found(found)
+                            .missing(List.of("SKY"))
+                            .build();
+            assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+    }
 }
@@ -4,6 +4,7 @@ import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import edu.ucsb.cs156.example.services.JdbcExecutor;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
@@ -23,7 +24,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 
 @WebMvcTest(controllers = UsersController.class)
-@Import(TestConfig.class)
+@Import({ TestConfig.class, JdbcExecutor.class })
 public class UsersControllerTests extends ControllerTestCase {
 
   @MockBean
@@ -60,7 +61,7 @@ public class UsersControllerTests extends ControllerTestCase {
     
     // act
 
-    MvcResult response = mockMvc.perform(get("/api/admin/users"))
+    MvcResult response = performAsync(get("/api/admin/users"))
         .andExpect(status().isOk()).andReturn();
 
     // assert
@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.entities;
+
+import edu.ucsb.cs156.example.QueryCountTestCase;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.TombstoneRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs against the whole application (see {@link QueryCountTestCase}) so
+ * the listener stamps rows through the real <code>change_clock</code>.
+ */
+public class ChangeSequenceListenerTests extends QueryCountTestCase {
+
+  @Autowired
+  MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired
+  TombstoneRepository tombstoneRepository;
+
+  @Autowired
+  PlatformTransactionManager transactionManager;
+
+  @AfterEach
+  public void deleteRows() {
+    menuItemReviewRepository.deleteAll();
+    tombstoneRepository.deleteAll();
+  }
+
+  private static MenuItemReview review(String reviewerEmail) {
+    return MenuItemReview.builder()
+        .itemId(7L)
+        .reviewerEmail(reviewerEmail)
+        .stars(3)
+        .dateReviewed(LocalDateTime.parse("2022-10-01T12:00:00"))
+        .comments("fine")
+        .build();
+  }
+
+  @Test
+  public void inserts_updates_and_deletes_are_numbered_in_order() {
+    MenuItemReview review = menuItemReviewRepository.save(review("cgaucho@ucsb.edu"));
+    long inserted = review.getChangeSeq();
+
+    review.setStars(5);
+    review = menuItemReviewRepository.save(review);
+    long updated = review.getChangeSeq();
+
+    menuItemReviewRepository.delete(review);
+    List<Tombstone> tombstones = (List<Tombstone>) tombstoneRepository
+        .findByEntityTypeAndChangeSeqGreaterThan("MenuItemReview", updated);
+
+    assertTrue(inserted < updated);
+    assertEquals(1, tombstones.size());
+    assertEquals(updated + 1, tombstones.get(0).getChangeSeq());
+    assertEquals(String.valueOf(review.getId()), tombstones.get(0).getEntityId());
+  }
+
+  @Test
+  public void a_second_writer_waits_for_the_first_to_commit() throws Exception {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    CountDownLatch firstStamped = new CountDownLatch(1);
+    CountDownLatch commitFirst = new CountDownLatch(1);
+
+    CompletableFuture<MenuItemReview> first = CompletableFuture.supplyAsync(() -> transaction.execute(status -> {
+      MenuItemReview saved = menuItemReviewRepository.save(review("cgaucho@ucsb.edu"));
+      firstStamped.countDown();
+      try {
+        commitFirst.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return saved;
+    }));
+    assertTrue(firstStamped.await(10, TimeUnit.SECONDS));
+
+    CompletableFuture<MenuItemReview> second = CompletableFuture.supplyAsync(
+        () -> transaction.execute(status -> menuItemReviewRepository.save(review("ldelplaya@ucsb.edu"))));
+    Thread.sleep(200);
+    assertFalse(second.isDone());
+
+    commitFirst.countDown();
+    assertTrue(first.get(10, TimeUnit.SECONDS).getChangeSeq() < second.get(10, TimeUnit.SECONDS).getChangeSeq());
+  }
+}
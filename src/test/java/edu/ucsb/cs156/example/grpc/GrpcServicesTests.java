@@ -0,0 +1,312 @@
+package edu.ucsb.cs156.example.grpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucsb.cs156.example.aop.CurrentHandler;
+import edu.ucsb.cs156.example.config.SecurityConfig;
+import edu.ucsb.cs156.example.controllers.HelpRequestController;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.grpc.proto.HelpRequestServiceGrpc;
+import edu.ucsb.cs156.example.grpc.proto.Id;
+import edu.ucsb.cs156.example.grpc.proto.InsertSummary;
+import edu.ucsb.cs156.example.grpc.proto.ListRequest;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.RequestCoalescer;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * Calls HelpRequestGrpcService through GrpcAuthInterceptor on an in-process
+ * server, with the repository mocked.  The other two services differ from it
+ * only in their entity.
+ */
+class GrpcServicesTests {
+
+  private static final String USER_TOKEN = "user-token";
+  private static final String ADMIN_TOKEN = "admin-token";
+
+  private final HelpRequestRepository helpRequestRepository = mock(HelpRequestRepository.class);
+  private final RequestCoalescer requestCoalescer = mock(RequestCoalescer.class);
+  private final SecurityConfig securityConfig = mock(SecurityConfig.class);
+
+  private Server server;
+  private ManagedChannel channel;
+
+  private final HelpRequest helpRequest = HelpRequest.builder()
+      .id(7)
+      .requesterEmail("cgaucho@ucsb.edu")
+      .teamId("f22-6pm-1")
+      .tableOrBreakoutRoom("7")
+      .requestTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+      .explanation("Need help with Swagger-ui")
+      .solved(false)
+      .changeSeq(12L)
+      .build();
+
+  @BeforeEach
+  void startServer() throws Exception {
+    HelpRequestGrpcService service = new HelpRequestGrpcService();
+    service.helpRequestRepository = helpRequestRepository;
+    service.requestCoalescer = requestCoalescer;
+    service.transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    service.maxBatch = 3;
+    service.pageSize = 2;
+
+    GrpcAuthInterceptor interceptor = new GrpcAuthInterceptor();
+    interceptor.securityConfig = securityConfig;
+    interceptor.setClients(List.of("analytics@ucsb.edu=" + USER_TOKEN, "loader@ucsb.edu=" + ADMIN_TOKEN, "broken"));
+    when(securityConfig.rolesFor("analytics@ucsb.edu")).thenReturn(Set.of(new SimpleGrantedAuthority("ROLE_MEMBER")));
+    when(securityConfig.rolesFor("loader@ucsb.edu")).thenReturn(Set.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+    String name = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(name)
+        .directExecutor()
+        .addService(ServerInterceptors.intercept(service, interceptor))
+        .build()
+        .start();
+    channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+  }
+
+  @AfterEach
+  void stopServer() throws Exception {
+    channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+  }
+
+  private HelpRequestServiceGrpc.HelpRequestServiceBlockingStub blockingStub(String token) {
+    return HelpRequestServiceGrpc.newBlockingStub(channel).withInterceptors(bearer(token));
+  }
+
+  private static io.grpc.ClientInterceptor bearer(String token) {
+    Metadata headers = new Metadata();
+    if (token != null) {
+      headers.put(GrpcAuthInterceptor.AUTHORIZATION, GrpcAuthInterceptor.BEARER + token);
+    }
+    return MetadataUtils.newAttachHeadersInterceptor(headers);
+  }
+
+  @Test
+  void calls_without_a_known_token_are_unauthenticated() {
+    StatusRuntimeException missing = assertThrows(StatusRuntimeException.class,
+        () -> blockingStub(null).get(Id.newBuilder().setId(7).build()));
+    StatusRuntimeException unknown = assertThrows(StatusRuntimeException.class,
+        () -> blockingStub("guess").get(Id.newBuilder().setId(7).build()));
+
+    assertEquals(Status.Code.UNAUTHENTICATED, missing.getStatus().getCode());
+    assertEquals(Status.Code.UNAUTHENTICATED, unknown.getStatus().getCode());
+    verify(helpRequestRepository, never()).findById(any());
+  }
+
+  @Test
+  void get_returns_the_row_as_the_client_with_its_handler() {
+    AtomicReference<String> user = new AtomicReference<>();
+    AtomicReference<String> handler = new AtomicReference<>();
+    when(helpRequestRepository.findById(7L)).thenAnswer(invocation -> {
+      user.set(SecurityContextHolder.getContext().getAuthentication().getName());
+      handler.set(CurrentHandler.get());
+      return Optional.of(helpRequest);
+    });
+
+    edu.ucsb.cs156.example.grpc.proto.HelpRequest response = blockingStub(USER_TOKEN)
+        .get(Id.newBuilder().setId(7).build());
+
+    assertEquals(GrpcMapping.toProto(helpRequest), response);
+    assertEquals("2022-01-03T00:00", response.getRequestTime());
+    assertEquals("analytics@ucsb.edu", user.get());
+    assertEquals("grpc:example.HelpRequestService/Get", handler.get());
+  }
+
+  @Test
+  void get_of_a_missing_row_is_not_found() {
+    when(helpRequestRepository.findById(8L)).thenReturn(Optional.empty());
+
+    StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+        () -> blockingStub(USER_TOKEN).get(Id.newBuilder().setId(8).build()));
+
+    assertEquals(Status.Code.NOT_FOUND, e.getStatus().getCode());
+    assertEquals("HelpRequest with id 8 not found", e.getStatus().getDescription());
+  }
+
+  @Test
+  void list_streams_everything_or_the_changes_since_a_token_a_page_at_a_time() {
+    HelpRequest other = HelpRequest.builder().id(8).requesterEmail("ldelplaya@ucsb.edu").changeSeq(13L).build();
+    HelpRequest third = HelpRequest.builder().id(9).requesterEmail("pdg@ucsb.edu").changeSeq(14L).build();
+    when(helpRequestRepository.findByIdGreaterThanOrderById(0L, PageRequest.of(0, 2)))
+        .thenReturn(List.of(helpRequest, other));
+    when(helpRequestRepository.findByIdGreaterThanOrderById(8L, PageRequest.of(0, 2))).thenReturn(List.of(third));
+    when(helpRequestRepository.findByChangeSeqGreaterThanOrderByChangeSeq(12L, PageRequest.of(0, 2)))
+        .thenReturn(List.of(other, third));
+    when(helpRequestRepository.findByChangeSeqGreaterThanOrderByChangeSeq(14L, PageRequest.of(0, 2)))
+        .thenReturn(List.of());
+
+    List<edu.ucsb.cs156.example.grpc.proto.HelpRequest> all = new ArrayList<>();
+    blockingStub(USER_TOKEN).list(ListRequest.getDefaultInstance()).forEachRemaining(all::add);
+    List<edu.ucsb.cs156.example.grpc.proto.HelpRequest> changed = new ArrayList<>();
+    blockingStub(USER_TOKEN).list(ListRequest.newBuilder().setSince(12).build()).forEachRemaining(changed::add);
+
+    assertEquals(List.of(GrpcMapping.toProto(helpRequest), GrpcMapping.toProto(other), GrpcMapping.toProto(third)),
+        all);
+    assertEquals(List.of(GrpcMapping.toProto(other), GrpcMapping.toProto(third)), changed);
+    assertEquals("", changed.get(0).getRequestTime());
+    verify(helpRequestRepository, never()).findAll();
+  }
+
+  @Test
+  void list_reads_pages_only_as_fast_as_the_client_takes_rows() {
+    HelpRequest second = HelpRequest.builder().id(8).requesterEmail("cgaucho@ucsb.edu").build();
+    HelpRequest third = HelpRequest.builder().id(9).requesterEmail("cgaucho@ucsb.edu").build();
+    HelpRequest fourth = HelpRequest.builder().id(10).requesterEmail("cgaucho@ucsb.edu").build();
+    when(helpRequestRepository.findByIdGreaterThanOrderById(0L, PageRequest.of(0, 2)))
+        .thenReturn(List.of(helpRequest, second));
+    when(helpRequestRepository.findByIdGreaterThanOrderById(8L, PageRequest.of(0, 2)))
+        .thenReturn(List.of(third, fourth));
+
+    List<Long> received = new ArrayList<>();
+    AtomicReference<ClientCallStreamObserver<ListRequest>> call = new AtomicReference<>();
+    HelpRequestServiceGrpc.newStub(channel).withInterceptors(bearer(USER_TOKEN)).list(ListRequest.getDefaultInstance(),
+        new ClientResponseObserver<ListRequest, edu.ucsb.cs156.example.grpc.proto.HelpRequest>() {
+          @Override
+          public void beforeStart(ClientCallStreamObserver<ListRequest> requestStream) {
+            requestStream.disableAutoRequestWithInitial(1);
+            call.set(requestStream);
+          }
+
+          @Override
+          public void onNext(edu.ucsb.cs156.example.grpc.proto.HelpRequest row) {
+            received.add(row.getId());
+          }
+
+          @Override
+          public void onError(Throwable t) {
+          }
+
+          @Override
+          public void onCompleted() {
+          }
+        });
+
+    assertEquals(List.of(7L), received);
+    verify(helpRequestRepository, never()).findByIdGreaterThanOrderById(8L, PageRequest.of(0, 2));
+
+    call.get().request(2);
+    assertEquals(List.of(7L, 8L, 9L), received);
+    verify(helpRequestRepository).findByIdGreaterThanOrderById(8L, PageRequest.of(0, 2));
+
+    call.get().cancel("done", null);
+    verify(helpRequestRepository, never()).findByIdGreaterThanOrderById(10L, PageRequest.of(0, 2));
+    assertEquals(List.of(7L, 8L, 9L), received);
+  }
+
+  @Test
+  void insert_saves_the_batch_for_an_admin() throws Exception {
+    when(helpRequestRepository.saveAll(any())).thenAnswer(invocation -> {
+      List<HelpRequest> saved = new ArrayList<>();
+      long id = 20;
+      for (HelpRequest row : invocation.<Iterable<HelpRequest>>getArgument(0)) {
+        row.setId(id++);
+        saved.add(row);
+      }
+      return saved;
+    });
+
+    InsertSummary summary = insert(ADMIN_TOKEN, GrpcMapping.toProto(helpRequest), GrpcMapping.toProto(helpRequest)).get();
+
+    assertEquals(2, summary.getInserted());
+    assertEquals(List.of(20L, 21L), summary.getIdsList());
+    verify(requestCoalescer).invalidate(HelpRequestController.ALL_HELP_REQUESTS);
+  }
+
+  @Test
+  void insert_needs_the_admin_role() {
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> insert(USER_TOKEN, GrpcMapping.toProto(helpRequest)).get());
+
+    assertEquals(Status.Code.PERMISSION_DENIED, ((StatusRuntimeException) e.getCause()).getStatus().getCode());
+    verify(helpRequestRepository, never()).saveAll(any());
+  }
+
+  @Test
+  void insert_of_a_malformed_row_saves_nothing() {
+    edu.ucsb.cs156.example.grpc.proto.HelpRequest malformed = GrpcMapping.toProto(helpRequest).toBuilder()
+        .setRequestTime("yesterday")
+        .build();
+
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> insert(ADMIN_TOKEN, GrpcMapping.toProto(helpRequest), malformed).get());
+
+    assertEquals(Status.Code.INVALID_ARGUMENT, ((StatusRuntimeException) e.getCause()).getStatus().getCode());
+    verify(helpRequestRepository, never()).saveAll(any());
+  }
+
+  @Test
+  void insert_of_more_than_max_batch_rows_saves_nothing() {
+    edu.ucsb.cs156.example.grpc.proto.HelpRequest row = GrpcMapping.toProto(helpRequest);
+
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> insert(ADMIN_TOKEN, row, row, row, row).get());
+
+    assertEquals(Status.Code.RESOURCE_EXHAUSTED, ((StatusRuntimeException) e.getCause()).getStatus().getCode());
+    verify(helpRequestRepository, never()).saveAll(any());
+  }
+
+  private CompletableFuture<InsertSummary> insert(String token, edu.ucsb.cs156.example.grpc.proto.HelpRequest... rows) {
+    CompletableFuture<InsertSummary> result = new CompletableFuture<>();
+    StreamObserver<edu.ucsb.cs156.example.grpc.proto.HelpRequest> requests = HelpRequestServiceGrpc.newStub(channel)
+        .withInterceptors(bearer(token))
+        .insert(new StreamObserver<InsertSummary>() {
+          @Override
+          public void onNext(InsertSummary summary) {
+            result.complete(summary);
+          }
+
+          @Override
+          public void onError(Throwable t) {
+            result.completeExceptionally(t);
+          }
+
+          @Override
+          public void onCompleted() {
+          }
+        });
+    for (edu.ucsb.cs156.example.grpc.proto.HelpRequest row : rows) {
+      requests.onNext(row);
+    }
+    requests.onCompleted();
+    return result;
+  }
+}
@@ -0,0 +1,151 @@
+package edu.ucsb.cs156.example.grpc;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.Recommendation;
+import lombok.extern.slf4j.Slf4j;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares what a listing costs to encode and decode on the wire: the JSON
+ * body the REST <code>/all</code> endpoints send against the stream of
+ * protobuf messages the gRPC <code>List</code> calls send.  As in
+ * WireFormatBenchmarkTests the timings are logged rather than asserted; the
+ * assertions check that protobuf round-trips and is smaller than JSON.
+ */
+@Slf4j
+@JsonTest
+public class GrpcWireFormatBenchmarkTests {
+
+  private static final int ROWS = 1000;
+  private static final int WARMUP_ROUNDS = 20;
+  private static final int MEASURED_ROUNDS = 50;
+
+  @Autowired
+  ObjectMapper jsonMapper;
+
+  @Test
+  public void protobuf_round_trips_and_is_smaller_than_json() throws Exception {
+    LocalDateTime start = LocalDateTime.parse("2022-01-03T00:00:00");
+
+    compare(HelpRequest.class, i -> HelpRequest.builder()
+        .id(i)
+        .requesterEmail("student" + i + "@ucsb.edu")
+        .teamId("f22-6pm-" + (i % 4))
+        .tableOrBreakoutRoom(String.valueOf(i % 12))
+        .requestTime(start.plusMinutes(i))
+        .explanation("Need help with the controller tests for request " + i)
+        .solved(i % 3 == 0)
+        .changeSeq((long) i)
+        .build(),
+        GrpcMapping::toProto, edu.ucsb.cs156.example.grpc.proto.HelpRequest.parser());
+    compare(MenuItemReview.class, i -> MenuItemReview.builder()
+        .id((long) i)
+        .itemId((long) (i % 50))
+        .reviewerEmail("reviewer" + i + "@ucsb.edu")
+        .stars(i % 5 + 1)
+        .dateReviewed(start.plusHours(i))
+        .comments("Review number " + i + " of the pasta station")
+        .changeSeq((long) i)
+        .build(),
+        GrpcMapping::toProto, edu.ucsb.cs156.example.grpc.proto.MenuItemReview.parser());
+    compare(Recommendation.class, i -> Recommendation.builder()
+        .id(i)
+        .requesterEmail("student" + i + "@ucsb.edu")
+        .professorEmail("professor" + (i % 20) + "@ucsb.edu")
+        .explanation("Graduate school application " + i)
+        .dateRequested(start.plusDays(i))
+        .dateNeeded(start.plusDays(i + 30))
+        .done(i % 2 == 0)
+        .changeSeq((long) i)
+        .build(),
+        GrpcMapping::toProto, edu.ucsb.cs156.example.grpc.proto.Recommendation.parser());
+  }
+
+  private <E, P extends MessageLite> void compare(Class<E> type, IntFunction<E> fixture, Function<E, P> toProto,
+      Parser<P> parser) throws IOException {
+    List<E> rows = new ArrayList<>();
+    for (int i = 1; i <= ROWS; i++) {
+      rows.add(fixture.apply(i));
+    }
+    JavaType listType = jsonMapper.getTypeFactory().constructCollectionType(List.class, type);
+
+    byte[] json = jsonMapper.writeValueAsBytes(rows);
+    assertEquals(rows, jsonMapper.readValue(json, listType));
+    byte[] protobuf = encode(rows, toProto);
+    List<P> messages = rows.stream().map(toProto).toList();
+    assertEquals(messages, decode(protobuf, parser));
+    assertTrue(protobuf.length < json.length, "protobuf should be smaller than json for " + type.getSimpleName());
+
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      jsonMapper.readValue(jsonMapper.writeValueAsBytes(rows), listType);
+      decode(encode(rows, toProto), parser);
+    }
+    long jsonEncodeNanos = 0;
+    long jsonDecodeNanos = 0;
+    long protobufEncodeNanos = 0;
+    long protobufDecodeNanos = 0;
+    for (int round = 0; round < MEASURED_ROUNDS; round++) {
+      long started = System.nanoTime();
+      json = jsonMapper.writeValueAsBytes(rows);
+      long encoded = System.nanoTime();
+      jsonMapper.readValue(json, listType);
+      long decoded = System.nanoTime();
+      protobuf = encode(rows, toProto);
+      long protobufEncoded = System.nanoTime();
+      decode(protobuf, parser);
+      long protobufDecoded = System.nanoTime();
+
+      jsonEncodeNanos += encoded - started;
+      jsonDecodeNanos += decoded - encoded;
+      protobufEncodeNanos += protobufEncoded - decoded;
+      protobufDecodeNanos += protobufDecoded - protobufEncoded;
+    }
+
+    log.info("{} x{} json: {} bytes, encode {} us, decode {} us", type.getSimpleName(), ROWS, json.length,
+        jsonEncodeNanos / MEASURED_ROUNDS / 1000, jsonDecodeNanos / MEASURED_ROUNDS / 1000);
+    log.info("{} x{} protobuf: {} bytes ({}% of json), encode {} us, decode {} us", type.getSimpleName(), ROWS,
+        protobuf.length, 100L * protobuf.length / json.length,
+        protobufEncodeNanos / MEASURED_ROUNDS / 1000, protobufDecodeNanos / MEASURED_ROUNDS / 1000);
+  }
+
+  /** The rows as length-delimited messages, the way a server stream frames them. */
+  private static <E, P extends MessageLite> byte[] encode(List<E> rows, Function<E, P> toProto) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (E row : rows) {
+      toProto.apply(row).writeDelimitedTo(out);
+    }
+    return out.toByteArray();
+  }
+
+  private static <P> List<P> decode(byte[] bytes, Parser<P> parser) throws IOException {
+    List<P> messages = new ArrayList<>();
+    InputStream in = new ByteArrayInputStream(bytes);
+    P message;
+    while ((message = parser.parseDelimitedFrom(in)) != null) {
+      messages.add(message);
+    }
+    return messages;
+  }
+}
@@ -0,0 +1,142 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import edu.ucsb.cs156.example.aop.CurrentHandler;
+import edu.ucsb.cs156.example.models.ConnectionPoolStats;
+import edu.ucsb.cs156.example.models.HeldConnection;
+import edu.ucsb.cs156.example.models.HistogramSnapshot;
+
+class ConnectionPoolMonitorTests {
+
+  private ConnectionPoolMonitor monitor;
+  private DataSource pool;
+  private DataSource monitored;
+
+  @BeforeEach
+  void createMonitor() throws Exception {
+    monitor = new ConnectionPoolMonitor();
+    monitor.leakThresholdMillis = 0;
+    monitor.captureStacks = true;
+    pool = mock(DataSource.class);
+    when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+    monitored = monitor.monitor(pool);
+  }
+
+  @AfterEach
+  void clearHandler() {
+    CurrentHandler.set(null);
+  }
+
+  @Test
+  void test_borrowed_connections_are_attributed_to_the_current_handler() throws Exception {
+    CurrentHandler.set("MenuItemReviewController.allMenuItemReviews");
+    Connection connection = monitored.getConnection();
+
+    HeldConnection held = monitor.getStats().getLongestHeld().get(0);
+    assertEquals("MenuItemReviewController.allMenuItemReviews", held.getHandler());
+    assertEquals(Thread.currentThread().getName(), held.getThread());
+    assertTrue(held.getStackTrace().get(0).contains(ConnectionPoolMonitorTests.class.getName()),
+        "the stack should start at the caller, not inside the monitor");
+
+    connection.close();
+
+    assertTrue(monitor.getStats().getLongestHeld().isEmpty());
+  }
+
+  @Test
+  void test_calls_are_passed_to_the_pooled_connection() throws Exception {
+    Connection pooled = mock(Connection.class);
+    when(pool.getConnection()).thenReturn(pooled);
+    when(pooled.getAutoCommit()).thenReturn(true);
+
+    try (Connection connection = monitored.getConnection()) {
+      assertTrue(connection.getAutoCommit());
+    }
+
+    verify(pooled).close();
+  }
+
+  @Test
+  void test_connections_held_past_the_threshold_are_counted_once_as_leaks() throws Exception {
+    CurrentHandler.set("ArticleController.allArticles");
+    monitored.getConnection();
+    CurrentHandler.set(null);
+    monitored.getConnection();
+
+    monitor.checkForLeaks();
+    monitor.checkForLeaks();
+
+    Map<String, Long> leaks = monitor.getStats().getLeaksByHandler();
+    assertEquals(Map.of("ArticleController.allArticles", 1L, ConnectionPoolMonitor.NO_HANDLER, 1L), leaks);
+  }
+
+  @Test
+  void test_stacks_are_not_captured_when_disabled() throws Exception {
+    monitor.captureStacks = false;
+
+    monitored.getConnection();
+
+    HeldConnection held = monitor.getStats().getLongestHeld().get(0);
+    assertTrue(held.getStackTrace().isEmpty());
+    assertNull(held.getHandler());
+  }
+
+  @Test
+  void test_hikari_measurements_and_pool_state_are_reported() {
+    PoolStats poolStats = new PoolStats(0) {
+      @Override
+      protected void update() {
+        totalConnections = 10;
+        activeConnections = 4;
+        idleConnections = 6;
+        pendingThreads = 2;
+        maxConnections = 10;
+      }
+    };
+    IMetricsTracker tracker = monitor.create("HikariPool-1", poolStats);
+
+    tracker.recordConnectionAcquiredNanos(300_000);
+    tracker.recordConnectionAcquiredNanos(7_000_000);
+    tracker.recordConnectionUsageMillis(15);
+    tracker.recordConnectionTimeout();
+
+    ConnectionPoolStats stats = monitor.getStats();
+    assertEquals("HikariPool-1", stats.getPoolName());
+    assertEquals(4, stats.getActive());
+    assertEquals(6, stats.getIdle());
+    assertEquals(2, stats.getPending());
+    assertEquals(10, stats.getTotal());
+    assertEquals(10, stats.getMaxPoolSize());
+    assertEquals(1, stats.getTimeouts());
+
+    HistogramSnapshot acquire = stats.getAcquireMillis();
+    assertEquals(2, acquire.getCount());
+    assertEquals(1L, acquire.getBuckets().get("0.5"));
+    assertEquals(1L, acquire.getBuckets().get("10"));
+    assertEquals(7.0, acquire.getMaxMillis());
+    assertEquals(3.65, acquire.getMeanMillis(), 1e-9);
+
+    HistogramSnapshot usage = stats.getUsageMillis();
+    assertEquals(1, usage.getCount());
+    assertEquals(1L, usage.getBuckets().get("20"));
+    assertEquals(0L, usage.getBuckets().get("+Inf"));
+  }
+}
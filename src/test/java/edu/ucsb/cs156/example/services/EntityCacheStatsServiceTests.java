@@ -0,0 +1,94 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.models.EntityCacheRegionStats;
+import edu.ucsb.cs156.example.models.EntityCacheStats;
+
+class EntityCacheStatsServiceTests {
+
+  private static final String ARTICLE = "edu.ucsb.cs156.example.entities.Article";
+  private static final String HELP_REQUEST = "edu.ucsb.cs156.example.entities.HelpRequest";
+
+  private EntityCacheStatsService service;
+  private Statistics statistics;
+  private CacheManager cacheManager;
+
+  @BeforeEach
+  void createService() {
+    statistics = mock(Statistics.class);
+    SessionFactory sessionFactory = mock(SessionFactory.class);
+    when(sessionFactory.getStatistics()).thenReturn(statistics);
+    EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+    when(entityManagerFactory.unwrap(SessionFactory.class)).thenReturn(sessionFactory);
+    cacheManager = mock(CacheManager.class);
+
+    service = new EntityCacheStatsService();
+    service.entityManagerFactory = entityManagerFactory;
+    service.entityCacheManager = cacheManager;
+  }
+
+  private void region(String name, long hits, long misses, long puts) {
+    CacheRegionStatistics region = mock(CacheRegionStatistics.class);
+    when(region.getHitCount()).thenReturn(hits);
+    when(region.getMissCount()).thenReturn(misses);
+    when(region.getPutCount()).thenReturn(puts);
+    when(statistics.getDomainDataRegionStatistics(name)).thenReturn(region);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void test_regions_are_reported_per_entity_with_their_hit_ratio() {
+    when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[] { HELP_REQUEST, ARTICLE });
+    region(ARTICLE, 30, 10, 10);
+    region(HELP_REQUEST, 0, 0, 0);
+    Cache<Object, Object> articles = mock(Cache.class);
+    com.github.benmanes.caffeine.cache.Cache<Object, Object> caffeine = mock(com.github.benmanes.caffeine.cache.Cache.class);
+    when(caffeine.estimatedSize()).thenReturn(10L);
+    when(articles.unwrap(com.github.benmanes.caffeine.cache.Cache.class)).thenReturn(caffeine);
+    when(cacheManager.getCache(ARTICLE)).thenReturn(articles);
+    Cache<Object, Object> helpRequests = mock(Cache.class);
+    when(helpRequests.unwrap(com.github.benmanes.caffeine.cache.Cache.class)).thenThrow(IllegalArgumentException.class);
+    when(cacheManager.getCache(HELP_REQUEST)).thenReturn(helpRequests);
+
+    EntityCacheStats stats = service.getStats();
+
+    assertEquals(30, stats.getHits());
+    assertEquals(10, stats.getMisses());
+    assertEquals(0.75, stats.getHitRatio());
+    assertEquals(2, stats.getRegions().size());
+
+    EntityCacheRegionStats article = stats.getRegions().get(0);
+    assertEquals("Article", article.getEntity());
+    assertEquals(10, article.getSize());
+    assertEquals(10, article.getPuts());
+    assertEquals(0.75, article.getHitRatio());
+
+    EntityCacheRegionStats helpRequest = stats.getRegions().get(1);
+    assertEquals("HelpRequest", helpRequest.getEntity());
+    assertEquals(-1, helpRequest.getSize());
+    assertEquals(0.0, helpRequest.getHitRatio());
+  }
+
+  @Test
+  void test_no_regions_means_no_lookups() {
+    when(statistics.getSecondLevelCacheRegionNames()).thenReturn(new String[0]);
+
+    EntityCacheStats stats = service.getStats();
+
+    assertEquals(0, stats.getRegions().size());
+    assertEquals(0.0, stats.getHitRatio());
+  }
+}
@@ -0,0 +1,99 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.JdbcExecutorStats;
+
+class JdbcExecutorTests {
+
+  private JdbcExecutor executor;
+
+  @BeforeEach
+  void startExecutor() {
+    executor = new JdbcExecutor();
+    executor.threads = 1;
+    executor.queueCapacity = 1;
+    executor.start();
+  }
+
+  @AfterEach
+  void stopExecutor() {
+    executor.destroy();
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void test_work_runs_off_the_calling_thread_with_its_security_context() throws Exception {
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("admin@ucsb.edu", null));
+
+    String result = executor.supply(() -> Thread.currentThread().getName() + " "
+        + SecurityContextHolder.getContext().getAuthentication().getName()).get(5, TimeUnit.SECONDS);
+
+    assertTrue(result.startsWith("jdbc-"));
+    assertTrue(result.endsWith(" admin@ucsb.edu"));
+  }
+
+  @Test
+  void test_exceptions_complete_the_future() {
+    CompletableFuture<Object> result = executor.supply(() -> {
+      throw new EntityNotFoundException(Object.class, 7L);
+    });
+
+    ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof EntityNotFoundException);
+  }
+
+  @Test
+  void test_work_beyond_the_queue_is_rejected_and_counted() throws Exception {
+    CountDownLatch running = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Integer> first = executor.supply(() -> {
+      running.countDown();
+      await(release);
+      return 1;
+    });
+    running.await(5, TimeUnit.SECONDS);
+    CompletableFuture<Integer> queued = executor.supply(() -> 2);
+
+    assertThrows(RejectedExecutionException.class, () -> executor.supply(() -> 3));
+
+    JdbcExecutorStats busy = executor.getStats();
+    assertEquals(1, busy.getThreads());
+    assertEquals(1, busy.getActiveThreads());
+    assertEquals(1, busy.getQueueDepth());
+    assertEquals(1, busy.getQueueCapacity());
+    assertEquals(1, busy.getRejected());
+
+    release.countDown();
+    assertEquals(1, first.get(5, TimeUnit.SECONDS));
+    assertEquals(2, queued.get(5, TimeUnit.SECONDS));
+
+    JdbcExecutorStats idle = executor.getStats();
+    assertEquals(0, idle.getQueueDepth());
+    assertTrue(idle.getMaxWaitMillis() > 0);
+    assertTrue(idle.getAverageWaitMillis() <= idle.getMaxWaitMillis());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
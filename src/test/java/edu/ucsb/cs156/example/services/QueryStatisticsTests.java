@@ -0,0 +1,156 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.aop.CurrentRepositoryMethod;
+import edu.ucsb.cs156.example.models.QueryStatsEntry;
+import edu.ucsb.cs156.example.models.QueryStatsReport;
+
+class QueryStatisticsTests {
+
+  private QueryStatistics queryStatistics;
+  private DataSource monitored;
+  private Connection keepAlive;
+
+  @BeforeEach
+  void createDatabase() throws Exception {
+    JdbcDataSource h2 = new JdbcDataSource();
+    h2.setURL("jdbc:h2:mem:querystats;DB_CLOSE_DELAY=-1");
+    keepAlive = h2.getConnection();
+    try (Statement statement = keepAlive.createStatement()) {
+      statement.execute("create table item (id bigint primary key, name varchar(50))");
+      statement.execute("insert into item values (1, 'a'), (2, 'b'), (3, 'c')");
+    }
+
+    queryStatistics = new QueryStatistics();
+    queryStatistics.slowQueryMillis = 500;
+    queryStatistics.maxStatements = 1000;
+    monitored = queryStatistics.monitor(h2);
+  }
+
+  @AfterEach
+  void dropDatabase() throws Exception {
+    CurrentRepositoryMethod.set(null);
+    try (Statement statement = keepAlive.createStatement()) {
+      statement.execute("drop table item");
+    }
+    keepAlive.close();
+  }
+
+  @Test
+  void test_statements_are_counted_per_repository_method_with_their_rows() throws Exception {
+    CurrentRepositoryMethod.set("ItemRepository.findAll");
+    try (Connection connection = monitored.getConnection()) {
+      for (int i = 0; i < 2; i++) {
+        try (PreparedStatement statement = connection.prepareStatement("select * from item");
+            ResultSet rows = statement.executeQuery()) {
+          while (rows.next()) {
+          }
+        }
+      }
+    }
+    CurrentRepositoryMethod.set("ItemRepository.save");
+    try (Connection connection = monitored.getConnection();
+        PreparedStatement statement = connection.prepareStatement("update item set name = ? where id > ?")) {
+      statement.setString(1, "z");
+      statement.setLong(2, 1);
+      assertEquals(2, statement.executeUpdate());
+    }
+
+    QueryStatsReport report = queryStatistics.getReport();
+    assertEquals(3, report.getStatements());
+    assertEquals(0, report.getSlowStatements());
+
+    QueryStatsEntry findAll = report.getBySql().stream()
+        .filter(entry -> entry.getSql().equals("select * from item"))
+        .findFirst().get();
+    assertEquals("ItemRepository.findAll", findAll.getRepositoryMethod());
+    assertEquals(2, findAll.getCount());
+    assertEquals(6, findAll.getRows());
+
+    QueryStatsEntry save = report.getByRepositoryMethod().stream()
+        .filter(entry -> entry.getRepositoryMethod().equals("ItemRepository.save"))
+        .findFirst().get();
+    assertEquals(null, save.getSql());
+    assertEquals(1, save.getCount());
+    assertEquals(2, save.getRows());
+  }
+
+  @Test
+  void test_statements_outside_a_repository_and_failures_are_counted() throws Exception {
+    try (Connection connection = monitored.getConnection(); Statement statement = connection.createStatement()) {
+      assertThrows(SQLException.class, () -> statement.executeQuery("select * from missing where id = 7"));
+      statement.executeQuery("select * from item where id = 1").close();
+      statement.executeQuery("select * from item where id = 2").close();
+    }
+
+    QueryStatsReport report = queryStatistics.getReport();
+    assertEquals(1, report.getByRepositoryMethod().size());
+    QueryStatsEntry none = report.getByRepositoryMethod().get(0);
+    assertEquals(QueryStatistics.NO_REPOSITORY, none.getRepositoryMethod());
+    assertEquals(3, none.getCount());
+    assertEquals(1, none.getErrors());
+    assertEquals(2, report.getBySql().size());
+  }
+
+  @Test
+  void test_statements_over_the_threshold_are_counted_as_slow() throws Exception {
+    try (Statement statement = keepAlive.createStatement()) {
+      statement.execute("create alias if not exists sleep for \"java.lang.Thread.sleep\"");
+    }
+    queryStatistics.slowQueryMillis = 200;
+    try (Connection connection = monitored.getConnection(); Statement statement = connection.createStatement()) {
+      statement.execute("call sleep(250)");
+    }
+
+    QueryStatsReport report = queryStatistics.getReport();
+    assertEquals(1, report.getStatements());
+    assertEquals(1, report.getSlowStatements());
+  }
+
+  @Test
+  void test_statements_beyond_the_limit_are_grouped_together() throws Exception {
+    queryStatistics.maxStatements = 1;
+    try (Connection connection = monitored.getConnection(); Statement statement = connection.createStatement()) {
+      statement.executeQuery("select id from item").close();
+      statement.executeQuery("select name from item").close();
+      statement.executeQuery("select * from item").close();
+    }
+
+    QueryStatsReport report = queryStatistics.getReport();
+    assertEquals(2, report.getBySql().size());
+    assertEquals(2, report.getBySql().stream()
+        .filter(entry -> entry.getSql().equals(QueryStatistics.OTHER))
+        .findFirst().get().getCount());
+  }
+
+  @Test
+  void test_normalize_replaces_literals_and_collapses_in_lists() {
+    assertEquals("select * from item i1_ where i1_.id in (?, ...) and name = ? and price > ?",
+        QueryStatistics.normalizeUncached(
+            "select *\n  from item i1_ where i1_.id in (?, ?,?) and name = 'it''s' and price > -1.5"));
+    assertEquals("select * from item where id = ?", QueryStatistics.normalizeUncached("select * from item where id = ?"));
+  }
+
+  @Test
+  void test_parameters_are_described_without_their_values() {
+    assertEquals("null", QueryStatistics.describe(null));
+    assertEquals("String(6)", QueryStatistics.describe("secret"));
+    assertEquals("byte[](3)", QueryStatistics.describe(new byte[3]));
+    assertEquals("Long", QueryStatistics.describe(42L));
+  }
+}
@@ -0,0 +1,121 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.ucsb.cs156.example.models.RateLimitBudgetStats;
+import edu.ucsb.cs156.example.models.RateLimitStats;
+import edu.ucsb.cs156.example.services.RateLimiter.Budget;
+
+/**
+ * The limiter's clock is replaced, so refills are tested without sleeping.
+ */
+class RateLimiterTests {
+
+  private RateLimiter rateLimiter;
+  private long now;
+
+  @BeforeEach
+  void createLimiter() {
+    rateLimiter = new RateLimiter();
+    rateLimiter.enabled = true;
+    rateLimiter.readPerMinute = 60;
+    rateLimiter.readBurst = 3;
+    rateLimiter.writePerMinute = 6;
+    rateLimiter.writeBurst = 1;
+    rateLimiter.adminPerMinute = 60;
+    rateLimiter.adminBurst = 1;
+    rateLimiter.maxClients = 100;
+    now = System.nanoTime();
+    rateLimiter.nanoTime = () -> now;
+  }
+
+  @Test
+  void allows_a_burst_then_says_how_long_to_wait() {
+    for (int i = 0; i < 3; i++) {
+      assertEquals(0, rateLimiter.acquire("a@ucsb.edu", Budget.READ));
+    }
+    assertEquals(TimeUnit.SECONDS.toNanos(1), rateLimiter.acquire("a@ucsb.edu", Budget.READ));
+  }
+
+  @Test
+  void refills_at_the_configured_rate() {
+    for (int i = 0; i < 3; i++) {
+      rateLimiter.acquire("a@ucsb.edu", Budget.READ);
+    }
+
+    now += TimeUnit.MILLISECONDS.toNanos(400);
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(600), rateLimiter.acquire("a@ucsb.edu", Budget.READ));
+
+    now += TimeUnit.MILLISECONDS.toNanos(600);
+    assertEquals(0, rateLimiter.acquire("a@ucsb.edu", Budget.READ));
+    assertTrue(rateLimiter.acquire("a@ucsb.edu", Budget.READ) > 0);
+
+    // a long pause refills the bucket, but only up to the burst
+    now += TimeUnit.MINUTES.toNanos(10);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(0, rateLimiter.acquire("a@ucsb.edu", Budget.READ));
+    }
+    assertTrue(rateLimiter.acquire("a@ucsb.edu", Budget.READ) > 0);
+  }
+
+  @Test
+  void budgets_and_clients_are_separate() {
+    assertEquals(0, rateLimiter.acquire("a@ucsb.edu", Budget.WRITE));
+    assertEquals(TimeUnit.SECONDS.toNanos(10), rateLimiter.acquire("a@ucsb.edu", Budget.WRITE));
+
+    assertEquals(0, rateLimiter.acquire("a@ucsb.edu", Budget.READ));
+    assertEquals(0, rateLimiter.acquire("a@ucsb.edu", Budget.ADMIN));
+    assertEquals(0, rateLimiter.acquire("b@ucsb.edu", Budget.WRITE));
+  }
+
+  @Test
+  void forgets_idle_clients_once_the_limit_is_reached() {
+    rateLimiter.maxClients = 2;
+    rateLimiter.acquire("a@ucsb.edu", Budget.WRITE);
+    now += TimeUnit.SECONDS.toNanos(5);
+    rateLimiter.acquire("b@ucsb.edu", Budget.WRITE);
+    rateLimiter.acquire("b@ucsb.edu", Budget.WRITE);
+    assertEquals(2, rateLimiter.getStats().getClients());
+
+    // a's bucket is full again 10 seconds after its request, b's is not yet
+    now += TimeUnit.SECONDS.toNanos(7);
+    assertEquals(0, rateLimiter.acquire("c@ucsb.edu", Budget.WRITE));
+
+    RateLimitStats stats = rateLimiter.getStats();
+    assertEquals(2, stats.getClients());
+    assertEquals(1, stats.getTopRejected().size());
+    assertEquals("b@ucsb.edu", stats.getTopRejected().get(0).getClient());
+  }
+
+  @Test
+  void stats_count_allowed_and_rejected_requests() {
+    for (int i = 0; i < 5; i++) {
+      rateLimiter.acquire("a@ucsb.edu", Budget.READ);
+    }
+    rateLimiter.acquire("ip:10.0.0.1", Budget.WRITE);
+    rateLimiter.acquire("ip:10.0.0.1", Budget.WRITE);
+    rateLimiter.acquire("ip:10.0.0.1", Budget.WRITE);
+
+    RateLimitStats stats = rateLimiter.getStats();
+
+    assertTrue(stats.getEnabled());
+    assertEquals(2, stats.getClients());
+    RateLimitBudgetStats reads = stats.getBudgets().get(0);
+    assertEquals("READ", reads.getBudget());
+    assertEquals(60, reads.getPerMinute());
+    assertEquals(3, reads.getBurst());
+    assertEquals(3, reads.getAllowed());
+    assertEquals(2, reads.getRejected());
+    RateLimitBudgetStats writes = stats.getBudgets().get(1);
+    assertEquals(1, writes.getAllowed());
+    assertEquals(2, writes.getRejected());
+    assertEquals(2, stats.getTopRejected().size());
+    assertEquals(2, stats.getTopRejected().get(0).getRejected());
+  }
+}
@@ -0,0 +1,181 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.ucsb.cs156.example.models.ReplicaRoutingStats;
+import edu.ucsb.cs156.example.models.ReplicaStats;
+
+/**
+ * Two in-memory H2 databases stand in for the primary and a replica; each
+ * has a <code>marker</code> row naming it, so a read shows where it went.
+ */
+class ReadReplicaRouterTests {
+
+  private JdbcDataSource primary;
+  private JdbcDataSource replica;
+  private Connection primaryKeepAlive;
+  private Connection replicaKeepAlive;
+  private ReadReplicaRouter router;
+
+  @BeforeEach
+  void createDatabases() throws Exception {
+    primary = database("primary");
+    replica = database("replica");
+    primaryKeepAlive = keepAlive(primary, "primary");
+    replicaKeepAlive = keepAlive(replica, "replica");
+
+    router = new ReadReplicaRouter();
+    router.stickyMillis = 60_000;
+    router.retryMillis = 60_000;
+  }
+
+  @AfterEach
+  void dropDatabases() throws Exception {
+    SecurityContextHolder.clearContext();
+    primaryKeepAlive.close();
+    replicaKeepAlive.close();
+  }
+
+  private static JdbcDataSource database(String name) {
+    JdbcDataSource dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:" + name + "-routing");
+    return dataSource;
+  }
+
+  private static Connection keepAlive(DataSource dataSource, String name) throws Exception {
+    Connection connection = dataSource.getConnection();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("create table marker (name varchar(20))");
+      statement.execute("insert into marker values ('" + name + "')");
+    }
+    return connection;
+  }
+
+  private DataSource routeToReplica() {
+    Map<String, DataSource> replicas = new LinkedHashMap<>();
+    replicas.put("replica", replica);
+    return router.route(primary, replicas);
+  }
+
+  private static String read(DataSource routed, boolean readOnly) {
+    TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(routed));
+    transaction.setReadOnly(readOnly);
+    return transaction.execute(status -> new JdbcTemplate(routed).queryForObject("select name from marker", String.class));
+  }
+
+  private static void write(DataSource routed, boolean commit) {
+    TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(routed));
+    transaction.executeWithoutResult(status -> {
+      new JdbcTemplate(routed).update("update marker set name = name");
+      if (!commit) {
+        status.setRollbackOnly();
+      }
+    });
+  }
+
+  private static void logInAs(String email) {
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(email, null, "ROLE_USER"));
+  }
+
+  @Test
+  void test_read_only_transactions_go_to_the_replica_and_everything_else_to_the_primary() throws Exception {
+    DataSource routed = routeToReplica();
+
+    assertEquals("replica", read(routed, true));
+    assertEquals("primary", read(routed, false));
+    assertEquals("primary", new JdbcTemplate(routed).queryForObject("select name from marker", String.class));
+
+    ReplicaRoutingStats stats = router.getStats();
+    assertEquals(1, stats.getReplicaConnections());
+    assertEquals(0, stats.getFallbacks());
+  }
+
+  @Test
+  void test_a_user_reads_from_the_primary_after_writing() throws Exception {
+    DataSource routed = routeToReplica();
+
+    logInAs("cgaucho@ucsb.edu");
+    assertEquals("replica", read(routed, true));
+    write(routed, true);
+    assertEquals("primary", read(routed, true));
+
+    logInAs("ldelplaya@ucsb.edu");
+    assertEquals("replica", read(routed, true));
+
+    assertEquals(1, router.getStats().getStickyReads());
+  }
+
+  @Test
+  void test_a_rolled_back_write_does_not_make_reads_sticky() throws Exception {
+    DataSource routed = routeToReplica();
+
+    logInAs("cgaucho@ucsb.edu");
+    write(routed, false);
+    assertEquals("replica", read(routed, true));
+  }
+
+  @Test
+  void test_reads_stop_being_sticky_after_the_window() throws Exception {
+    router.stickyMillis = 0;
+    DataSource routed = routeToReplica();
+
+    logInAs("cgaucho@ucsb.edu");
+    write(routed, true);
+    assertEquals("replica", read(routed, true));
+  }
+
+  @Test
+  void test_reads_fall_back_to_the_primary_when_the_replica_is_down() throws Exception {
+    JdbcDataSource down = new JdbcDataSource();
+    down.setURL("jdbc:h2:tcp://localhost:1/nothing-listens-here");
+    DataSource routed = router.route(primary, Map.of("down", down));
+
+    assertEquals("primary", read(routed, true));
+    assertEquals("primary", read(routed, true));
+
+    ReplicaRoutingStats stats = router.getStats();
+    assertEquals(2, stats.getFallbacks());
+    ReplicaStats replicaStats = stats.getReplicas().get(0);
+    assertEquals("down", replicaStats.getName());
+    assertEquals(false, replicaStats.getAvailable());
+    // skipped, not retried, until the retry interval has passed
+    assertEquals(1, replicaStats.getFailures());
+  }
+
+  @Test
+  void test_a_replica_is_retried_after_the_retry_interval() throws Exception {
+    router.retryMillis = 0;
+    JdbcDataSource down = new JdbcDataSource();
+    down.setURL("jdbc:h2:tcp://localhost:1/nothing-listens-here");
+    DataSource routed = router.route(primary, Map.of("down", down));
+
+    read(routed, true);
+    read(routed, true);
+
+    assertEquals(2, router.getStats().getReplicas().get(0).getFailures());
+  }
+
+  @Test
+  void test_without_replicas_the_primary_is_used_as_it_is() {
+    assertSame(primary, router.route(primary));
+    assertEquals(0, router.getStats().getReplicas().size());
+  }
+}
@@ -0,0 +1,145 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import edu.ucsb.cs156.example.models.CoalescingStats;
+
+class RequestCoalescerTests {
+
+  private RequestCoalescer requestCoalescer;
+  private CompletableFuture<Object> pending;
+  private AtomicInteger loads;
+
+  @BeforeEach
+  void createCoalescer() {
+    requestCoalescer = new RequestCoalescer();
+    requestCoalescer.httpMessageConverters = new HttpMessageConverters(new MappingJackson2HttpMessageConverter(),
+        new MappingJackson2CborHttpMessageConverter());
+    requestCoalescer.timeoutMillis = 5000;
+    pending = new CompletableFuture<>();
+    loads = new AtomicInteger();
+    signIn("ROLE_USER");
+  }
+
+  @AfterEach
+  void clearContext() {
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  void identical_requests_in_flight_share_one_load_and_one_body() throws Exception {
+    CompletableFuture<ResponseEntity<byte[]>> first = requestCoalescer.get(request("/api/helprequest/all"), this::load);
+    CompletableFuture<ResponseEntity<byte[]>> second = requestCoalescer.get(request("/api/helprequest/all"), this::load);
+
+    pending.complete(List.of("a", "b"));
+
+    assertEquals(1, loads.get());
+    assertEquals("[\"a\",\"b\"]", new String(first.get().getBody()));
+    assertEquals(MediaType.APPLICATION_JSON, first.get().getHeaders().getContentType());
+    assertEquals(first.get().getBody(), second.get().getBody());
+
+    CoalescingStats stats = requestCoalescer.getStats();
+    assertEquals(2, stats.getRequests());
+    assertEquals(1, stats.getFlights());
+    assertEquals(1, stats.getCoalesced());
+    assertEquals(0, stats.getInFlight());
+    assertEquals(0.5, stats.getCoalescingRatio(), 1e-9);
+  }
+
+  @Test
+  void requests_after_the_flight_lands_load_again() throws Exception {
+    pending.complete(List.of());
+    requestCoalescer.get(request("/api/helprequest/all"), this::load).get();
+    requestCoalescer.get(request("/api/helprequest/all"), this::load).get();
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void requests_differing_in_parameters_roles_or_format_do_not_share() {
+    requestCoalescer.get(request("/api/helprequest/all"), this::load);
+
+    MockHttpServletRequest withFields = request("/api/helprequest/all");
+    withFields.setParameter("fields", "summary");
+    requestCoalescer.get(withFields, this::load);
+
+    MockHttpServletRequest cbor = request("/api/helprequest/all");
+    cbor.addHeader("Accept", "application/cbor");
+    requestCoalescer.get(cbor, this::load);
+
+    signIn("ROLE_ADMIN", "ROLE_USER");
+    requestCoalescer.get(request("/api/helprequest/all"), this::load);
+
+    assertEquals(4, loads.get());
+  }
+
+  @Test
+  void a_slow_flight_fails_everyone_waiting_on_it() {
+    requestCoalescer.timeoutMillis = 50;
+    CompletableFuture<ResponseEntity<byte[]>> first = requestCoalescer.get(request("/api/helprequest/all"), this::load);
+    CompletableFuture<ResponseEntity<byte[]>> second = requestCoalescer.get(request("/api/helprequest/all"), this::load);
+
+    ExecutionException e = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(TimeoutException.class, e.getCause());
+    e = assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(TimeoutException.class, e.getCause());
+
+    assertEquals(1, requestCoalescer.getStats().getTimeouts());
+    assertEquals(0, requestCoalescer.getStats().getInFlight());
+  }
+
+  @Test
+  void failures_are_shared_too() {
+    CompletableFuture<ResponseEntity<byte[]>> first = requestCoalescer.get(request("/api/helprequest/all"), this::load);
+    CompletableFuture<ResponseEntity<byte[]>> second = requestCoalescer.get(request("/api/helprequest/all"), this::load);
+
+    pending.completeExceptionally(new IllegalStateException("boom"));
+
+    assertInstanceOf(IllegalStateException.class, assertThrows(ExecutionException.class, first::get).getCause());
+    assertInstanceOf(IllegalStateException.class, assertThrows(ExecutionException.class, second::get).getCause());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void requests_after_a_write_start_a_new_flight() {
+    requestCoalescer.get(request("/api/helprequest/all"), this::load);
+    requestCoalescer.invalidate("/api/helprequest/all");
+    requestCoalescer.get(request("/api/helprequest/all"), this::load);
+
+    assertEquals(2, loads.get());
+  }
+
+  private CompletableFuture<Object> load() {
+    loads.incrementAndGet();
+    return pending;
+  }
+
+  private static MockHttpServletRequest request(String uri) {
+    return new MockHttpServletRequest("GET", uri);
+  }
+
+  private static void signIn(String... roles) {
+    SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", "password", roles));
+  }
+}
@@ -0,0 +1,187 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import edu.ucsb.cs156.example.entities.Article;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
+import edu.ucsb.cs156.example.entities.UCSBOrganizations;
+import edu.ucsb.cs156.example.errors.InvalidRequestException;
+import edu.ucsb.cs156.example.models.SearchHit;
+import edu.ucsb.cs156.example.models.SearchResult;
+import edu.ucsb.cs156.example.models.SearchSourceStats;
+import edu.ucsb.cs156.example.repositories.ArticleRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationsRepository;
+
+class SearchServiceTests {
+
+  private SearchService searchService;
+  private JdbcExecutor jdbcExecutor;
+
+  @BeforeEach
+  void createService() {
+    jdbcExecutor = new JdbcExecutor();
+    jdbcExecutor.threads = 5;
+    jdbcExecutor.queueCapacity = 5;
+    jdbcExecutor.start();
+
+    searchService = new SearchService();
+    searchService.deadlineMillis = 1000;
+    searchService.candidatesPerSource = 50;
+    searchService.maxResults = 50;
+    searchService.minQueryLength = 2;
+    searchService.jdbcExecutor = jdbcExecutor;
+    searchService.transactionManager = mock(PlatformTransactionManager.class);
+    searchService.entityManager = mock(EntityManager.class);
+    searchService.articleRepository = mock(ArticleRepository.class);
+    searchService.ucsbOrganizationsRepository = mock(UCSBOrganizationsRepository.class);
+    searchService.ucsbDiningCommonsMenuItemRepository = mock(UCSBDiningCommonsMenuItemRepository.class);
+    searchService.ucsbDiningCommonsRepository = mock(UCSBDiningCommonsRepository.class);
+    searchService.ucsbDateRepository = mock(UCSBDateRepository.class);
+
+    when(searchService.articleRepository.findSearchCandidates(anyString(), any(Pageable.class))).thenReturn(List.of(
+            Article.builder().id(1).title("Taco Tuesday at Ortega").url("https://example.org/tacos")
+                .explanation("Weekly specials").build(),
+            Article.builder().id(2).title("Dining hall hours").url("https://example.org/hours")
+                .explanation("Ortega serves tacos until 8").build()));
+    when(searchService.ucsbOrganizationsRepository.findSearchCandidates(anyString(), any(Pageable.class)))
+        .thenReturn(List.of());
+    when(searchService.ucsbDiningCommonsMenuItemRepository.findSearchCandidates(anyString(), any(Pageable.class)))
+        .thenReturn(List.of(
+            UCSBDiningCommonsMenuItem.builder().id(27).name("Taco").station("Grill").diningCommonsCode("ortega")
+                .build(),
+            UCSBDiningCommonsMenuItem.builder().id(28).name("Fish tacos").station("Grill").diningCommonsCode("ortega")
+                .build()));
+    when(searchService.ucsbDiningCommonsRepository.findSearchCandidates(anyString(), any(Pageable.class)))
+        .thenReturn(List.of());
+    when(searchService.ucsbDateRepository.findSearchCandidates(anyString(), any(Pageable.class)))
+        .thenReturn(List.of());
+  }
+
+  @AfterEach
+  void stopExecutor() {
+    jdbcExecutor.destroy();
+  }
+
+  @Test
+  void score_depends_on_where_the_query_appears() {
+    assertEquals(1.0, SearchService.score("taco", "Taco"));
+    assertEquals(0.8, SearchService.score("taco", "Taco Tuesday"));
+    assertEquals(0.6, SearchService.score("taco", "Fish tacos"));
+    assertEquals(0.4, SearchService.score("taco", "Quesotacos"));
+    assertEquals(0.0, SearchService.score("taco", "Burrito", null));
+    assertEquals(1.0, SearchService.score("taco", "Fish tacos", "taco"));
+  }
+
+  @Test
+  void top_keeps_only_the_best_hits_best_first() {
+    List<SearchHit> hits = List.of(
+        hit("a", 0.4), hit("b", 1.0), hit("c", 0.6), hit("d", 0.8), hit("e", 0.0));
+
+    List<SearchHit> top = SearchService.top(List.of(hits.subList(0, 2), hits.subList(2, 5)), 3);
+
+    assertEquals(List.of("b", "d", "c"), top.stream().map(SearchHit::getId).collect(Collectors.toList()));
+  }
+
+  @Test
+  void hits_from_every_source_are_merged_and_ranked() throws Exception {
+    SearchResult result = searchService.search("  taco ", 3).get(5, TimeUnit.SECONDS);
+
+    assertEquals("taco", result.getQuery());
+    assertEquals(List.of("menuItems:27", "articles:1", "menuItems:28"),
+        result.getHits().stream().map(hit -> hit.getType() + ":" + hit.getId()).collect(Collectors.toList()));
+    assertEquals(List.of(SearchService.ARTICLES, SearchService.ORGANIZATIONS, SearchService.MENU_ITEMS,
+        SearchService.DINING_COMMONS, SearchService.DATES), List.copyOf(result.getSources().keySet()));
+    assertEquals(SearchSourceStats.OK, result.getSources().get(SearchService.ARTICLES).getStatus());
+    assertEquals(2, result.getSources().get(SearchService.MENU_ITEMS).getMatches());
+  }
+
+  @Test
+  void sources_that_miss_the_deadline_are_dropped() throws Exception {
+    searchService.deadlineMillis = 200;
+    when(searchService.ucsbDateRepository.findSearchCandidates(anyString(), any(Pageable.class))).thenAnswer(invocation -> {
+          Thread.sleep(2000);
+          return List.of(UCSBDate.builder().id(1).name("Taco day").quarterYYYYQ("20224")
+              .localDateTime(LocalDateTime.parse("2022-11-01T12:00:00")).build());
+        });
+
+    long start = System.nanoTime();
+    SearchResult result = searchService.search("taco", 10).get(5, TimeUnit.SECONDS);
+
+    assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1500);
+    SearchSourceStats dates = result.getSources().get(SearchService.DATES);
+    assertEquals(SearchSourceStats.TIMEOUT, dates.getStatus());
+    assertTrue(dates.getLatencyMillis() >= 200);
+    assertEquals(4, result.getHits().size());
+    assertTrue(result.getHits().stream().noneMatch(hit -> hit.getType().equals(SearchService.DATES)));
+  }
+
+  @Test
+  void each_source_queries_the_lower_case_needle_in_a_read_only_transaction_with_a_timeout() throws Exception {
+    searchService.search("  TACO ", 3).get(5, TimeUnit.SECONDS);
+
+    verify(searchService.articleRepository).findSearchCandidates("taco", PageRequest.of(0, 50));
+    verify(searchService.transactionManager, times(5))
+        .getTransaction(argThat(transaction -> transaction.isReadOnly()));
+    verify(searchService.entityManager, times(5)).setProperty(SearchService.QUERY_TIMEOUT, 1000);
+  }
+
+  @Test
+  void query_timeouts_round_the_time_left_up_to_whole_seconds() {
+    assertEquals(1000, SearchService.queryTimeoutMillis(TimeUnit.MILLISECONDS.toNanos(200)));
+    assertEquals(1000, SearchService.queryTimeoutMillis(TimeUnit.MILLISECONDS.toNanos(1000)));
+    assertEquals(2000, SearchService.queryTimeoutMillis(TimeUnit.MILLISECONDS.toNanos(1001)));
+    assertEquals(1000, SearchService.queryTimeoutMillis(-5));
+  }
+
+  @Test
+  void sources_that_fail_are_dropped() throws Exception {
+    when(searchService.ucsbDiningCommonsRepository.findSearchCandidates(anyString(), any(Pageable.class))).thenThrow(new IllegalStateException("connection reset"));
+
+    SearchResult result = searchService.search("ortega", 10).get(5, TimeUnit.SECONDS);
+
+    assertEquals(SearchSourceStats.ERROR, result.getSources().get(SearchService.DINING_COMMONS).getStatus());
+    assertEquals(SearchSourceStats.OK, result.getSources().get(SearchService.ARTICLES).getStatus());
+  }
+
+  @Test
+  void short_queries_and_bad_limits_are_rejected() {
+    assertThrows(InvalidRequestException.class, () -> searchService.search(" t ", 10));
+    assertThrows(InvalidRequestException.class, () -> searchService.search(null, 10));
+    assertThrows(InvalidRequestException.class, () -> searchService.search("taco", 0));
+    assertThrows(InvalidRequestException.class, () -> searchService.search("taco", 51));
+    verifyNoInteractions(searchService.articleRepository);
+  }
+
+  private static SearchHit hit(String id, double score) {
+    return SearchHit.builder().type(SearchService.ARTICLES).id(id).title("Title").score(score).build();
+  }
+}
@@ -0,0 +1,63 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
+
+import edu.ucsb.cs156.example.models.StartupReport;
+import edu.ucsb.cs156.example.models.StartupStepTiming;
+
+class StartupReportServiceTests {
+
+  @Test
+  void test_report_separates_phases_from_bean_instantiations() throws Exception {
+    BufferingApplicationStartup applicationStartup = new BufferingApplicationStartup(100);
+    StartupReportService service = new StartupReportService();
+    service.applicationStartup = applicationStartup;
+
+    StartupStep refresh = applicationStartup.start("spring.context.refresh");
+    StartupStep outer = applicationStartup.start("spring.beans.instantiate").tag("beanName", "articleController");
+    StartupStep inner = applicationStartup.start("spring.beans.instantiate").tag("beanName", "articleRepository");
+    Thread.sleep(20);
+    inner.end();
+    outer.end();
+    refresh.end();
+
+    StartupReport report = service.getReport();
+
+    assertEquals(1, report.getPhases().size());
+    assertEquals("spring.context.refresh", report.getPhases().get(0).getName());
+    assertTrue(report.getComplete());
+    // ready has not been signalled yet
+    assertNull(report.getJvmToReadyMillis());
+
+    List<StartupStepTiming> beans = report.getSlowestBeans();
+    assertEquals(2, beans.size());
+    // the repository did the waiting, so it ranks first by self time even
+    // though the controller's duration includes it
+    assertEquals(Map.of("beanName", "articleRepository"), beans.get(0).getTags());
+    assertTrue(beans.get(0).getSelfMillis() >= 20);
+    assertEquals(Map.of("beanName", "articleController"), beans.get(1).getTags());
+    assertTrue(beans.get(1).getDurationMillis() >= beans.get(0).getDurationMillis());
+    assertTrue(beans.get(1).getSelfMillis() < beans.get(0).getSelfMillis());
+  }
+
+  @Test
+  void test_report_is_empty_without_a_recorded_timeline() {
+    StartupReportService service = new StartupReportService();
+    service.applicationStartup = ApplicationStartup.DEFAULT;
+
+    StartupReport report = service.getReport();
+
+    assertEquals(List.of(), report.getPhases());
+    assertEquals(List.of(), report.getSlowestBeans());
+  }
+}
@@ -0,0 +1,57 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The statements one action executed, with assertions on how many of each
+ * kind there may be.  A failed assertion lists the statements, so the
+ * extra round trip is easy to find.
+ */
+public class QueryCount {
+  private final List<String> statements;
+
+  public QueryCount(List<String> statements) {
+    this.statements = statements;
+  }
+
+  public List<String> getStatements() {
+    return statements;
+  }
+
+  public long count(String verb) {
+    return statements.stream()
+        .filter(sql -> sql.toLowerCase(Locale.ROOT).startsWith(verb))
+        .count();
+  }
+
+  public QueryCount atMostSelects(int max) {
+    return atMost("select", count("select"), max);
+  }
+
+  public QueryCount atMostInserts(int max) {
+    return atMost("insert", count("insert"), max);
+  }
+
+  public QueryCount atMostUpdates(int max) {
+    return atMost("update", count("update"), max);
+  }
+
+  public QueryCount atMostDeletes(int max) {
+    return atMost("delete", count("delete"), max);
+  }
+
+  public QueryCount atMostStatements(int max) {
+    return atMost("statement", statements.size(), max);
+  }
+
+  private QueryCount atMost(String kind, long actual, int max) {
+    if (actual > max) {
+      fail("expected at most %d %s(s) but %d were executed:%n  %s".formatted(
+          max, kind, actual, String.join(System.lineSeparator() + "  ", statements)));
+    }
+    return this;
+  }
+}
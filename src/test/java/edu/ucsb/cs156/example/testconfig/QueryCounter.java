@@ -0,0 +1,86 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Records every statement executed through the DataSource it wraps, on any
+ * thread, so that tests can check how many round trips an endpoint makes.
+ * Installed by {@link QueryCounterConfig}.
+ */
+public class QueryCounter {
+  private final List<String> statements = new ArrayList<>();
+
+  /** Wraps <code>dataSource</code> so that statements on its connections are recorded. */
+  public DataSource count(DataSource dataSource) {
+    return new DelegatingDataSource(dataSource) {
+      @Override
+      public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+      }
+
+      @Override
+      public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+      }
+    };
+  }
+
+  /** Forgets the statements recorded so far. */
+  public synchronized void reset() {
+    statements.clear();
+  }
+
+  /** The statements recorded since the last reset, in execution order. */
+  public synchronized List<String> statements() {
+    return List.copyOf(statements);
+  }
+
+  private synchronized void record(String sql) {
+    statements.add(sql == null ? "(unknown)" : sql.trim());
+  }
+
+  private Connection connection(Connection connection) {
+    return proxy(Connection.class, connection, (proxy, method, args) -> {
+      Object result = invoke(connection, method, args);
+      if (result instanceof Statement statement) {
+        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+        return statement(method.getReturnType(), statement, sql);
+      }
+      return result;
+    });
+  }
+
+  private Object statement(Class<?> type, Statement statement, String preparedSql) {
+    return proxy(type, statement, (proxy, method, args) -> {
+      if (method.getName().startsWith("execute")) {
+        record(args != null && args.length > 0 && args[0] instanceof String s ? s : preparedSql);
+      }
+      return invoke(statement, method, args);
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T proxy(Class<T> type, Object target, InvocationHandler handler) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Puts a {@link QueryCounter} in front of the application's DataSource.
+ */
+@TestConfiguration
+public class QueryCounterConfig {
+
+    @Bean
+    public static QueryCounter queryCounter() {
+        return new QueryCounter();
+    }
+
+    @Bean
+    public static BeanPostProcessor queryCounterPostProcessor(QueryCounter queryCounter) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && beanName.equals("dataSource")) {
+                    return queryCounter.count(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,195 @@
+package edu.ucsb.cs156.example.testconfig;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.websocket.CloseReason;
+import javax.websocket.DeploymentException;
+import javax.websocket.Endpoint;
+import javax.websocket.EndpointConfig;
+import javax.websocket.HandshakeResponse;
+import javax.websocket.MessageHandler;
+import javax.websocket.Session;
+import javax.websocket.server.HandshakeRequest;
+import javax.websocket.server.ServerContainer;
+import javax.websocket.server.ServerEndpointConfig;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.LifecycleException;
+import org.apache.catalina.LifecycleState;
+import org.apache.catalina.startup.Tomcat;
+import org.apache.tomcat.websocket.server.WsSci;
+
+/**
+ * A stand-in for the React dev server: an HTTP server on a free local port
+ * that answers each path with a canned body and records the requests it got.
+ *
+ * Like the dev server's hot reload socket, <code>/ws</code> accepts
+ * WebSocket connections.  It echoes each message back with
+ * <code>echo: </code> in front (binary messages unchanged), closes the
+ * connection with status 4000 when sent the text <code>close</code>, and
+ * records how each connection was closed.
+ */
+public class StubDevServer implements AutoCloseable {
+
+  public static final int CLOSED_BY_REQUEST = 4000;
+
+  public record Response(int status, String contentType, byte[] body) {
+  }
+
+  public record Request(String uri, Map<String, List<String>> headers) {
+  }
+
+  private final Tomcat tomcat = new Tomcat();
+  private final Map<String, Response> responses = new ConcurrentHashMap<>();
+  private final List<Request> requests = new CopyOnWriteArrayList<>();
+  private final List<CloseReason> webSocketCloses = new CopyOnWriteArrayList<>();
+
+  public StubDevServer() throws IOException {
+    tomcat.setBaseDir(Files.createTempDirectory("stub-dev-server").toString());
+    tomcat.setHostname(InetAddress.getLoopbackAddress().getHostAddress());
+    tomcat.setPort(0);
+    tomcat.getConnector().setProperty("address", InetAddress.getLoopbackAddress().getHostAddress());
+
+    Context context = tomcat.addContext("", null);
+    Tomcat.addServlet(context, "canned", new CannedResponses());
+    context.addServletMappingDecoded("/", "canned");
+    context.addServletContainerInitializer(new WsSci(), null);
+    context.addServletContainerInitializer((classes, servletContext) -> {
+      ServerContainer container = (ServerContainer) servletContext.getAttribute(ServerContainer.class.getName());
+      try {
+        container.addEndpoint(ServerEndpointConfig.Builder.create(Echo.class, "/ws")
+            .configurator(new EchoConfigurator())
+            .build());
+      } catch (DeploymentException e) {
+        throw new IllegalStateException(e);
+      }
+    }, null);
+
+    try {
+      tomcat.start();
+    } catch (LifecycleException e) {
+      throw new IOException("could not start the stub dev server", e);
+    }
+  }
+
+  public void respond(String path, int status, String contentType, byte[] body) {
+    responses.put(path, new Response(status, contentType, body));
+  }
+
+  public List<Request> getRequests() {
+    return requests;
+  }
+
+  /** How each WebSocket connection to <code>/ws</code> was closed, in order. */
+  public List<CloseReason> getWebSocketCloses() {
+    return webSocketCloses;
+  }
+
+  public URI getUri() {
+    return URI.create("http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+        + tomcat.getConnector().getLocalPort());
+  }
+
+  @Override
+  public void close() {
+    if (tomcat.getServer().getState() == LifecycleState.DESTROYED) {
+      return;
+    }
+    try {
+      tomcat.stop();
+      tomcat.destroy();
+    } catch (LifecycleException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  // header names are matched case-insensitively, as HTTP does
+  private static Map<String, List<String>> headers(Map<String, List<String>> headers) {
+    Map<String, List<String>> copy = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    copy.putAll(headers);
+    return Collections.unmodifiableMap(copy);
+  }
+
+  private class CannedResponses extends HttpServlet {
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response) throws IOException {
+      Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+      for (String name : Collections.list(request.getHeaderNames())) {
+        headers.put(name, Collections.list(request.getHeaders(name)));
+      }
+      String uri = request.getRequestURI() + (request.getQueryString() == null ? "" : "?" + request.getQueryString());
+      requests.add(new Request(uri, headers(headers)));
+
+      Response canned = responses.getOrDefault(request.getRequestURI(),
+          new Response(404, "text/plain", "not found".getBytes()));
+      response.setStatus(canned.status());
+      response.setContentType(canned.contentType());
+      response.setContentLength(canned.body().length);
+      response.getOutputStream().write(canned.body());
+    }
+  }
+
+  private class EchoConfigurator extends ServerEndpointConfig.Configurator {
+    @Override
+    public void modifyHandshake(ServerEndpointConfig config, HandshakeRequest request, HandshakeResponse response) {
+      URI uri = request.getRequestURI();
+      requests.add(new Request(uri.getRawPath() + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery()),
+          headers(request.getHeaders())));
+    }
+
+    @Override
+    public <T> T getEndpointInstance(Class<T> endpointClass) {
+      return endpointClass.cast(new Echo(webSocketCloses));
+    }
+  }
+
+  public static class Echo extends Endpoint {
+    private final List<CloseReason> closes;
+
+    Echo(List<CloseReason> closes) {
+      this.closes = closes;
+    }
+
+    @Override
+    public void onOpen(Session session, EndpointConfig config) {
+      session.setMaxTextMessageBufferSize(1 << 20);
+      session.setMaxBinaryMessageBufferSize(1 << 20);
+      session.addMessageHandler(String.class, (MessageHandler.Whole<String>) text -> {
+        try {
+          if (text.equals("close")) {
+            session.close(new CloseReason(CloseReason.CloseCodes.getCloseCode(CLOSED_BY_REQUEST), "asked to"));
+          } else {
+            session.getBasicRemote().sendText("echo: " + text);
+          }
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      session.addMessageHandler(ByteBuffer.class, (MessageHandler.Whole<ByteBuffer>) bytes -> {
+        try {
+          session.getBasicRemote().sendBinary(bytes);
+        } catch (IOException e) {
+          throw new IllegalStateException(e);
+        }
+      });
+    }
+
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+      closes.add(closeReason);
+    }
+  }
+}